@@ -2,4 +2,5 @@
 RESTCOMM_ADDRESS=127.0.0.1
 LOCAL_ADDRESS=127.0.0.1
 
+# Enable <rcml-cache> in restcomm.xml and run again to compare, see ../../readme.txt
 sipp -sf ./helloplay-sipp.xml -s +1234 $RESTCOMM_ADDRESS:5080 -p 5090 -mi $LOCAL_ADDRESS:5090 -l 5 -m 100 -r 1 -trace_screen -recv_timeout 10000 -t un -nr
\ No newline at end of file
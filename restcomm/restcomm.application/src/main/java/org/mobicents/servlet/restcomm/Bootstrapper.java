@@ -1,9 +1,13 @@
 package org.mobicents.servlet.restcomm;
 
+import java.io.File;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import javax.media.mscontrol.MsControlException;
 import javax.media.mscontrol.MsControlFactory;
@@ -21,12 +25,19 @@ import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.XMLConfiguration;
 import org.apache.commons.configuration.interpol.ConfigurationInterpolator;
 import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.cache.DiskCacheIndex;
 import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
+import org.mobicents.servlet.restcomm.configuration.sets.MainConfigurationSet;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
+import org.mobicents.servlet.restcomm.dao.NumberRoutingTable;
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
 import org.mobicents.servlet.restcomm.entities.InstanceId;
 import org.mobicents.servlet.restcomm.entities.shiro.ShiroResources;
+import org.mobicents.servlet.restcomm.http.CustomHttpClientBuilder;
+import org.mobicents.servlet.restcomm.http.client.Downloader;
 import org.mobicents.servlet.restcomm.loader.ObjectFactory;
 import org.mobicents.servlet.restcomm.loader.ObjectInstantiationException;
+import org.mobicents.servlet.restcomm.mgcp.MediaGatewayPool;
 import org.mobicents.servlet.restcomm.mgcp.PowerOnMediaGateway;
 import org.mobicents.servlet.restcomm.mscontrol.MediaServerControllerFactory;
 import org.mobicents.servlet.restcomm.mscontrol.MediaServerInfo;
@@ -43,6 +54,9 @@ import akka.actor.Props;
 import akka.actor.UntypedActor;
 import akka.actor.UntypedActorFactory;
 
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+
 import com.telestax.servlet.MonitoringService;
 
 /**
@@ -65,6 +79,31 @@ public final class Bootstrapper extends SipServlet implements SipServletListener
     public void destroy() {
         system.shutdown();
         system.awaitTermination();
+        // Flush whatever the storage system still holds once no actor can write to it anymore.
+        final DaoManager storage = (DaoManager) getServletContext().getAttribute(DaoManager.class.getName());
+        if (storage != null) {
+            storage.shutdown();
+        }
+        Downloader.shutdown();
+        CustomHttpClientBuilder.shutdown();
+    }
+
+    // Picks up the incoming phone numbers, applications and accounts changed through the other nodes of a cluster.
+    private void refreshRoutes(final ActorSystem system, final NumberRoutingTable routes, final long interval) {
+        if (interval <= 0) {
+            return;
+        }
+        final FiniteDuration period = Duration.create(interval, TimeUnit.MILLISECONDS);
+        system.scheduler().schedule(period, period, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    routes.reload();
+                } catch (final Exception exception) {
+                    logger.error("Could not reload the routes of the incoming phone numbers", exception);
+                }
+            }
+        }, system.dispatchers().lookup(ActorDispatchers.BLOCKING_IO));
     }
 
     private MediaServerControllerFactory mediaServerControllerFactory(final Configuration configuration, ClassLoader loader)
@@ -75,11 +114,9 @@ public final class Bootstrapper extends SipServlet implements SipServletListener
         MediaServerControllerFactory factory;
         switch (compatibility) {
             case "mms":
-                ActorRef gateway;
                 try {
                     settings = configuration.subset("media-server-manager");
-                    gateway = gateway(settings, loader);
-                    factory = new MmsControllerFactory(this.system, gateway);
+                    factory = new MmsControllerFactory(this.system, gateways(settings, loader));
                 } catch (UnknownHostException e) {
                     throw new ServletException(e);
                 }
@@ -166,40 +203,79 @@ public final class Bootstrapper extends SipServlet implements SipServletListener
         return result;
     }
 
-    private ActorRef gateway(final Configuration settings, final ClassLoader loader) throws UnknownHostException {
+    private MediaGatewayPool gateways(final Configuration settings, final ClassLoader loader) throws UnknownHostException {
+        final MediaGatewayPool.Policy policy = MediaGatewayPool.Policy.getValueOf(settings.getString("pool.policy",
+                MediaGatewayPool.Policy.LEAST_ACTIVE.toString()));
+        final MediaGatewayPool pool = new MediaGatewayPool(system, policy, settings.getLong("pool.retry-interval", 30000));
+        final int size = settings.getList("mgcp-server[@name]").size();
+        for (int index = 0; index < size; index++) {
+            final String prefix = "mgcp-server(" + index + ")";
+            pool.add(settings.getString(prefix + "[@name]"), gateway(settings, prefix, loader),
+                    settings.getInt(prefix + "[@weight]", 1));
+        }
+        return pool;
+    }
+
+    private ActorRef gateway(final Configuration settings, final String prefix, final ClassLoader loader)
+            throws UnknownHostException {
         final ActorRef gateway = system.actorOf(new Props(new UntypedActorFactory() {
             private static final long serialVersionUID = 1L;
 
             @Override
             public UntypedActor create() throws Exception {
-                final String classpath = settings.getString("mgcp-server[@class]");
+                final String classpath = settings.getString(prefix + "[@class]");
                 return (UntypedActor) new ObjectFactory(loader).getObjectInstance(classpath);
             }
-        }));
+        }).withDispatcher(ActorDispatchers.SIGNALING));
         final PowerOnMediaGateway.Builder builder = PowerOnMediaGateway.builder();
-        builder.setName(settings.getString("mgcp-server[@name]"));
-        String address = settings.getString("mgcp-server.local-address");
+        builder.setName(settings.getString(prefix + "[@name]"));
+        String address = settings.getString(prefix + ".local-address");
         builder.setLocalIP(InetAddress.getByName(address));
-        String port = settings.getString("mgcp-server.local-port");
+        String port = settings.getString(prefix + ".local-port");
         builder.setLocalPort(Integer.parseInt(port));
-        address = settings.getString("mgcp-server.remote-address");
+        address = settings.getString(prefix + ".remote-address");
         builder.setRemoteIP(InetAddress.getByName(address));
-        port = settings.getString("mgcp-server.remote-port");
+        port = settings.getString(prefix + ".remote-port");
         builder.setRemotePort(Integer.parseInt(port));
-        address = settings.getString("mgcp-server.external-address");
+        address = settings.getString(prefix + ".external-address");
         if (address != null) {
             builder.setExternalIP(InetAddress.getByName(address));
             builder.setUseNat(true);
         } else {
             builder.setUseNat(false);
         }
-        final String timeout = settings.getString("mgcp-server.response-timeout");
+        final String timeout = settings.getString(prefix + ".response-timeout");
         builder.setTimeout(Long.parseLong(timeout));
+        builder.setTransactionTimeout(settings.getLong(prefix + ".transaction-timeout",
+                PowerOnMediaGateway.TRANSACTION_TIMEOUT_DEFAULT));
+        builder.setNotificationTimeout(settings.getLong(prefix + ".notification-timeout",
+                PowerOnMediaGateway.NOTIFICATION_TIMEOUT_DEFAULT));
         final PowerOnMediaGateway powerOn = builder.build();
         gateway.tell(powerOn, null);
         return gateway;
     }
 
+    // The thread counts of the dispatchers set in restcomm.xml override the ones of the akka configuration.
+    private Config dispatchers(final Configuration configuration) {
+        final Configuration settings = configuration.subset("dispatchers");
+        final Map<String, Object> dispatchers = new HashMap<String, Object>();
+        if (settings.containsKey("blocking-io-threads")) {
+            final int threads = settings.getInt("blocking-io-threads");
+            final String executor = ActorDispatchers.BLOCKING_IO + ".thread-pool-executor.";
+            dispatchers.put(executor + "core-pool-size-min", threads);
+            dispatchers.put(executor + "core-pool-size-max", threads);
+            dispatchers.put(executor + "max-pool-size-min", threads);
+            dispatchers.put(executor + "max-pool-size-max", threads);
+        }
+        if (settings.containsKey("signaling-threads")) {
+            final int threads = settings.getInt("signaling-threads");
+            final String executor = ActorDispatchers.SIGNALING + ".fork-join-executor.";
+            dispatchers.put(executor + "parallelism-min", threads);
+            dispatchers.put(executor + "parallelism-max", threads);
+        }
+        return ConfigFactory.parseMap(dispatchers);
+    }
+
     private String home(final ServletContext context) {
         final String path = context.getRealPath("/");
         if (path.endsWith("/")) {
@@ -230,6 +306,23 @@ public final class Bootstrapper extends SipServlet implements SipServletListener
 
     }
 
+    // Index the per account cache directories up front so the first calls do not pay for the directory scans.
+    private void cacheIndexes(final Configuration configuration) {
+        final MainConfigurationSet main = RestcommConfiguration.getInstance().getMain();
+        if (!main.isCacheIndexed()) {
+            return;
+        }
+        final String path = configuration.subset("runtime-settings").getString("cache-path");
+        final File[] directories = path != null ? new File(path).listFiles() : null;
+        if (directories != null) {
+            for (final File directory : directories) {
+                if (directory.isDirectory()) {
+                    DiskCacheIndex.getInstance(directory.getPath(), main.getCacheMaxBytes());
+                }
+            }
+        }
+    }
+
     private String uri(final ServletContext context) {
         return context.getContextPath();
     }
@@ -258,7 +351,7 @@ public final class Bootstrapper extends SipServlet implements SipServletListener
             // Initialize global dependencies.
             final ClassLoader loader = getClass().getClassLoader();
             // Create the actor system.
-            final Config settings = ConfigFactory.load();
+            final Config settings = dispatchers(xml).withFallback(ConfigFactory.load());
             system = ActorSystem.create("RestComm", settings, loader);
             // Share the actor system with other servlets.
             context.setAttribute(ActorSystem.class.getName(), system);
@@ -270,10 +363,21 @@ public final class Bootstrapper extends SipServlet implements SipServletListener
                 logger.error("ObjectInstantiationException during initialization: ", exception);
             }
             context.setAttribute(DaoManager.class.getName(), storage);
+            // Load the routes of the incoming phone numbers so that the call setup does not wait on the data store.
+            NumberRoutingTable routes = null;
+            if (storage != null) {
+                routes = new NumberRoutingTable(storage);
+                routes.reload();
+                context.setAttribute(NumberRoutingTable.class.getName(), routes);
+            }
             ShiroResources.getInstance().set(DaoManager.class, storage);
             ShiroResources.getInstance().set(Configuration.class, xml.subset("runtime-settings"));
             // Create high-level restcomm configuration
             RestcommConfiguration.createOnce(xml);
+            cacheIndexes(xml);
+            if (routes != null) {
+                refreshRoutes(system, routes, RestcommConfiguration.getInstance().getMain().getNumberRoutesRefresh());
+            }
 
             // Create the media gateway.
 
@@ -314,6 +418,10 @@ public final class Bootstrapper extends SipServlet implements SipServletListener
                 } catch (Exception exception) {
                     logger.error("RVD Porjects migration failed during initialization: ", exception);
                 }
+                // The migration attaches the numbers to the new applications.
+                if (routes != null) {
+                    routes.reload();
+                }
             }
 
             //Last, print Version and send PING if needed
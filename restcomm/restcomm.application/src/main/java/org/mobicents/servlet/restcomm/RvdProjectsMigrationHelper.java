@@ -50,6 +50,7 @@ import org.mobicents.servlet.restcomm.dao.ClientsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.dao.IncomingPhoneNumbersDao;
 import org.mobicents.servlet.restcomm.dao.NotificationsDao;
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
 import org.mobicents.servlet.restcomm.email.EmailService;
 import org.mobicents.servlet.restcomm.entities.Account;
 import org.mobicents.servlet.restcomm.entities.Application;
@@ -535,7 +536,7 @@ public class RvdProjectsMigrationHelper {
             public Actor create() throws Exception {
                 return new EmailService(configuration);
             }
-        }));
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO));
     }
 
     public boolean isEmbeddedMigration() {
@@ -0,0 +1,31 @@
+#SQL Script for MySQL/MariaDB to update DB with the indexes used by the listings of calls, SMS messages and notifications
+#and the daily usage rollups
+#Date: Oct 18, 2026
+
+#To run the script use mysql client:
+#mysql -u yourusername -p yourpassword yourdatabase < sql_update_script.sql
+
+/* Indexes of the listings, keyset paging seeks on (account_sid, date_created, sid) */
+CREATE INDEX IF NOT EXISTS restcomm_call_detail_records_account_date ON restcomm_call_detail_records (account_sid, date_created, sid);
+CREATE INDEX IF NOT EXISTS restcomm_call_detail_records_account_start ON restcomm_call_detail_records (account_sid, start_time);
+CREATE INDEX IF NOT EXISTS restcomm_call_detail_records_parent ON restcomm_call_detail_records (parent_call_sid);
+CREATE INDEX IF NOT EXISTS restcomm_sms_messages_account_date ON restcomm_sms_messages (account_sid, date_created, sid);
+CREATE INDEX IF NOT EXISTS restcomm_notifications_account_date ON restcomm_notifications (account_sid, date_created, sid);
+CREATE INDEX IF NOT EXISTS restcomm_notifications_call ON restcomm_notifications (call_sid);
+
+/* Indexes of the usage aggregation, it looks for the records updated since its previous run */
+CREATE INDEX IF NOT EXISTS restcomm_call_detail_records_updated ON restcomm_call_detail_records (date_updated);
+CREATE INDEX IF NOT EXISTS restcomm_sms_messages_updated ON restcomm_sms_messages (date_updated);
+
+CREATE TABLE IF NOT EXISTS restcomm_usage_daily (
+account_sid VARCHAR(34) NOT NULL,
+category VARCHAR(16) NOT NULL,
+usage_date DATE NOT NULL,
+api_version VARCHAR(10) NOT NULL,
+record_count BIGINT NOT NULL,
+usage_total BIGINT NOT NULL,
+price_total DOUBLE NOT NULL,
+PRIMARY KEY (account_sid, category, usage_date, api_version)
+);
+
+INSERT INTO update_scripts VALUES ('update_script_Oct18_2026', NOW());
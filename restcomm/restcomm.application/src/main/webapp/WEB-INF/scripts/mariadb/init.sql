@@ -284,6 +284,28 @@ script VARCHAR(255) NOT NULL,
 date_executed DATETIME NOT NULL
 );
 
+CREATE TABLE restcomm_usage_daily (
+account_sid VARCHAR(34) NOT NULL,
+category VARCHAR(16) NOT NULL,
+usage_date DATE NOT NULL,
+api_version VARCHAR(10) NOT NULL,
+record_count BIGINT NOT NULL,
+usage_total BIGINT NOT NULL,
+price_total DOUBLE NOT NULL,
+PRIMARY KEY (account_sid, category, usage_date, api_version)
+);
+
+/* Indexes of the listings, keyset paging seeks on (account_sid, date_created, sid) */
+CREATE INDEX restcomm_call_detail_records_account_date ON restcomm_call_detail_records (account_sid, date_created, sid);
+CREATE INDEX restcomm_call_detail_records_account_start ON restcomm_call_detail_records (account_sid, start_time);
+CREATE INDEX restcomm_call_detail_records_parent ON restcomm_call_detail_records (parent_call_sid);
+CREATE INDEX restcomm_sms_messages_account_date ON restcomm_sms_messages (account_sid, date_created, sid);
+CREATE INDEX restcomm_notifications_account_date ON restcomm_notifications (account_sid, date_created, sid);
+CREATE INDEX restcomm_notifications_call ON restcomm_notifications (call_sid);
+/* Indexes of the usage aggregation, it looks for the records updated since its previous run */
+CREATE INDEX restcomm_call_detail_records_updated ON restcomm_call_detail_records (date_updated);
+CREATE INDEX restcomm_sms_messages_updated ON restcomm_sms_messages (date_updated);
+
 INSERT INTO restcomm_accounts VALUES (
 "ACae6e420f425248d6a26948c17a9e2acf",
 Date("2012-04-24"),
@@ -0,0 +1,250 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.amazonS3;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * Uploads the recordings to Amazon S3 in the background so that the calls do not wait for them.
+ *
+ * Every recording to upload is recorded by a marker file in the queue directory until it has been uploaded, so the
+ * uploads interrupted by a restart are resumed once the uploader is started again. At most a fixed number of
+ * recordings are uploaded at the same time. A failed upload, or a recording not written to the disk yet, is tried
+ * again later, waiting twice as long after each attempt, until the maximum number of attempts is reached. The marker
+ * of a recording that could not be uploaded is then kept with the failed extension.
+ *
+ * When the original files must be removed, a recording is only removed once the listener has recorded its S3 URL
+ * and the removal delay is over, so the local URL handed out for the recording keeps working in the meantime. Its
+ * marker is kept with the uploaded extension until then, so the removals are not forgotten across a restart.
+ */
+@ThreadSafe
+public final class RecordingUploader {
+    private static final Logger logger = Logger.getLogger(RecordingUploader.class);
+    private static final String PENDING_EXTENSION = ".pending";
+    private static final String FAILED_EXTENSION = ".failed";
+    private static final String UPLOADED_EXTENSION = ".uploaded";
+    // The longest time between two attempts.
+    private static final long MAX_RETRY_INTERVAL = 10 * 60 * 1000;
+
+    /**
+     * Told about the recordings once they have been uploaded.
+     */
+    public interface Listener {
+        /**
+         * @param file the uploaded recording, it may already have been removed from the disk.
+         * @param url the public URL of the recording.
+         */
+        void uploaded(File file, URI url);
+    }
+
+    private final S3AccessTool s3;
+    private final File queue;
+    private final int maxAttempts;
+    private final long retryInterval;
+    private final long removalDelay;
+    private final ScheduledThreadPoolExecutor executor;
+    private volatile Listener listener;
+
+    /**
+     * @param s3 the client shared by the uploads.
+     * @param queue the directory of the marker files.
+     * @param workers the number of recordings uploaded at the same time.
+     * @param maxAttempts the number of times an upload is tried before giving up.
+     * @param retryInterval in milliseconds, the time to wait after the first failed attempt.
+     * @param removalDelay in milliseconds, how long an original file is kept once its S3 URL has been recorded.
+     */
+    public RecordingUploader(final S3AccessTool s3, final File queue, final int workers, final int maxAttempts,
+            final long retryInterval, final long removalDelay) {
+        super();
+        this.s3 = s3;
+        this.queue = queue;
+        this.maxAttempts = maxAttempts;
+        this.retryInterval = retryInterval;
+        this.removalDelay = removalDelay;
+        if (!queue.isDirectory() && !queue.mkdirs()) {
+            throw new IllegalArgumentException("Could not create the recordings upload queue directory " + queue);
+        }
+        this.executor = new ScheduledThreadPoolExecutor(workers, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "restcomm-recording-uploader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Starts uploading, beginning with the recordings left in the queue by a previous run.
+     */
+    public void start(final Listener listener) {
+        this.listener = listener;
+        for (final File marker : markers(PENDING_EXTENSION)) {
+            try {
+                final File file = new File(FileUtils.readFileToString(marker, "UTF-8").trim());
+                logger.info("Resuming the upload of the recording " + file);
+                executor.execute(new Upload(file, marker));
+            } catch (final IOException exception) {
+                logger.error("Could not read the recording upload marker " + marker, exception);
+            }
+        }
+        final long now = System.currentTimeMillis();
+        for (final File marker : markers(UPLOADED_EXTENSION)) {
+            try {
+                final File file = new File(FileUtils.readFileToString(marker, "UTF-8").trim());
+                final long delay = Math.max(marker.lastModified() + removalDelay - now, 0);
+                executor.schedule(new Removal(file, marker), delay, TimeUnit.MILLISECONDS);
+            } catch (final IOException exception) {
+                logger.error("Could not read the recording upload marker " + marker, exception);
+            }
+        }
+    }
+
+    private File[] markers(final String extension) {
+        final File[] markers = queue.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(final File directory, final String name) {
+                return name.endsWith(extension);
+            }
+        });
+        return markers != null ? markers : new File[0];
+    }
+
+    /**
+     * Queues a recording for upload. The recording may not have been written to the disk yet.
+     */
+    public void submit(final File file) {
+        final File marker = new File(queue, file.getName() + PENDING_EXTENSION);
+        try {
+            FileUtils.writeStringToFile(marker, file.getAbsolutePath(), "UTF-8");
+        } catch (final IOException exception) {
+            // The recording is still uploaded, it is only lost if the server stops before.
+            logger.error("Could not write the recording upload marker " + marker, exception);
+        }
+        executor.execute(new Upload(file, marker));
+    }
+
+    /**
+     * Stops uploading. The recordings not uploaded yet are uploaded once the uploader is started again.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        s3.shutdown();
+    }
+
+    public int getPending() {
+        return executor.getQueue().size() + executor.getActiveCount();
+    }
+
+    private final class Upload implements Runnable {
+        private final File file;
+        private final File marker;
+        private int attempts;
+
+        private Upload(final File file, final File marker) {
+            super();
+            this.file = file;
+            this.marker = marker;
+        }
+
+        @Override
+        public void run() {
+            attempts++;
+            try {
+                if (!file.exists()) {
+                    throw new IOException("The recording has not been written yet");
+                }
+                final URI url = s3.getPublicUrl(file);
+                s3.upload(file);
+                // Tried again with the upload if the URL cannot be recorded, the original file is still there.
+                final Listener listener = RecordingUploader.this.listener;
+                if (listener != null) {
+                    listener.uploaded(file, url);
+                }
+                if (s3.isRemoveOriginalFile()) {
+                    final File uploaded = new File(queue, file.getName() + UPLOADED_EXTENSION);
+                    if (marker.renameTo(uploaded)) {
+                        executor.schedule(new Removal(file, uploaded), removalDelay, TimeUnit.MILLISECONDS);
+                    } else {
+                        logger.warn("Could not mark the recording " + file + " as uploaded, it is kept on the disk");
+                        marker.delete();
+                    }
+                } else if (!marker.delete() && marker.exists()) {
+                    logger.warn("Could not remove the recording upload marker " + marker);
+                }
+            } catch (final InterruptedException exception) {
+                // Shutting down, the marker is kept so the upload is resumed.
+                Thread.currentThread().interrupt();
+            } catch (final Exception exception) {
+                if (attempts < maxAttempts && !executor.isShutdown()) {
+                    final long delay = Math.min(retryInterval << Math.min(attempts - 1, 20), MAX_RETRY_INTERVAL);
+                    logger.warn("Could not upload the recording " + file + " attempt " + attempts + ", trying again in "
+                            + delay + " ms: " + exception.getMessage());
+                    executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+                } else {
+                    logger.error("Giving up uploading the recording " + file + " after " + attempts + " attempts",
+                            exception);
+                    final File failed = new File(queue, file.getName() + FAILED_EXTENSION);
+                    if (!marker.renameTo(failed)) {
+                        logger.warn("Could not mark the upload of the recording " + file + " as failed");
+                    }
+                }
+            }
+        }
+    }
+
+    // Removes an uploaded recording from the disk once its removal delay is over.
+    private final class Removal implements Runnable {
+        private final File file;
+        private final File marker;
+
+        private Removal(final File file, final File marker) {
+            super();
+            this.file = file;
+            this.marker = marker;
+        }
+
+        @Override
+        public void run() {
+            if (file.exists() && !file.delete()) {
+                logger.warn("Could not remove the uploaded recording " + file);
+                return;
+            }
+            if (!marker.delete() && marker.exists()) {
+                logger.warn("Could not remove the recording upload marker " + marker);
+            }
+        }
+    }
+}
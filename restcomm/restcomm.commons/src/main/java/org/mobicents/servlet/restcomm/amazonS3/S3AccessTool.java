@@ -25,25 +25,29 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import javax.activation.MimetypesFileTypeMap;
 
 import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
-import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Logger;
 
 import com.amazonaws.AmazonClientException;
-import com.amazonaws.AmazonServiceException;
 import com.amazonaws.HttpMethod;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.S3ClientOptions;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.StorageClass;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
 
 /**
  * @author <a href="mailto:gvagenas@gmail.com">gvagenas</a>
@@ -53,101 +57,118 @@ public class S3AccessTool {
 
     private static Logger logger = Logger.getLogger(S3AccessTool.class);
 
-    private String accessKey;
-    private String securityKey;
+    // The default size from which the files are uploaded in several parts.
+    public static final long MULTIPART_THRESHOLD_DEFAULT = 16 * 1024 * 1024;
+    // The parts are uploaded by this many threads at most, whatever the number of files uploaded at the same time.
+    private static final int PART_UPLOADERS = 4;
+
     private String bucketName;
     private String folder;
-    private String bucketRegion;
     private boolean reducedRedundancy;
     private int daysToRetainPublicUrl;
     private boolean removeOriginalFile;
 
+    // Shared by all the uploads, the client is thread safe and keeps its connections alive.
+    private final AmazonS3 s3client;
+    private final TransferManager transfers;
+
     public S3AccessTool(final String accessKey, final String securityKey, final String bucketName, final String folder,
             final boolean reducedRedundancy, final int daysToRetainPublicUrl, final boolean removeOriginalFile,final String bucketRegion) {
-        this.accessKey = accessKey;
-        this.securityKey = securityKey;
+        this(accessKey, securityKey, bucketName, folder, reducedRedundancy, daysToRetainPublicUrl, removeOriginalFile,
+                bucketRegion, null, MULTIPART_THRESHOLD_DEFAULT);
+    }
+
+    /**
+     * @param endpoint the S3 endpoint to use instead of the one of the region, a local S3 stand-in for example. The
+     *        buckets are then addressed in the path of the requests. Null to use the region's endpoint.
+     * @param multipartThreshold in bytes, the size from which a file is uploaded in several parts.
+     */
+    public S3AccessTool(final String accessKey, final String securityKey, final String bucketName, final String folder,
+            final boolean reducedRedundancy, final int daysToRetainPublicUrl, final boolean removeOriginalFile,
+            final String bucketRegion, final String endpoint, final long multipartThreshold) {
         this.bucketName = bucketName;
         this.folder = folder;
         this.reducedRedundancy = reducedRedundancy;
         this.daysToRetainPublicUrl = daysToRetainPublicUrl;
         this.removeOriginalFile = removeOriginalFile;
-        this.bucketRegion = bucketRegion;
+        AWSCredentials credentials = new BasicAWSCredentials(accessKey, securityKey);
+        this.s3client = new AmazonS3Client(credentials);
+        if (endpoint != null && !endpoint.isEmpty()) {
+            s3client.setEndpoint(endpoint);
+            s3client.setS3ClientOptions(new S3ClientOptions().withPathStyleAccess(true));
+            logger.info("S3 Endpoint: " + endpoint);
+        } else {
+            s3client.setRegion(Region.getRegion(Regions.fromName(bucketRegion)));
+            logger.info("S3 Region: " + bucketRegion);
+        }
+        final ExecutorService partUploaders = Executors.newFixedThreadPool(PART_UPLOADERS, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "restcomm-s3-transfer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.transfers = new TransferManager(s3client, partUploaders);
+        final TransferManagerConfiguration configuration = new TransferManagerConfiguration();
+        configuration.setMultipartUploadThreshold(multipartThreshold);
+        transfers.setConfiguration(configuration);
     }
 
-    public URI uploadFile(final String fileToUpload) {
-        AWSCredentials credentials =new BasicAWSCredentials(accessKey, securityKey);
-        AmazonS3 s3client = new AmazonS3Client(credentials);
-        s3client.setRegion(Region.getRegion(Regions.fromName(bucketRegion)));
-        logger.info("S3 Region: "+bucketRegion.toString());
-        try {
-            StringBuffer bucket = new StringBuffer();
-            bucket.append(bucketName);
-            if (folder != null && !folder.isEmpty())
-                bucket.append("/").append(folder);
-            URI fileUri = URI.create(fileToUpload);
-            logger.info("File to upload to S3: "+fileUri.toString());
-            File file = new File(fileUri);
-//            while (!file.exists()){}
-//            logger.info("File exist: "+file.exists());
-            //First generate the Presigned URL, buy some time for the file to be written on the disk
-            Date date = new Date();
-            Calendar cal = Calendar.getInstance();
-            cal.setTime(date);
-            if (daysToRetainPublicUrl > 0) {
-                cal.add(Calendar.DATE, daysToRetainPublicUrl);
-            } else {
-                //By default the Public URL will be valid for 180 days
-                cal.add(Calendar.DATE, 180);
-            }
-            date = cal.getTime();
-            GeneratePresignedUrlRequest generatePresignedUrlRequestGET =
-                    new GeneratePresignedUrlRequest(bucket.toString(), file.getName());
-            generatePresignedUrlRequestGET.setMethod(HttpMethod.GET);
-            generatePresignedUrlRequestGET.setExpiration(date);
-
-            URL downloadUrl = s3client.generatePresignedUrl(generatePresignedUrlRequestGET);
-
-            //Second upload the file to S3
-//            while (!file.exists()){}
-            while (!FileUtils.waitFor(file, 30)){}
-            if (file.exists()) {
-                PutObjectRequest putRequest = new PutObjectRequest(bucket.toString(), file.getName(), file);
-                ObjectMetadata metadata = new ObjectMetadata();
-                metadata.setContentType(new MimetypesFileTypeMap().getContentType(file));
-                putRequest.setMetadata(metadata);
-                if (reducedRedundancy)
-                    putRequest.setStorageClass(StorageClass.ReducedRedundancy);
-                s3client.putObject(putRequest);
-
-                if (removeOriginalFile) {
-                    removeLocalFile(file);
-                }
-                return downloadUrl.toURI();
-            } else {
-                logger.error("Timeout waiting for the recording file: "+file.getAbsolutePath());
-                return null;
-            }
-         } catch (AmazonServiceException ase) {
-            logger.error("Caught an AmazonServiceException");
-            logger.error("Error Message:    " + ase.getMessage());
-            logger.error("HTTP Status Code: " + ase.getStatusCode());
-            logger.error("AWS Error Code:   " + ase.getErrorCode());
-            logger.error("Error Type:       " + ase.getErrorType());
-            logger.error("Request ID:       " + ase.getRequestId());
-            return null;
-        } catch (AmazonClientException ace) {
-            logger.error("Caught an AmazonClientException, which ");
-            logger.error("Error Message: " + ace.getMessage());
-            return null;
-        } catch (URISyntaxException e) {
-            logger.error("URISyntaxException: "+e.getMessage());
-            return null;
-        }
+    private String getBucket() {
+        StringBuffer bucket = new StringBuffer();
+        bucket.append(bucketName);
+        if (folder != null && !folder.isEmpty())
+            bucket.append("/").append(folder);
+        return bucket.toString();
     }
 
-    private void removeLocalFile(final File file) {
-        if (!file.delete()) {
-            logger.info("Error while trying to delete the file: "+file.toString());
+    /**
+     * Signs the public URL of an uploaded file.
+     */
+    public URI getPublicUrl(final File file) throws URISyntaxException {
+        Date date = new Date();
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(date);
+        if (daysToRetainPublicUrl > 0) {
+            cal.add(Calendar.DATE, daysToRetainPublicUrl);
+        } else {
+            //By default the Public URL will be valid for 180 days
+            cal.add(Calendar.DATE, 180);
         }
+        date = cal.getTime();
+        GeneratePresignedUrlRequest generatePresignedUrlRequestGET =
+                new GeneratePresignedUrlRequest(getBucket(), file.getName());
+        generatePresignedUrlRequestGET.setMethod(HttpMethod.GET);
+        generatePresignedUrlRequestGET.setExpiration(date);
+        URL downloadUrl = s3client.generatePresignedUrl(generatePresignedUrlRequestGET);
+        return downloadUrl.toURI();
+    }
+
+    /**
+     * Uploads a file, in several parts uploaded in parallel if it is large. Blocks until the upload is over. The
+     * original file is kept, see {@link #isRemoveOriginalFile()}.
+     *
+     * @throws AmazonClientException if the upload failed, in which case it may be tried again.
+     */
+    public void upload(final File file) throws AmazonClientException, InterruptedException {
+        PutObjectRequest putRequest = new PutObjectRequest(getBucket(), file.getName(), file);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(new MimetypesFileTypeMap().getContentType(file));
+        putRequest.setMetadata(metadata);
+        if (reducedRedundancy)
+            putRequest.setStorageClass(StorageClass.ReducedRedundancy);
+        transfers.upload(putRequest).waitForCompletion();
+    }
+
+    /**
+     * @return whether the original files must be removed once uploaded.
+     */
+    public boolean isRemoveOriginalFile() {
+        return removeOriginalFile;
+    }
+
+    public void shutdown() {
+        transfers.shutdownNow();
     }
 }
@@ -28,18 +28,22 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.client.params.ClientPNames;
-import org.apache.http.client.params.CookiePolicy;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.shiro.crypto.hash.Sha256Hash;
 import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
+import org.mobicents.servlet.restcomm.configuration.sets.MainConfigurationSet;
 import org.mobicents.servlet.restcomm.http.CustomHttpClientBuilder;
+import org.mobicents.servlet.restcomm.metrics.LatencyHistogram;
+import org.mobicents.servlet.restcomm.metrics.Metrics;
 
 import akka.actor.ActorRef;
 import akka.actor.UntypedActor;
@@ -47,15 +51,24 @@ import akka.event.Logging;
 import akka.event.LoggingAdapter;
 
 /**
+ * Caches files under a cache root. A request may name a directory of the root, such as the sid of an account, so a
+ * single cache serves the directories of all the accounts.
+ *
  * @author quintana.thomas@gmail.com (Thomas Quintana)
  */
 public final class DiskCache extends UntypedActor {
+    private static final LatencyHistogram LOOKUPS = Metrics.timer("cache.lookup");
 
     // Logger.
     private final LoggingAdapter logger = Logging.getLogger(getContext().system(), this);
 
     private final String location;
     private final String uri;
+    // Zero or less unless the cache is indexed, see cache-indexed in restcomm.xml.
+    private final long maxBytes;
+    private final boolean indexed;
+    // The directories of the root known to exist.
+    private final Set<String> directories;
 
     public DiskCache(final String location, final String uri, final boolean create) {
         super();
@@ -82,6 +95,11 @@ public final class DiskCache extends UntypedActor {
             temp += "/";
         }
         this.uri = temp;
+        final MainConfigurationSet config = RestcommConfiguration.isInitialized() ? RestcommConfiguration.getInstance()
+                .getMain() : null;
+        this.indexed = config != null && config.isCacheIndexed();
+        this.maxBytes = indexed ? config.getCacheMaxBytes() : 0;
+        this.directories = new HashSet<String>();
     }
 
     public DiskCache(final String location, final String uri) {
@@ -90,15 +108,27 @@ public final class DiskCache extends UntypedActor {
 
     private URI cache(final Object message) throws IOException, URISyntaxException {
         final DiskCacheRequest request = (DiskCacheRequest) message;
+        final String location = location(request.directory());
+        final String base = request.directory() == null ? this.uri : this.uri + request.directory() + "/";
+        // Null unless the cache is indexed.
+        final DiskCacheIndex index = indexed ? DiskCacheIndex.getInstance(location, maxBytes) : null;
 
         if (request.hash() == null) {
             if (request.uri().getScheme().equalsIgnoreCase("file")) {
-                File origFile = new File(request.uri());
-                File destFile = new File(location + origFile.getName());
-                if (!destFile.exists())
-                    FileUtils.moveFile(origFile, destFile);
+                final File origFile = new File(request.uri());
+                final File destFile = new File(location + origFile.getName());
+                if (index != null) {
+                    index.get(destFile.getName(), new Callable<File>() {
+                        @Override
+                        public File call() throws IOException {
+                            return move(origFile, destFile);
+                        }
+                    });
+                } else {
+                    move(origFile, destFile);
+                }
 
-                return URI.create(this.uri + destFile.getName());
+                return URI.create(base + destFile.getName());
 
             } else {
                 //Handle all the rest
@@ -117,58 +147,18 @@ public final class DiskCache extends UntypedActor {
 
                 final String extension = extension(uri).toLowerCase();
                 final File path = new File(location + hash + "." + extension);
-                if (!path.exists()) {
-                    final File tmp = new File(path + "." + "tmp");
-                    InputStream input = null;
-                    OutputStream output = null;
-                    try {
-                        if (request.uri().getScheme().equalsIgnoreCase("https")) {
-                            //Handle the HTTPS URIs
-                            final HttpClient client = CustomHttpClientBuilder.build(RestcommConfiguration.getInstance().getMain());
-                            client.getParams().setParameter(ClientPNames.COOKIE_POLICY, CookiePolicy.BROWSER_COMPATIBILITY);
-                            URI result = new URIBuilder()
-                                    .setScheme(uri.getScheme())
-                                    .setHost(uri.getHost())
-                                    .setPort(uri.getPort())
-                                    .setPath(uri.getPath())
-                                    .build();
-
-                            HttpGet httpRequest = new HttpGet(result);
-                            HttpResponse httpResponse = client.execute((HttpUriRequest) httpRequest);
-                            int code = httpResponse.getStatusLine().getStatusCode();
-
-                            if (code >= 400) {
-                                String requestUrl = httpRequest.getRequestLine().getUri();
-                                String errorReason = httpResponse.getStatusLine().getReasonPhrase();
-                                String httpErrorMessage = String.format(
-                                        "Error while fetching http resource: %s \n Http error code: %d \n Http error message: %s", requestUrl,
-                                        code, errorReason);
-                                logger.warning(httpErrorMessage);
-                            }
-                            input = httpResponse.getEntity().getContent();
-                        } else {
-                            input = uri.toURL().openStream();
+                if (index != null) {
+                    final URI source = uri;
+                    index.get(path.getName(), new Callable<File>() {
+                        @Override
+                        public File call() throws IOException, URISyntaxException {
+                            return download(source, path);
                         }
-                        output = new FileOutputStream(tmp);
-                        final byte[] buffer = new byte[4096];
-                        int read = 0;
-                        do {
-                            read = input.read(buffer, 0, 4096);
-                            if (read > 0) {
-                                output.write(buffer, 0, read);
-                            }
-                        } while (read != -1);
-                        tmp.renameTo(path);
-                    } finally {
-                        if (input != null) {
-                            input.close();
-                        }
-                        if (output != null) {
-                            output.close();
-                        }
-                    }
+                    });
+                } else if (!path.exists()) {
+                    download(uri, path);
                 }
-                URI result = URI.create(this.uri+ hash + "." + extension);
+                URI result = URI.create(base + hash + "." + extension);
                 return result;
             }
         } else {
@@ -176,22 +166,103 @@ public final class DiskCache extends UntypedActor {
             final String extension = "wav";
             final String hash = request.hash();
             final String filename = hash + "." + extension;
-            File matchedFile = (new File(location)).listFiles(new FilenameFilter() {
+            if (index != null) {
+                if (index.lookup(filename) != null) {
+                    return URI.create(base + filename);
+                } else {
+                    throw new FileNotFoundException(filename);
+                }
+            }
+            File[] matchedFiles = (new File(location)).listFiles(new FilenameFilter() {
                 public boolean accept(File dir, String name) {
                     // return name.startsWith(hash) && name.endsWith("."+extension);
                     return name.equalsIgnoreCase(filename);
                 }
-            })[0];
+            });
 
-            if (matchedFile.exists()) {
-                // return URI.create(matchedFile.getAbsolutePath());
-                return URI.create(this.uri + filename);
+            if (matchedFiles != null && matchedFiles.length > 0 && matchedFiles[0].exists()) {
+                // return URI.create(matchedFiles[0].getAbsolutePath());
+                return URI.create(base + filename);
             } else {
                 throw new FileNotFoundException(filename);
             }
         }
     }
 
+    // The path of a directory of the root, created the first time it is used.
+    private String location(final String directory) {
+        if (directory == null) {
+            return location;
+        }
+        final String path = location + directory + "/";
+        if (directories.add(path)) {
+            final File file = new File(path);
+            if (!file.isDirectory() && !file.mkdirs()) {
+                directories.remove(path);
+                logger.warning("Could not create the cache directory " + path);
+            }
+        }
+        return path;
+    }
+
+    private File move(final File origFile, final File destFile) throws IOException {
+        if (!destFile.exists())
+            FileUtils.moveFile(origFile, destFile);
+        return destFile;
+    }
+
+    private File download(final URI uri, final File path) throws IOException, URISyntaxException {
+        final File tmp = new File(path + "." + "tmp");
+        InputStream input = null;
+        OutputStream output = null;
+        try {
+            if (uri.getScheme().equalsIgnoreCase("https")) {
+                //Handle the HTTPS URIs
+                final HttpClient client = CustomHttpClientBuilder.buildDefault();
+                URI result = new URIBuilder()
+                        .setScheme(uri.getScheme())
+                        .setHost(uri.getHost())
+                        .setPort(uri.getPort())
+                        .setPath(uri.getPath())
+                        .build();
+
+                HttpGet httpRequest = new HttpGet(result);
+                HttpResponse httpResponse = client.execute((HttpUriRequest) httpRequest);
+                int code = httpResponse.getStatusLine().getStatusCode();
+
+                if (code >= 400) {
+                    String requestUrl = httpRequest.getRequestLine().getUri();
+                    String errorReason = httpResponse.getStatusLine().getReasonPhrase();
+                    String httpErrorMessage = String.format(
+                            "Error while fetching http resource: %s \n Http error code: %d \n Http error message: %s", requestUrl,
+                            code, errorReason);
+                    logger.warning(httpErrorMessage);
+                }
+                input = httpResponse.getEntity().getContent();
+            } else {
+                input = uri.toURL().openStream();
+            }
+            output = new FileOutputStream(tmp);
+            final byte[] buffer = new byte[4096];
+            int read = 0;
+            do {
+                read = input.read(buffer, 0, 4096);
+                if (read > 0) {
+                    output.write(buffer, 0, read);
+                }
+            } while (read != -1);
+            tmp.renameTo(path);
+        } finally {
+            if (input != null) {
+                input.close();
+            }
+            if (output != null) {
+                output.close();
+            }
+        }
+        return path;
+    }
+
     private String extension(final URI uri) {
         final String path = uri.getPath();
         return path.substring(path.lastIndexOf(".") + 1);
@@ -203,6 +274,7 @@ public final class DiskCache extends UntypedActor {
         final ActorRef self = self();
         final ActorRef sender = sender();
         if (DiskCacheRequest.class.equals(klass)) {
+            final long start = System.nanoTime();
             DiskCacheResponse response = null;
             try {
                 response = new DiskCacheResponse(cache(message));
@@ -210,6 +282,7 @@ public final class DiskCache extends UntypedActor {
                 logger.error("Error while chaching", exception);
                 response = new DiskCacheResponse(exception);
             }
+            LOOKUPS.recordSince(start);
             sender.tell(response, self);
         }
     }
@@ -0,0 +1,265 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package org.mobicents.servlet.restcomm.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * An in-memory index of the files stored in a cache directory.
+ *
+ * The directory is scanned once when the index is created, afterwards lookups of indexed files never touch the disk. Files are
+ * evicted in least recently used order once the total size of the cache grows past max bytes and concurrent
+ * downloads of the same file are performed only once.
+ */
+@ThreadSafe
+public final class DiskCacheIndex {
+    private static final Logger logger = Logger.getLogger(DiskCacheIndex.class);
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    private static final ConcurrentMap<String, DiskCacheIndex> indexes = new ConcurrentHashMap<String, DiskCacheIndex>();
+
+    private final File directory;
+    private final long maxBytes;
+    // Keyed by lower case file name, access ordered so that iteration starts from the least recently used file.
+    private final LinkedHashMap<String, File> files;
+    private final Map<File, Long> sizes;
+    private long bytes;
+    private final ConcurrentMap<String, FutureTask<File>> downloads;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    DiskCacheIndex(final File directory, final long maxBytes) {
+        super();
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.files = new LinkedHashMap<String, File>(1024, 0.75f, true);
+        this.sizes = new HashMap<File, Long>();
+        this.bytes = 0;
+        this.downloads = new ConcurrentHashMap<String, FutureTask<File>>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+        load();
+    }
+
+    /**
+     * @param location the cache directory.
+     * @param maxBytes the maximum size of the cache, zero or less for an unbounded cache.
+     * @return the index shared by all the caches using the same directory.
+     */
+    public static DiskCacheIndex getInstance(final String location, final long maxBytes) {
+        final File directory = new File(location).getAbsoluteFile();
+        final String key = directory.getPath();
+        DiskCacheIndex index = indexes.get(key);
+        if (index == null) {
+            synchronized (indexes) {
+                index = indexes.get(key);
+                if (index == null) {
+                    index = new DiskCacheIndex(directory, maxBytes);
+                    indexes.put(key, index);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return the hit, miss and eviction counters and the size of all the cache indexes.
+     */
+    public static Map<String, Long> getTotals() {
+        long hits = 0, misses = 0, evictions = 0, files = 0, bytes = 0;
+        for (final DiskCacheIndex index : indexes.values()) {
+            hits += index.getHits();
+            misses += index.getMisses();
+            evictions += index.getEvictions();
+            files += index.size();
+            bytes += index.bytes();
+        }
+        final Map<String, Long> totals = new HashMap<String, Long>();
+        totals.put("Hits", hits);
+        totals.put("Misses", misses);
+        totals.put("Evictions", evictions);
+        totals.put("Files", files);
+        totals.put("Bytes", bytes);
+        return totals;
+    }
+
+    private synchronized void load() {
+        final File[] existing = directory.listFiles();
+        if (existing != null) {
+            for (final File file : existing) {
+                if (file.isFile() && !file.getName().endsWith(TEMPORARY_EXTENSION)) {
+                    add(file);
+                }
+            }
+        }
+        logger.info("Indexed " + files.size() + " files, " + bytes + " bytes in cache directory " + directory);
+        evict(null);
+    }
+
+    // Must be called while holding the lock.
+    private void add(final File file) {
+        final File previous = files.put(file.getName().toLowerCase(), file);
+        if (previous != null) {
+            bytes -= sizes.remove(previous);
+        }
+        final long size = file.length();
+        sizes.put(file, size);
+        bytes += size;
+    }
+
+    // Must be called while holding the lock. The file that was just added is never evicted.
+    private void evict(final File keep) {
+        if (maxBytes <= 0) {
+            return;
+        }
+        final Iterator<File> iterator = files.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            final File eldest = iterator.next();
+            if (eldest.equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            bytes -= sizes.remove(eldest);
+            if (!eldest.delete() && eldest.exists()) {
+                logger.warn("Could not delete evicted cache file " + eldest);
+            }
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Looks up a file by name, falling back to the disk only when the file is not indexed in case it was added
+     * by someone else.
+     *
+     * @return the cached file or null if it is not in the cache.
+     */
+    public File lookup(final String name) {
+        final File file = find(name);
+        if (file != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return file;
+    }
+
+    private File find(final String name) {
+        final String key = name.toLowerCase();
+        synchronized (this) {
+            final File file = files.get(key);
+            if (file != null) {
+                return file;
+            }
+        }
+        final File file = new File(directory, name);
+        if (file.isFile()) {
+            synchronized (this) {
+                add(file);
+                evict(file);
+            }
+            return file;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a cached file, storing it first if it is not in the cache. When several threads ask for the same
+     * missing file the store is performed only by the first one while the others wait for it to complete.
+     *
+     * @param name the name of the file in the cache directory.
+     * @param store creates the file in the cache directory.
+     */
+    public File get(final String name, final Callable<File> store) throws IOException {
+        final File cached = lookup(name);
+        if (cached != null) {
+            return cached;
+        }
+        final String key = name.toLowerCase();
+        final FutureTask<File> task = new FutureTask<File>(store);
+        final FutureTask<File> download = downloads.putIfAbsent(key, task);
+        if (download != null) {
+            return result(download);
+        }
+        try {
+            task.run();
+            final File file = result(task);
+            synchronized (this) {
+                add(file);
+                evict(file);
+            }
+            return file;
+        } finally {
+            downloads.remove(key, task);
+        }
+    }
+
+    private static File result(final FutureTask<File> download) throws IOException {
+        try {
+            return download.get();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException(exception);
+        } catch (final ExecutionException exception) {
+            final Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    public synchronized int size() {
+        return files.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
@@ -28,6 +28,7 @@ import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
  */
 @Immutable
 public final class DiskCacheRequest {
+    private String directory = null;
     private URI uri;
     private String hash = null;
 
@@ -41,6 +42,26 @@ public final class DiskCacheRequest {
         this.hash = hash;
     }
 
+    /**
+     * @param directory the directory of the cache the file is kept in, such as the sid of an account.
+     */
+    public DiskCacheRequest(String directory, URI uri) {
+        this(uri);
+        this.directory = directory;
+    }
+
+    /**
+     * @param directory the directory of the cache the file is kept in, such as the sid of an account.
+     */
+    public DiskCacheRequest(String directory, String hash) {
+        this(hash);
+        this.directory = directory;
+    }
+
+    public String directory() {
+        return directory;
+    }
+
     public URI uri() {
         return uri;
     }
@@ -85,5 +85,8 @@ public class RestcommConfiguration {
             throw new IllegalStateException("RestcommConfiguration has not been initialized.");
         return instance;
     }
+    public static boolean isInitialized() {
+        return instance != null;
+    }
 
 }
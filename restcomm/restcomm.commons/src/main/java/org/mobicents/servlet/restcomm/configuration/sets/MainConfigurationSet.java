@@ -52,6 +52,122 @@ public class MainConfigurationSet extends ConfigurationSet {
     public static final String BYPASS_LB_FOR_CLIENTS = "bypass-lb-or-proxy-for-clients";
     private final boolean bypassLbForClients;
 
+    private static final String HTTP_MAX_CONN_TOTAL_KEY = "http-client.max-conn-total";
+    private static final String HTTP_MAX_CONN_PER_ROUTE_KEY = "http-client.max-conn-per-route";
+    private static final String HTTP_KEEP_ALIVE_KEY = "http-client.keep-alive";
+    private static final String HTTP_IDLE_TIMEOUT_KEY = "http-client.idle-timeout";
+    private static final String HTTP_SOCKET_TIMEOUT_KEY = "http-client.socket-timeout";
+    public static final int HTTP_MAX_CONN_TOTAL_DEFAULT = 200;
+    public static final int HTTP_MAX_CONN_PER_ROUTE_DEFAULT = 20;
+    public static final long HTTP_KEEP_ALIVE_DEFAULT = 30000;
+    public static final long HTTP_IDLE_TIMEOUT_DEFAULT = 30000;
+    public static final int HTTP_SOCKET_TIMEOUT_DEFAULT = 30000;
+    private static final String HTTP_ASYNC_KEY = "http-client.async";
+    private static final String HTTP_ASYNC_THREADS_KEY = "http-client.async-threads";
+    public static final int HTTP_ASYNC_THREADS_DEFAULT = 50;
+    private final int maxConnTotal;
+    private final int maxConnPerRoute;
+    private final long keepAlive;
+    private final long idleTimeout;
+    private final int socketTimeout;
+    private final boolean async;
+    private final int asyncThreads;
+
+    private static final String RCML_CACHE_ENABLED_KEY = "http-client.rcml-cache.enabled";
+    private static final String RCML_CACHE_MAX_ENTRIES_KEY = "http-client.rcml-cache.max-entries";
+    private static final String RCML_CACHE_MAX_BYTES_KEY = "http-client.rcml-cache.max-bytes";
+    private static final String RCML_CACHE_IGNORED_PARAMETERS_KEY = "http-client.rcml-cache.ignored-parameters";
+    public static final int RCML_CACHE_MAX_ENTRIES_DEFAULT = 1000;
+    public static final long RCML_CACHE_MAX_BYTES_DEFAULT = 10485760;
+    public static final String RCML_CACHE_IGNORED_PARAMETERS_DEFAULT = "CallSid OutboundCallSid CallStatus";
+    private final boolean rcmlCacheEnabled;
+    private final int rcmlCacheMaxEntries;
+    private final long rcmlCacheMaxBytes;
+    private final String[] rcmlCacheIgnoredParameters;
+
+    private static final String CACHE_INDEXED_KEY = "runtime-settings.cache-indexed";
+    private static final String CACHE_MAX_BYTES_KEY = "runtime-settings.cache-max-bytes";
+    public static final long CACHE_MAX_BYTES_DEFAULT = 0;
+    private final boolean cacheIndexed;
+    private final long cacheMaxBytes;
+
+    private static final String CACHE_WORKERS_KEY = "runtime-settings.cache-workers";
+    private static final String SPEECH_SYNTHESIZER_WORKERS_KEY = "runtime-settings.speech-synthesizer-workers";
+    private static final String SERVICE_WORKERS_KEY = "runtime-settings.service-workers";
+    public static final int CACHE_WORKERS_DEFAULT = 4;
+    public static final int SPEECH_SYNTHESIZER_WORKERS_DEFAULT = 8;
+    public static final int SERVICE_WORKERS_DEFAULT = 4;
+    private final int cacheWorkers;
+    private final int speechSynthesizerWorkers;
+    private final int serviceWorkers;
+
+    private static final String SPEECH_SYNTHESIZER_TIMEOUT_KEY = "runtime-settings.speech-synthesizer-timeout";
+    public static final long SPEECH_SYNTHESIZER_TIMEOUT_DEFAULT = 30000;
+    private final long speechSynthesizerTimeout;
+
+    private static final String CALL_MANAGER_WORKERS_KEY = "runtime-settings.call-manager-workers";
+    // Zero or less means one call manager per available processor.
+    public static final int CALL_MANAGER_WORKERS_DEFAULT = 0;
+    private final int callManagerWorkers;
+
+    private static final String NUMBER_ROUTES_REFRESH_KEY = "runtime-settings.number-routes-refresh";
+    // Zero or less means the routes are only refreshed by the changes made through this node.
+    public static final long NUMBER_ROUTES_REFRESH_DEFAULT = 60000;
+    private final long numberRoutesRefresh;
+
+    private static final String API_MAX_PENDING_CREATIONS_KEY = "runtime-settings.api-max-pending-creations";
+    private static final String API_RETRY_AFTER_KEY = "runtime-settings.api-retry-after";
+    private static final String API_CREATION_TIMEOUT_KEY = "runtime-settings.api-creation-timeout";
+    public static final int API_MAX_PENDING_CREATIONS_DEFAULT = 100;
+    public static final int API_RETRY_AFTER_DEFAULT = 1;
+    public static final long API_CREATION_TIMEOUT_DEFAULT = 10000;
+    private final int apiMaxPendingCreations;
+    private final int apiRetryAfter;
+    private final long apiCreationTimeout;
+
+    private static final String API_LISTING_TOTAL_TTL_KEY = "runtime-settings.api-listing-total-ttl";
+    public static final long API_LISTING_TOTAL_TTL_DEFAULT = 30000;
+    private final long apiListingTotalTtl;
+
+    private static final String API_MAX_CONCURRENT_EXPORTS_KEY = "runtime-settings.api-max-concurrent-exports";
+    private static final String API_MAX_CONCURRENT_EXPORTS_PER_ACCOUNT_KEY = "runtime-settings.api-max-concurrent-exports-per-account";
+    public static final int API_MAX_CONCURRENT_EXPORTS_DEFAULT = 4;
+    public static final int API_MAX_CONCURRENT_EXPORTS_PER_ACCOUNT_DEFAULT = 1;
+    private final int apiMaxConcurrentExports;
+    private final int apiMaxConcurrentExportsPerAccount;
+
+    private static final String API_MAX_CONCURRENT_LISTINGS_KEY = "runtime-settings.api-max-concurrent-listings";
+    private static final String API_MAX_CONCURRENT_LISTINGS_PER_ACCOUNT_KEY = "runtime-settings.api-max-concurrent-listings-per-account";
+    public static final int API_MAX_CONCURRENT_LISTINGS_DEFAULT = 4;
+    public static final int API_MAX_CONCURRENT_LISTINGS_PER_ACCOUNT_DEFAULT = 2;
+    private final int apiMaxConcurrentListings;
+    private final int apiMaxConcurrentListingsPerAccount;
+
+    private static final String DNS_CACHE_TTL_KEY = "runtime-settings.dns-cache.ttl";
+    private static final String DNS_CACHE_NEGATIVE_TTL_KEY = "runtime-settings.dns-cache.negative-ttl";
+    private static final String DNS_CACHE_REFRESH_AHEAD_KEY = "runtime-settings.dns-cache.refresh-ahead";
+    private static final String DNS_LOOKUP_TIMEOUT_KEY = "runtime-settings.dns-cache.lookup-timeout";
+    private static final String DNS_CACHE_MAX_ENTRIES_KEY = "runtime-settings.dns-cache.max-entries";
+    private static final String DNS_STATIC_HOSTS_KEY = "runtime-settings.dns-cache.static-hosts";
+    public static final long DNS_CACHE_TTL_DEFAULT = 60000;
+    public static final long DNS_CACHE_NEGATIVE_TTL_DEFAULT = 10000;
+    public static final long DNS_CACHE_REFRESH_AHEAD_DEFAULT = 15000;
+    public static final long DNS_LOOKUP_TIMEOUT_DEFAULT = 2000;
+    public static final int DNS_CACHE_MAX_ENTRIES_DEFAULT = 10000;
+    private final long dnsCacheTtl;
+    private final long dnsCacheNegativeTtl;
+    private final long dnsCacheRefreshAhead;
+    private final long dnsLookupTimeout;
+    private final int dnsCacheMaxEntries;
+    private final String[] dnsStaticHosts;
+
+    private static final String API_AUTH_CACHE_TTL_KEY = "runtime-settings.api-auth-cache-ttl";
+    private static final String API_AUTH_CACHE_SIZE_KEY = "runtime-settings.api-auth-cache-size";
+    public static final long API_AUTH_CACHE_TTL_DEFAULT = 60000;
+    public static final int API_AUTH_CACHE_SIZE_DEFAULT = 10000;
+    private final long apiAuthCacheTtl;
+    private final int apiAuthCacheSize;
+
     public MainConfigurationSet(ConfigurationSource source) {
         super(source);
         SslMode sslMode;
@@ -87,6 +203,149 @@ public class MainConfigurationSet extends ConfigurationSet {
             throw new RuntimeException("Error initializing '" + USE_HOSTNAME_TO_RESOLVE_RELATIVE_URL_KEY + "' configuration setting", e);
         }
         this.responseTimeout = timeout;
+
+        // http-client.max-conn-total
+        // http-client.max-conn-per-route
+        // http-client.keep-alive
+        // http-client.idle-timeout
+        // http-client.socket-timeout
+        try {
+            this.maxConnTotal = intProperty(source, HTTP_MAX_CONN_TOTAL_KEY, HTTP_MAX_CONN_TOTAL_DEFAULT);
+            this.maxConnPerRoute = intProperty(source, HTTP_MAX_CONN_PER_ROUTE_KEY, HTTP_MAX_CONN_PER_ROUTE_DEFAULT);
+            this.keepAlive = longProperty(source, HTTP_KEEP_ALIVE_KEY, HTTP_KEEP_ALIVE_DEFAULT);
+            this.idleTimeout = longProperty(source, HTTP_IDLE_TIMEOUT_KEY, HTTP_IDLE_TIMEOUT_DEFAULT);
+            this.socketTimeout = intProperty(source, HTTP_SOCKET_TIMEOUT_KEY, HTTP_SOCKET_TIMEOUT_DEFAULT);
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing http-client connection pool configuration settings", e);
+        }
+
+        // http-client.async
+        // http-client.async-threads
+        try {
+            this.async = Boolean.valueOf(source.getProperty(HTTP_ASYNC_KEY));
+            this.asyncThreads = intProperty(source, HTTP_ASYNC_THREADS_KEY, HTTP_ASYNC_THREADS_DEFAULT);
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing '" + HTTP_ASYNC_THREADS_KEY + "' configuration setting", e);
+        }
+
+        // http-client.rcml-cache.enabled
+        // http-client.rcml-cache.max-entries
+        // http-client.rcml-cache.max-bytes
+        // http-client.rcml-cache.ignored-parameters
+        try {
+            this.rcmlCacheEnabled = Boolean.valueOf(source.getProperty(RCML_CACHE_ENABLED_KEY));
+            this.rcmlCacheMaxEntries = intProperty(source, RCML_CACHE_MAX_ENTRIES_KEY, RCML_CACHE_MAX_ENTRIES_DEFAULT);
+            this.rcmlCacheMaxBytes = longProperty(source, RCML_CACHE_MAX_BYTES_KEY, RCML_CACHE_MAX_BYTES_DEFAULT);
+            String ignored = source.getProperty(RCML_CACHE_IGNORED_PARAMETERS_KEY);
+            if (ignored == null)
+                ignored = RCML_CACHE_IGNORED_PARAMETERS_DEFAULT;
+            this.rcmlCacheIgnoredParameters = StringUtils.split(ignored);
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing http-client rcml-cache configuration settings", e);
+        }
+
+        // runtime-settings.cache-indexed
+        // runtime-settings.cache-max-bytes
+        try {
+            this.cacheIndexed = Boolean.valueOf(source.getProperty(CACHE_INDEXED_KEY));
+            this.cacheMaxBytes = longProperty(source, CACHE_MAX_BYTES_KEY, CACHE_MAX_BYTES_DEFAULT);
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing '" + CACHE_MAX_BYTES_KEY + "' configuration setting", e);
+        }
+
+        // runtime-settings.cache-workers
+        // runtime-settings.speech-synthesizer-workers
+        // runtime-settings.service-workers
+        try {
+            this.cacheWorkers = intProperty(source, CACHE_WORKERS_KEY, CACHE_WORKERS_DEFAULT);
+            this.speechSynthesizerWorkers = intProperty(source, SPEECH_SYNTHESIZER_WORKERS_KEY, SPEECH_SYNTHESIZER_WORKERS_DEFAULT);
+            this.serviceWorkers = intProperty(source, SERVICE_WORKERS_KEY, SERVICE_WORKERS_DEFAULT);
+            this.speechSynthesizerTimeout = longProperty(source, SPEECH_SYNTHESIZER_TIMEOUT_KEY,
+                    SPEECH_SYNTHESIZER_TIMEOUT_DEFAULT);
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing shared service workers configuration settings", e);
+        }
+
+        // runtime-settings.call-manager-workers
+        try {
+            int workers = intProperty(source, CALL_MANAGER_WORKERS_KEY, CALL_MANAGER_WORKERS_DEFAULT);
+            this.callManagerWorkers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing '" + CALL_MANAGER_WORKERS_KEY + "' configuration setting", e);
+        }
+
+        // runtime-settings.number-routes-refresh
+        try {
+            this.numberRoutesRefresh = longProperty(source, NUMBER_ROUTES_REFRESH_KEY, NUMBER_ROUTES_REFRESH_DEFAULT);
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing '" + NUMBER_ROUTES_REFRESH_KEY + "' configuration setting", e);
+        }
+
+        // runtime-settings.api-max-pending-creations
+        // runtime-settings.api-retry-after
+        // runtime-settings.api-creation-timeout
+        try {
+            this.apiMaxPendingCreations = intProperty(source, API_MAX_PENDING_CREATIONS_KEY, API_MAX_PENDING_CREATIONS_DEFAULT);
+            this.apiRetryAfter = intProperty(source, API_RETRY_AFTER_KEY, API_RETRY_AFTER_DEFAULT);
+            this.apiCreationTimeout = longProperty(source, API_CREATION_TIMEOUT_KEY, API_CREATION_TIMEOUT_DEFAULT);
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing REST API creation limits configuration settings", e);
+        }
+
+        // runtime-settings.api-listing-total-ttl
+        try {
+            this.apiListingTotalTtl = longProperty(source, API_LISTING_TOTAL_TTL_KEY, API_LISTING_TOTAL_TTL_DEFAULT);
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing '" + API_LISTING_TOTAL_TTL_KEY + "' configuration setting", e);
+        }
+
+        // runtime-settings.api-max-concurrent-exports
+        // runtime-settings.api-max-concurrent-exports-per-account
+        try {
+            this.apiMaxConcurrentExports = intProperty(source, API_MAX_CONCURRENT_EXPORTS_KEY, API_MAX_CONCURRENT_EXPORTS_DEFAULT);
+            this.apiMaxConcurrentExportsPerAccount = intProperty(source, API_MAX_CONCURRENT_EXPORTS_PER_ACCOUNT_KEY,
+                    API_MAX_CONCURRENT_EXPORTS_PER_ACCOUNT_DEFAULT);
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing REST API export limits configuration settings", e);
+        }
+
+        // runtime-settings.api-max-concurrent-listings
+        // runtime-settings.api-max-concurrent-listings-per-account
+        try {
+            this.apiMaxConcurrentListings = intProperty(source, API_MAX_CONCURRENT_LISTINGS_KEY,
+                    API_MAX_CONCURRENT_LISTINGS_DEFAULT);
+            this.apiMaxConcurrentListingsPerAccount = intProperty(source, API_MAX_CONCURRENT_LISTINGS_PER_ACCOUNT_KEY,
+                    API_MAX_CONCURRENT_LISTINGS_PER_ACCOUNT_DEFAULT);
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing REST API listing limits configuration settings", e);
+        }
+
+        // runtime-settings.dns-cache.ttl
+        // runtime-settings.dns-cache.negative-ttl
+        // runtime-settings.dns-cache.refresh-ahead
+        // runtime-settings.dns-cache.lookup-timeout
+        // runtime-settings.dns-cache.max-entries
+        // runtime-settings.dns-cache.static-hosts
+        try {
+            this.dnsCacheTtl = longProperty(source, DNS_CACHE_TTL_KEY, DNS_CACHE_TTL_DEFAULT);
+            this.dnsCacheNegativeTtl = longProperty(source, DNS_CACHE_NEGATIVE_TTL_KEY, DNS_CACHE_NEGATIVE_TTL_DEFAULT);
+            this.dnsCacheRefreshAhead = longProperty(source, DNS_CACHE_REFRESH_AHEAD_KEY, DNS_CACHE_REFRESH_AHEAD_DEFAULT);
+            this.dnsLookupTimeout = longProperty(source, DNS_LOOKUP_TIMEOUT_KEY, DNS_LOOKUP_TIMEOUT_DEFAULT);
+            this.dnsCacheMaxEntries = intProperty(source, DNS_CACHE_MAX_ENTRIES_KEY, DNS_CACHE_MAX_ENTRIES_DEFAULT);
+            final String staticHosts = source.getProperty(DNS_STATIC_HOSTS_KEY);
+            this.dnsStaticHosts = staticHosts == null ? new String[0] : StringUtils.split(staticHosts);
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing dns-cache configuration settings", e);
+        }
+
+        // runtime-settings.api-auth-cache-ttl
+        // runtime-settings.api-auth-cache-size
+        try {
+            this.apiAuthCacheTtl = longProperty(source, API_AUTH_CACHE_TTL_KEY, API_AUTH_CACHE_TTL_DEFAULT);
+            this.apiAuthCacheSize = intProperty(source, API_AUTH_CACHE_SIZE_KEY, API_AUTH_CACHE_SIZE_DEFAULT);
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing REST API authentication cache configuration settings", e);
+        }
         this.useHostnameToResolveRelativeUrls = resolveRelativeUrlWithHostname;
         this.hostname = resolveRelativeUrlHostname;
         bypassLbForClients = bypassLb;
@@ -110,4 +369,154 @@ public class MainConfigurationSet extends ConfigurationSet {
 
     public boolean getBypassLbForClients() { return bypassLbForClients; }
 
+    public int getMaxConnTotal() {
+        return maxConnTotal;
+    }
+
+    public int getMaxConnPerRoute() {
+        return maxConnPerRoute;
+    }
+
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public int getAsyncThreads() {
+        return asyncThreads;
+    }
+
+    public boolean isRcmlCacheEnabled() {
+        return rcmlCacheEnabled;
+    }
+
+    public int getRcmlCacheMaxEntries() {
+        return rcmlCacheMaxEntries;
+    }
+
+    public long getRcmlCacheMaxBytes() {
+        return rcmlCacheMaxBytes;
+    }
+
+    public String[] getRcmlCacheIgnoredParameters() {
+        return rcmlCacheIgnoredParameters.clone();
+    }
+
+    public boolean isCacheIndexed() {
+        return cacheIndexed;
+    }
+
+    public long getCacheMaxBytes() {
+        return cacheMaxBytes;
+    }
+
+    public int getCacheWorkers() {
+        return cacheWorkers;
+    }
+
+    public int getSpeechSynthesizerWorkers() {
+        return speechSynthesizerWorkers;
+    }
+
+    public long getSpeechSynthesizerTimeout() {
+        return speechSynthesizerTimeout;
+    }
+
+    public int getServiceWorkers() {
+        return serviceWorkers;
+    }
+
+    public int getCallManagerWorkers() {
+        return callManagerWorkers;
+    }
+
+    public long getNumberRoutesRefresh() {
+        return numberRoutesRefresh;
+    }
+
+    public int getApiMaxPendingCreations() {
+        return apiMaxPendingCreations;
+    }
+
+    public int getApiRetryAfter() {
+        return apiRetryAfter;
+    }
+
+    public long getApiCreationTimeout() {
+        return apiCreationTimeout;
+    }
+
+    public long getApiListingTotalTtl() {
+        return apiListingTotalTtl;
+    }
+
+    public int getApiMaxConcurrentExports() {
+        return apiMaxConcurrentExports;
+    }
+
+    public int getApiMaxConcurrentExportsPerAccount() {
+        return apiMaxConcurrentExportsPerAccount;
+    }
+
+    public int getApiMaxConcurrentListings() {
+        return apiMaxConcurrentListings;
+    }
+
+    public int getApiMaxConcurrentListingsPerAccount() {
+        return apiMaxConcurrentListingsPerAccount;
+    }
+
+    public long getDnsCacheTtl() {
+        return dnsCacheTtl;
+    }
+
+    public long getDnsCacheNegativeTtl() {
+        return dnsCacheNegativeTtl;
+    }
+
+    public long getDnsCacheRefreshAhead() {
+        return dnsCacheRefreshAhead;
+    }
+
+    public long getDnsLookupTimeout() {
+        return dnsLookupTimeout;
+    }
+
+    public int getDnsCacheMaxEntries() {
+        return dnsCacheMaxEntries;
+    }
+
+    public String[] getDnsStaticHosts() {
+        return dnsStaticHosts;
+    }
+
+    public long getApiAuthCacheTtl() {
+        return apiAuthCacheTtl;
+    }
+
+    public int getApiAuthCacheSize() {
+        return apiAuthCacheSize;
+    }
+
+    private static int intProperty(ConfigurationSource source, String key, int defaultValue) {
+        String value = source.getProperty(key);
+        return StringUtils.isEmpty(value) ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longProperty(ConfigurationSource source, String key, long defaultValue) {
+        String value = source.getProperty(key);
+        return StringUtils.isEmpty(value) ? defaultValue : Long.parseLong(value.trim());
+    }
+
 }
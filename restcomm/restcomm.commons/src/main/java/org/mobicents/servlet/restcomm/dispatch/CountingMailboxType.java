@@ -0,0 +1,95 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dispatch;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import scala.Option;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.MessageQueue;
+
+import com.typesafe.config.Config;
+
+/**
+ * An unbounded mailbox that counts the messages waiting in the mailboxes of the actors of a dispatcher.
+ */
+public final class CountingMailboxType implements MailboxType {
+    private final DispatcherStatistics statistics;
+
+    public CountingMailboxType(final ActorSystem.Settings settings, final Config config) {
+        super();
+        this.statistics = DispatcherStatistics.get(config.getString("id"));
+    }
+
+    @Override
+    public MessageQueue create(final Option<ActorRef> owner, final Option<ActorSystem> system) {
+        return new CountingMessageQueue(statistics);
+    }
+
+    private static final class CountingMessageQueue implements MessageQueue {
+        private final Queue<Envelope> queue;
+        private final DispatcherStatistics statistics;
+
+        private CountingMessageQueue(final DispatcherStatistics statistics) {
+            super();
+            this.queue = new ConcurrentLinkedQueue<Envelope>();
+            this.statistics = statistics;
+        }
+
+        @Override
+        public void enqueue(final ActorRef receiver, final Envelope handle) {
+            queue.add(handle);
+            statistics.enqueued();
+        }
+
+        @Override
+        public Envelope dequeue() {
+            final Envelope envelope = queue.poll();
+            if (envelope != null) {
+                statistics.dequeued();
+            }
+            return envelope;
+        }
+
+        @Override
+        public int numberOfMessages() {
+            return queue.size();
+        }
+
+        @Override
+        public boolean hasMessages() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public void cleanUp(final ActorRef owner, final MessageQueue deadLetters) {
+            Envelope envelope = dequeue();
+            while (envelope != null) {
+                deadLetters.enqueue(owner, envelope);
+                envelope = dequeue();
+            }
+        }
+    }
+}
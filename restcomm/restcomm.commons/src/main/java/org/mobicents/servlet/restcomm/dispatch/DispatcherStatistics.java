@@ -0,0 +1,105 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dispatch;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * Counts, for every instrumented dispatcher, the messages waiting in the mailboxes of its actors, the mailboxes
+ * waiting for a thread and the threads busy running actors.
+ */
+@ThreadSafe
+public final class DispatcherStatistics {
+    private static final ConcurrentMap<String, DispatcherStatistics> dispatchers = new ConcurrentHashMap<String, DispatcherStatistics>();
+
+    // Messages enqueued and not dequeued yet.
+    private final AtomicLong messages;
+    // Mailboxes handed to the executor and not run yet.
+    private final AtomicLong queued;
+    // Threads running a mailbox.
+    private final AtomicLong running;
+    private final AtomicLong busyTime;
+
+    private DispatcherStatistics() {
+        super();
+        this.messages = new AtomicLong();
+        this.queued = new AtomicLong();
+        this.running = new AtomicLong();
+        this.busyTime = new AtomicLong();
+    }
+
+    static DispatcherStatistics get(final String dispatcher) {
+        DispatcherStatistics statistics = dispatchers.get(dispatcher);
+        if (statistics == null) {
+            final DispatcherStatistics created = new DispatcherStatistics();
+            statistics = dispatchers.putIfAbsent(dispatcher, created);
+            if (statistics == null) {
+                statistics = created;
+            }
+        }
+        return statistics;
+    }
+
+    void enqueued() {
+        messages.incrementAndGet();
+    }
+
+    void dequeued() {
+        messages.decrementAndGet();
+    }
+
+    void submitted() {
+        queued.incrementAndGet();
+    }
+
+    void started() {
+        queued.decrementAndGet();
+        running.incrementAndGet();
+    }
+
+    void finished(final long nanos) {
+        running.decrementAndGet();
+        busyTime.addAndGet(nanos);
+    }
+
+    /**
+     * @return for every dispatcher the messages waiting in mailboxes, the mailboxes waiting for a thread, the busy
+     *         threads and the total time in milliseconds the threads spent running actors.
+     */
+    public static Map<String, Long> getStatistics() {
+        final Map<String, Long> statistics = new HashMap<String, Long>();
+        for (final Map.Entry<String, DispatcherStatistics> entry : dispatchers.entrySet()) {
+            final String name = entry.getKey();
+            final DispatcherStatistics dispatcher = entry.getValue();
+            statistics.put(name + ".MailboxDepth", dispatcher.messages.get());
+            statistics.put(name + ".Queued", dispatcher.queued.get());
+            statistics.put(name + ".BusyThreads", dispatcher.running.get());
+            statistics.put(name + ".BusyTime", TimeUnit.NANOSECONDS.toMillis(dispatcher.busyTime.get()));
+        }
+        return statistics;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dispatch;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import akka.dispatch.DispatcherPrerequisites;
+import akka.dispatch.ExecutorServiceConfigurator;
+import akka.dispatch.ExecutorServiceFactory;
+import akka.dispatch.ForkJoinExecutorConfigurator;
+import akka.dispatch.ThreadPoolExecutorConfigurator;
+
+import com.typesafe.config.Config;
+
+/**
+ * Configures the fork-join-executor or the thread-pool-executor named by the instrumented-executor setting of a
+ * dispatcher and measures how many mailboxes wait for a thread and how long the threads are busy.
+ */
+public final class InstrumentedExecutorConfigurator extends ExecutorServiceConfigurator {
+    private final ExecutorServiceConfigurator configurator;
+    private final DispatcherStatistics statistics;
+
+    public InstrumentedExecutorConfigurator(final Config config, final DispatcherPrerequisites prerequisites) {
+        super(config, prerequisites);
+        final String executor = config.hasPath("instrumented-executor") ? config.getString("instrumented-executor")
+                : "fork-join-executor";
+        if ("thread-pool-executor".equals(executor)) {
+            configurator = new ThreadPoolExecutorConfigurator(config.getConfig("thread-pool-executor"), prerequisites);
+        } else if ("fork-join-executor".equals(executor)) {
+            configurator = new ForkJoinExecutorConfigurator(config.getConfig("fork-join-executor"), prerequisites);
+        } else {
+            throw new IllegalArgumentException(executor + " is not a valid instrumented executor.");
+        }
+        statistics = DispatcherStatistics.get(config.getString("id"));
+    }
+
+    @Override
+    public ExecutorServiceFactory createExecutorServiceFactory(final String id, final ThreadFactory threadFactory) {
+        final ExecutorServiceFactory factory = configurator.createExecutorServiceFactory(id, threadFactory);
+        return new ExecutorServiceFactory() {
+            @Override
+            public ExecutorService createExecutorService() {
+                return new InstrumentedExecutorService(factory.createExecutorService(), statistics);
+            }
+        };
+    }
+
+    private static final class InstrumentedExecutorService extends AbstractExecutorService {
+        private final ExecutorService executor;
+        private final DispatcherStatistics statistics;
+
+        private InstrumentedExecutorService(final ExecutorService executor, final DispatcherStatistics statistics) {
+            super();
+            this.executor = executor;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            statistics.submitted();
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        statistics.started();
+                        final long start = System.nanoTime();
+                        try {
+                            command.run();
+                        } finally {
+                            statistics.finished(System.nanoTime() - start);
+                        }
+                    }
+                });
+            } catch (final RuntimeException exception) {
+                // Rejected, the mailbox will never run.
+                statistics.started();
+                statistics.finished(0);
+                throw exception;
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            executor.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return executor.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return executor.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return executor.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+            return executor.awaitTermination(timeout, unit);
+        }
+    }
+}
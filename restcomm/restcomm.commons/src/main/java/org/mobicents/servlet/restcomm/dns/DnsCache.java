@@ -0,0 +1,393 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
+import org.mobicents.servlet.restcomm.configuration.sets.MainConfigurationSet;
+
+/**
+ * Resolves the hosts the SIP messages are routed to without blocking the actors on the DNS server.
+ *
+ * IP literals are parsed without any lookup and the hosts of the static table are answered right away. The other
+ * answers are remembered for the TTL, the failures for the negative TTL. An answer used during the last refresh-ahead
+ * milliseconds of its TTL is looked up again in the background, so the hosts in use are never looked up by an actor.
+ * The lookups run on a few threads of their own, the same host being looked up only once at a time, and a caller
+ * waits for at most the lookup timeout. When a lookup fails or times out the previous answer, if any, is used a while
+ * longer.
+ */
+@ThreadSafe
+public final class DnsCache {
+    private static final Logger logger = Logger.getLogger(DnsCache.class);
+    private static final int RESOLVERS = 4;
+
+    private static volatile DnsCache instance;
+
+    interface Lookup {
+        InetAddress lookup(String host) throws UnknownHostException;
+    }
+
+    private static final Lookup SYSTEM = new Lookup() {
+        @Override
+        public InetAddress lookup(final String host) throws UnknownHostException {
+            return InetAddress.getByName(host);
+        }
+    };
+
+    private final Lookup lookup;
+    private final long ttl;
+    private final long negativeTtl;
+    private final long refreshAhead;
+    private final long lookupTimeout;
+    private final int maxEntries;
+    private final Map<String, InetAddress> staticHosts;
+    private final ConcurrentMap<String, Entry> entries;
+    private final ConcurrentMap<String, FutureTask<InetAddress>> lookups;
+    private final ExecutorService resolvers;
+
+    private final AtomicLong literals;
+    private final AtomicLong hits;
+    private final AtomicLong negativeHits;
+    private final AtomicLong staleHits;
+    private final AtomicLong misses;
+    private final AtomicLong refreshes;
+    private final AtomicLong failures;
+    private final AtomicLong timeouts;
+    private final AtomicLong queries;
+    private final AtomicLong queryTime;
+    private final AtomicLong slowestQuery;
+
+    /**
+     * @param ttl in milliseconds, how long an answer is used.
+     * @param negativeTtl in milliseconds, how long a failure is remembered.
+     * @param refreshAhead in milliseconds, how long before the end of its TTL an answer in use is looked up again.
+     * @param lookupTimeout in milliseconds, the longest time a caller waits for a lookup.
+     * @param staticHosts the host names and the IP addresses they are always resolved to, as name=address pairs.
+     */
+    public DnsCache(final long ttl, final long negativeTtl, final long refreshAhead, final long lookupTimeout,
+            final int maxEntries, final String[] staticHosts) {
+        this(SYSTEM, ttl, negativeTtl, refreshAhead, lookupTimeout, maxEntries, staticHosts);
+    }
+
+    DnsCache(final Lookup lookup, final long ttl, final long negativeTtl, final long refreshAhead,
+            final long lookupTimeout, final int maxEntries, final String[] staticHosts) {
+        super();
+        this.lookup = lookup;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.refreshAhead = refreshAhead;
+        this.lookupTimeout = lookupTimeout;
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.staticHosts = Collections.unmodifiableMap(parse(staticHosts));
+        this.entries = new ConcurrentHashMap<String, Entry>();
+        this.lookups = new ConcurrentHashMap<String, FutureTask<InetAddress>>();
+        this.resolvers = Executors.newFixedThreadPool(RESOLVERS, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "restcomm-dns-resolver");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.literals = new AtomicLong();
+        this.hits = new AtomicLong();
+        this.negativeHits = new AtomicLong();
+        this.staleHits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.refreshes = new AtomicLong();
+        this.failures = new AtomicLong();
+        this.timeouts = new AtomicLong();
+        this.queries = new AtomicLong();
+        this.queryTime = new AtomicLong();
+        this.slowestQuery = new AtomicLong();
+    }
+
+    /**
+     * @return the cache shared by all the SIP routing decisions.
+     */
+    public static DnsCache getInstance() {
+        DnsCache cache = instance;
+        if (cache == null) {
+            synchronized (DnsCache.class) {
+                cache = instance;
+                if (cache == null) {
+                    if (RestcommConfiguration.isInitialized()) {
+                        final MainConfigurationSet config = RestcommConfiguration.getInstance().getMain();
+                        cache = new DnsCache(config.getDnsCacheTtl(), config.getDnsCacheNegativeTtl(),
+                                config.getDnsCacheRefreshAhead(), config.getDnsLookupTimeout(),
+                                config.getDnsCacheMaxEntries(), config.getDnsStaticHosts());
+                    } else {
+                        cache = new DnsCache(MainConfigurationSet.DNS_CACHE_TTL_DEFAULT,
+                                MainConfigurationSet.DNS_CACHE_NEGATIVE_TTL_DEFAULT,
+                                MainConfigurationSet.DNS_CACHE_REFRESH_AHEAD_DEFAULT,
+                                MainConfigurationSet.DNS_LOOKUP_TIMEOUT_DEFAULT,
+                                MainConfigurationSet.DNS_CACHE_MAX_ENTRIES_DEFAULT, new String[0]);
+                    }
+                    instance = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * @throws UnknownHostException if the host does not resolve or could not be looked up within the lookup timeout.
+     */
+    public InetAddress resolve(final String host) throws UnknownHostException {
+        if (host == null || host.isEmpty()) {
+            throw new UnknownHostException("No host to resolve.");
+        }
+        if (isLiteral(host)) {
+            literals.incrementAndGet();
+            // Parsed without any lookup.
+            return InetAddress.getByName(host);
+        }
+        final String key = host.toLowerCase(Locale.ENGLISH);
+        final InetAddress fixed = staticHosts.get(key);
+        if (fixed != null) {
+            hits.incrementAndGet();
+            return fixed;
+        }
+        final long now = System.currentTimeMillis();
+        final Entry entry = entries.get(key);
+        if (entry != null && now < entry.expires) {
+            if (entry.address == null) {
+                negativeHits.incrementAndGet();
+                throw new UnknownHostException(host);
+            }
+            hits.incrementAndGet();
+            if (now >= entry.expires - refreshAhead && !lookups.containsKey(key)) {
+                refreshes.incrementAndGet();
+                lookup(key, host);
+            }
+            return entry.address;
+        }
+        misses.incrementAndGet();
+        final Future<InetAddress> answer = lookup(key, host);
+        try {
+            return answer.get(lookupTimeout, TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException exception) {
+            timeouts.incrementAndGet();
+            if (entry != null && entry.address != null) {
+                // The lookup goes on in the background, keep using the previous answer meanwhile.
+                staleHits.incrementAndGet();
+                return entry.address;
+            }
+            throw new UnknownHostException(host + " could not be resolved within " + lookupTimeout + " ms.");
+        } catch (final ExecutionException exception) {
+            final Throwable cause = exception.getCause();
+            if (cause instanceof UnknownHostException) {
+                throw (UnknownHostException) cause;
+            }
+            final UnknownHostException failure = new UnknownHostException(host);
+            failure.initCause(cause);
+            throw failure;
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new UnknownHostException(host);
+        }
+    }
+
+    private Future<InetAddress> lookup(final String key, final String host) {
+        FutureTask<InetAddress> task = lookups.get(key);
+        if (task != null && task.isDone()) {
+            // The waiters of a lookup are woken up before it is removed, its answer is already stored.
+            lookups.remove(key, task);
+            task = null;
+        }
+        if (task == null) {
+            final FutureTask<InetAddress> created = new FutureTask<InetAddress>(new Callable<InetAddress>() {
+                @Override
+                public InetAddress call() throws Exception {
+                    return query(key, host);
+                }
+            }) {
+                @Override
+                protected void done() {
+                    lookups.remove(key, this);
+                }
+            };
+            task = lookups.putIfAbsent(key, created);
+            if (task == null) {
+                task = created;
+                try {
+                    resolvers.execute(created);
+                } catch (final RejectedExecutionException exception) {
+                    created.run();
+                }
+            }
+        }
+        return task;
+    }
+
+    private InetAddress query(final String key, final String host) throws UnknownHostException {
+        final long start = System.nanoTime();
+        try {
+            final InetAddress address = lookup.lookup(host);
+            store(key, new Entry(address, System.currentTimeMillis() + ttl));
+            return address;
+        } catch (final UnknownHostException exception) {
+            failures.incrementAndGet();
+            final long now = System.currentTimeMillis();
+            final Entry previous = entries.get(key);
+            if (previous != null && previous.address != null) {
+                // The DNS server may be the one failing, keep the previous answer a while longer.
+                logger.warn("Could not look up " + host + ", keeping " + previous.address.getHostAddress());
+                staleHits.incrementAndGet();
+                store(key, new Entry(previous.address, Math.max(previous.expires, now + negativeTtl)));
+                return previous.address;
+            }
+            store(key, new Entry(null, now + negativeTtl));
+            throw exception;
+        } finally {
+            final long elapsed = System.nanoTime() - start;
+            queries.incrementAndGet();
+            queryTime.addAndGet(elapsed);
+            long slowest = slowestQuery.get();
+            while (elapsed > slowest && !slowestQuery.compareAndSet(slowest, elapsed)) {
+                slowest = slowestQuery.get();
+            }
+        }
+    }
+
+    private void store(final String key, final Entry entry) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            final long now = System.currentTimeMillis();
+            final Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().expires <= now) {
+                    iterator.remove();
+                }
+            }
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(key, entry);
+    }
+
+    // Dotted quad IPv4 addresses and IPv6 addresses, with or without brackets.
+    static boolean isLiteral(final String host) {
+        if (host.indexOf(':') >= 0) {
+            return true;
+        }
+        int parts = 0;
+        int value = -1;
+        for (int index = 0; index < host.length(); index++) {
+            final char character = host.charAt(index);
+            if (character == '.') {
+                if (value < 0 || ++parts > 3) {
+                    return false;
+                }
+                value = -1;
+            } else if (character >= '0' && character <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (character - '0');
+                if (value > 255) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return parts == 3 && value >= 0;
+    }
+
+    private static Map<String, InetAddress> parse(final String[] staticHosts) {
+        final Map<String, InetAddress> hosts = new HashMap<String, InetAddress>();
+        for (final String staticHost : staticHosts) {
+            final int separator = staticHost.indexOf('=');
+            final String name = separator > 0 ? staticHost.substring(0, separator).trim() : null;
+            final String address = separator > 0 ? staticHost.substring(separator + 1).trim() : null;
+            if (name == null || address == null || !isLiteral(address)) {
+                throw new IllegalArgumentException(staticHost + " is not a valid name=address static host.");
+            }
+            try {
+                final byte[] bytes = InetAddress.getByName(address).getAddress();
+                hosts.put(name.toLowerCase(Locale.ENGLISH), InetAddress.getByAddress(name, bytes));
+            } catch (final UnknownHostException exception) {
+                throw new IllegalArgumentException(staticHost + " is not a valid name=address static host.", exception);
+            }
+        }
+        return hosts;
+    }
+
+    /**
+     * @return the resolutions of IP literals, the answers found in the cache, including the failures and the previous
+     *         answers used when a lookup fails, the resolutions looked up, the lookups ahead of the end of a TTL, the
+     *         failed and timed out lookups, the lookups and their total and longest time in milliseconds and the
+     *         number of hosts cached.
+     */
+    public Map<String, Long> getStatistics() {
+        final Map<String, Long> statistics = new HashMap<String, Long>();
+        statistics.put("Literals", literals.get());
+        statistics.put("Hits", hits.get());
+        statistics.put("NegativeHits", negativeHits.get());
+        statistics.put("StaleHits", staleHits.get());
+        statistics.put("Misses", misses.get());
+        statistics.put("Refreshes", refreshes.get());
+        statistics.put("Failures", failures.get());
+        statistics.put("Timeouts", timeouts.get());
+        statistics.put("Lookups", queries.get());
+        statistics.put("LookupTime", TimeUnit.NANOSECONDS.toMillis(queryTime.get()));
+        statistics.put("SlowestLookup", TimeUnit.NANOSECONDS.toMillis(slowestQuery.get()));
+        statistics.put("Entries", (long) entries.size());
+        return statistics;
+    }
+
+    public void shutdown() {
+        resolvers.shutdownNow();
+    }
+
+    @Immutable
+    private static final class Entry {
+        // Null when the host did not resolve.
+        private final InetAddress address;
+        private final long expires;
+
+        private Entry(final InetAddress address, final long expires) {
+            super();
+            this.address = address;
+            this.expires = expires;
+        }
+    }
+}
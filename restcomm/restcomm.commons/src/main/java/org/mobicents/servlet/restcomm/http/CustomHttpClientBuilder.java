@@ -26,19 +26,37 @@ import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.http.HttpResponse;
+import org.apache.http.client.CookieStore;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.client.params.CookiePolicy;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.conn.ssl.TrustStrategy;
+import org.apache.http.cookie.Cookie;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
 import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.log4j.Logger;
 import org.mobicents.servlet.restcomm.HttpConnector;
 import org.mobicents.servlet.restcomm.HttpConnectorList;
+import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
 import org.mobicents.servlet.restcomm.configuration.sets.MainConfigurationSet;
 import org.mobicents.servlet.restcomm.util.UriUtils;
 
@@ -48,11 +66,107 @@ import org.mobicents.servlet.restcomm.util.UriUtils;
  *
  */
 public class CustomHttpClientBuilder {
+    private static final Logger logger = Logger.getLogger(CustomHttpClientBuilder.class);
+
+    // Discards the cookies of the requests made without a cookie store of their own.
+    private static final CookieStore NO_COOKIES = new CookieStore() {
+        @Override
+        public void addCookie(final Cookie cookie) {
+        }
+
+        @Override
+        public List<Cookie> getCookies() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean clearExpired(final Date date) {
+            return false;
+        }
+
+        @Override
+        public void clear() {
+        }
+    };
+
+    private static volatile HttpClient defaultClient;
+    private static volatile PooledConnectionManager defaultConnectionManager;
+    private static ScheduledExecutorService evictor;
 
     private CustomHttpClientBuilder() {
         // TODO Auto-generated constructor stub
     }
 
+    /**
+     * Returns the HttpClient shared by all outgoing requests (RCML fetches, status callbacks, media and TTS downloads).
+     * Connections are pooled and kept alive per route, so callers must always consume the response entity
+     * in order to return the connection to the pool. Never set credentials or custom schemes on the shared client,
+     * use {@link #buildPooled(MainConfigurationSet)} for a private instance instead.
+     *
+     * The shared client keeps no cookies, otherwise the cookies set by one tenant's server or one provider would be
+     * sent along with the requests of the others. Callers that need cookies pass their own cookie store in the
+     * HttpContext of the request.
+     */
+    public static HttpClient buildDefault() {
+        HttpClient client = defaultClient;
+        if (client == null) {
+            synchronized (CustomHttpClientBuilder.class) {
+                client = defaultClient;
+                if (client == null) {
+                    final MainConfigurationSet config = mainConfiguration();
+                    final DefaultHttpClient pooled = buildPooled(config);
+                    pooled.getParams().setParameter(ClientPNames.COOKIE_POLICY, CookiePolicy.BROWSER_COMPATIBILITY);
+                    pooled.setCookieStore(NO_COOKIES);
+                    defaultConnectionManager = (PooledConnectionManager) pooled.getConnectionManager();
+                    evictor = startEvictor(defaultConnectionManager, config == null ? MainConfigurationSet.HTTP_IDLE_TIMEOUT_DEFAULT
+                            : config.getIdleTimeout());
+                    defaultClient = client = pooled;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * @return the connection manager behind the shared client or null if the shared client was never used.
+     */
+    public static PooledConnectionManager getDefaultConnectionManager() {
+        return defaultConnectionManager;
+    }
+
+    /**
+     * Builds a private client backed by its own connection pool. Use it for clients that need to carry state
+     * that must not leak to other requests, like credentials or custom SSL schemes.
+     */
+    public static DefaultHttpClient buildPooled() {
+        return buildPooled(mainConfiguration());
+    }
+
+    public static DefaultHttpClient buildPooled(MainConfigurationSet config) {
+        final int timeout = config == null ? 5000 : config.getResponseTimeout();
+        final int maxTotal = config == null ? MainConfigurationSet.HTTP_MAX_CONN_TOTAL_DEFAULT : config.getMaxConnTotal();
+        final int maxPerRoute = config == null ? MainConfigurationSet.HTTP_MAX_CONN_PER_ROUTE_DEFAULT : config
+                .getMaxConnPerRoute();
+        final long keepAlive = config == null ? MainConfigurationSet.HTTP_KEEP_ALIVE_DEFAULT : config.getKeepAlive();
+        final int socketTimeout = config == null ? MainConfigurationSet.HTTP_SOCKET_TIMEOUT_DEFAULT : config
+                .getSocketTimeout();
+
+        final PooledConnectionManager manager = new PooledConnectionManager(SchemeRegistryFactory.createDefault(), -1,
+                TimeUnit.MILLISECONDS);
+        manager.setMaxTotal(maxTotal);
+        manager.setDefaultMaxPerRoute(maxPerRoute);
+        final HttpParams httpParameters = new BasicHttpParams();
+        HttpConnectionParams.setConnectionTimeout(httpParameters, timeout);
+        // Otherwise a hung server holds a pooled connection forever.
+        HttpConnectionParams.setSoTimeout(httpParameters, socketTimeout);
+        HttpConnectionParams.setStaleCheckingEnabled(httpParameters, true);
+        final DefaultHttpClient client = new DefaultHttpClient(manager, httpParameters);
+        client.setKeepAliveStrategy(keepAliveStrategy(keepAlive));
+        if (config != null && config.getSslMode() != SslMode.strict) {
+            registerAllowallScheme(manager.getSchemeRegistry());
+        }
+        return client;
+    }
 
     public static HttpClient build(MainConfigurationSet config) {
         SslMode mode = config.getSslMode();
@@ -65,9 +179,71 @@ public class CustomHttpClientBuilder {
             return buildAllowallClient(httpParameters);
     }
 
+    /**
+     * Shuts down the shared client and its idle connection evictor.
+     */
+    public static void shutdown() {
+        synchronized (CustomHttpClientBuilder.class) {
+            if (evictor != null) {
+                evictor.shutdownNow();
+                evictor = null;
+            }
+            if (defaultClient != null) {
+                defaultClient.getConnectionManager().shutdown();
+                defaultClient = null;
+                defaultConnectionManager = null;
+            }
+        }
+    }
+
+    // Falls back to the defaults when used outside of a running RestComm instance, e.g. from unit tests.
+    private static MainConfigurationSet mainConfiguration() {
+        return RestcommConfiguration.isInitialized() ? RestcommConfiguration.getInstance().getMain() : null;
+    }
+
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(final long keepAlive) {
+        return new DefaultConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(final HttpResponse response, final HttpContext context) {
+                // Honor the Keep-Alive header of the server and fall back to our own default otherwise.
+                final long duration = super.getKeepAliveDuration(response, context);
+                return duration > 0 ? duration : keepAlive;
+            }
+        };
+    }
+
+    private static ScheduledExecutorService startEvictor(final PooledConnectionManager manager, final long idleTimeout) {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "restcomm-http-client-evictor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final long period = Math.max(1000, idleTimeout / 2);
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    manager.closeExpiredConnections();
+                    manager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+                } catch (final Exception exception) {
+                    logger.warn("Error while evicting idle http client connections", exception);
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
     private static HttpClient buildAllowallClient(HttpParams httpParameters) {
-        HttpConnectorList httpConnectorList = UriUtils.getHttpConnectorList();
         HttpClient httpClient = new DefaultHttpClient(httpParameters);
+        registerAllowallScheme(httpClient.getConnectionManager().getSchemeRegistry());
+        return httpClient;
+    }
+
+    private static void registerAllowallScheme(SchemeRegistry registry) {
+        HttpConnectorList httpConnectorList = UriUtils.getHttpConnectorList();
         //Enable SSL only if we have HTTPS connector
         List<HttpConnector> connectors = httpConnectorList.getConnectors();
         Iterator<HttpConnector> iterator = connectors.iterator();
@@ -86,12 +262,10 @@ public class CustomHttpClientBuilder {
                 } catch (KeyManagementException | UnrecoverableKeyException | NoSuchAlgorithmException | KeyStoreException e) {
                     throw new RuntimeException("Error creating HttpClient", e);
                 }
-                httpClient.getConnectionManager().getSchemeRegistry().register(new Scheme(connector.getScheme(), connector.getPort(), sslsf));
+                registry.register(new Scheme(connector.getScheme(), connector.getPort(), sslsf));
                 break;
             }
         }
-
-        return httpClient;
     }
 
 }
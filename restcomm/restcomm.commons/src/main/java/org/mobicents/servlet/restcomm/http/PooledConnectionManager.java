@@ -0,0 +1,149 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package org.mobicents.servlet.restcomm.http;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * A per-route pooling connection manager that keeps track of how often a leased connection had to be freshly
+ * opened and of how long callers waited to lease a connection from the pool.
+ */
+@ThreadSafe
+public class PooledConnectionManager extends PoolingClientConnectionManager {
+
+    private final AtomicLong leases;
+    private final AtomicLong connectionsOpened;
+    private final AtomicLong leaseWaitNanos;
+    private final AtomicLong leaseTimeouts;
+
+    public PooledConnectionManager(final SchemeRegistry registry, final long timeToLive, final TimeUnit unit) {
+        super(registry, timeToLive, unit);
+        this.leases = new AtomicLong();
+        this.connectionsOpened = new AtomicLong();
+        this.leaseWaitNanos = new AtomicLong();
+        this.leaseTimeouts = new AtomicLong();
+    }
+
+    // Invoked by the super constructor, the operator only touches our counters once connections are opened.
+    @Override
+    protected ClientConnectionOperator createConnectionOperator(final SchemeRegistry registry) {
+        return new DefaultClientConnectionOperator(registry) {
+            @Override
+            public void openConnection(final OperatedClientConnection connection, final HttpHost target,
+                    final InetAddress local, final HttpContext context, final HttpParams params) throws IOException {
+                connectionsOpened.incrementAndGet();
+                super.openConnection(connection, target, local, context, params);
+            }
+        };
+    }
+
+    @Override
+    public ClientConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+        final ClientConnectionRequest request = super.requestConnection(route, state);
+        return new ClientConnectionRequest() {
+            @Override
+            public ManagedClientConnection getConnection(final long timeout, final TimeUnit unit) throws InterruptedException,
+                    ConnectionPoolTimeoutException {
+                final long start = System.nanoTime();
+                try {
+                    final ManagedClientConnection connection = request.getConnection(timeout, unit);
+                    leases.incrementAndGet();
+                    return connection;
+                } catch (final ConnectionPoolTimeoutException exception) {
+                    leaseTimeouts.incrementAndGet();
+                    throw exception;
+                } finally {
+                    leaseWaitNanos.addAndGet(System.nanoTime() - start);
+                }
+            }
+
+            @Override
+            public void abortRequest() {
+                request.abortRequest();
+            }
+        };
+    }
+
+    public long getLeases() {
+        return leases.get();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * @return the number of leases that were served by an already open, kept-alive connection.
+     */
+    public long getConnectionsReused() {
+        return Math.max(0, leases.get() - connectionsOpened.get());
+    }
+
+    public long getLeaseTimeouts() {
+        return leaseTimeouts.get();
+    }
+
+    public long getAverageLeaseWaitMillis() {
+        final long count = leases.get() + leaseTimeouts.get();
+        if (count == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(leaseWaitNanos.get() / count);
+    }
+
+    /**
+     * @return a snapshot of the pool counters, suitable for the monitoring service.
+     */
+    public Map<String, Long> getStatistics() {
+        final PoolStats totals = getTotalStats();
+        final Map<String, Long> statistics = new HashMap<String, Long>();
+        statistics.put("Leased", (long) totals.getLeased());
+        statistics.put("Available", (long) totals.getAvailable());
+        statistics.put("Pending", (long) totals.getPending());
+        statistics.put("Max", (long) totals.getMax());
+        statistics.put("Leases", getLeases());
+        statistics.put("ConnectionsOpened", getConnectionsOpened());
+        statistics.put("ConnectionsReused", getConnectionsReused());
+        statistics.put("LeaseTimeouts", getLeaseTimeouts());
+        statistics.put("AverageLeaseWaitMillis", getAverageLeaseWaitMillis());
+        return statistics;
+    }
+}
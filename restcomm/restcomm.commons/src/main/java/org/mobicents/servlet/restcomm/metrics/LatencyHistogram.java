@@ -0,0 +1,176 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * Counts durations in buckets of logarithmic width, in the manner of an HDR histogram, so any percentile can be read
+ * with a relative error of about 3% while recording stays a single atomic increment.
+ *
+ * The durations are counted in microseconds. Below 64 microseconds every value has its own bucket, above every power
+ * of two is split in 32 buckets, up to about 9 hours.
+ */
+@ThreadSafe
+public final class LatencyHistogram {
+    private static final int LINEAR = 64;
+    private static final int SUB_BUCKETS = 32;
+    // The magnitude, the power of two, of the first value past the linear buckets.
+    private static final int FIRST_MAGNITUDE = 6;
+    private static final int LAST_MAGNITUDE = 35;
+    private static final int BUCKETS = LINEAR + (LAST_MAGNITUDE - FIRST_MAGNITUDE + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count;
+    private final AtomicLong sum;
+    private final AtomicLong max;
+
+    public LatencyHistogram() {
+        super();
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.sum = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    public void record(final long duration, final TimeUnit unit) {
+        final long value = Math.max(unit.toMicros(duration), 0);
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long highest = max.get();
+        while (value > highest && !max.compareAndSet(highest, value)) {
+            highest = max.get();
+        }
+    }
+
+    /**
+     * Records the time elapsed since a value of {@link System#nanoTime()}.
+     */
+    public void recordSince(final long start) {
+        record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    static int index(final long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude > LAST_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+        final int shift = magnitude - 5;
+        return LINEAR + (magnitude - FIRST_MAGNITUDE) * SUB_BUCKETS + (int) (value >> shift) - SUB_BUCKETS;
+    }
+
+    // The lowest of the values counted in a bucket.
+    static long lowest(final int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        final int magnitude = FIRST_MAGNITUDE + (index - LINEAR) / SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + (index - LINEAR) % SUB_BUCKETS) << (magnitude - 5);
+    }
+
+    // The middle of the values counted in a bucket.
+    static long value(final int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        final int magnitude = FIRST_MAGNITUDE + (index - LINEAR) / SUB_BUCKETS;
+        return lowest(index) + ((1L << (magnitude - 5)) >> 1);
+    }
+
+    /**
+     * @param percentiles between 0 and 100.
+     * @return in microseconds, the durations at the percentiles, read from a single pass over the buckets.
+     */
+    public long[] getValuesAtPercentiles(final double... percentiles) {
+        final long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            snapshot[index] = counts.get(index);
+            total += snapshot[index];
+        }
+        final long[] values = new long[percentiles.length];
+        if (total == 0) {
+            return values;
+        }
+        final long highest = max.get();
+        for (int position = 0; position < percentiles.length; position++) {
+            final long rank = Math.max((long) Math.ceil(percentiles[position] / 100 * total), 1);
+            long seen = 0;
+            for (int index = 0; index < BUCKETS; index++) {
+                seen += snapshot[index];
+                if (seen >= rank) {
+                    values[position] = Math.min(value(index), highest);
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @param bounds in microseconds, in increasing order.
+     * @return the number of durations up to each of the bounds followed by the number of all the durations, read from
+     *         a single pass over the buckets. A bucket is counted up to a bound when its lowest value is, so a duration
+     *         up to about 3% above a bound may be counted below it.
+     */
+    public long[] getCountsUpTo(final long... bounds) {
+        final long[] result = new long[bounds.length + 1];
+        long seen = 0;
+        int position = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            final long lowest = lowest(index);
+            while (position < bounds.length && lowest > bounds[position]) {
+                result[position++] = seen;
+            }
+            seen += counts.get(index);
+        }
+        while (position < bounds.length) {
+            result[position++] = seen;
+        }
+        result[bounds.length] = seen;
+        return result;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return in microseconds, the sum of the durations recorded.
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * @return in microseconds, the longest duration recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * Holds the latency histograms of the stages of the call setup and the statistics of the other components, read
+ * without any lock or message when the metrics are scraped.
+ */
+@ThreadSafe
+public final class Metrics {
+    private static final ConcurrentMap<String, LatencyHistogram> timers = new ConcurrentHashMap<String, LatencyHistogram>();
+    private static final ConcurrentMap<String, Source> sources = new ConcurrentHashMap<String, Source>();
+
+    public interface Source {
+        Map<String, Long> getStatistics();
+    }
+
+    private Metrics() {
+        super();
+    }
+
+    /**
+     * @param stage the name of the stage timed, such as rcml.download.
+     * @return the histogram shared by everything timing the stage.
+     */
+    public static LatencyHistogram timer(final String stage) {
+        LatencyHistogram timer = timers.get(stage);
+        if (timer == null) {
+            final LatencyHistogram created = new LatencyHistogram();
+            timer = timers.putIfAbsent(stage, created);
+            if (timer == null) {
+                timer = created;
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * @param name the name the statistics of the source are exported under, replacing any source of the same name.
+     */
+    public static void register(final String name, final Source source) {
+        sources.put(name, source);
+    }
+
+    public static void unregister(final String name) {
+        sources.remove(name);
+    }
+
+    public static Map<String, LatencyHistogram> getTimers() {
+        return Collections.unmodifiableMap(timers);
+    }
+
+    public static Map<String, Source> getSources() {
+        return Collections.unmodifiableMap(sources);
+    }
+}
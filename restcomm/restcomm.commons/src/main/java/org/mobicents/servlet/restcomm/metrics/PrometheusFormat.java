@@ -0,0 +1,103 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * Writes the metrics in the Prometheus text exposition format. Every timer is a histogram of the stage latencies in
+ * seconds, so that the percentiles of any period can be computed from the rate of its buckets, every statistic of a
+ * source a gauge.
+ */
+@ThreadSafe
+public final class PrometheusFormat {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+
+    // In seconds, the upper bounds of the buckets.
+    private static final double[] BUCKETS = { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30 };
+    private static final long[] BOUNDS = new long[BUCKETS.length];
+    static {
+        for (int index = 0; index < BUCKETS.length; index++) {
+            BOUNDS[index] = Math.round(BUCKETS[index] * 1000000);
+        }
+    }
+
+    private PrometheusFormat() {
+        super();
+    }
+
+    public static void write(final Writer writer) throws IOException {
+        final Map<String, LatencyHistogram> timers = new TreeMap<String, LatencyHistogram>(Metrics.getTimers());
+        writer.write("# HELP restcomm_latency_seconds Latency of the call setup stages.\n");
+        writer.write("# TYPE restcomm_latency_seconds histogram\n");
+        for (final Map.Entry<String, LatencyHistogram> entry : timers.entrySet()) {
+            final String stage = "stage=\"" + escape(entry.getKey()) + "\"";
+            final LatencyHistogram timer = entry.getValue();
+            final long[] counts = timer.getCountsUpTo(BOUNDS);
+            for (int index = 0; index < BUCKETS.length; index++) {
+                sample(writer, "restcomm_latency_seconds_bucket{" + stage + ",le=\"" + BUCKETS[index] + "\"}",
+                        Long.toString(counts[index]));
+            }
+            // The count must be the one of the +Inf bucket, read in the same pass.
+            final String count = Long.toString(counts[BUCKETS.length]);
+            sample(writer, "restcomm_latency_seconds_bucket{" + stage + ",le=\"+Inf\"}", count);
+            sample(writer, "restcomm_latency_seconds_sum{" + stage + "}", seconds(timer.getSum()));
+            sample(writer, "restcomm_latency_seconds_count{" + stage + "}", count);
+        }
+        writer.write("# HELP restcomm_latency_max_seconds Longest latency of the call setup stages.\n");
+        writer.write("# TYPE restcomm_latency_max_seconds gauge\n");
+        for (final Map.Entry<String, LatencyHistogram> entry : timers.entrySet()) {
+            sample(writer, "restcomm_latency_max_seconds{stage=\"" + escape(entry.getKey()) + "\"}",
+                    seconds(entry.getValue().getMax()));
+        }
+        writer.write("# HELP restcomm_statistic Statistics of the components.\n");
+        writer.write("# TYPE restcomm_statistic gauge\n");
+        final Map<String, Metrics.Source> sources = new TreeMap<String, Metrics.Source>(Metrics.getSources());
+        for (final Map.Entry<String, Metrics.Source> entry : sources.entrySet()) {
+            final String source = "source=\"" + escape(entry.getKey()) + "\"";
+            final Map<String, Long> statistics = new TreeMap<String, Long>(entry.getValue().getStatistics());
+            for (final Map.Entry<String, Long> statistic : statistics.entrySet()) {
+                sample(writer, "restcomm_statistic{" + source + ",name=\"" + escape(statistic.getKey()) + "\"}",
+                        Long.toString(statistic.getValue()));
+            }
+        }
+        writer.flush();
+    }
+
+    private static void sample(final Writer writer, final String name, final String value) throws IOException {
+        writer.write(name);
+        writer.write(' ');
+        writer.write(value);
+        writer.write('\n');
+    }
+
+    private static String seconds(final long micros) {
+        return Double.toString(micros / 1000000d);
+    }
+
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
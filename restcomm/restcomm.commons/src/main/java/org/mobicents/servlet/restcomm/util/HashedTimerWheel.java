@@ -0,0 +1,175 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * Runs a large number of tasks after a delay, hundreds of thousands of registration expirations for example, at the
+ * cost of a single thread and constant time to schedule or cancel a task.
+ *
+ * The tasks are hashed into the buckets of a wheel the thread moves through, one bucket every tick. A task is run on
+ * the tick following its deadline, so the tick is the precision of the delays. The tasks must be short, they are run
+ * by the thread of the wheel.
+ */
+@ThreadSafe
+public final class HashedTimerWheel {
+    private static final Logger logger = Logger.getLogger(HashedTimerWheel.class);
+
+    private final long tick;
+    private final int mask;
+    // Only used by the thread of the wheel.
+    private final List<LinkedList<Timeout>> buckets;
+    private final Queue<Timeout> scheduled;
+    private final Thread worker;
+    private final long start;
+    private volatile boolean stopped;
+
+    /**
+     * @param name the name of the thread of the wheel.
+     * @param tick the time the thread of the wheel spends on each bucket.
+     * @param size the number of buckets, rounded up to a power of two.
+     */
+    public HashedTimerWheel(final String name, final long tick, final TimeUnit unit, final int size) {
+        super();
+        this.tick = unit.toNanos(tick);
+        int buckets = 1;
+        while (buckets < size) {
+            buckets <<= 1;
+        }
+        this.mask = buckets - 1;
+        this.buckets = new ArrayList<LinkedList<Timeout>>(buckets);
+        for (int index = 0; index < buckets; index++) {
+            this.buckets.add(new LinkedList<Timeout>());
+        }
+        this.scheduled = new ConcurrentLinkedQueue<Timeout>();
+        this.start = System.nanoTime();
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                turn();
+            }
+        }, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * @return the handle of the task, to cancel it.
+     */
+    public Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        final Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(Math.max(delay, 0)));
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void turn() {
+        long ticks = 0;
+        while (!stopped) {
+            final long deadline = start + (ticks + 1) * tick;
+            final long sleep = deadline - System.nanoTime();
+            if (sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (final InterruptedException exception) {
+                    if (stopped) {
+                        return;
+                    }
+                }
+            }
+            transfer(ticks);
+            expire(buckets.get((int) (ticks & mask)), deadline);
+            ticks++;
+        }
+    }
+
+    // Moves the tasks scheduled since the previous tick to their bucket.
+    private void transfer(final long current) {
+        Timeout timeout = scheduled.poll();
+        while (timeout != null) {
+            if (!timeout.cancelled) {
+                final long due = (timeout.deadline - start) / tick;
+                timeout.rounds = (due - current) / buckets.size();
+                // A task already due is run on this tick.
+                final long slot = Math.max(due, current);
+                buckets.get((int) (slot & mask)).add(timeout);
+            }
+            timeout = scheduled.poll();
+        }
+    }
+
+    private void expire(final LinkedList<Timeout> bucket, final long deadline) {
+        final Iterator<Timeout> timeouts = bucket.iterator();
+        while (timeouts.hasNext()) {
+            final Timeout timeout = timeouts.next();
+            if (timeout.cancelled) {
+                timeouts.remove();
+            } else if (timeout.rounds <= 0 && timeout.deadline <= deadline) {
+                timeouts.remove();
+                try {
+                    timeout.task.run();
+                } catch (final Throwable throwable) {
+                    logger.error("Unexpected error while running a timer task.", throwable);
+                }
+            } else {
+                timeout.rounds--;
+            }
+        }
+    }
+
+    /**
+     * A task waiting on the wheel.
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private volatile boolean cancelled;
+        // Only used by the thread of the wheel, the number of turns of the wheel left before the task is run.
+        private long rounds;
+
+        private Timeout(final Runnable task, final long deadline) {
+            super();
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
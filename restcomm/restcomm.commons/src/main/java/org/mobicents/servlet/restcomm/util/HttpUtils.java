@@ -28,8 +28,10 @@ import java.util.Scanner;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.util.EntityUtils;
@@ -79,4 +81,17 @@ public final class HttpUtils {
         }
         return URLEncodedUtils.format(parameters, "UTF-8");
     }
+
+    /**
+     * Reads the response entity in memory so that the pooled connection it came from is released right away,
+     * whatever the caller ends up doing with the response.
+     */
+    public static HttpResponse buffer(final HttpResponse response) throws IOException {
+        final HttpEntity entity = response.getEntity();
+        if (entity != null) {
+            response.setEntity(new BufferedHttpEntity(entity));
+            EntityUtils.consume(entity);
+        }
+        return response;
+    }
 }
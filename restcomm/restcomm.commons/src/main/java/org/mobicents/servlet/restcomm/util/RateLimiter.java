@@ -0,0 +1,65 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * Spaces out operations so that no more than a fixed number of them are started every second.
+ *
+ * Instead of blocking, every caller reserves the next free slot and is told how long to wait before starting, so the
+ * operations are started in the order of their reservations.
+ */
+@ThreadSafe
+public final class RateLimiter {
+    // The time between two operations in nanoseconds, zero if they are not limited.
+    private final long interval;
+    private long next;
+
+    /**
+     * @param rate the number of operations started every second, zero or less for no limit.
+     */
+    public RateLimiter(final int rate) {
+        super();
+        this.interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        this.next = System.nanoTime();
+    }
+
+    /**
+     * @param maxWait the longest time the caller is willing to wait.
+     * @return the time to wait before starting the operation, or -1 without reserving anything if the caller would
+     *         have to wait longer than max wait.
+     */
+    public synchronized long reserve(final long maxWait, final TimeUnit unit) {
+        final long now = System.nanoTime();
+        if (interval == 0) {
+            return 0;
+        }
+        final long start = Math.max(next, now);
+        final long wait = start - now;
+        if (wait > unit.toNanos(maxWait)) {
+            return -1;
+        }
+        next = start + interval;
+        return unit.convert(wait, TimeUnit.NANOSECONDS);
+    }
+}
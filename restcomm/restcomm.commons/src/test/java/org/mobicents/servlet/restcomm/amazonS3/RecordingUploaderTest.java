@@ -0,0 +1,211 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.amazonS3;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+
+public class RecordingUploaderTest {
+    private File root;
+    private File recordings;
+    private File queue;
+    private File bucket;
+
+    public RecordingUploaderTest() {
+        super();
+    }
+
+    @Before
+    public void before() throws IOException {
+        root = File.createTempFile("restcomm-uploads", "");
+        root.delete();
+        recordings = new File(root, "recordings");
+        recordings.mkdirs();
+        queue = new File(recordings, ".uploads");
+        bucket = new File(root, "bucket");
+        bucket.mkdirs();
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(root);
+    }
+
+    private File recording(final String name) throws IOException {
+        final File file = new File(recordings, name);
+        FileUtils.writeStringToFile(file, "RIFF", "UTF-8");
+        return file;
+    }
+
+    @Test
+    public void testFailedUploadIsTriedAgain() throws Exception {
+        final LocalS3 s3 = new LocalS3(bucket, 2, false);
+        final RecordingUploader uploader = new RecordingUploader(s3, queue, 2, 5, 10, 0);
+        final Uploads uploads = new Uploads(1);
+        uploader.start(uploads);
+        uploader.submit(recording("RE00000000000000000000000000000001.wav"));
+        assertTrue(uploads.await());
+        assertEquals(3, s3.attempts.get());
+        assertTrue(new File(bucket, "RE00000000000000000000000000000001.wav").exists());
+        // The marker is only removed once the URL has been recorded.
+        assertEquals(0, awaitQueue());
+        uploader.shutdown();
+    }
+
+    @Test
+    public void testUploadIsResumedAfterRestart() throws Exception {
+        final File file = recording("RE00000000000000000000000000000002.wav");
+        queue.mkdirs();
+        FileUtils.writeStringToFile(new File(queue, file.getName() + ".pending"), file.getAbsolutePath(), "UTF-8");
+        final RecordingUploader uploader = new RecordingUploader(new LocalS3(bucket, 0, false), queue, 2, 5, 10, 0);
+        final Uploads uploads = new Uploads(1);
+        uploader.start(uploads);
+        assertTrue(uploads.await());
+        assertEquals(file.getName(), uploads.file.getName());
+        assertEquals(0, awaitQueue());
+        uploader.shutdown();
+    }
+
+    @Test
+    public void testUploadIsGivenUpAfterMaxAttempts() throws Exception {
+        final LocalS3 s3 = new LocalS3(bucket, Integer.MAX_VALUE, false);
+        final RecordingUploader uploader = new RecordingUploader(s3, queue, 1, 3, 10, 0);
+        uploader.start(new Uploads(1));
+        uploader.submit(recording("RE00000000000000000000000000000003.wav"));
+        final File failed = new File(queue, "RE00000000000000000000000000000003.wav.failed");
+        for (int i = 0; i < 100 && !failed.exists(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(failed.exists());
+        assertEquals(3, s3.attempts.get());
+        uploader.shutdown();
+    }
+
+    @Test
+    public void testOriginalIsRemovedAfterTheUrlIsRecorded() throws Exception {
+        final File file = recording("RE00000000000000000000000000000004.wav");
+        final RecordingUploader uploader = new RecordingUploader(new LocalS3(bucket, 0, true), queue, 1, 3, 10, 500);
+        final Uploads uploads = new Uploads(1) {
+            @Override
+            public void uploaded(final File uploaded, final URI url) {
+                // Still served locally while the URL is recorded.
+                assertTrue(uploaded.exists());
+                super.uploaded(uploaded, url);
+            }
+        };
+        uploader.start(uploads);
+        uploader.submit(file);
+        assertTrue(uploads.await());
+        // Kept for the removal delay.
+        assertTrue(file.exists());
+        for (int i = 0; i < 100 && file.exists(); i++) {
+            Thread.sleep(50);
+        }
+        assertFalse(file.exists());
+        assertEquals(0, awaitQueue());
+        uploader.shutdown();
+    }
+
+    @Test
+    public void testRemovalIsResumedAfterRestart() throws Exception {
+        final File file = recording("RE00000000000000000000000000000005.wav");
+        queue.mkdirs();
+        FileUtils.writeStringToFile(new File(queue, file.getName() + ".uploaded"), file.getAbsolutePath(), "UTF-8");
+        final RecordingUploader uploader = new RecordingUploader(new LocalS3(bucket, 0, true), queue, 1, 3, 10, 0);
+        uploader.start(new Uploads(1));
+        for (int i = 0; i < 100 && file.exists(); i++) {
+            Thread.sleep(50);
+        }
+        assertFalse(file.exists());
+        uploader.shutdown();
+    }
+
+    // The number of markers left in the queue once they are all removed, or after five seconds.
+    private int awaitQueue() throws InterruptedException {
+        for (int i = 0; i < 100 && queue.list().length > 0; i++) {
+            Thread.sleep(50);
+        }
+        return queue.list().length;
+    }
+
+    private static class Uploads implements RecordingUploader.Listener {
+        private final CountDownLatch latch;
+        private volatile File file;
+
+        private Uploads(final int count) {
+            super();
+            this.latch = new CountDownLatch(count);
+        }
+
+        @Override
+        public void uploaded(final File file, final URI url) {
+            this.file = file;
+            latch.countDown();
+        }
+
+        private boolean await() throws InterruptedException {
+            return latch.await(10, TimeUnit.SECONDS);
+        }
+    }
+
+    // Stands in for S3, the bucket is a local directory and the first uploads fail.
+    private static final class LocalS3 extends S3AccessTool {
+        private final File bucket;
+        private final int failures;
+        private final AtomicInteger attempts;
+
+        private LocalS3(final File bucket, final int failures, final boolean removeOriginalFile) {
+            super("access", "secret", "restcomm-recordings", null, false, 1, removeOriginalFile, "us-east-1");
+            this.bucket = bucket;
+            this.failures = failures;
+            this.attempts = new AtomicInteger();
+        }
+
+        @Override
+        public URI getPublicUrl(final File file) {
+            return new File(bucket, file.getName()).toURI();
+        }
+
+        @Override
+        public void upload(final File file) throws AmazonClientException {
+            if (attempts.incrementAndGet() <= failures) {
+                throw new AmazonClientException("Unable to execute HTTP request: Connection refused");
+            }
+            try {
+                FileUtils.copyFileToDirectory(file, bucket);
+            } catch (final IOException exception) {
+                throw new AmazonClientException(exception.getMessage(), exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package org.mobicents.servlet.restcomm.cache;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class DiskCacheIndexTest {
+    private File directory;
+
+    public DiskCacheIndexTest() {
+        super();
+    }
+
+    @Before
+    public void before() throws Exception {
+        directory = new File(System.getProperty("java.io.tmpdir"), "restcomm-cache-" + System.nanoTime());
+        directory.mkdirs();
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private File write(final String name, final int size) throws IOException {
+        final File file = new File(directory, name);
+        FileUtils.writeByteArrayToFile(file, new byte[size]);
+        return file;
+    }
+
+    @Test
+    public void testExistingFilesAreIndexed() throws IOException {
+        write("one.wav", 10);
+        write("two.wav", 20);
+        write("three.wav.tmp", 30);
+        final DiskCacheIndex index = new DiskCacheIndex(directory, 0);
+        assertEquals(2, index.size());
+        assertEquals(30, index.bytes());
+        assertNotNull(index.lookup("ONE.wav"));
+        assertNull(index.lookup("three.wav"));
+        assertEquals(1, index.getHits());
+        assertEquals(1, index.getMisses());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFilesAreEvicted() throws IOException {
+        write("one.wav", 10);
+        write("two.wav", 10);
+        final DiskCacheIndex index = new DiskCacheIndex(directory, 25);
+        assertNotNull(index.lookup("one.wav"));
+        index.get("three.wav", new Callable<File>() {
+            @Override
+            public File call() throws IOException {
+                return write("three.wav", 10);
+            }
+        });
+        assertEquals(2, index.size());
+        assertEquals(1, index.getEvictions());
+        assertFalse(new File(directory, "two.wav").exists());
+        assertNotNull(index.lookup("one.wav"));
+        assertNotNull(index.lookup("three.wav"));
+    }
+
+    @Test
+    public void testConcurrentDownloadsAreCoalesced() throws Exception {
+        final DiskCacheIndex index = new DiskCacheIndex(directory, 0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger downloads = new AtomicInteger();
+        final Callable<File> download = new Callable<File>() {
+            @Override
+            public File call() throws Exception {
+                downloads.incrementAndGet();
+                started.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return write("prompt.wav", 10);
+            }
+        };
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<File> first = executor.submit(new Callable<File>() {
+                @Override
+                public File call() throws Exception {
+                    return index.get("prompt.wav", download);
+                }
+            });
+            started.await(10, TimeUnit.SECONDS);
+            final Future<File> second = executor.submit(new Callable<File>() {
+                @Override
+                public File call() throws Exception {
+                    return index.get("prompt.wav", download);
+                }
+            });
+            release.countDown();
+            assertEquals(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, downloads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
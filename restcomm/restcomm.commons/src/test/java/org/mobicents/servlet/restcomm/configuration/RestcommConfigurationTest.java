@@ -44,6 +44,33 @@ public class RestcommConfigurationTest {
         assertTrue( main.getSslMode().equals(SslMode.strict));
         assertTrue( main.getHostname().equals(""));
         assertTrue( main.isUseHostnameToResolveRelativeUrls() == true );
+        assertTrue( main.getMaxConnTotal() == 200 );
+        assertTrue( main.getMaxConnPerRoute() == 20 );
+        assertTrue( main.getKeepAlive() == 30000 );
+        assertTrue( main.getIdleTimeout() == 30000 );
+        assertTrue( main.isRcmlCacheEnabled() == false );
+        assertTrue( main.getRcmlCacheMaxEntries() == 1000 );
+        assertTrue( main.getRcmlCacheIgnoredParameters().length == 3 );
+        assertTrue( main.isCacheIndexed() == true );
+        assertTrue( main.getCacheMaxBytes() == 0 );
+        assertTrue( main.getCacheWorkers() == 4 );
+        assertTrue( main.getSpeechSynthesizerWorkers() == 8 );
+        assertTrue( main.getServiceWorkers() == 4 );
+        assertTrue( main.getCallManagerWorkers() == Runtime.getRuntime().availableProcessors() );
+        assertTrue( main.getApiMaxPendingCreations() == 100 );
+        assertTrue( main.getApiRetryAfter() == 1 );
+        assertTrue( main.getApiCreationTimeout() == 10000 );
+        assertTrue( main.getApiListingTotalTtl() == 30000 );
+        assertTrue( main.getApiMaxConcurrentExports() == 4 );
+        assertTrue( main.getApiMaxConcurrentExportsPerAccount() == 1 );
+        assertTrue( main.getApiMaxConcurrentListings() == 4 );
+        assertTrue( main.getApiMaxConcurrentListingsPerAccount() == 2 );
+        assertTrue( main.getDnsCacheTtl() == 60000 );
+        assertTrue( main.getDnsCacheNegativeTtl() == 10000 );
+        assertTrue( main.getDnsLookupTimeout() == 2000 );
+        assertTrue( main.getDnsStaticHosts().length == 0 );
+        assertTrue( main.getApiAuthCacheTtl() == 60000 );
+        assertTrue( main.getApiAuthCacheSize() == 10000 );
     }
     
     @Test 
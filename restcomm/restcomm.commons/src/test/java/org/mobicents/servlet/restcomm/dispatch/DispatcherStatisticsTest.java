@@ -0,0 +1,78 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dispatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.UntypedActor;
+import akka.testkit.JavaTestKit;
+
+public final class DispatcherStatisticsTest {
+    private static ActorSystem system;
+
+    public DispatcherStatisticsTest() {
+        super();
+    }
+
+    @BeforeClass
+    public static void before() throws Exception {
+        system = ActorSystem.create();
+    }
+
+    @AfterClass
+    public static void after() throws Exception {
+        system.shutdown();
+    }
+
+    public static final class Echo extends UntypedActor {
+        @Override
+        public void onReceive(final Object message) throws Exception {
+            sender().tell(Thread.currentThread().getName(), self());
+        }
+    }
+
+    @Test
+    public void testActorsRunOnTheInstrumentedDispatchers() {
+        new JavaTestKit(system) {
+            {
+                final ActorRef observer = getRef();
+                final ActorRef blocking = system.actorOf(new Props(Echo.class).withDispatcher(ActorDispatchers.BLOCKING_IO));
+                final ActorRef signaling = system.actorOf(new Props(Echo.class).withDispatcher(ActorDispatchers.SIGNALING));
+                blocking.tell("ping", observer);
+                assertTrue(expectMsgClass(String.class).contains("blocking-io-dispatcher"));
+                signaling.tell("ping", observer);
+                assertTrue(expectMsgClass(String.class).contains("signaling-dispatcher"));
+                final Map<String, Long> statistics = DispatcherStatistics.getStatistics();
+                assertEquals(0, (long) statistics.get(ActorDispatchers.BLOCKING_IO + ".MailboxDepth"));
+                assertTrue(statistics.containsKey(ActorDispatchers.SIGNALING + ".BusyTime"));
+            }
+        };
+    }
+}
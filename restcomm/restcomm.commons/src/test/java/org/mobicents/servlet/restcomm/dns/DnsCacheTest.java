@@ -0,0 +1,149 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dns;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public final class DnsCacheTest {
+    private final AtomicInteger lookups = new AtomicInteger();
+    private volatile boolean failing;
+    private volatile CountDownLatch blocked;
+    private DnsCache cache;
+
+    public DnsCacheTest() {
+        super();
+    }
+
+    @After
+    public void after() {
+        if (blocked != null) {
+            blocked.countDown();
+        }
+        cache.shutdown();
+    }
+
+    private DnsCache cache(final long ttl, final long refreshAhead, final String... staticHosts) {
+        final DnsCache.Lookup lookup = new DnsCache.Lookup() {
+            @Override
+            public InetAddress lookup(final String host) throws UnknownHostException {
+                lookups.incrementAndGet();
+                if (blocked != null) {
+                    try {
+                        blocked.await();
+                    } catch (final InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (failing || host.startsWith("unknown")) {
+                    throw new UnknownHostException(host);
+                }
+                return InetAddress.getByAddress(host, new byte[] { 10, 0, 0, (byte) lookups.get() });
+            }
+        };
+        cache = new DnsCache(lookup, ttl, 60000, refreshAhead, 200, 100, staticHosts);
+        return cache;
+    }
+
+    @Test
+    public void testLiteralsAreNotLookedUp() throws Exception {
+        cache(60000, 0);
+        assertEquals("192.168.1.10", cache.resolve("192.168.1.10").getHostAddress());
+        assertTrue(cache.resolve("[::1]").isLoopbackAddress());
+        assertEquals(0, lookups.get());
+        assertTrue(DnsCache.isLiteral("10.0.0.1"));
+        assertFalse(DnsCache.isLiteral("10.0.0"));
+        assertFalse(DnsCache.isLiteral("10.0.0.256"));
+        assertFalse(DnsCache.isLiteral("sip.example.com"));
+    }
+
+    @Test
+    public void testStaticHostsAreNotLookedUp() throws Exception {
+        cache(60000, 0, "proxy.example.com=10.1.1.1");
+        assertEquals("10.1.1.1", cache.resolve("Proxy.Example.com").getHostAddress());
+        assertEquals(0, lookups.get());
+    }
+
+    @Test
+    public void testAnswersAndFailuresAreCached() throws Exception {
+        cache(60000, 0);
+        final InetAddress address = cache.resolve("sip.example.com");
+        assertEquals(address, cache.resolve("sip.example.com"));
+        assertEquals(1, lookups.get());
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                cache.resolve("unknown.example.com");
+                fail("unknown.example.com should not resolve");
+            } catch (final UnknownHostException exception) {
+            }
+        }
+        assertEquals(2, lookups.get());
+        assertEquals(1, (long) cache.getStatistics().get("Hits"));
+        assertEquals(1, (long) cache.getStatistics().get("NegativeHits"));
+    }
+
+    @Test
+    public void testAnswerIsRefreshedAhead() throws Exception {
+        // Every answer is within the refresh-ahead window.
+        cache(60000, 60000);
+        final InetAddress first = cache.resolve("sip.example.com");
+        assertEquals(first, cache.resolve("sip.example.com"));
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (cache.resolve("sip.example.com").equals(first) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(first.equals(cache.resolve("sip.example.com")));
+        assertTrue(cache.getStatistics().get("Refreshes") >= 1);
+    }
+
+    @Test
+    public void testPreviousAnswerIsKeptWhenTheLookupFails() throws Exception {
+        cache(0, 0);
+        final InetAddress address = cache.resolve("sip.example.com");
+        failing = true;
+        assertEquals(address, cache.resolve("sip.example.com"));
+        assertEquals(1, (long) cache.getStatistics().get("StaleHits"));
+    }
+
+    @Test
+    public void testSlowLookupTimesOut() throws Exception {
+        cache(60000, 0);
+        blocked = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        try {
+            cache.resolve("slow.example.com");
+            fail("slow.example.com should time out");
+        } catch (final UnknownHostException exception) {
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertEquals(1, (long) cache.getStatistics().get("Timeouts"));
+    }
+}
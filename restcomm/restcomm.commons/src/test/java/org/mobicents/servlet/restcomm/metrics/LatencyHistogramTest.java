@@ -0,0 +1,108 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public final class LatencyHistogramTest {
+    public LatencyHistogramTest() {
+        super();
+    }
+
+    @Test
+    public void testEveryValueFallsInItsBucket() {
+        for (long value = 0; value < 1L << 30; value = value * 3 / 2 + 1) {
+            final long middle = LatencyHistogram.value(LatencyHistogram.index(value));
+            // Within the width of a bucket, 1/32 of the value.
+            assertTrue(value + " read as " + middle, Math.abs(middle - value) <= value / 32 + 1);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500500000, histogram.getSum());
+        final long[] values = histogram.getValuesAtPercentiles(50, 99, 100);
+        assertEquals(500000, values[0], 500000 / 32);
+        assertEquals(990000, values[1], 990000 / 32);
+        assertEquals(1000000, values[2]);
+    }
+
+    @Test
+    public void testCountsUpToBounds() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis, TimeUnit.MILLISECONDS);
+        }
+        final long[] counts = histogram.getCountsUpTo(0, 100000, 500000, 2000000);
+        assertEquals(0, counts[0]);
+        assertEquals(100, counts[1], 100 / 32);
+        assertEquals(500, counts[2], 500 / 32);
+        assertEquals(1000, counts[3]);
+        assertEquals(1000, counts[4]);
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        final long[] values = new LatencyHistogram().getValuesAtPercentiles(50, 99);
+        assertEquals(0, values[0]);
+        assertEquals(0, values[1]);
+    }
+
+    @Test
+    public void testPrometheusFormat() throws Exception {
+        Metrics.timer("test.stage").record(250, TimeUnit.MILLISECONDS);
+        Metrics.register("Test", new Metrics.Source() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                final Map<String, Long> statistics = new HashMap<String, Long>();
+                statistics.put("Active", 3L);
+                return statistics;
+            }
+        });
+        try {
+            final StringWriter writer = new StringWriter();
+            PrometheusFormat.write(writer);
+            final String text = writer.toString();
+            assertTrue(text, text.contains("# TYPE restcomm_latency_seconds histogram\n"));
+            assertTrue(text, text.contains("restcomm_latency_seconds_bucket{stage=\"test.stage\",le=\"0.1\"} 0\n"));
+            assertTrue(text, text.contains("restcomm_latency_seconds_bucket{stage=\"test.stage\",le=\"0.25\"} 1\n"));
+            assertTrue(text, text.contains("restcomm_latency_seconds_bucket{stage=\"test.stage\",le=\"+Inf\"} 1\n"));
+            assertTrue(text, text.contains("restcomm_latency_seconds_sum{stage=\"test.stage\"} 0.25\n"));
+            assertTrue(text, text.contains("restcomm_latency_seconds_count{stage=\"test.stage\"} 1\n"));
+            assertTrue(text, text.contains("restcomm_statistic{source=\"Test\",name=\"Active\"} 3\n"));
+        } finally {
+            Metrics.unregister("Test");
+        }
+    }
+}
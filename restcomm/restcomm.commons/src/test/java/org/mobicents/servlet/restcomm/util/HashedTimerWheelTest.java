@@ -0,0 +1,115 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.util;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HashedTimerWheelTest {
+    private HashedTimerWheel timer;
+
+    public HashedTimerWheelTest() {
+        super();
+    }
+
+    @Before
+    public void before() {
+        timer = new HashedTimerWheel("test-timer", 10, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @After
+    public void after() {
+        timer.stop();
+    }
+
+    private Runnable countDown(final CountDownLatch latch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void testTaskRunsAfterItsDelay() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        timer.schedule(countDown(latch), 100, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+    }
+
+    @Test
+    public void testTasksRunInTheOrderOfTheirDeadlines() throws InterruptedException {
+        final List<Integer> runs = new CopyOnWriteArrayList<Integer>();
+        final CountDownLatch latch = new CountDownLatch(3);
+        // 8 buckets of 10 ms, the longest delay takes several turns of the wheel.
+        final int[] delays = { 250, 30, 120 };
+        for (final int delay : delays) {
+            timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    runs.add(delay);
+                    latch.countDown();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(30, (int) runs.get(0));
+        assertEquals(120, (int) runs.get(1));
+        assertEquals(250, (int) runs.get(2));
+    }
+
+    @Test
+    public void testCancelledTaskDoesNotRun() throws InterruptedException {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final CountDownLatch other = new CountDownLatch(1);
+        final HashedTimerWheel.Timeout timeout = timer.schedule(countDown(cancelled), 50, TimeUnit.MILLISECONDS);
+        timer.schedule(countDown(other), 100, TimeUnit.MILLISECONDS);
+        timeout.cancel();
+        assertTrue(timeout.isCancelled());
+        assertTrue(other.await(5, TimeUnit.SECONDS));
+        assertEquals(1, cancelled.getCount());
+    }
+
+    @Test
+    public void testPastDeadlineRunsOnTheNextTick() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(countDown(latch), -1, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStoppedWheelRunsNothing() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(countDown(latch), 50, TimeUnit.MILLISECONDS);
+        timer.stop();
+        assertFalse(latch.await(200, TimeUnit.MILLISECONDS));
+    }
+}
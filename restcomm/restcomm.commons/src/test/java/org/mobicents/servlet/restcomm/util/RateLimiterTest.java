@@ -0,0 +1,61 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class RateLimiterTest {
+    public RateLimiterTest() {
+        super();
+    }
+
+    @Test
+    public void testReservationsAreSpacedOut() {
+        final RateLimiter limiter = new RateLimiter(10);
+        assertEquals(0, limiter.reserve(1000, TimeUnit.MILLISECONDS));
+        // 100 ms between two reservations.
+        final long second = limiter.reserve(1000, TimeUnit.MILLISECONDS);
+        assertTrue(second > 50 && second <= 100);
+        final long third = limiter.reserve(1000, TimeUnit.MILLISECONDS);
+        assertTrue(third > 150 && third <= 200);
+    }
+
+    @Test
+    public void testReservationIsRefusedPastMaxWait() {
+        final RateLimiter limiter = new RateLimiter(1);
+        assertEquals(0, limiter.reserve(500, TimeUnit.MILLISECONDS));
+        assertEquals(-1, limiter.reserve(500, TimeUnit.MILLISECONDS));
+        // The refused reservation did not take the next slot.
+        final long wait = limiter.reserve(2000, TimeUnit.MILLISECONDS);
+        assertTrue(wait > 500 && wait <= 1000);
+    }
+
+    @Test
+    public void testNoLimit() {
+        final RateLimiter limiter = new RateLimiter(0);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, limiter.reserve(0, TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.util.List;
 import org.joda.time.DateTime;
 import org.mobicents.servlet.restcomm.entities.CallDetailRecord;
 import org.mobicents.servlet.restcomm.entities.CallDetailRecordFilter;
+import org.mobicents.servlet.restcomm.entities.ExportFilter;
 import org.mobicents.servlet.restcomm.entities.Sid;
 
 /**
@@ -60,4 +61,6 @@ public interface CallDetailRecordsDao {
     List<CallDetailRecord> getCallDetailRecords(CallDetailRecordFilter filter);
 
     Integer getTotalCallDetailRecords(CallDetailRecordFilter filter);
+
+    void exportCallDetailRecords(ExportFilter filter, RecordHandler<CallDetailRecord> handler);
 }
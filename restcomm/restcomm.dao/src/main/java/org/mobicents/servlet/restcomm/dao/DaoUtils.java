@@ -105,7 +105,7 @@ public final class DaoUtils {
 
     public static Sid readSid(final Object object) {
         if (object != null) {
-            return new Sid((String) object);
+            return Sid.trusted((String) object);
         } else {
             return null;
         }
@@ -36,6 +36,8 @@ public interface NotificationsDao {
 
     List<Notification> getNotifications(Sid accountSid);
 
+    void getNotifications(Sid accountSid, RecordHandler<Notification> handler);
+
     List<Notification> getNotificationsByCall(Sid callSid);
 
     List<Notification> getNotificationsByLogLevel(int logLevel);
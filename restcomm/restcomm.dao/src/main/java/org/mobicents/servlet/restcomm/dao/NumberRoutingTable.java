@@ -0,0 +1,337 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dao;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.entities.Account;
+import org.mobicents.servlet.restcomm.entities.Application;
+import org.mobicents.servlet.restcomm.entities.IncomingPhoneNumber;
+import org.mobicents.servlet.restcomm.entities.Sid;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+
+/**
+ * An in-memory table routing the incoming phone numbers to their account and application.
+ *
+ * The table is loaded from the data store once and kept up to date by the writers of the incoming phone numbers,
+ * applications and accounts. The changes made through another node of a cluster are seen once the table is reloaded,
+ * see the runtime-settings.number-routes-refresh setting. The route of a dialed number, including the E.164 formatting and the wildcard
+ * fallback, is resolved once and then served from a single hash lookup until the table changes.
+ */
+@ThreadSafe
+public final class NumberRoutingTable {
+    private static final Logger logger = Logger.getLogger(NumberRoutingTable.class);
+    // https://github.com/Mobicents/RestComm/issues/84 using wildcard as default application
+    private static final String WILDCARD = "*";
+    private static final int MAX_RESOLVED = 10000;
+    private static final Route NONE = new Route(null, null, null, null);
+
+    private final DaoManager storage;
+    // Serializes the reloads, the table itself stays available while one runs.
+    private final Object reloading;
+    // Keyed by the phone number as stored, replaced as a whole by a reload.
+    private volatile ConcurrentMap<String, Route> routes;
+    // The phone numbers invalidated while a reload is running, null otherwise.
+    private Set<String> changed;
+    // Keyed by the dialed number as received, voice and SMS lookups are kept apart since only voice falls back to
+    // the wildcard.
+    private final ConcurrentMap<String, Route> voice;
+    private final ConcurrentMap<String, Route> sms;
+
+    public NumberRoutingTable(final DaoManager storage) {
+        super();
+        this.storage = storage;
+        this.reloading = new Object();
+        this.routes = new ConcurrentHashMap<String, Route>();
+        this.voice = new ConcurrentHashMap<String, Route>();
+        this.sms = new ConcurrentHashMap<String, Route>();
+    }
+
+    /**
+     * Loads all the incoming phone numbers from the data store, replacing the current content of the table. The numbers
+     * already resolved keep their route unless the reload changes it.
+     */
+    public void reload() {
+        synchronized (reloading) {
+            synchronized (this) {
+                changed = new HashSet<String>();
+            }
+            // The data store is queried without holding the lock so the lookups are not held up by the reload.
+            final List<IncomingPhoneNumber> numbers = storage.getIncomingPhoneNumbersDao().getAllIncomingPhoneNumbers();
+            final Map<Sid, Account> accounts = new HashMap<Sid, Account>();
+            final Map<Sid, Application> applications = new HashMap<Sid, Application>();
+            final ConcurrentMap<String, Route> loaded = new ConcurrentHashMap<String, Route>();
+            for (final IncomingPhoneNumber number : numbers) {
+                loaded.put(number.getPhoneNumber(), route(number, accounts, applications));
+            }
+            synchronized (this) {
+                // The numbers invalidated meanwhile may be newer than what was loaded, keep them as they are.
+                for (final String phoneNumber : changed) {
+                    final Route route = routes.get(phoneNumber);
+                    if (route != null) {
+                        loaded.put(phoneNumber, route);
+                    } else {
+                        loaded.remove(phoneNumber);
+                    }
+                }
+                changed = null;
+                final Map<String, Route> previous = routes;
+                routes = loaded;
+                refresh(voice, previous, true);
+                refresh(sms, previous, false);
+            }
+            logger.info("Loaded the routes of " + loaded.size() + " incoming phone numbers");
+        }
+    }
+
+    // Points the resolved numbers at their reloaded route and forgets only the ones the reload may route elsewhere.
+    private void refresh(final ConcurrentMap<String, Route> resolved, final Map<String, Route> previous,
+            final boolean wildcard) {
+        final Set<String> added = new HashSet<String>(routes.keySet());
+        added.removeAll(previous.keySet());
+        final Iterator<Map.Entry<String, Route>> iterator = resolved.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Route> entry = iterator.next();
+            final String phone = entry.getKey();
+            Route route = entry.getValue();
+            if (route != NONE) {
+                route = routes.get(route.getNumber().getPhoneNumber());
+                if (route == null) {
+                    iterator.remove();
+                    continue;
+                }
+                entry.setValue(route);
+            }
+            // A new number may take precedence over the route resolved before.
+            if (!added.isEmpty()
+                    && (added.contains(phone) || (wildcard && added.contains(WILDCARD)) || added.contains(e164(phone)))) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Reloads the route of a single phone number after it has been added, updated or removed.
+     */
+    public synchronized void invalidate(final String phoneNumber) {
+        if (phoneNumber == null) {
+            return;
+        }
+        final IncomingPhoneNumber number = storage.getIncomingPhoneNumbersDao().getIncomingPhoneNumber(phoneNumber);
+        if (number != null) {
+            routes.put(phoneNumber, route(number, new HashMap<Sid, Account>(), new HashMap<Sid, Application>()));
+        } else {
+            routes.remove(phoneNumber);
+        }
+        if (changed != null) {
+            changed.add(phoneNumber);
+        }
+        clear();
+    }
+
+    /**
+     * Reloads the routes of the phone numbers of an account after the account has been updated or removed.
+     */
+    public synchronized void invalidate(final Sid accountSid) {
+        if (accountSid == null) {
+            return;
+        }
+        final List<IncomingPhoneNumber> numbers = storage.getIncomingPhoneNumbersDao().getIncomingPhoneNumbers(accountSid);
+        final Map<Sid, Account> accounts = new HashMap<Sid, Account>();
+        final Map<Sid, Application> applications = new HashMap<Sid, Application>();
+        final Map<String, Route> loaded = new HashMap<String, Route>();
+        for (final IncomingPhoneNumber number : numbers) {
+            loaded.put(number.getPhoneNumber(), route(number, accounts, applications));
+        }
+        // Forget the numbers the account no longer has.
+        final Iterator<Map.Entry<String, Route>> iterator = routes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Route> entry = iterator.next();
+            if (accountSid.equals(entry.getValue().getNumber().getAccountSid()) && !loaded.containsKey(entry.getKey())) {
+                iterator.remove();
+                if (changed != null) {
+                    changed.add(entry.getKey());
+                }
+            }
+        }
+        routes.putAll(loaded);
+        if (changed != null) {
+            changed.addAll(loaded.keySet());
+        }
+        clear();
+    }
+
+    private void clear() {
+        voice.clear();
+        sms.clear();
+    }
+
+    private Route route(final IncomingPhoneNumber number, final Map<Sid, Account> accounts,
+            final Map<Sid, Application> applications) {
+        final Account account = account(number.getAccountSid(), accounts);
+        final Sid voiceApplicationSid = number.getVoiceApplicationSid();
+        URI voiceUrl = number.getVoiceUrl();
+        if (voiceApplicationSid != null) {
+            final Application application = application(voiceApplicationSid, applications);
+            voiceUrl = application != null ? application.getRcmlUrl() : null;
+        }
+        final Sid smsApplicationSid = number.getSmsApplicationSid();
+        URI smsUrl = number.getSmsUrl();
+        if (smsApplicationSid != null) {
+            final Application application = application(smsApplicationSid, applications);
+            smsUrl = application != null ? application.getRcmlUrl() : null;
+        }
+        return new Route(number, account, voiceUrl, smsUrl);
+    }
+
+    private Account account(final Sid sid, final Map<Sid, Account> accounts) {
+        if (sid == null) {
+            return null;
+        }
+        Account account = accounts.get(sid);
+        if (account == null) {
+            account = storage.getAccountsDao().getAccount(sid);
+            accounts.put(sid, account);
+        }
+        return account;
+    }
+
+    private Application application(final Sid sid, final Map<Sid, Application> applications) {
+        Application application = applications.get(sid);
+        if (application == null) {
+            application = storage.getApplicationsDao().getApplication(sid);
+            applications.put(sid, application);
+        }
+        return application;
+    }
+
+    /**
+     * @param phone the dialed number.
+     * @return the route of the number in E.164 format, of the number as dialed or of the wildcard number, in this order,
+     *         or null if none of them is routed.
+     */
+    public Route getVoiceRoute(final String phone) {
+        return resolve(phone, voice, true);
+    }
+
+    /**
+     * @param phone the number the message was sent to.
+     * @return the route of the number in E.164 format or of the number as dialed, in this order, or null if none of
+     *         them is routed.
+     */
+    public Route getSmsRoute(final String phone) {
+        return resolve(phone, sms, false);
+    }
+
+    private Route resolve(final String phone, final ConcurrentMap<String, Route> resolved, final boolean wildcard) {
+        if (phone == null) {
+            return null;
+        }
+        Route route = resolved.get(phone);
+        if (route == null) {
+            // Resolve while holding the lock so that a concurrent change of the table cannot be overwritten by a
+            // route resolved before it.
+            synchronized (this) {
+                route = lookup(phone, wildcard);
+                // Dialed numbers are not under our control, do not let them grow the table without bounds.
+                if (resolved.size() >= MAX_RESOLVED) {
+                    resolved.clear();
+                }
+                resolved.put(phone, route);
+            }
+        }
+        return route == NONE ? null : route;
+    }
+
+    private Route lookup(final String phone, final boolean wildcard) {
+        final ConcurrentMap<String, Route> routes = this.routes;
+        final String e164 = e164(phone);
+        Route route = e164 != null ? routes.get(e164) : null;
+        if (route == null) {
+            route = routes.get(phone);
+        }
+        if (route == null && wildcard) {
+            route = routes.get(WILDCARD);
+        }
+        return route != null ? route : NONE;
+    }
+
+    private static String e164(final String phone) {
+        final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+        try {
+            return phoneNumberUtil.format(phoneNumberUtil.parse(phone, "US"), PhoneNumberFormat.E164);
+        } catch (final Exception exception) {
+            return null;
+        }
+    }
+
+    public int size() {
+        return routes.size();
+    }
+
+    public static final class Route {
+        private final IncomingPhoneNumber number;
+        private final Account account;
+        private final URI voiceUrl;
+        private final URI smsUrl;
+
+        private Route(final IncomingPhoneNumber number, final Account account, final URI voiceUrl, final URI smsUrl) {
+            super();
+            this.number = number;
+            this.account = account;
+            this.voiceUrl = voiceUrl;
+            this.smsUrl = smsUrl;
+        }
+
+        public IncomingPhoneNumber getNumber() {
+            return number;
+        }
+
+        public Account getAccount() {
+            return account;
+        }
+
+        /**
+         * @return the RCML URL of the voice application attached to the number or else the voice URL of the number.
+         */
+        public URI getVoiceUrl() {
+            return voiceUrl;
+        }
+
+        /**
+         * @return the RCML URL of the SMS application attached to the number or else the SMS URL of the number.
+         */
+        public URI getSmsUrl() {
+            return smsUrl;
+        }
+    }
+}
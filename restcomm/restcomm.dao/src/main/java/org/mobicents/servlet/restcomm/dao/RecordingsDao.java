@@ -39,6 +39,8 @@ public interface RecordingsDao {
 
     List<Recording> getRecordings(Sid accountSid);
 
+    void getRecordings(Sid accountSid, RecordHandler<Recording> handler);
+
     void removeRecording(Sid sid);
 
     void removeRecordings(Sid accountSid);
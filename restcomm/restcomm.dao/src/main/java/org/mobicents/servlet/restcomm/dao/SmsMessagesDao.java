@@ -21,6 +21,7 @@ package org.mobicents.servlet.restcomm.dao;
 
 import java.util.List;
 
+import org.mobicents.servlet.restcomm.entities.ExportFilter;
 import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.entities.SmsMessage;
 
@@ -34,6 +35,10 @@ public interface SmsMessagesDao {
 
     List<SmsMessage> getSmsMessages(Sid accountSid);
 
+    void getSmsMessages(Sid accountSid, RecordHandler<SmsMessage> handler);
+
+    void exportSmsMessages(ExportFilter filter, RecordHandler<SmsMessage> handler);
+
     void removeSmsMessage(Sid sid);
 
     void removeSmsMessages(Sid accountSid);
@@ -36,6 +36,8 @@ public interface TranscriptionsDao {
 
     List<Transcription> getTranscriptions(Sid accountSid);
 
+    void getTranscriptions(Sid accountSid, RecordHandler<Transcription> handler);
+
     void removeTranscription(Sid sid);
 
     void removeTranscriptions(Sid accountSid);
@@ -0,0 +1,354 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dao.mybatis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.dao.RegistrationsDao;
+import org.mobicents.servlet.restcomm.entities.Registration;
+import org.mobicents.servlet.restcomm.util.HashedTimerWheel;
+
+/**
+ * Keeps the registrations of the node in memory, keyed by user, and writes them behind to the data store for
+ * durability and for the REST API.
+ *
+ * Every registration is given a timeout on a timer wheel that removes it once it has expired, so the registrations
+ * are never scanned. The registrations found in the data store are loaded when the DAO is created.
+ *
+ * A user missing from memory is looked up in the data store, so the clients registered on the other nodes of a
+ * cluster are found once they have been written behind. A registration removed from memory is left out of those
+ * lookups until its removal reaches the data store. {@link #getRegistrations()} only returns the registrations of
+ * this node.
+ */
+@ThreadSafe
+public final class InMemoryRegistrationsDao implements RegistrationsDao {
+    private static final Logger logger = Logger.getLogger(InMemoryRegistrationsDao.class);
+
+    /**
+     * Told about the registrations removed because they expired.
+     */
+    public interface Listener {
+        void expired(Registration registration);
+    }
+
+    private final RegistrationsDao store;
+    private final HashedTimerWheel timer;
+    private final ExecutorService writer;
+    // The registrations of each user keyed by address of record and location. Updated while holding this.
+    private final ConcurrentMap<String, ConcurrentMap<String, Entry>> users;
+    // The registrations removed from memory whose removal has not reached the data store yet.
+    private final Set<String> removed;
+    private volatile Listener listener;
+
+    /**
+     * @param store the data store the registrations are written behind to.
+     * @param timer the timer wheel the registrations expire on.
+     */
+    public InMemoryRegistrationsDao(final RegistrationsDao store, final HashedTimerWheel timer) {
+        super();
+        this.store = store;
+        this.timer = timer;
+        this.users = new ConcurrentHashMap<String, ConcurrentMap<String, Entry>>();
+        this.removed = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "restcomm-registrations-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final List<Registration> registrations = store.getRegistrations();
+        synchronized (this) {
+            for (final Registration registration : registrations) {
+                put(registration);
+            }
+        }
+        logger.info("Loaded " + registrations.size() + " registrations");
+    }
+
+    public HashedTimerWheel getTimer() {
+        return timer;
+    }
+
+    public void setListener(final Listener listener) {
+        this.listener = listener;
+    }
+
+    private static String key(final Registration registration) {
+        return registration.getAddressOfRecord() + " " + registration.getLocation();
+    }
+
+    private static boolean same(final Registration first, final Registration second) {
+        return equals(first.getDisplayName(), second.getDisplayName())
+                && equals(first.getUserAgent(), second.getUserAgent());
+    }
+
+    private static boolean equals(final String first, final String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+
+    // Must be called while holding this.
+    private void put(final Registration registration) {
+        ConcurrentMap<String, Entry> registrations = users.get(registration.getUserName());
+        if (registrations == null) {
+            registrations = new ConcurrentHashMap<String, Entry>();
+            users.put(registration.getUserName(), registrations);
+        }
+        final Entry previous = registrations.get(key(registration));
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+        final long delay = registration.getDateExpires().getMillis() - System.currentTimeMillis();
+        final HashedTimerWheel.Timeout timeout = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                expire(registration);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        registrations.put(key(registration), new Entry(registration, timeout));
+    }
+
+    // Must be called while holding this.
+    private Entry remove(final Registration registration) {
+        // Hidden from the data store lookups before it leaves memory.
+        removed.add(key(registration));
+        final ConcurrentMap<String, Entry> registrations = users.get(registration.getUserName());
+        if (registrations == null) {
+            return null;
+        }
+        final Entry entry = registrations.remove(key(registration));
+        if (entry != null) {
+            entry.timeout.cancel();
+        }
+        if (registrations.isEmpty()) {
+            users.remove(registration.getUserName());
+        }
+        return entry;
+    }
+
+    private void expire(final Registration registration) {
+        synchronized (this) {
+            final ConcurrentMap<String, Entry> registrations = users.get(registration.getUserName());
+            final Entry entry = registrations != null ? registrations.get(key(registration)) : null;
+            // The registration may have been refreshed in the meantime.
+            if (entry == null || entry.registration != registration) {
+                return;
+            }
+            remove(registration);
+        }
+        logger.info("Registration: " + registration.getAddressOfRecord() + " expired and will remove it now");
+        writeRemoval(registration);
+        final Listener listener = this.listener;
+        if (listener != null) {
+            listener.expired(registration);
+        }
+    }
+
+    private void write(final Runnable write) {
+        try {
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        write.run();
+                    } catch (final Exception exception) {
+                        logger.error("Could not write a registration to the data store.", exception);
+                    }
+                }
+            });
+        } catch (final Exception exception) {
+            logger.error("Could not write a registration to the data store.", exception);
+        }
+    }
+
+    @Override
+    public void addRegistration(final Registration registration) {
+        synchronized (this) {
+            put(registration);
+        }
+        write(new Runnable() {
+            @Override
+            public void run() {
+                store.addRegistration(registration);
+            }
+        });
+    }
+
+    private void writeRemoval(final Registration registration) {
+        write(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    store.removeRegistration(registration);
+                } finally {
+                    removed.remove(key(registration));
+                }
+            }
+        });
+    }
+
+    // The registrations of a user missing from memory, registered on another node or not loaded yet.
+    private List<Registration> stored(final String user) {
+        final List<Registration> registrations = store.getRegistrations(user);
+        if (registrations == null || removed.isEmpty()) {
+            return registrations;
+        }
+        final List<Registration> results = new ArrayList<Registration>();
+        for (final Registration registration : registrations) {
+            if (!removed.contains(key(registration))) {
+                results.add(registration);
+            }
+        }
+        return results.isEmpty() ? null : results;
+    }
+
+    private Registration stored(final Registration registration) {
+        final List<Registration> registrations = stored(registration.getUserName());
+        if (registrations != null) {
+            for (final Registration stored : registrations) {
+                if (key(stored).equals(key(registration))) {
+                    return stored;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Registration getRegistration(final String user) {
+        final List<Registration> registrations = getRegistrations(user);
+        return registrations != null ? registrations.get(0) : null;
+    }
+
+    @Override
+    public List<Registration> getRegistrations(final String user) {
+        final ConcurrentMap<String, Entry> entries = users.get(user);
+        final List<Registration> registrations = new ArrayList<Registration>();
+        if (entries != null) {
+            for (final Entry entry : entries.values()) {
+                registrations.add(entry.registration);
+            }
+        }
+        if (registrations.isEmpty()) {
+            return stored(user);
+        }
+        // The last updated registration first, like the data store does.
+        Collections.sort(registrations);
+        return registrations;
+    }
+
+    @Override
+    public List<Registration> getRegistrations() {
+        final List<Registration> registrations = new ArrayList<Registration>();
+        for (final ConcurrentMap<String, Entry> entries : users.values()) {
+            for (final Entry entry : entries.values()) {
+                registrations.add(entry.registration);
+            }
+        }
+        return registrations;
+    }
+
+    private Registration local(final Registration registration) {
+        final ConcurrentMap<String, Entry> entries = users.get(registration.getUserName());
+        final Entry entry = entries != null ? entries.get(key(registration)) : null;
+        return entry != null ? entry.registration : null;
+    }
+
+    @Override
+    public boolean hasRegistration(final Registration registration) {
+        Registration existing = local(registration);
+        if (existing == null) {
+            existing = stored(registration);
+        }
+        return existing != null && same(existing, registration);
+    }
+
+    @Override
+    public void removeRegistration(final Registration registration) {
+        synchronized (this) {
+            remove(registration);
+        }
+        writeRemoval(registration);
+    }
+
+    @Override
+    public void updateRegistration(final Registration registration) {
+        // A client registered through another node refreshing its registration through this one moves here.
+        final Registration stored = local(registration) == null ? stored(registration) : null;
+        synchronized (this) {
+            Registration existing = local(registration);
+            if (existing == null) {
+                existing = stored;
+            }
+            if (existing == null || !same(existing, registration)) {
+                return;
+            }
+            // Like the data store, only the time to live and the expiration date change.
+            put(new Registration(existing.getSid(), existing.getDateCreated(), existing.getDateUpdated(),
+                    registration.getDateExpires(), existing.getAddressOfRecord(), existing.getDisplayName(),
+                    existing.getUserName(), existing.getUserAgent(), registration.getTimeToLive(), existing.getLocation(),
+                    existing.isWebRTC()));
+        }
+        write(new Runnable() {
+            @Override
+            public void run() {
+                store.updateRegistration(registration);
+            }
+        });
+    }
+
+    /**
+     * Writes the pending registrations to the data store and stops the timer wheel.
+     */
+    public void shutdown() {
+        timer.stop();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Immutable
+    private static final class Entry {
+        private final Registration registration;
+        private final HashedTimerWheel.Timeout timeout;
+
+        private Entry(final Registration registration, final HashedTimerWheel.Timeout timeout) {
+            super();
+            this.registration = registration;
+            this.timeout = timeout;
+        }
+    }
+}
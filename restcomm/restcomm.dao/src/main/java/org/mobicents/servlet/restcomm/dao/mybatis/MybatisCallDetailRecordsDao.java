@@ -27,6 +27,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.joda.time.DateTime;
@@ -34,8 +36,10 @@ import org.joda.time.DateTime;
 import static org.mobicents.servlet.restcomm.dao.DaoUtils.*;
 
 import org.mobicents.servlet.restcomm.dao.CallDetailRecordsDao;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
 import org.mobicents.servlet.restcomm.entities.CallDetailRecord;
 import org.mobicents.servlet.restcomm.entities.CallDetailRecordFilter;
+import org.mobicents.servlet.restcomm.entities.ExportFilter;
 import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
 
@@ -115,6 +119,22 @@ public final class MybatisCallDetailRecordsDao implements CallDetailRecordsDao {
         }
     }
 
+    @Override
+    public void exportCallDetailRecords(final ExportFilter filter, final RecordHandler<CallDetailRecord> handler) {
+        final SqlSession session = sessions.openSession();
+        try {
+            session.select(namespace + "exportCallDetailRecords", filter, new ResultHandler() {
+                @SuppressWarnings("unchecked")
+                @Override
+                public void handleResult(final ResultContext context) {
+                    handler.handle(toCallDetailRecord((Map<String, Object>) context.getResultObject()));
+                }
+            });
+        } finally {
+            session.close();
+        }
+    }
+
     @Override
     public List<CallDetailRecord> getCallDetailRecords(final Sid accountSid) {
         return getCallDetailRecords(namespace + "getCallDetailRecords", accountSid.toString());
@@ -230,7 +250,7 @@ public final class MybatisCallDetailRecordsDao implements CallDetailRecordsDao {
                 uri, callPath, ringDuration);
     }
 
-    private Map<String, Object> toMap(final CallDetailRecord cdr) {
+    static Map<String, Object> toMap(final CallDetailRecord cdr) {
         final Map<String, Object> map = new HashMap<String, Object>();
         map.put("sid", writeSid(cdr.getSid()));
         map.put("parent_call_sid", writeSid(cdr.getParentCallSid()));
@@ -19,10 +19,13 @@
  */
 package org.mobicents.servlet.restcomm.dao.mybatis;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.Reader;
+import java.net.URI;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.ibatis.session.SqlSessionFactory;
@@ -46,6 +49,8 @@ import org.mobicents.servlet.restcomm.dao.ShortCodesDao;
 import org.mobicents.servlet.restcomm.dao.SmsMessagesDao;
 import org.mobicents.servlet.restcomm.dao.TranscriptionsDao;
 import org.mobicents.servlet.restcomm.dao.UsageDao;
+import org.mobicents.servlet.restcomm.util.HashedTimerWheel;
+import org.mobicents.servlet.restcomm.amazonS3.RecordingUploader;
 import org.mobicents.servlet.restcomm.amazonS3.S3AccessTool;
 import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
 
@@ -58,6 +63,7 @@ public final class MybatisDaoManager implements DaoManager {
     private Configuration amazonS3Configuration;
     private Configuration runtimeConfiguration;
     private S3AccessTool s3AccessTool;
+    private RecordingUploader recordingUploader;
     private AccountsDao accountsDao;
     private ApplicationsDao applicationsDao;
     private AvailablePhoneNumbersDao availablePhoneNumbersDao;
@@ -76,6 +82,7 @@ public final class MybatisDaoManager implements DaoManager {
     private GatewaysDao gatewaysDao;
     private AnnouncementsDao announcementsDao;
     private InstanceIdDao instanceIdDao;
+    private UsageAggregator usageAggregator;
 
     public MybatisDaoManager() {
         super();
@@ -180,7 +187,18 @@ public final class MybatisDaoManager implements DaoManager {
 
     @Override
     public void shutdown() {
-        // Nothing to do.
+        if (recordingUploader != null) {
+            recordingUploader.shutdown();
+        }
+        if (usageAggregator != null) {
+            usageAggregator.shutdown();
+        }
+        if (callDetailRecordsDao instanceof WriteBehindCallDetailRecordsDao) {
+            ((WriteBehindCallDetailRecordsDao) callDetailRecordsDao).shutdown();
+        }
+        if (presenceRecordsDao instanceof InMemoryRegistrationsDao) {
+            ((InMemoryRegistrationsDao) presenceRecordsDao).shutdown();
+        }
     }
 
     @Override
@@ -213,36 +231,97 @@ public final class MybatisDaoManager implements DaoManager {
                 final int daysToRetainPublicUrl = amazonS3Configuration.getInt("days-to-retain-public-url");
                 final boolean removeOriginalFile = amazonS3Configuration.getBoolean("remove-original-file");
                 final String bucketRegion = amazonS3Configuration.getString("bucket-region");
-                s3AccessTool = new S3AccessTool(accessKey, securityKey, bucketName, folder, reducedRedundancy, daysToRetainPublicUrl, removeOriginalFile,bucketRegion);
+                final String endpoint = amazonS3Configuration.getString("endpoint");
+                final long multipartThreshold = amazonS3Configuration.getLong("multipart-threshold",
+                        S3AccessTool.MULTIPART_THRESHOLD_DEFAULT);
+                s3AccessTool = new S3AccessTool(accessKey, securityKey, bucketName, folder, reducedRedundancy,
+                        daysToRetainPublicUrl, removeOriginalFile, bucketRegion, endpoint, multipartThreshold);
             }
         }
         start(sessions);
     }
 
     public void start(final SqlSessionFactory sessions) {
+        // Time the statements of every session opened from now on.
+        sessions.getConfiguration().addInterceptor(new MybatisStatementTimer());
+        // Stream the large listings and exports from MariaDB rather than reading them in memory.
+        sessions.getConfiguration().addInterceptor(new MybatisStreamingResults());
         // Instantiate the DAO objects.
         accountsDao = new MybatisAccountsDao(sessions);
         applicationsDao = new MybatisApplicationsDao(sessions);
         announcementsDao = new MybatisAnnouncementsDao(sessions);
         availablePhoneNumbersDao = new MybatisAvailablePhoneNumbersDao(sessions);
-        callDetailRecordsDao = new MybatisCallDetailRecordsDao(sessions);
+        callDetailRecordsDao = callDetailRecordsDao(sessions);
         clientsDao = new MybatisClientsDao(sessions);
         httpCookiesDao = new MybatisHttpCookiesDao(sessions);
         incomingPhoneNumbersDao = new MybatisIncomingPhoneNumbersDao(sessions);
         notificationsDao = new MybatisNotificationsDao(sessions);
         outgoingCallerIdsDao = new MybatisOutgoingCallerIdsDao(sessions);
-        presenceRecordsDao = new MybatisRegistrationsDao(sessions);
+        presenceRecordsDao = registrationsDao(sessions);
         if (s3AccessTool != null) {
             final String recordingPath = runtimeConfiguration.getString("recordings-path");
-            recordingsDao = new MybatisRecordingsDao(sessions, s3AccessTool, recordingPath);
+            recordingUploader = recordingUploader(recordingPath);
+            final MybatisRecordingsDao recordings = new MybatisRecordingsDao(sessions, recordingUploader, recordingPath);
+            recordingUploader.start(recordings);
+            recordingsDao = recordings;
         } else {
             recordingsDao = new MybatisRecordingsDao(sessions);
         }
         shortCodesDao = new MybatisShortCodesDao(sessions);
         smsMessagesDao = new MybatisSmsMessagesDao(sessions);
-        usageDao = new MybatisUsageDao(sessions);
+        usageDao = usageDao(sessions);
         transcriptionsDao = new MybatisTranscriptionsDao(sessions);
         gatewaysDao = new MybatisGatewaysDao(sessions);
         instanceIdDao = new MybatisInstanceIdDao(sessions);
     }
+
+    private CallDetailRecordsDao callDetailRecordsDao(final SqlSessionFactory sessions) {
+        final Configuration writeBehind = configuration != null ? configuration.subset("cdr-write-behind") : null;
+        if (writeBehind != null && writeBehind.getBoolean("enabled", false)) {
+            final File journal = new File(writeBehind.getString("journal-path"));
+            final long interval = writeBehind.getLong("flush-interval", 500);
+            final int batchSize = writeBehind.getInt("batch-size", 500);
+            return new WriteBehindCallDetailRecordsDao(sessions, journal, interval, batchSize);
+        }
+        return new MybatisCallDetailRecordsDao(sessions);
+    }
+
+    private RecordingUploader recordingUploader(final String recordingPath) {
+        final String queuePath = amazonS3Configuration.getString("upload-queue-path");
+        final File queue;
+        if (queuePath != null && !queuePath.isEmpty()) {
+            queue = new File(queuePath);
+        } else {
+            queue = new File(new File(URI.create(recordingPath)), ".uploads");
+        }
+        final int workers = amazonS3Configuration.getInt("upload-workers", 4);
+        final int maxAttempts = amazonS3Configuration.getInt("upload-max-attempts", 10);
+        final long retryInterval = amazonS3Configuration.getLong("upload-retry-interval", 1000);
+        final long removalDelay = amazonS3Configuration.getLong("remove-original-file-delay", 3600000);
+        return new RecordingUploader(s3AccessTool, queue, workers, maxAttempts, retryInterval, removalDelay);
+    }
+
+    private RegistrationsDao registrationsDao(final SqlSessionFactory sessions) {
+        final Configuration inMemory = configuration != null ? configuration.subset("registrations-in-memory") : null;
+        if (inMemory != null && inMemory.getBoolean("enabled", false)) {
+            final long tick = inMemory.getLong("tick", 100);
+            final int wheelSize = inMemory.getInt("wheel-size", 1024);
+            final HashedTimerWheel timer = new HashedTimerWheel("restcomm-registrations-timer", tick, TimeUnit.MILLISECONDS,
+                    wheelSize);
+            return new InMemoryRegistrationsDao(new MybatisRegistrationsDao(sessions), timer);
+        }
+        return new MybatisRegistrationsDao(sessions);
+    }
+
+    private UsageDao usageDao(final SqlSessionFactory sessions) {
+        final Configuration rollups = configuration != null ? configuration.subset("usage-rollups") : null;
+        if (rollups != null && rollups.getBoolean("enabled", false)) {
+            final long interval = rollups.getLong("interval", 60000);
+            final long settle = rollups.getLong("settle", 300000);
+            usageAggregator = new UsageAggregator(sessions, interval, settle);
+            usageAggregator.backfill(rollups.getBoolean("backfill", false));
+            return new MybatisUsageDao(sessions, true);
+        }
+        return new MybatisUsageDao(sessions);
+    }
 }
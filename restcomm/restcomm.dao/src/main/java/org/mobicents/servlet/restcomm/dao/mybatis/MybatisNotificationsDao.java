@@ -25,6 +25,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 
@@ -32,6 +34,7 @@ import org.joda.time.DateTime;
 
 import static org.mobicents.servlet.restcomm.dao.DaoUtils.*;
 import org.mobicents.servlet.restcomm.dao.NotificationsDao;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
 import org.mobicents.servlet.restcomm.entities.Notification;
 import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
@@ -80,6 +83,22 @@ public final class MybatisNotificationsDao implements NotificationsDao {
         return getNotifications(namespace + "getNotifications", accountSid.toString());
     }
 
+    @Override
+    public void getNotifications(final Sid accountSid, final RecordHandler<Notification> handler) {
+        final SqlSession session = sessions.openSession();
+        try {
+            session.select(namespace + "getNotifications", accountSid.toString(), new ResultHandler() {
+                @SuppressWarnings("unchecked")
+                @Override
+                public void handleResult(final ResultContext context) {
+                    handler.handle(toNotification((Map<String, Object>) context.getResultObject()));
+                }
+            });
+        } finally {
+            session.close();
+        }
+    }
+
     @Override
     public List<Notification> getNotificationsByCall(final Sid callSid) {
         return getNotifications(namespace + "getNotificationsByCall", callSid.toString());
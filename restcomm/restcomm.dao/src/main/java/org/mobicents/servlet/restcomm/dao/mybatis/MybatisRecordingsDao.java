@@ -28,6 +28,7 @@ import static org.mobicents.servlet.restcomm.dao.DaoUtils.writeDateTime;
 import static org.mobicents.servlet.restcomm.dao.DaoUtils.writeSid;
 import static org.mobicents.servlet.restcomm.dao.DaoUtils.writeUri;
 
+import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -35,11 +36,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.joda.time.DateTime;
-import org.mobicents.servlet.restcomm.amazonS3.S3AccessTool;
+import org.mobicents.servlet.restcomm.amazonS3.RecordingUploader;
 import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
 import org.mobicents.servlet.restcomm.dao.RecordingsDao;
 import org.mobicents.servlet.restcomm.entities.Recording;
 import org.mobicents.servlet.restcomm.entities.Sid;
@@ -49,10 +53,10 @@ import org.mobicents.servlet.restcomm.util.UriUtils;
  * @author quintana.thomas@gmail.com (Thomas Quintana)
  */
 @ThreadSafe
-public final class MybatisRecordingsDao implements RecordingsDao {
+public final class MybatisRecordingsDao implements RecordingsDao, RecordingUploader.Listener {
     private static final String namespace = "org.mobicents.servlet.sip.restcomm.dao.RecordingsDao.";
     private final SqlSessionFactory sessions;
-    private S3AccessTool s3AccessTool;
+    private RecordingUploader uploader;
     private String recordingPath;
 
     public MybatisRecordingsDao(final SqlSessionFactory sessions) {
@@ -60,23 +64,20 @@ public final class MybatisRecordingsDao implements RecordingsDao {
         this.sessions = sessions;
     }
 
-    public MybatisRecordingsDao(final SqlSessionFactory sessions, final S3AccessTool s3AccessTool, final String recordingPath) {
+    /**
+     * @param uploader uploads the recordings to Amazon S3, the recordings are given their S3 URL once uploaded.
+     */
+    public MybatisRecordingsDao(final SqlSessionFactory sessions, final RecordingUploader uploader, final String recordingPath) {
         super();
         this.sessions = sessions;
-        this.s3AccessTool = s3AccessTool;
+        this.uploader = uploader;
         this.recordingPath = recordingPath;
     }
 
     @Override
     public void addRecording(Recording recording) {
-        if (s3AccessTool != null) {
-            URI s3Uri = s3AccessTool.uploadFile(recordingPath+"/"+recording.getSid().toString()+".wav");
-            if (s3Uri != null) {
-                recording = recording.updateFileUri(s3Uri);
-            }
-        } else {
-            recording = recording.updateFileUri(generateLocalFileUri("/restcomm/recordings/" + recording.getSid()));
-        }
+        // The recording is served locally until it has been uploaded.
+        recording = recording.updateFileUri(generateLocalFileUri("/restcomm/recordings/" + recording.getSid()));
         final SqlSession session = sessions.openSession();
         try {
             session.insert(namespace + "addRecording", toMap(recording));
@@ -84,6 +85,26 @@ public final class MybatisRecordingsDao implements RecordingsDao {
         } finally {
             session.close();
         }
+        if (uploader != null) {
+            uploader.submit(new File(URI.create(recordingPath + "/" + recording.getSid().toString() + ".wav")));
+        }
+    }
+
+    @Override
+    public void uploaded(final File file, final URI url) {
+        final String name = file.getName();
+        final String sid = name.endsWith(".wav") ? name.substring(0, name.length() - 4) : name;
+        final Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("sid", sid);
+        parameters.put("date_updated", writeDateTime(DateTime.now()));
+        parameters.put("file_uri", writeUri(url));
+        final SqlSession session = sessions.openSession();
+        try {
+            session.update(namespace + "updateRecordingFileUri", parameters);
+            session.commit();
+        } finally {
+            session.close();
+        }
     }
 
     public URI generateLocalFileUri(String recordingRelativeUri) {
@@ -153,6 +174,22 @@ public final class MybatisRecordingsDao implements RecordingsDao {
         }
     }
 
+    @Override
+    public void getRecordings(final Sid accountSid, final RecordHandler<Recording> handler) {
+        final SqlSession session = sessions.openSession();
+        try {
+            session.select(namespace + "getRecordings", accountSid.toString(), new ResultHandler() {
+                @SuppressWarnings("unchecked")
+                @Override
+                public void handleResult(final ResultContext context) {
+                    handler.handle(toRecording((Map<String, Object>) context.getResultObject()));
+                }
+            });
+        } finally {
+            session.close();
+        }
+    }
+
     @Override
     public void removeRecording(final Sid sid) {
         removeRecording(namespace + "removeRecording", sid);
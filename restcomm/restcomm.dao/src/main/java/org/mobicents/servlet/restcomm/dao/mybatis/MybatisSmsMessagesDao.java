@@ -27,13 +27,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 
 import org.joda.time.DateTime;
 
 import static org.mobicents.servlet.restcomm.dao.DaoUtils.*;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
 import org.mobicents.servlet.restcomm.dao.SmsMessagesDao;
+import org.mobicents.servlet.restcomm.entities.ExportFilter;
 import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.entities.SmsMessage;
 import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
@@ -94,6 +98,38 @@ public final class MybatisSmsMessagesDao implements SmsMessagesDao {
         }
     }
 
+    @Override
+    public void getSmsMessages(final Sid accountSid, final RecordHandler<SmsMessage> handler) {
+        final SqlSession session = sessions.openSession();
+        try {
+            session.select(namespace + "getSmsMessages", accountSid.toString(), new ResultHandler() {
+                @SuppressWarnings("unchecked")
+                @Override
+                public void handleResult(final ResultContext context) {
+                    handler.handle(toSmsMessage((Map<String, Object>) context.getResultObject()));
+                }
+            });
+        } finally {
+            session.close();
+        }
+    }
+
+    @Override
+    public void exportSmsMessages(final ExportFilter filter, final RecordHandler<SmsMessage> handler) {
+        final SqlSession session = sessions.openSession();
+        try {
+            session.select(namespace + "exportSmsMessages", filter, new ResultHandler() {
+                @SuppressWarnings("unchecked")
+                @Override
+                public void handleResult(final ResultContext context) {
+                    handler.handle(toSmsMessage((Map<String, Object>) context.getResultObject()));
+                }
+            });
+        } finally {
+            session.close();
+        }
+    }
+
     @Override
     public void removeSmsMessage(final Sid sid) {
         deleteSmsMessage(namespace + "removeSmsMessage", sid);
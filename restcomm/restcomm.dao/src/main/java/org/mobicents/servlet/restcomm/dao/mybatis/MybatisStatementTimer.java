@@ -0,0 +1,88 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dao.mybatis;
+
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.metrics.LatencyHistogram;
+import org.mobicents.servlet.restcomm.metrics.Metrics;
+
+/**
+ * Times every mapped statement, the stage of a statement is named after its DAO and method, such as
+ * db.AccountsDao.getAccount.
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class }),
+        @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class,
+                RowBounds.class, ResultHandler.class }) })
+@ThreadSafe
+public final class MybatisStatementTimer implements Interceptor {
+    private final ConcurrentMap<String, LatencyHistogram> timers;
+
+    public MybatisStatementTimer() {
+        super();
+        this.timers = new ConcurrentHashMap<String, LatencyHistogram>();
+    }
+
+    @Override
+    public Object intercept(final Invocation invocation) throws Throwable {
+        final MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        final long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            timer(statement.getId()).recordSince(start);
+        }
+    }
+
+    private LatencyHistogram timer(final String id) {
+        LatencyHistogram timer = timers.get(id);
+        if (timer == null) {
+            // Keep the simple name of the mapper namespace and the statement.
+            final int method = id.lastIndexOf('.');
+            final int dao = method > 0 ? id.lastIndexOf('.', method - 1) : -1;
+            timer = Metrics.timer("db." + id.substring(dao + 1));
+            timers.putIfAbsent(id, timer);
+        }
+        return timer;
+    }
+
+    @Override
+    public Object plugin(final Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(final Properties properties) {
+        // Nothing to configure.
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dao.mybatis;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * Streams the rows of the statements given a fetch size by their mapper when the database is MariaDB or MySQL.
+ *
+ * The MariaDB and MySQL drivers ignore any fetch size other than Integer.MIN_VALUE and read the whole result set in
+ * memory, which the mapper XML cannot express. The fetch size of those statements is replaced so their rows are read
+ * one at a time. The connection of a streamed result set cannot run another statement until the rows are all read.
+ */
+@Intercepts({ @Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class }) })
+@ThreadSafe
+public final class MybatisStreamingResults implements Interceptor {
+    public MybatisStreamingResults() {
+        super();
+    }
+
+    @Override
+    public Object intercept(final Invocation invocation) throws Throwable {
+        final Statement statement = (Statement) invocation.proceed();
+        if (statement.getFetchSize() > 0 && isStreaming((Connection) invocation.getArgs()[0])) {
+            statement.setFetchSize(Integer.MIN_VALUE);
+        }
+        return statement;
+    }
+
+    private boolean isStreaming(final Connection connection) throws SQLException {
+        final String url = connection.getMetaData().getURL();
+        return url != null && (url.startsWith("jdbc:mariadb:") || url.startsWith("jdbc:mysql:"));
+    }
+
+    @Override
+    public Object plugin(final Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(final Properties properties) {
+        // Nothing to configure.
+    }
+}
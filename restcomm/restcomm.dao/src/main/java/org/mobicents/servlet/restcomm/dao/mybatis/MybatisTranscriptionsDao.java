@@ -27,12 +27,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 
 import org.joda.time.DateTime;
 
 import static org.mobicents.servlet.restcomm.dao.DaoUtils.*;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
 import org.mobicents.servlet.restcomm.dao.TranscriptionsDao;
 import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.entities.Transcription;
@@ -104,6 +107,22 @@ public final class MybatisTranscriptionsDao implements TranscriptionsDao {
         }
     }
 
+    @Override
+    public void getTranscriptions(final Sid accountSid, final RecordHandler<Transcription> handler) {
+        final SqlSession session = sessions.openSession();
+        try {
+            session.select(namespace + "getTranscriptions", accountSid.toString(), new ResultHandler() {
+                @SuppressWarnings("unchecked")
+                @Override
+                public void handleResult(final ResultContext context) {
+                    handler.handle(toTranscription((Map<String, Object>) context.getResultObject()));
+                }
+            });
+        } finally {
+            session.close();
+        }
+    }
+
     @Override
     public void removeTranscription(final Sid sid) {
         removeTranscriptions(namespace + "removeTranscription", sid);
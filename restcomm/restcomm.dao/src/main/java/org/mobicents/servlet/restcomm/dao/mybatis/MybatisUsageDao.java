@@ -49,35 +49,42 @@ public final class MybatisUsageDao implements UsageDao {
 
   private static final String namespace = "org.mobicents.servlet.sip.restcomm.dao.UsageDao.";
   private final SqlSessionFactory sessions;
+  // Whether the usage is read from the daily rollups kept by the UsageAggregator instead of the raw records.
+  private final boolean rollups;
 
   public MybatisUsageDao(final SqlSessionFactory sessions) {
+    this(sessions, false);
+  }
+
+  public MybatisUsageDao(final SqlSessionFactory sessions, final boolean rollups) {
     super();
     this.sessions = sessions;
+    this.rollups = rollups;
   }
 
   @Override
   public List<Usage> getUsage(final Sid accountSid) {
-    return getUsageCalls(accountSid, null, null, null, "getAllTimeCalls");
+    return getUsageCalls(accountSid, null, null, null, "getAllTimeCalls", "getAllTimeUsage");
   }
 
   @Override
   public List<Usage> getUsageDaily(final Sid accountSid, Usage.Category category, DateTime startDate, DateTime endDate) {
-    return getUsageCalls(accountSid, category, startDate, endDate, "getDailyCalls");
+    return getUsageCalls(accountSid, category, startDate, endDate, "getDailyCalls", "getDailyUsage");
   }
 
   @Override
   public List<Usage> getUsageMonthly(final Sid accountSid, Usage.Category category, DateTime startDate, DateTime endDate) {
-    return getUsageCalls(accountSid, category, startDate, endDate, "getMonthlyCalls");
+    return getUsageCalls(accountSid, category, startDate, endDate, "getMonthlyCalls", "getMonthlyUsage");
   }
 
   @Override
   public List<Usage> getUsageYearly(final Sid accountSid, Usage.Category category, DateTime startDate, DateTime endDate) {
-    return getUsageCalls(accountSid, category, startDate, endDate, "getYearlyCalls");
+    return getUsageCalls(accountSid, category, startDate, endDate, "getYearlyCalls", "getYearlyUsage");
   }
 
   @Override
   public List<Usage> getUsageAllTime(final Sid accountSid, Usage.Category category, DateTime startDate, DateTime endDate) {
-    return getUsageCalls(accountSid, category, startDate, endDate, "getAllTimeCalls");
+    return getUsageCalls(accountSid, category, startDate, endDate, "getAllTimeCalls", "getAllTimeUsage");
   }
 
   /*
@@ -101,7 +108,8 @@ public final class MybatisUsageDao implements UsageDao {
     return getUsageCalls(accountSid, category, startDate, endDate, "getLastMonthCalls");
   }
   */
-  private List<Usage> getUsageCalls(final Sid accountSid, Usage.Category category, DateTime startDate, DateTime endDate, final String queryName) {
+  private List<Usage> getUsageCalls(final Sid accountSid, Usage.Category category, DateTime startDate, DateTime endDate,
+      final String queryName, final String rollupsQueryName) {
     long startTime = System.currentTimeMillis();
     final SqlSession session = sessions.openSession();
     Map<String, Object> params = new HashMap<String, Object>();
@@ -110,7 +118,7 @@ public final class MybatisUsageDao implements UsageDao {
     params.put("endDate", new Date(endDate.getMillis()));
     fillParametersByCategory(category, params);
     try {
-      final List<Map<String, Object>> results = session.selectList(namespace + queryName, params);
+      final List<Map<String, Object>> results = session.selectList(namespace + (rollups ? rollupsQueryName : queryName), params);
       final List<Usage> usageRecords = new ArrayList<Usage>();
       if (results != null && !results.isEmpty()) {
         for (final Map<String, Object> result : results) {
@@ -158,6 +166,7 @@ public final class MybatisUsageDao implements UsageDao {
         params.put("tableName", "restcomm_call_detail_records");
 //        params.put("usageExpr", "CAST(COALESCE(SUM(\"duration\"),0) AS SIGNED)");
       params.put("usageExpr", "COALESCE(SUM(\"duration\"),0)");
+        params.put("category", UsageAggregator.CALLS);
         break;
       case SMS:
       case SMS_INBOUND:
@@ -168,6 +177,7 @@ public final class MybatisUsageDao implements UsageDao {
       case SMS_OUTBOUND_LONGCODE:
         params.put("tableName", "restcomm_sms_messages");
         params.put("usageExpr", "COUNT(1)");
+        params.put("category", UsageAggregator.SMS);
         break;
       case PHONENUMBERS:
       case PHONENUMBERS_TOLLFREE:
@@ -185,6 +195,7 @@ public final class MybatisUsageDao implements UsageDao {
         params.put("tableName", "restcomm_call_detail_records");
 //        params.put("usageExpr", "CAST(COALESCE(SUM(\"duration\"),0) AS SIGNED)");
       params.put("usageExpr", "COALESCE(SUM(\"duration\"),0)");
+        params.put("category", UsageAggregator.CALLS);
         break;
     }
     return params;
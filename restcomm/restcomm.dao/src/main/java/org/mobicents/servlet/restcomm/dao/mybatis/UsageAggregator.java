@@ -0,0 +1,189 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dao.mybatis;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.log4j.Logger;
+import org.joda.time.DateTime;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * Keeps the daily usage of every account up to date in the restcomm_usage_daily table.
+ *
+ * Every run looks for the call detail records and SMS messages updated since the previous run and counts again,
+ * for each account and day they belong to, the records of that day. Counting a whole day again instead of adding
+ * each record to the counters makes the aggregation idempotent, so a record updated several times or written late
+ * by the write-behind DAO is never counted twice. The monthly, yearly and all time usage is summed up from the daily
+ * rows by {@link MybatisUsageDao}.
+ */
+@ThreadSafe
+public final class UsageAggregator {
+    private static final Logger logger = Logger.getLogger(UsageAggregator.class);
+    private static final String namespace = "org.mobicents.servlet.sip.restcomm.dao.UsageDao.";
+    static final String CALLS = "calls";
+    static final String SMS = "sms";
+    private static final String[] CATEGORIES = { CALLS, SMS };
+
+    private final SqlSessionFactory sessions;
+    private final long settle;
+    private final ScheduledThreadPoolExecutor executor;
+    // The time of the previous run, guarded by this.
+    private long last;
+
+    /**
+     * @param sessions the session factory.
+     * @param interval in milliseconds, the time between two runs.
+     * @param settle in milliseconds, how far before the previous run the next one looks for updated records. It
+     *        must cover the time a record may take to reach the data store after it has been updated.
+     */
+    public UsageAggregator(final SqlSessionFactory sessions, final long interval, final long settle) {
+        super();
+        this.sessions = sessions;
+        this.settle = settle;
+        // The records of yesterday and today may have changed while the server was down.
+        this.last = DateTime.now().withTimeAtStartOfDay().minusDays(1).getMillis() + settle;
+        this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "restcomm-usage-aggregator");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    aggregate();
+                } catch (final Throwable throwable) {
+                    // An exception would cancel the periodic aggregation.
+                    logger.error("Unexpected error while aggregating the usage.", throwable);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts the usage of all the records from scratch, in the background, if nothing has been counted yet.
+     *
+     * @param force count from scratch even if the usage has already been counted.
+     */
+    public void backfill(final boolean force) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (force || isEmpty()) {
+                        backfill();
+                    }
+                } catch (final Throwable throwable) {
+                    logger.error("Unexpected error while counting the usage of the existing records.", throwable);
+                }
+            }
+        });
+    }
+
+    private boolean isEmpty() {
+        final SqlSession session = sessions.openSession();
+        try {
+            final Integer total = session.selectOne(namespace + "getTotalUsageDaily");
+            return total == null || total == 0;
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Counts the usage of all the records from scratch.
+     */
+    public synchronized void backfill() {
+        final long started = System.currentTimeMillis();
+        final SqlSession session = sessions.openSession();
+        try {
+            for (final String category : CATEGORIES) {
+                final Map<String, Object> parameters = new HashMap<String, Object>();
+                parameters.put("category", category);
+                session.delete(namespace + "removeUsageDailyByCategory", parameters);
+                session.insert(namespace + "backfillUsageDaily", parameters);
+            }
+            session.commit();
+            last = started;
+        } finally {
+            session.close();
+        }
+        logger.info("Counted the usage of the existing records in " + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    /**
+     * Counts again the days of the records updated since the previous run.
+     */
+    public synchronized void aggregate() {
+        final long started = System.currentTimeMillis();
+        final SqlSession session = sessions.openSession();
+        try {
+            for (final String category : CATEGORIES) {
+                final Map<String, Object> parameters = new HashMap<String, Object>();
+                parameters.put("category", category);
+                parameters.put("since", new Timestamp(last - settle));
+                final List<Map<String, Object>> days = session.selectList(namespace + "getUpdatedUsageDays", parameters);
+                for (final Map<String, Object> day : days) {
+                    final String accountSid = (String) day.get("account_sid");
+                    final DateTime date = new DateTime(((java.util.Date) day.get("usage_date")).getTime());
+                    count(session, category, accountSid, date);
+                }
+            }
+            session.commit();
+            last = started;
+        } finally {
+            session.close();
+        }
+    }
+
+    private void count(final SqlSession session, final String category, final String accountSid, final DateTime date) {
+        final DateTime start = date.withTimeAtStartOfDay();
+        final Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("category", category);
+        parameters.put("accountSid", accountSid);
+        parameters.put("day", new Date(start.getMillis()));
+        parameters.put("start", new Timestamp(start.getMillis()));
+        parameters.put("end", new Timestamp(start.plusDays(1).getMillis()));
+        session.delete(namespace + "removeUsageDaily", parameters);
+        session.insert(namespace + "addUsageDaily", parameters);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,831 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dao.mybatis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.log4j.Logger;
+import org.joda.time.DateTime;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.dao.CallDetailRecordsDao;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
+import org.mobicents.servlet.restcomm.entities.CallDetailRecord;
+import org.mobicents.servlet.restcomm.entities.CallDetailRecordFilter;
+import org.mobicents.servlet.restcomm.entities.ExportFilter;
+import org.mobicents.servlet.restcomm.entities.Sid;
+
+/**
+ * Writes the call detail records behind the callers' back.
+ *
+ * Additions and updates are appended to a local journal and kept in memory, the latest version of each call
+ * replacing the previous one, until they are flushed to the data store in a single JDBC batch by a dedicated
+ * thread. Records that have not been flushed yet are returned by the lookups and the listings so that callers
+ * always read their own writes. The journal is synced to disk every time a batch worth of records is written and
+ * journal files left behind by a crash are replayed when the DAO is created. Records the data store keeps
+ * rejecting are moved to a dead letter journal instead of being retried forever.
+ */
+@ThreadSafe
+public final class WriteBehindCallDetailRecordsDao implements CallDetailRecordsDao {
+    private static final Logger logger = Logger.getLogger(WriteBehindCallDetailRecordsDao.class);
+    private static final String namespace = "org.mobicents.servlet.sip.restcomm.dao.CallDetailRecordsDao.";
+    private static final String JOURNAL_PREFIX = "cdr-journal-";
+    private static final String JOURNAL_EXTENSION = ".log";
+    private static final String DEAD_LETTERS = "cdr-dead-letters.log";
+
+    private final SqlSessionFactory sessions;
+    private final MybatisCallDetailRecordsDao store;
+    private final File directory;
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean triggered;
+    private final Runnable flush;
+
+    private final Object lock;
+    // Guarded by lock.
+    private Map<Sid, Write> pending;
+    private DataOutputStream journal;
+    private FileOutputStream file;
+    private File segment;
+    private int unsynced;
+    private long sequence;
+    // The batch being flushed, visible to the lookups until it is committed.
+    private volatile Map<Sid, Write> flushing;
+    // Journal files whose records have not been committed yet, only used by the flushing thread.
+    private final List<File> closed;
+
+    /**
+     * @param sessions the session factory used for the batches.
+     * @param directory the journal directory.
+     * @param interval the maximum time in milliseconds a record stays in memory.
+     * @param batchSize the number of pending calls that triggers a flush before the interval elapses.
+     */
+    public WriteBehindCallDetailRecordsDao(final SqlSessionFactory sessions, final File directory, final long interval,
+            final int batchSize) {
+        super();
+        this.sessions = sessions;
+        this.store = new MybatisCallDetailRecordsDao(sessions);
+        this.directory = directory;
+        this.batchSize = batchSize;
+        this.triggered = new AtomicBoolean();
+        this.lock = new Object();
+        this.pending = new HashMap<Sid, Write>();
+        this.closed = new ArrayList<File>();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Could not create the call detail records journal directory " + directory);
+        }
+        replay();
+        synchronized (lock) {
+            open();
+        }
+        this.flush = new Runnable() {
+            @Override
+            public void run() {
+                triggered.set(false);
+                try {
+                    flush();
+                } catch (final Throwable throwable) {
+                    // An exception would cancel the periodic flush.
+                    logger.error("Unexpected error while flushing the call detail records.", throwable);
+                }
+            }
+        };
+        this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "restcomm-cdr-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void addCallDetailRecord(final CallDetailRecord cdr) {
+        write(cdr, true);
+    }
+
+    @Override
+    public void updateCallDetailRecord(final CallDetailRecord cdr) {
+        write(cdr, false);
+    }
+
+    private void write(final CallDetailRecord cdr, final boolean insert) {
+        final Map<String, Object> row = MybatisCallDetailRecordsDao.toMap(cdr);
+        final int size;
+        synchronized (lock) {
+            final Write previous = pending.get(cdr.getSid());
+            // An update of a call that was never flushed must still insert it.
+            final Write write = new Write(cdr.getSid(), insert || (previous != null && previous.insert), row, cdr);
+            journal(write);
+            pending.put(cdr.getSid(), write);
+            size = pending.size();
+        }
+        if (size >= batchSize && triggered.compareAndSet(false, true)) {
+            executor.execute(flush);
+        }
+    }
+
+    @Override
+    public CallDetailRecord getCallDetailRecord(final Sid sid) {
+        final CallDetailRecord cdr = lookup(sid);
+        if (cdr != null) {
+            return cdr;
+        }
+        return store.getCallDetailRecord(sid);
+    }
+
+    private CallDetailRecord lookup(final Sid sid) {
+        Write write;
+        synchronized (lock) {
+            write = pending.get(sid);
+        }
+        if (write == null) {
+            final Map<Sid, Write> batch = flushing;
+            if (batch != null) {
+                write = batch.get(sid);
+            }
+        }
+        return write != null ? write.cdr : null;
+    }
+
+    // The calls added but not stored yet that match the criteria, oldest first. The records replayed from the
+    // journal are left out as only their rows are known, they are listed once they have been flushed.
+    private List<CallDetailRecord> inserts(final Criteria criteria) {
+        final Map<Sid, CallDetailRecord> inserts = new HashMap<Sid, CallDetailRecord>();
+        final Map<Sid, Write> batch = flushing;
+        if (batch != null) {
+            inserts(batch, criteria, inserts);
+        }
+        synchronized (lock) {
+            inserts(pending, criteria, inserts);
+        }
+        final List<CallDetailRecord> cdrs = new ArrayList<CallDetailRecord>(inserts.values());
+        // Same order as the data store listings.
+        Collections.sort(cdrs, new Comparator<CallDetailRecord>() {
+            @Override
+            public int compare(final CallDetailRecord first, final CallDetailRecord second) {
+                final int order = first.getDateCreated().compareTo(second.getDateCreated());
+                return order != 0 ? order : first.getSid().toString().compareTo(second.getSid().toString());
+            }
+        });
+        return cdrs;
+    }
+
+    private static void inserts(final Map<Sid, Write> writes, final Criteria criteria,
+            final Map<Sid, CallDetailRecord> inserts) {
+        for (final Write write : writes.values()) {
+            if (write.insert && write.cdr != null) {
+                // A pending write of a call that no longer matches hides the older version being flushed.
+                if (criteria.matches(write.cdr)) {
+                    inserts.put(write.sid, write.cdr);
+                } else {
+                    inserts.remove(write.sid);
+                }
+            }
+        }
+    }
+
+    // Replaces the stored version of the calls that have not been flushed yet and returns the stored calls.
+    private Set<Sid> overlay(final List<CallDetailRecord> cdrs) {
+        final Set<Sid> stored = new HashSet<Sid>();
+        for (int index = 0; index < cdrs.size(); index++) {
+            stored.add(cdrs.get(index).getSid());
+            final CallDetailRecord cdr = lookup(cdrs.get(index).getSid());
+            if (cdr != null) {
+                cdrs.set(index, cdr);
+            }
+        }
+        return stored;
+    }
+
+    // Also adds the calls that have not been stored at all.
+    private List<CallDetailRecord> merge(final List<CallDetailRecord> cdrs, final Criteria criteria) {
+        final Set<Sid> stored = overlay(cdrs);
+        for (final CallDetailRecord cdr : inserts(criteria)) {
+            if (!stored.contains(cdr.getSid())) {
+                cdrs.add(cdr);
+            }
+        }
+        return cdrs;
+    }
+
+    @Override
+    public List<CallDetailRecord> getCallDetailRecords(final Sid accountSid) {
+        return merge(store.getCallDetailRecords(accountSid), new Criteria() {
+            @Override
+            public boolean matches(final CallDetailRecord cdr) {
+                return accountSid.equals(cdr.getAccountSid());
+            }
+        });
+    }
+
+    @Override
+    public List<CallDetailRecord> getCallDetailRecordsByRecipient(final String recipient) {
+        return merge(store.getCallDetailRecordsByRecipient(recipient), new Criteria() {
+            @Override
+            public boolean matches(final CallDetailRecord cdr) {
+                return recipient.equals(cdr.getTo());
+            }
+        });
+    }
+
+    @Override
+    public List<CallDetailRecord> getCallDetailRecordsBySender(final String sender) {
+        return merge(store.getCallDetailRecordsBySender(sender), new Criteria() {
+            @Override
+            public boolean matches(final CallDetailRecord cdr) {
+                return sender.equals(cdr.getFrom());
+            }
+        });
+    }
+
+    @Override
+    public List<CallDetailRecord> getCallDetailRecordsByStatus(final String status) {
+        return merge(store.getCallDetailRecordsByStatus(status), new Criteria() {
+            @Override
+            public boolean matches(final CallDetailRecord cdr) {
+                return status.equals(cdr.getStatus());
+            }
+        });
+    }
+
+    @Override
+    public List<CallDetailRecord> getCallDetailRecordsByStartTime(final DateTime startTime) {
+        return merge(store.getCallDetailRecordsByStartTime(startTime), new Criteria() {
+            @Override
+            public boolean matches(final CallDetailRecord cdr) {
+                return within(cdr.getStartTime(), startTime, startTime.plusDays(1));
+            }
+        });
+    }
+
+    @Override
+    public List<CallDetailRecord> getCallDetailRecordsByEndTime(final DateTime endTime) {
+        return merge(store.getCallDetailRecordsByEndTime(endTime), new Criteria() {
+            @Override
+            public boolean matches(final CallDetailRecord cdr) {
+                return within(cdr.getEndTime(), endTime, endTime.plusDays(1));
+            }
+        });
+    }
+
+    @Override
+    public List<CallDetailRecord> getCallDetailRecordsByStarTimeAndEndTime(final DateTime endTime) {
+        return merge(store.getCallDetailRecordsByStarTimeAndEndTime(endTime), new Criteria() {
+            @Override
+            public boolean matches(final CallDetailRecord cdr) {
+                return cdr.getStartTime() != null && !cdr.getStartTime().isBefore(endTime) && cdr.getEndTime() != null
+                        && !cdr.getEndTime().isAfter(endTime);
+            }
+        });
+    }
+
+    @Override
+    public List<CallDetailRecord> getCallDetailRecordsByParentCall(final Sid parentCallSid) {
+        return merge(store.getCallDetailRecordsByParentCall(parentCallSid), new Criteria() {
+            @Override
+            public boolean matches(final CallDetailRecord cdr) {
+                return parentCallSid.equals(cdr.getParentCallSid());
+            }
+        });
+    }
+
+    @Override
+    public List<CallDetailRecord> getCallDetailRecords(final CallDetailRecordFilter filter) {
+        final List<CallDetailRecord> cdrs = store.getCallDetailRecords(filter);
+        final Set<Sid> stored = overlay(cdrs);
+        final List<CallDetailRecord> inserts = inserts(new FilterCriteria(filter));
+        if (inserts.isEmpty()) {
+            return cdrs;
+        }
+        // The calls that have not been stored yet are the most recent ones so they come after the stored calls,
+        // on the last pages.
+        int from = 0;
+        final String afterSid = filter.getAfterSid();
+        if (afterSid != null) {
+            for (int index = 0; index < inserts.size(); index++) {
+                if (inserts.get(index).getSid().toString().equals(afterSid)) {
+                    // The previous page ended on a call that is not stored yet.
+                    cdrs.clear();
+                    from = index + 1;
+                    break;
+                }
+            }
+        } else if (cdrs.size() < filter.getLimit()) {
+            final int total = cdrs.isEmpty() && filter.getOffset() > 0 ? store.getTotalCallDetailRecords(filter)
+                    : filter.getOffset() + cdrs.size();
+            from = Math.max(0, filter.getOffset() - total);
+        }
+        for (int index = from; index < inserts.size() && cdrs.size() < filter.getLimit(); index++) {
+            if (!stored.contains(inserts.get(index).getSid())) {
+                cdrs.add(inserts.get(index));
+            }
+        }
+        return cdrs;
+    }
+
+    @Override
+    public Integer getTotalCallDetailRecords(final CallDetailRecordFilter filter) {
+        final Integer total = store.getTotalCallDetailRecords(filter);
+        return (total != null ? total : 0) + inserts(new FilterCriteria(filter)).size();
+    }
+
+    @Override
+    public void exportCallDetailRecords(final ExportFilter filter, final RecordHandler<CallDetailRecord> handler) {
+        // Flush first so that the export includes the calls still waiting to be written.
+        sync();
+        store.exportCallDetailRecords(filter, handler);
+    }
+
+    @Override
+    public void removeCallDetailRecord(final Sid sid) {
+        // Flush first so that a pending write does not bring the record back.
+        sync();
+        store.removeCallDetailRecord(sid);
+    }
+
+    @Override
+    public void removeCallDetailRecords(final Sid accountSid) {
+        sync();
+        store.removeCallDetailRecords(accountSid);
+    }
+
+    /**
+     * Flushes the pending records and waits for the flush to complete. Does nothing once the writer has been shut
+     * down since the pending records were flushed then.
+     */
+    public void sync() {
+        if (executor.isShutdown()) {
+            return;
+        }
+        try {
+            executor.submit(flush).get();
+        } catch (final RejectedExecutionException exception) {
+            // Shut down in the meantime.
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException exception) {
+            logger.error("Could not flush the call detail records.", exception.getCause());
+        }
+    }
+
+    /**
+     * @return the number of calls waiting to be flushed, including the ones being flushed.
+     */
+    public int getPendingCount() {
+        final Map<Sid, Write> batch = flushing;
+        synchronized (lock) {
+            return pending.size() + (batch != null ? batch.size() : 0);
+        }
+    }
+
+    /**
+     * Stops the writer thread and flushes the pending records.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (lock) {
+            close();
+        }
+    }
+
+    // Only ever called by one thread at a time, the writer thread or the thread shutting the writer down.
+    private void flush() {
+        final Map<Sid, Write> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<Sid, Write>();
+            flushing = batch;
+            // Later writes go to a new journal file, the current one can be deleted once the batch is committed.
+            close();
+            closed.add(segment);
+            open();
+        }
+        try {
+            write(batch.values());
+            for (final File file : closed) {
+                delete(file);
+            }
+            closed.clear();
+        } catch (final PersistenceException exception) {
+            logger.error("Could not flush " + batch.size() + " call detail records, they will be flushed again.", exception);
+            synchronized (lock) {
+                for (final Write write : batch.values()) {
+                    final Write newer = pending.get(write.sid);
+                    if (newer == null) {
+                        pending.put(write.sid, write);
+                    } else if (write.insert && !newer.insert) {
+                        pending.put(write.sid, new Write(newer.sid, true, newer.row, newer.cdr));
+                    }
+                }
+            }
+        } finally {
+            flushing = null;
+        }
+    }
+
+    private void write(final Collection<Write> writes) {
+        try {
+            batch(writes);
+        } catch (final PersistenceException exception) {
+            // A single bad record must not hold back the others so write them one at a time. When none of them
+            // can be written the data store is unavailable and the batch is retried later.
+            logger.warn("Could not flush " + writes.size() + " call detail records in a batch, writing them one at a time.",
+                    exception);
+            final List<Write> failed = new ArrayList<Write>();
+            PersistenceException last = null;
+            for (final Write write : writes) {
+                try {
+                    single(write);
+                } catch (final PersistenceException failure) {
+                    failed.add(write);
+                    last = failure;
+                }
+            }
+            if (!failed.isEmpty() && failed.size() == writes.size()) {
+                throw last;
+            }
+            if (!failed.isEmpty()) {
+                deadLetters(failed);
+            }
+        }
+    }
+
+    // Keeps the records the data store rejected out of the journal, which is replayed, so that they can be fixed
+    // and loaded by hand.
+    private void deadLetters(final List<Write> writes) {
+        final File file = new File(directory, DEAD_LETTERS);
+        for (final Write write : writes) {
+            logger.error("Could not write call detail record " + write.sid + ", moving it to " + file + ": " + write.row);
+        }
+        FileOutputStream output = null;
+        try {
+            output = new FileOutputStream(file, true);
+            final DataOutputStream letters = new DataOutputStream(new BufferedOutputStream(output));
+            for (final Write write : writes) {
+                record(letters, write);
+            }
+            letters.flush();
+            output.getFD().sync();
+        } catch (final IOException exception) {
+            logger.error("Could not write the call detail records dead letters " + file, exception);
+        } finally {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (final IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private void batch(final Collection<Write> writes) {
+        final SqlSession session = sessions.openSession(ExecutorType.BATCH);
+        try {
+            // Statements of the same kind are sent together so that they share a JDBC batch.
+            for (final Write write : writes) {
+                if (write.insert) {
+                    session.insert(namespace + "addCallDetailRecord", write.row);
+                }
+            }
+            for (final Write write : writes) {
+                if (!write.insert) {
+                    session.update(namespace + "updateCallDetailRecord", write.row);
+                }
+            }
+            session.commit();
+        } finally {
+            session.close();
+        }
+    }
+
+    private void single(final Write write) {
+        if (write.insert) {
+            try {
+                final SqlSession session = sessions.openSession();
+                try {
+                    session.insert(namespace + "addCallDetailRecord", write.row);
+                    session.commit();
+                    return;
+                } finally {
+                    session.close();
+                }
+            } catch (final PersistenceException exception) {
+                // The record may already be stored when a journal is replayed after a crash.
+            }
+        }
+        final SqlSession session = sessions.openSession();
+        try {
+            final int updated = session.update(namespace + "updateCallDetailRecord", write.row);
+            if (updated == 0 && write.insert) {
+                // Neither inserted nor already stored.
+                throw new PersistenceException("Could not insert call detail record " + write.sid);
+            }
+            session.commit();
+        } finally {
+            session.close();
+        }
+    }
+
+    // Must be called while holding the lock.
+    private void journal(final Write write) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            record(journal, write);
+            journal.flush();
+            // Syncing every record would cost a disk write per call so a crash may lose up to a batch.
+            if (++unsynced >= batchSize) {
+                file.getFD().sync();
+                unsynced = 0;
+            }
+        } catch (final IOException exception) {
+            logger.error("Could not journal call detail record " + write.sid + ", it will only be kept in memory.", exception);
+        }
+    }
+
+    private static void record(final DataOutputStream stream, final Write write) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        final ObjectOutputStream output = new ObjectOutputStream(bytes);
+        output.writeObject(write.sid.toString());
+        output.writeBoolean(write.insert);
+        output.writeObject(new HashMap<String, Object>(write.row));
+        output.close();
+        stream.writeInt(bytes.size());
+        bytes.writeTo(stream);
+    }
+
+    // Must be called while holding the lock.
+    private void open() {
+        segment = new File(directory, JOURNAL_PREFIX + sequence++ + JOURNAL_EXTENSION);
+        try {
+            file = new FileOutputStream(segment, true);
+            journal = new DataOutputStream(new BufferedOutputStream(file));
+        } catch (final IOException exception) {
+            logger.error("Could not open the call detail records journal " + segment, exception);
+            file = null;
+            journal = null;
+        }
+        unsynced = 0;
+    }
+
+    // Must be called while holding the lock.
+    private void close() {
+        if (journal != null) {
+            try {
+                journal.flush();
+                if (unsynced > 0) {
+                    file.getFD().sync();
+                }
+            } catch (final IOException exception) {
+                logger.warn("Could not sync the call detail records journal " + segment, exception);
+            }
+            try {
+                journal.close();
+            } catch (final IOException exception) {
+                logger.warn("Could not close the call detail records journal " + segment, exception);
+            }
+            file = null;
+            journal = null;
+        }
+    }
+
+    private static void delete(final File file) {
+        if (!file.delete() && file.exists()) {
+            logger.warn("Could not delete the call detail records journal " + file);
+        }
+    }
+
+    private File[] journals() {
+        final File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(final File dir, final String name) {
+                return name.startsWith(JOURNAL_PREFIX) && name.endsWith(JOURNAL_EXTENSION);
+            }
+        });
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(final File first, final File second) {
+                final long one = number(first);
+                final long two = number(second);
+                return one < two ? -1 : (one == two ? 0 : 1);
+            }
+        });
+        return files;
+    }
+
+    private static long number(final File file) {
+        final String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(JOURNAL_PREFIX.length(), name.length() - JOURNAL_EXTENSION.length()));
+        } catch (final NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    private void replay() {
+        final File[] files = journals();
+        if (files.length == 0) {
+            return;
+        }
+        sequence = number(files[files.length - 1]) + 1;
+        final Map<Sid, Write> writes = new LinkedHashMap<Sid, Write>();
+        for (final File file : files) {
+            read(file, writes);
+        }
+        logger.info("Replaying " + writes.size() + " call detail records from " + files.length + " journal files in "
+                + directory);
+        closed.addAll(Arrays.asList(files));
+        try {
+            write(writes.values());
+            for (final File file : closed) {
+                delete(file);
+            }
+            closed.clear();
+        } catch (final PersistenceException exception) {
+            logger.error("Could not replay the call detail records journal, it will be flushed again.", exception);
+            pending.putAll(writes);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void read(final File file, final Map<Sid, Write> writes) {
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            while (true) {
+                final int length;
+                try {
+                    length = input.readInt();
+                } catch (final EOFException exception) {
+                    break;
+                }
+                final byte[] bytes = new byte[length];
+                input.readFully(bytes);
+                final ObjectInputStream record = new ObjectInputStream(new ByteArrayInputStream(bytes));
+                final Sid sid = Sid.trusted((String) record.readObject());
+                final boolean insert = record.readBoolean();
+                final Map<String, Object> row = (Map<String, Object>) record.readObject();
+                final Write previous = writes.get(sid);
+                writes.put(sid, new Write(sid, insert || (previous != null && previous.insert), row, null));
+            }
+        } catch (final EOFException exception) {
+            // The last record was only partially written before the crash.
+            logger.warn("Ignoring the truncated record at the end of the call detail records journal " + file);
+        } catch (final IOException | ClassNotFoundException exception) {
+            logger.error("Could not read the call detail records journal " + file, exception);
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (final IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static final class Write {
+        private final Sid sid;
+        private final boolean insert;
+        private final Map<String, Object> row;
+        // Null for the records replayed from the journal.
+        private final CallDetailRecord cdr;
+
+        private Write(final Sid sid, final boolean insert, final Map<String, Object> row, final CallDetailRecord cdr) {
+            super();
+            this.sid = sid;
+            this.insert = insert;
+            this.row = row;
+            this.cdr = cdr;
+        }
+    }
+
+    private static boolean within(final DateTime time, final DateTime from, final DateTime to) {
+        return time != null && !time.isBefore(from) && time.isBefore(to);
+    }
+
+    private interface Criteria {
+        boolean matches(CallDetailRecord cdr);
+    }
+
+    // The conditions of the getCallDetailRecordByUsingFilters query.
+    private static final class FilterCriteria implements Criteria {
+        private final CallDetailRecordFilter filter;
+
+        private FilterCriteria(final CallDetailRecordFilter filter) {
+            super();
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean matches(final CallDetailRecord cdr) {
+            if (!filter.getSid().equals(String.valueOf(cdr.getAccountSid()))) {
+                return false;
+            }
+            if (!like(cdr.getTo(), filter.getRecipient()) || !like(cdr.getFrom(), filter.getSender())
+                    || !like(cdr.getStatus(), filter.getStatus())) {
+                return false;
+            }
+            final Sid parentCallSid = cdr.getParentCallSid();
+            if (!like(parentCallSid != null ? parentCallSid.toString() : null, filter.getParentCallSid())) {
+                return false;
+            }
+            if (filter.getStartTime() != null
+                    && (cdr.getStartTime() == null || cdr.getStartTime().isBefore(filter.getStartTime().getTime()))) {
+                return false;
+            }
+            if (filter.getEndTime() != null && (cdr.getEndTime() == null
+                    || cdr.getEndTime().isAfter(new DateTime(filter.getEndTime()).plusDays(1)))) {
+                return false;
+            }
+            return true;
+        }
+
+        // Only the leading and trailing wildcards used by the filters are supported.
+        private static boolean like(final String value, final String pattern) {
+            if (pattern == null) {
+                return true;
+            }
+            if (value == null) {
+                return false;
+            }
+            final boolean leading = pattern.startsWith("%");
+            final boolean trailing = pattern.length() > 1 && pattern.endsWith("%");
+            final String text = pattern.substring(leading ? 1 : 0, pattern.length() - (trailing ? 1 : 0));
+            if (leading && trailing) {
+                return value.contains(text);
+            } else if (leading) {
+                return value.endsWith(text);
+            } else if (trailing) {
+                return value.startsWith(text);
+            }
+            return value.equals(text);
+        }
+    }
+}
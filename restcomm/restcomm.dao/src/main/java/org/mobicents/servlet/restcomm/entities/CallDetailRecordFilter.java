@@ -22,10 +22,21 @@ public class CallDetailRecordFilter {
     private final String parentCallSid;
     private final Integer limit;
     private final Integer offset;
+    private final String afterSid;
 
     public CallDetailRecordFilter(String accountSid, String recipient, String sender, String status, String startTime, String endTime,
             String parentCallSid, Integer limit, Integer offset) throws ParseException {
+        this(accountSid, recipient, sender, status, startTime, endTime, parentCallSid, limit, offset, null);
+    }
+
+    /**
+     * @param afterSid when not null the page starts right after this call instead of at the offset, so that the
+     *        data store seeks to it through the index instead of skipping all the previous records.
+     */
+    public CallDetailRecordFilter(String accountSid, String recipient, String sender, String status, String startTime, String endTime,
+            String parentCallSid, Integer limit, Integer offset, String afterSid) throws ParseException {
         this.accountSid = accountSid;
+        this.afterSid = afterSid;
 
         // The LIKE keyword uses '%' to match any (including 0) number of characters, and '_' to match exactly one character
         // Add here the '%' keyword so +15126002188 will be the same as 15126002188 and 6002188
@@ -91,4 +102,20 @@ public class CallDetailRecordFilter {
         return offset;
     }
 
+    public String getAfterSid() {
+        return afterSid;
+    }
+
+    /**
+     * @return a key identifying the records matched by this filter, whatever the page.
+     */
+    public String getTotalKey() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append(accountSid).append('|').append(recipient).append('|').append(sender).append('|').append(status);
+        buffer.append('|').append(startTime != null ? startTime.getTime() : null);
+        buffer.append('|').append(endTime != null ? endTime.getTime() : null);
+        buffer.append('|').append(parentCallSid);
+        return buffer.toString();
+    }
+
 }
@@ -21,21 +21,53 @@ package org.mobicents.servlet.restcomm.entities;
 
 import java.util.List;
 
-import org.mobicents.servlet.restcomm.annotations.concurrency.NotThreadSafe;
+import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
 
 /**
+ * A page of call detail records along with its position in the whole listing, so the converters that write it need
+ * no state of their own.
+ *
  * @author quintana.thomas@gmail.com (Thomas Quintana)
  */
-@NotThreadSafe
+@Immutable
 public final class CallDetailRecordList {
     private final List<CallDetailRecord> cdrs;
+    private final int page;
+    private final int pageSize;
+    private final int total;
+    private final String uri;
 
     public CallDetailRecordList(final List<CallDetailRecord> cdrs) {
+        this(cdrs, 0, cdrs.size(), cdrs.size(), null);
+    }
+
+    public CallDetailRecordList(final List<CallDetailRecord> cdrs, final int page, final int pageSize, final int total,
+            final String uri) {
         super();
         this.cdrs = cdrs;
+        this.page = page;
+        this.pageSize = Math.max(pageSize, 1);
+        this.total = total;
+        this.uri = uri;
     }
 
     public List<CallDetailRecord> getCallDetailRecords() {
         return cdrs;
     }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public String getUri() {
+        return uri;
+    }
 }
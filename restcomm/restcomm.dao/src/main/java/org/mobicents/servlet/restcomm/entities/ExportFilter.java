@@ -0,0 +1,75 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.entities;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
+
+/**
+ * Selects the records of an account created between two days, both included, for a bulk export. The records are
+ * exported in the order they were created and an interrupted export resumes right after the last record received.
+ */
+@Immutable
+public final class ExportFilter {
+    private final String accountSid;
+    private final Date startTime;
+    // The first instant after the last day of the export.
+    private final Date endTime;
+    private final String afterSid;
+
+    /**
+     * @param startTime the first day of the export, in yyyy-MM-dd format.
+     * @param endTime the last day of the export, in yyyy-MM-dd format.
+     * @param afterSid the sid of the last record received when resuming an export, null otherwise.
+     */
+    public ExportFilter(final String accountSid, final String startTime, final String endTime, final String afterSid)
+            throws ParseException {
+        super();
+        final SimpleDateFormat parser = new SimpleDateFormat("yyyy-MM-dd");
+        parser.setLenient(false);
+        this.accountSid = accountSid;
+        this.startTime = parser.parse(startTime);
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTime(parser.parse(endTime));
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        this.endTime = calendar.getTime();
+        this.afterSid = afterSid;
+    }
+
+    public String getAccountSid() {
+        return accountSid;
+    }
+
+    public Date getStartTime() {
+        return startTime;
+    }
+
+    public Date getEndTime() {
+        return endTime;
+    }
+
+    public String getAfterSid() {
+        return afterSid;
+    }
+}
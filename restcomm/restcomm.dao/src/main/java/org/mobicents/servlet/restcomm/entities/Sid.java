@@ -19,19 +19,41 @@
  */
 package org.mobicents.servlet.restcomm.entities;
 
-import java.util.UUID;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.util.regex.Pattern;
 
 import org.apache.shiro.crypto.hash.Md5Hash;
 import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
 
 /**
+ * A two letter type prefix followed by 32 alphanumeric characters, usually the 128 bits of a random UUID in lower
+ * case hexadecimal. Those 128 bits are kept as two longs so equals and hashCode do not have to go through the string.
+ *
  * @author quintana.thomas@gmail.com (Thomas Quintana)
  */
 @Immutable
 public final class Sid {
     public static final Pattern pattern = Pattern.compile("[a-zA-Z0-9]{34}");
+    private static final int LENGTH = 34;
+    private static final char[] digits = "0123456789abcdef".toCharArray();
+    // One generator per thread, a single SecureRandom is a point of contention when many sids are generated.
+    private static final ThreadLocal<SecureRandom> random = new ThreadLocal<SecureRandom>() {
+        @Override
+        protected SecureRandom initialValue() {
+            try {
+                return SecureRandom.getInstance("SHA1PRNG");
+            } catch (final NoSuchAlgorithmException exception) {
+                return new SecureRandom();
+            }
+        }
+    };
+
     private final String id;
+    // Whether the 32 characters after the prefix are lower case hexadecimal held by the two longs.
+    private final boolean hex;
+    private final long mostSignificantBits;
+    private final long leastSignificantBits;
 
     public enum Type {
         ACCOUNT, APPLICATION, ANNOUNCEMENT, CALL, CLIENT, CONFERENCE, GATEWAY, INVALID, NOTIFICATION, PHONE_NUMBER, RECORDING, REGISTRATION, SHORT_CODE, SMS_MESSAGE, TRANSCRIPTION, INSTANCE
@@ -41,11 +63,70 @@ public final class Sid {
 
     public Sid(final String id) throws IllegalArgumentException {
         super();
-        if (pattern.matcher(id).matches()) {
+        if (isValid(id)) {
             this.id = id;
         } else {
             throw new IllegalArgumentException(id + " is an INVALID_SID sid value.");
         }
+        this.hex = isHex(id);
+        this.mostSignificantBits = hex ? parse(id, 2) : 0;
+        this.leastSignificantBits = hex ? parse(id, 18) : 0;
+    }
+
+    private Sid(final String id, final boolean hex, final long mostSignificantBits, final long leastSignificantBits) {
+        super();
+        this.id = id;
+        this.hex = hex;
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+    }
+
+    /**
+     * Creates a sid without validating it, for the values that were validated before being stored like the ones read
+     * from the database.
+     */
+    public static Sid trusted(final String id) {
+        if (isHex(id)) {
+            return new Sid(id, true, parse(id, 2), parse(id, 18));
+        }
+        return new Sid(id, false, 0, 0);
+    }
+
+    private static boolean isValid(final String id) {
+        if (id.length() != LENGTH) {
+            return false;
+        }
+        for (int index = 0; index < LENGTH; index++) {
+            final char character = id.charAt(index);
+            if (!(character >= 'a' && character <= 'z' || character >= 'A' && character <= 'Z' || character >= '0'
+                    && character <= '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isHex(final String id) {
+        if (id.length() != LENGTH) {
+            return false;
+        }
+        for (int index = 2; index < LENGTH; index++) {
+            final char character = id.charAt(index);
+            if (!(character >= '0' && character <= '9' || character >= 'a' && character <= 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Reads 16 lower case hexadecimal characters, the result is only meaningful when isHex(id).
+    private static long parse(final String id, final int offset) {
+        long bits = 0;
+        for (int index = offset; index < offset + 16; index++) {
+            final char character = id.charAt(index);
+            bits = bits << 4 | (character <= '9' ? character - '0' : character - 'a' + 10);
+        }
+        return bits;
     }
 
     @Override
@@ -60,6 +141,10 @@ public final class Sid {
             return false;
         }
         final Sid other = (Sid) object;
+        if (hex && other.hex) {
+            return mostSignificantBits == other.mostSignificantBits && leastSignificantBits == other.leastSignificantBits
+                    && id.charAt(0) == other.id.charAt(0) && id.charAt(1) == other.id.charAt(1);
+        }
         if (!toString().equals(other.toString())) {
             return false;
         }
@@ -71,7 +156,7 @@ public final class Sid {
         String token = new Md5Hash(string).toString();
         switch (type) {
             case ACCOUNT: {
-                return new Sid("AC" + token);
+                return trusted("AC" + token);
             }
             default: {
                 return generate(type);
@@ -80,55 +165,54 @@ public final class Sid {
     }
 
     public static Sid generate(final Type type) {
-        final String uuid = UUID.randomUUID().toString().replace("-", "");
         switch (type) {
             case ACCOUNT: {
-                return new Sid("AC" + uuid);
+                return generate('A', 'C');
             }
             case APPLICATION: {
-                return new Sid("AP" + uuid);
+                return generate('A', 'P');
             }
             case ANNOUNCEMENT: {
-                return new Sid("AN" + uuid);
+                return generate('A', 'N');
             }
             case CALL: {
-                return new Sid("CA" + uuid);
+                return generate('C', 'A');
             }
             case CLIENT: {
-                return new Sid("CL" + uuid);
+                return generate('C', 'L');
             }
             case CONFERENCE: {
-                return new Sid("CF" + uuid);
+                return generate('C', 'F');
             }
             case GATEWAY: {
-                return new Sid("GW" + uuid);
+                return generate('G', 'W');
             }
             case INVALID: {
                 return INVALID_SID;
             }
             case NOTIFICATION: {
-                return new Sid("NO" + uuid);
+                return generate('N', 'O');
             }
             case PHONE_NUMBER: {
-                return new Sid("PN" + uuid);
+                return generate('P', 'N');
             }
             case RECORDING: {
-                return new Sid("RE" + uuid);
+                return generate('R', 'E');
             }
             case REGISTRATION: {
-                return new Sid("RG" + uuid);
+                return generate('R', 'G');
             }
             case SHORT_CODE: {
-                return new Sid("SC" + uuid);
+                return generate('S', 'C');
             }
             case SMS_MESSAGE: {
-                return new Sid("SM" + uuid);
+                return generate('S', 'M');
             }
             case TRANSCRIPTION: {
-                return new Sid("TR" + uuid);
+                return generate('T', 'R');
             }
             case INSTANCE: {
-                return new Sid("ID" + uuid);
+                return generate('I', 'D');
             }
             default: {
                 return null;
@@ -136,8 +220,35 @@ public final class Sid {
         }
     }
 
+    // The same 128 bits as a random UUID, written straight into the characters of the sid.
+    private static Sid generate(final char first, final char second) {
+        final SecureRandom generator = random.get();
+        long most = generator.nextLong();
+        long least = generator.nextLong();
+        // Version 4 and IETF variant, like UUID.randomUUID().
+        most = most & 0xffffffffffff0fffL | 0x0000000000004000L;
+        least = least & 0x3fffffffffffffffL | 0x8000000000000000L;
+        final char[] characters = new char[LENGTH];
+        characters[0] = first;
+        characters[1] = second;
+        write(most, characters, 2);
+        write(least, characters, 18);
+        return new Sid(new String(characters), true, most, least);
+    }
+
+    private static void write(long bits, final char[] characters, final int offset) {
+        for (int index = offset + 15; index >= offset; index--) {
+            characters[index] = digits[(int) (bits & 0xf)];
+            bits >>>= 4;
+        }
+    }
+
     @Override
     public int hashCode() {
+        if (hex) {
+            final long bits = mostSignificantBits ^ leastSignificantBits;
+            return 31 * (31 * id.charAt(0) + id.charAt(1)) + (int) (bits ^ bits >>> 32);
+        }
         final int prime = 5;
         int result = 1;
         result = prime * result + id.hashCode();
@@ -0,0 +1,196 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.entities.shiro;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
+import org.mobicents.servlet.restcomm.configuration.sets.MainConfigurationSet;
+import org.mobicents.servlet.restcomm.dao.AccountsDao;
+import org.mobicents.servlet.restcomm.entities.Account;
+import org.mobicents.servlet.restcomm.entities.Sid;
+
+/**
+ * Remembers for a while the accounts looked up to authenticate and authorize the REST API requests. The realm and
+ * the endpoints share it so that a request no longer reads the same account several times from the data store.
+ *
+ * An account is forgotten once its time to live is over or as soon as it is updated or removed through the API. The
+ * accounts updated by another node of a cluster are seen once their time to live is over.
+ */
+@ThreadSafe
+public final class AccountsCache {
+    private static volatile AccountsCache instance;
+
+    private final long ttl;
+    private final int size;
+    // The accounts keyed by sid, friendly name or email, the way they were looked up.
+    private final ConcurrentMap<String, Entry> accounts;
+    // Counts the invalidations so that an account read before one of them is not cached after it.
+    private final AtomicLong generation;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    /**
+     * @param ttl in milliseconds, how long an account is remembered. Zero or less disables the cache.
+     * @param size the maximum number of accounts remembered.
+     */
+    public AccountsCache(final long ttl, final int size) {
+        super();
+        this.ttl = ttl;
+        this.size = size;
+        this.accounts = new ConcurrentHashMap<String, Entry>();
+        this.generation = new AtomicLong();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    public static AccountsCache getInstance() {
+        if (instance == null) {
+            synchronized (AccountsCache.class) {
+                if (instance == null) {
+                    if (RestcommConfiguration.isInitialized()) {
+                        final MainConfigurationSet config = RestcommConfiguration.getInstance().getMain();
+                        instance = new AccountsCache(config.getApiAuthCacheTtl(), config.getApiAuthCacheSize());
+                    } else {
+                        instance = new AccountsCache(MainConfigurationSet.API_AUTH_CACHE_TTL_DEFAULT,
+                                MainConfigurationSet.API_AUTH_CACHE_SIZE_DEFAULT);
+                    }
+                }
+            }
+        }
+        return instance;
+    }
+
+    public Account getAccount(final AccountsDao dao, final Sid sid) {
+        if (sid == null) {
+            return null;
+        }
+        final String key = sid.toString();
+        Account account = get(key);
+        if (account == null) {
+            final long current = generation.get();
+            account = dao.getAccount(sid);
+            put(key, account, current);
+        }
+        return account;
+    }
+
+    /**
+     * @param name the sid, friendly name or email of the account.
+     */
+    public Account getAccount(final AccountsDao dao, final String name) {
+        if (name == null) {
+            return null;
+        } else if (Sid.pattern.matcher(name).matches()) {
+            return getAccount(dao, new Sid(name));
+        }
+        Account account = get(name);
+        if (account == null) {
+            final long current = generation.get();
+            account = dao.getAccount(name);
+            put(name, account, current);
+        }
+        return account;
+    }
+
+    private Account get(final String key) {
+        if (ttl <= 0) {
+            return null;
+        }
+        final Entry entry = accounts.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        } else if (System.currentTimeMillis() - entry.loaded > ttl) {
+            accounts.remove(key, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.account;
+    }
+
+    private void put(final String key, final Account account, final long loadedGeneration) {
+        // The accounts that do not exist are not remembered, a client guessing names would fill the cache.
+        if (ttl <= 0 || account == null) {
+            return;
+        }
+        if (accounts.size() >= size) {
+            accounts.clear();
+        }
+        accounts.put(key, new Entry(account, System.currentTimeMillis()));
+        // The account may have been updated while it was read, in which case what was read may be stale.
+        if (generation.get() != loadedGeneration) {
+            accounts.remove(key);
+        }
+    }
+
+    /**
+     * Forgets an account, whichever way it was looked up. To be called once the account has been updated or removed.
+     */
+    public void invalidate(final Sid sid) {
+        if (sid == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        final Iterator<Entry> entries = accounts.values().iterator();
+        while (entries.hasNext()) {
+            if (sid.equals(entries.next().account.getSid())) {
+                entries.remove();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        accounts.clear();
+    }
+
+    public Map<String, Long> getStatistics() {
+        final long hits = this.hits.get();
+        final long misses = this.misses.get();
+        final long total = hits + misses;
+        final Map<String, Long> result = new HashMap<String, Long>();
+        result.put("Hits", hits);
+        result.put("Misses", misses);
+        result.put("HitRatio", total == 0 ? 0 : (hits * 100) / total);
+        result.put("Size", (long) accounts.size());
+        return result;
+    }
+
+    @Immutable
+    private static final class Entry {
+        private final Account account;
+        private final long loaded;
+
+        private Entry(final Account account, final long loaded) {
+            super();
+            this.account = account;
+            this.loaded = loaded;
+        }
+    }
+}
@@ -62,7 +62,7 @@ public final class Realm extends AuthorizingRealm {
         final ShiroResources services = ShiroResources.getInstance();
         final DaoManager daos = services.get(DaoManager.class);
         final AccountsDao accounts = daos.getAccountsDao();
-        final Account account = accounts.getAccount(sid);
+        final Account account = AccountsCache.getInstance().getAccount(accounts, sid);
         final String roleName = account.getRole();
         final Set<String> set = new HashSet<String>();
         set.add(roleName);
@@ -78,7 +78,6 @@ public final class Realm extends AuthorizingRealm {
     protected AuthenticationInfo doGetAuthenticationInfo(final AuthenticationToken token) throws AuthenticationException {
         final UsernamePasswordToken authenticationToken = (UsernamePasswordToken) token;
         String username = authenticationToken.getUsername();
-        Sid sid = null;
         Account account = null;
         String authToken = null;
 
@@ -87,17 +86,12 @@ public final class Realm extends AuthorizingRealm {
         final AccountsDao accounts = daos.getAccountsDao();
 
         try {
-            if (Sid.pattern.matcher(username).matches()) {
-                sid = new Sid(username);
-                account = accounts.getAccount(sid);
-            } else {
-                account = accounts.getAccount(username);
-                sid = account.getSid();
-            }
+            // Looks the account up by sid, friendly name or email.
+            account = AccountsCache.getInstance().getAccount(accounts, username);
 
             if (account != null) {
                 authToken = account.getAuthToken();
-                return new SimpleAuthenticationInfo(sid.toString(), authToken.toCharArray(), getName());
+                return new SimpleAuthenticationInfo(account.getSid().toString(), authToken.toCharArray(), getName());
             } else {
                 return null;
             }
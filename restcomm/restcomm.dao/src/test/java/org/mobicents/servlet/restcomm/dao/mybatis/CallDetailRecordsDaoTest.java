@@ -25,6 +25,7 @@ import java.io.InputStream;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.util.Currency;
+import java.util.List;
 
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
@@ -34,6 +35,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mobicents.servlet.restcomm.dao.CallDetailRecordsDao;
 import org.mobicents.servlet.restcomm.entities.CallDetailRecord;
+import org.mobicents.servlet.restcomm.entities.CallDetailRecordFilter;
 import org.mobicents.servlet.restcomm.entities.Sid;
 
 /**
@@ -384,4 +386,41 @@ public class CallDetailRecordsDaoTest {
         // Validate that the CDRs were removed.
         assertTrue(cdrs.getCallDetailRecord(sid) == null);
     }
+
+    @Test
+    public void testReadPageAfterSid() throws Exception {
+        final Sid account = Sid.generate(Sid.Type.ACCOUNT);
+        final URI url = URI.create("http://127.0.0.1:8080/restcomm/demos/hello-world.xml");
+        final CallDetailRecordsDao cdrs = manager.getCallDetailRecordsDao();
+        final DateTime now = DateTime.now();
+        for (int i = 0; i < 3; i++) {
+            final CallDetailRecord.Builder builder = CallDetailRecord.builder();
+            builder.setSid(Sid.generate(Sid.Type.CALL));
+            builder.setDateCreated(now.plusSeconds(i));
+            builder.setAccountSid(account);
+            builder.setTo("+12223334444");
+            builder.setFrom("+17778889999");
+            builder.setStatus("completed");
+            builder.setStartTime(now.plusSeconds(i));
+            builder.setPrice(new BigDecimal("0.00"));
+            builder.setPriceUnit(Currency.getInstance("USD"));
+            builder.setDirection("outbound-api");
+            builder.setApiVersion("2012-04-24");
+            builder.setUri(url);
+            cdrs.addCallDetailRecord(builder.build());
+        }
+        CallDetailRecordFilter filter = new CallDetailRecordFilter(account.toString(), null, null, null, null, null, null, 2, 0);
+        assertTrue(cdrs.getTotalCallDetailRecords(filter) == 3);
+        final List<CallDetailRecord> first = cdrs.getCallDetailRecords(filter);
+        assertEquals(2, first.size());
+        // The next page starts right after the last call of the first one, whatever the offset.
+        final String afterSid = first.get(1).getSid().toString();
+        filter = new CallDetailRecordFilter(account.toString(), null, null, null, null, null, null, 2, 2, afterSid);
+        final List<CallDetailRecord> second = cdrs.getCallDetailRecords(filter);
+        assertEquals(1, second.size());
+        assertFalse(second.get(0).getSid().equals(first.get(0).getSid()));
+        assertFalse(second.get(0).getSid().equals(first.get(1).getSid()));
+        cdrs.removeCallDetailRecords(account);
+        assertTrue(cdrs.getCallDetailRecords(account).size() == 0);
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dao.mybatis;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mobicents.servlet.restcomm.entities.Registration;
+import org.mobicents.servlet.restcomm.entities.Sid;
+import org.mobicents.servlet.restcomm.util.HashedTimerWheel;
+
+public final class InMemoryRegistrationsDaoTest {
+    private MybatisRegistrationsDao store;
+    private InMemoryRegistrationsDao registrations;
+
+    public InMemoryRegistrationsDaoTest() {
+        super();
+    }
+
+    @Before
+    public void before() {
+        final InputStream data = getClass().getResourceAsStream("/mybatis.xml");
+        final SqlSessionFactoryBuilder builder = new SqlSessionFactoryBuilder();
+        final SqlSessionFactory factory = builder.build(data);
+        store = new MybatisRegistrationsDao(factory);
+        registrations = new InMemoryRegistrationsDao(store, new HashedTimerWheel("test-timer", 10, TimeUnit.MILLISECONDS,
+                64));
+    }
+
+    @After
+    public void after() {
+        registrations.shutdown();
+    }
+
+    private Registration registration(final String user, final int ttl) {
+        final DateTime now = DateTime.now();
+        return new Registration(Sid.generate(Sid.Type.REGISTRATION), now, now, "sip:" + user + "@company.com", user,
+                user, "TestUserAgent/1.0", ttl, "sip:" + user + "@192.168.1.10:5060", false);
+    }
+
+    @Test
+    public void testRegistrationsAreReadFromMemoryAndWrittenBehind() {
+        final Registration registration = registration("alice", 3600);
+        assertFalse(registrations.hasRegistration(registration));
+        registrations.addRegistration(registration);
+        assertTrue(registrations.hasRegistration(registration));
+        assertSame(registration, registrations.getRegistration("alice"));
+        assertEquals(1, registrations.getRegistrations("alice").size());
+        assertNull(registrations.getRegistration("bob"));
+        // Only the time to live changes.
+        registrations.updateRegistration(registration.setTimeToLive(60));
+        final Registration updated = registrations.getRegistration("alice");
+        assertEquals(registration.getSid(), updated.getSid());
+        assertEquals(60, updated.getTimeToLive());
+        registrations.removeRegistration(registration);
+        assertNull(registrations.getRegistration("alice"));
+        // The writes reach the data store once the DAO is shut down.
+        registrations.shutdown();
+        assertNull(store.getRegistration("alice"));
+    }
+
+    @Test
+    public void testRegistrationExpires() throws InterruptedException {
+        final CountDownLatch expired = new CountDownLatch(1);
+        registrations.setListener(new InMemoryRegistrationsDao.Listener() {
+            @Override
+            public void expired(final Registration registration) {
+                expired.countDown();
+            }
+        });
+        registrations.addRegistration(registration("carol", 1));
+        assertNotNull(registrations.getRegistration("carol"));
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertNull(registrations.getRegistration("carol"));
+        assertTrue(registrations.getRegistrations().isEmpty());
+    }
+
+    @Test
+    public void testRegistrationsAreLoadedFromTheDataStore() {
+        final Registration registration = registration("dave", 3600);
+        store.addRegistration(registration);
+        final InMemoryRegistrationsDao loaded = new InMemoryRegistrationsDao(store, new HashedTimerWheel("test-timer", 10,
+                TimeUnit.MILLISECONDS, 64));
+        assertEquals(registration.getSid(), loaded.getRegistration("dave").getSid());
+        loaded.removeRegistration(registration);
+        loaded.shutdown();
+        assertNull(store.getRegistration("dave"));
+    }
+
+    @Test
+    public void testRegistrationsOfOtherNodesAreReadFromTheDataStore() {
+        // Registered through another node once this one has started.
+        final Registration registration = registration("erin", 3600);
+        store.addRegistration(registration);
+        assertTrue(registrations.hasRegistration(registration));
+        assertEquals(registration.getSid(), registrations.getRegistration("erin").getSid());
+        assertTrue(registrations.getRegistrations().isEmpty());
+        // Refreshed through this node, the registration moves to memory.
+        registrations.updateRegistration(registration.setTimeToLive(60));
+        assertEquals(1, registrations.getRegistrations().size());
+        assertEquals(60, registrations.getRegistration("erin").getTimeToLive());
+        // Once removed it is not read back from the data store while the removal is written behind.
+        registrations.removeRegistration(registration);
+        assertNull(registrations.getRegistration("erin"));
+        assertFalse(registrations.hasRegistration(registration));
+        registrations.shutdown();
+        assertNull(store.getRegistration("erin"));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dao.mybatis;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.net.URI;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mobicents.servlet.restcomm.dao.IncomingPhoneNumbersDao;
+import org.mobicents.servlet.restcomm.dao.NumberRoutingTable;
+import org.mobicents.servlet.restcomm.entities.IncomingPhoneNumber;
+import org.mobicents.servlet.restcomm.entities.Sid;
+
+public class NumberRoutingTableTest {
+    private static MybatisDaoManager manager;
+
+    public NumberRoutingTableTest() {
+        super();
+    }
+
+    @Before
+    public void before() {
+        final InputStream data = getClass().getResourceAsStream("/mybatis.xml");
+        final SqlSessionFactoryBuilder builder = new SqlSessionFactoryBuilder();
+        final SqlSessionFactory factory = builder.build(data);
+        manager = new MybatisDaoManager();
+        manager.start(factory);
+    }
+
+    @After
+    public void after() {
+        manager.shutdown();
+    }
+
+    private IncomingPhoneNumber number(final String phoneNumber, final String url) {
+        return number(phoneNumber, url, Sid.generate(Sid.Type.ACCOUNT));
+    }
+
+    private IncomingPhoneNumber number(final String phoneNumber, final String url, final Sid account) {
+        final IncomingPhoneNumber.Builder builder = IncomingPhoneNumber.builder();
+        builder.setSid(Sid.generate(Sid.Type.PHONE_NUMBER));
+        builder.setFriendlyName("Routing Table Test");
+        builder.setAccountSid(account);
+        builder.setPhoneNumber(phoneNumber);
+        builder.setApiVersion("2012-04-24");
+        builder.setHasVoiceCallerIdLookup(false);
+        builder.setVoiceUrl(URI.create(url));
+        builder.setVoiceMethod("POST");
+        builder.setSmsUrl(URI.create(url));
+        builder.setSmsMethod("POST");
+        builder.setUri(URI.create(url));
+        return builder.build();
+    }
+
+    @Test
+    public void testRoutesAreResolvedAndInvalidated() {
+        final IncomingPhoneNumbersDao numbers = manager.getIncomingPhoneNumbersDao();
+        final IncomingPhoneNumber number = number("+12223334444", "http://127.0.0.1:8080/restcomm/demos/hello-world.xml");
+        numbers.addIncomingPhoneNumber(number);
+        try {
+            final NumberRoutingTable routes = new NumberRoutingTable(manager);
+            routes.reload();
+            // The dialed number is formatted to E.164 before the lookup.
+            NumberRoutingTable.Route route = routes.getVoiceRoute("2223334444");
+            assertNotNull(route);
+            assertEquals(number.getSid(), route.getNumber().getSid());
+            assertEquals(number.getVoiceUrl(), route.getVoiceUrl());
+            assertNotNull(routes.getSmsRoute("+12223334444"));
+            assertNull(routes.getVoiceRoute("+15556667777"));
+            // A wildcard number routes the unknown numbers, for voice only.
+            final IncomingPhoneNumber wildcard = number("*", "http://127.0.0.1:8080/restcomm/demos/wildcard.xml");
+            numbers.addIncomingPhoneNumber(wildcard);
+            try {
+                routes.invalidate("*");
+                route = routes.getVoiceRoute("+15556667777");
+                assertNotNull(route);
+                assertEquals(wildcard.getSid(), route.getNumber().getSid());
+                assertNull(routes.getSmsRoute("+15556667777"));
+            } finally {
+                numbers.removeIncomingPhoneNumber(wildcard.getSid());
+            }
+            routes.invalidate("*");
+            assertNull(routes.getVoiceRoute("+15556667777"));
+        } finally {
+            numbers.removeIncomingPhoneNumber(number.getSid());
+        }
+    }
+
+    @Test
+    public void testOnlyTheRoutesOfTheAccountAreInvalidated() {
+        final IncomingPhoneNumbersDao numbers = manager.getIncomingPhoneNumbersDao();
+        final Sid account = Sid.generate(Sid.Type.ACCOUNT);
+        final IncomingPhoneNumber first = number("+12223334444", "http://127.0.0.1:8080/restcomm/demos/hello-world.xml",
+                account);
+        final IncomingPhoneNumber second = number("+12223335555", "http://127.0.0.1:8080/restcomm/demos/hello-world.xml",
+                account);
+        final IncomingPhoneNumber other = number("+12223336666", "http://127.0.0.1:8080/restcomm/demos/hello-world.xml");
+        numbers.addIncomingPhoneNumber(first);
+        numbers.addIncomingPhoneNumber(second);
+        numbers.addIncomingPhoneNumber(other);
+        try {
+            final NumberRoutingTable routes = new NumberRoutingTable(manager);
+            routes.reload();
+            assertEquals(3, routes.size());
+            final URI url = URI.create("http://127.0.0.1:8080/restcomm/demos/updated.xml");
+            first.setVoiceUrl(url);
+            numbers.updateIncomingPhoneNumber(first);
+            numbers.removeIncomingPhoneNumber(second.getSid());
+            numbers.removeIncomingPhoneNumber(other.getSid());
+            routes.invalidate(account);
+            assertEquals(url, routes.getVoiceRoute("+12223334444").getVoiceUrl());
+            assertNull(routes.getVoiceRoute("+12223335555"));
+            // The numbers of the other accounts are left as they were.
+            assertNotNull(routes.getVoiceRoute("+12223336666"));
+        } finally {
+            numbers.removeIncomingPhoneNumbers(account);
+            numbers.removeIncomingPhoneNumber(other.getSid());
+        }
+    }
+
+    @Test
+    public void testReloadUpdatesTheResolvedRoutes() {
+        final IncomingPhoneNumbersDao numbers = manager.getIncomingPhoneNumbersDao();
+        final IncomingPhoneNumber number = number("+12223334444", "http://127.0.0.1:8080/restcomm/demos/hello-world.xml");
+        numbers.addIncomingPhoneNumber(number);
+        final IncomingPhoneNumber added = number("+12223337777", "http://127.0.0.1:8080/restcomm/demos/hello-world.xml");
+        try {
+            final NumberRoutingTable routes = new NumberRoutingTable(manager);
+            routes.reload();
+            assertNotNull(routes.getVoiceRoute("2223334444"));
+            assertNull(routes.getVoiceRoute("2223337777"));
+            final URI url = URI.create("http://127.0.0.1:8080/restcomm/demos/updated.xml");
+            number.setVoiceUrl(url);
+            numbers.updateIncomingPhoneNumber(number);
+            numbers.addIncomingPhoneNumber(added);
+            routes.reload();
+            // The resolved number follows the reloaded route and the number added is no longer missing.
+            assertEquals(url, routes.getVoiceRoute("2223334444").getVoiceUrl());
+            assertEquals(added.getSid(), routes.getVoiceRoute("2223337777").getNumber().getSid());
+            numbers.removeIncomingPhoneNumber(number.getSid());
+            routes.reload();
+            assertNull(routes.getVoiceRoute("2223334444"));
+        } finally {
+            numbers.removeIncomingPhoneNumber(number.getSid());
+            numbers.removeIncomingPhoneNumber(added.getSid());
+        }
+    }
+}
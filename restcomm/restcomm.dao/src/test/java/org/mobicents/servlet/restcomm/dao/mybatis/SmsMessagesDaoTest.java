@@ -22,7 +22,9 @@ package org.mobicents.servlet.restcomm.dao.mybatis;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Currency;
+import java.util.List;
 
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
@@ -31,7 +33,9 @@ import org.junit.After;
 import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
 import org.mobicents.servlet.restcomm.dao.SmsMessagesDao;
+import org.mobicents.servlet.restcomm.entities.ExportFilter;
 import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.entities.SmsMessage;
 
@@ -136,9 +140,65 @@ public final class SmsMessagesDaoTest {
         messages.addSmsMessage(message);
         // Validate the results.
         assertTrue(messages.getSmsMessages(account).size() == 1);
+        // Read the messages one at a time.
+        final List<SmsMessage> handled = new ArrayList<SmsMessage>();
+        messages.getSmsMessages(account, new RecordHandler<SmsMessage>() {
+            @Override
+            public void handle(final SmsMessage record) {
+                handled.add(record);
+            }
+        });
+        assertTrue(handled.size() == 1);
+        assertTrue(handled.get(0).getSid().equals(sid));
         // Delete the message.
         messages.removeSmsMessages(account);
         // Validate the results.
         assertTrue(messages.getSmsMessages(account).size() == 0);
     }
+
+    @Test
+    public void testExportByAccount() throws Exception {
+        final Sid account = Sid.generate(Sid.Type.ACCOUNT);
+        final URI url = URI.create("2012-04-24/Accounts/Acoount/SMS/Messages/unique-id.json");
+        final SmsMessagesDao messages = manager.getSmsMessagesDao();
+        for (int index = 0; index < 2; index++) {
+            final SmsMessage.Builder builder = SmsMessage.builder();
+            builder.setSid(Sid.generate(Sid.Type.SMS_MESSAGE));
+            builder.setAccountSid(account);
+            builder.setApiVersion("2012-04-24");
+            builder.setDateSent(DateTime.now());
+            builder.setRecipient("+12223334444");
+            builder.setSender("+17778889999");
+            builder.setBody("Hello World!");
+            builder.setStatus(SmsMessage.Status.SENDING);
+            builder.setDirection(SmsMessage.Direction.INBOUND);
+            builder.setPrice(new BigDecimal("0.00"));
+            builder.setPriceUnit(Currency.getInstance("GBP"));
+            builder.setUri(url);
+            messages.addSmsMessage(builder.build());
+        }
+        final String today = DateTime.now().toString("yyyy-MM-dd");
+        // Export all the messages of the day.
+        final List<SmsMessage> exported = new ArrayList<SmsMessage>();
+        messages.exportSmsMessages(new ExportFilter(account.toString(), today, today, null), new RecordHandler<SmsMessage>() {
+            @Override
+            public void handle(final SmsMessage record) {
+                exported.add(record);
+            }
+        });
+        assertTrue(exported.size() == 2);
+        // Resume the export after the first message.
+        final List<SmsMessage> resumed = new ArrayList<SmsMessage>();
+        final String continuationToken = exported.get(0).getSid().toString();
+        messages.exportSmsMessages(new ExportFilter(account.toString(), today, today, continuationToken),
+                new RecordHandler<SmsMessage>() {
+                    @Override
+                    public void handle(final SmsMessage record) {
+                        resumed.add(record);
+                    }
+                });
+        assertTrue(resumed.size() == 1);
+        assertTrue(resumed.get(0).getSid().equals(exported.get(1).getSid()));
+        messages.removeSmsMessages(account);
+    }
 }
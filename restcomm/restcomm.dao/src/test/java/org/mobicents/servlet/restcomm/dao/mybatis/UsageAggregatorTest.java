@@ -0,0 +1,108 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dao.mybatis;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.Currency;
+import java.util.List;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mobicents.servlet.restcomm.entities.CallDetailRecord;
+import org.mobicents.servlet.restcomm.entities.Sid;
+import org.mobicents.servlet.restcomm.entities.Usage;
+
+public class UsageAggregatorTest {
+    private SqlSessionFactory factory;
+    private MybatisCallDetailRecordsDao cdrs;
+    private UsageAggregator aggregator;
+
+    public UsageAggregatorTest() {
+        super();
+    }
+
+    @Before
+    public void before() {
+        final InputStream data = getClass().getResourceAsStream("/mybatis.xml");
+        final SqlSessionFactoryBuilder builder = new SqlSessionFactoryBuilder();
+        factory = builder.build(data);
+        cdrs = new MybatisCallDetailRecordsDao(factory);
+        aggregator = new UsageAggregator(factory, 3600000, 60000);
+    }
+
+    @After
+    public void after() {
+        aggregator.shutdown();
+    }
+
+    private CallDetailRecord cdr(final Sid accountSid, final int duration) {
+        final CallDetailRecord.Builder builder = CallDetailRecord.builder();
+        builder.setSid(Sid.generate(Sid.Type.CALL));
+        builder.setDateCreated(DateTime.now());
+        builder.setAccountSid(accountSid);
+        builder.setTo("+12223334444");
+        builder.setFrom("+17778889999");
+        builder.setStatus("completed");
+        builder.setStartTime(DateTime.now());
+        builder.setDuration(duration);
+        builder.setPrice(new BigDecimal("0.00"));
+        builder.setPriceUnit(Currency.getInstance("USD"));
+        builder.setDirection("outbound-api");
+        builder.setApiVersion("2012-04-24");
+        builder.setUri(URI.create("http://127.0.0.1:8080/restcomm/demos/hello-world.xml"));
+        return builder.build();
+    }
+
+    @Test
+    public void testDailyUsageIsKeptUpToDate() {
+        final Sid account = Sid.generate(Sid.Type.ACCOUNT);
+        final MybatisUsageDao usage = new MybatisUsageDao(factory, true);
+        final DateTime from = DateTime.now().minusDays(1);
+        final DateTime to = DateTime.now().plusDays(1);
+        final CallDetailRecord first = cdr(account, 10);
+        cdrs.addCallDetailRecord(first);
+        cdrs.addCallDetailRecord(cdr(account, 20));
+        aggregator.aggregate();
+        List<Usage> daily = usage.getUsageDaily(account, Usage.Category.CALLS, from, to);
+        assertEquals(1, daily.size());
+        assertEquals(Long.valueOf(2), daily.get(0).getCount());
+        assertEquals(Long.valueOf(30), daily.get(0).getUsage());
+        // An updated record is counted again, not twice.
+        cdrs.updateCallDetailRecord(first.setDuration(40));
+        aggregator.aggregate();
+        daily = usage.getUsageDaily(account, Usage.Category.CALLS, from, to);
+        assertEquals(Long.valueOf(2), daily.get(0).getCount());
+        assertEquals(Long.valueOf(60), daily.get(0).getUsage());
+        // The monthly usage is summed up from the daily rows.
+        final List<Usage> monthly = usage.getUsageMonthly(account, Usage.Category.CALLS, from, to);
+        assertFalse(monthly.isEmpty());
+        cdrs.removeCallDetailRecords(account);
+        aggregator.backfill();
+        assertTrue(usage.getUsageDaily(account, Usage.Category.CALLS, from, to).isEmpty());
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.dao.mybatis;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.Currency;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mobicents.servlet.restcomm.entities.CallDetailRecord;
+import org.mobicents.servlet.restcomm.entities.CallDetailRecordFilter;
+import org.mobicents.servlet.restcomm.entities.Sid;
+
+public class WriteBehindCallDetailRecordsDaoTest {
+    private SqlSessionFactory factory;
+    private MybatisCallDetailRecordsDao store;
+    private File journal;
+
+    public WriteBehindCallDetailRecordsDaoTest() {
+        super();
+    }
+
+    @Before
+    public void before() {
+        final InputStream data = getClass().getResourceAsStream("/mybatis.xml");
+        final SqlSessionFactoryBuilder builder = new SqlSessionFactoryBuilder();
+        factory = builder.build(data);
+        store = new MybatisCallDetailRecordsDao(factory);
+        journal = new File(System.getProperty("java.io.tmpdir"), "restcomm-cdr-journal-" + System.nanoTime());
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(journal);
+    }
+
+    private CallDetailRecord cdr(final Sid sid) {
+        return cdr(sid, Sid.generate(Sid.Type.ACCOUNT));
+    }
+
+    private CallDetailRecord cdr(final Sid sid, final Sid account) {
+        final CallDetailRecord.Builder builder = CallDetailRecord.builder();
+        builder.setSid(sid);
+        builder.setDateCreated(DateTime.now());
+        builder.setAccountSid(account);
+        builder.setTo("+12223334444");
+        builder.setFrom("+17778889999");
+        builder.setStatus("queued");
+        builder.setStartTime(DateTime.now());
+        builder.setDuration(0);
+        builder.setPrice(new BigDecimal("0.00"));
+        builder.setPriceUnit(Currency.getInstance("USD"));
+        builder.setDirection("outbound-api");
+        builder.setApiVersion("2012-04-24");
+        builder.setUri(URI.create("http://127.0.0.1:8080/restcomm/demos/hello-world.xml"));
+        return builder.build();
+    }
+
+    @Test
+    public void testUpdatesAreCoalescedAndReadBeforeTheyAreFlushed() {
+        final WriteBehindCallDetailRecordsDao cdrs = new WriteBehindCallDetailRecordsDao(factory, journal, 60000, 1000);
+        try {
+            final Sid sid = Sid.generate(Sid.Type.CALL);
+            CallDetailRecord cdr = cdr(sid);
+            cdrs.addCallDetailRecord(cdr);
+            cdr = cdr.setStatus("ringing");
+            cdrs.updateCallDetailRecord(cdr);
+            cdr = cdr.setStatus("in-progress");
+            cdrs.updateCallDetailRecord(cdr);
+            assertEquals(1, cdrs.getPendingCount());
+            // Nothing reached the data store yet but the lookups see the latest version.
+            assertNull(store.getCallDetailRecord(sid));
+            assertEquals("in-progress", cdrs.getCallDetailRecord(sid).getStatus());
+            cdrs.sync();
+            assertEquals(0, cdrs.getPendingCount());
+            assertEquals("in-progress", store.getCallDetailRecord(sid).getStatus());
+            cdrs.removeCallDetailRecord(sid);
+        } finally {
+            cdrs.shutdown();
+        }
+    }
+
+    @Test
+    public void testFlushWhenBatchSizeIsReached() throws Exception {
+        final WriteBehindCallDetailRecordsDao cdrs = new WriteBehindCallDetailRecordsDao(factory, journal, 60000, 2);
+        try {
+            final Sid first = Sid.generate(Sid.Type.CALL);
+            final Sid second = Sid.generate(Sid.Type.CALL);
+            cdrs.addCallDetailRecord(cdr(first));
+            cdrs.addCallDetailRecord(cdr(second));
+            for (int attempt = 0; attempt < 50 && cdrs.getPendingCount() > 0; attempt++) {
+                Thread.sleep(100);
+            }
+            assertNotNull(store.getCallDetailRecord(first));
+            assertNotNull(store.getCallDetailRecord(second));
+            cdrs.removeCallDetailRecord(first);
+            cdrs.removeCallDetailRecord(second);
+        } finally {
+            cdrs.shutdown();
+        }
+    }
+
+    @Test
+    public void testJournalIsReplayed() {
+        final Sid sid = Sid.generate(Sid.Type.CALL);
+        final CallDetailRecord cdr = cdr(sid);
+        store.addCallDetailRecord(cdr);
+        // Journal an update without flushing it, as if the server crashed.
+        final WriteBehindCallDetailRecordsDao crashed = new WriteBehindCallDetailRecordsDao(factory, journal, 60000, 1000);
+        crashed.updateCallDetailRecord(cdr.setStatus("completed"));
+        assertEquals("queued", store.getCallDetailRecord(sid).getStatus());
+        final WriteBehindCallDetailRecordsDao cdrs = new WriteBehindCallDetailRecordsDao(factory, journal, 60000, 1000);
+        try {
+            assertEquals("completed", store.getCallDetailRecord(sid).getStatus());
+            // Only the new, empty journal file is left.
+            assertEquals(1, journal.list().length);
+            cdrs.removeCallDetailRecord(sid);
+        } finally {
+            cdrs.shutdown();
+        }
+    }
+
+    @Test
+    public void testCallsNotFlushedYetAreListedAndCounted() throws Exception {
+        final WriteBehindCallDetailRecordsDao cdrs = new WriteBehindCallDetailRecordsDao(factory, journal, 60000, 1000);
+        try {
+            final CallDetailRecord stored = cdr(Sid.generate(Sid.Type.CALL));
+            final Sid account = stored.getAccountSid();
+            cdrs.addCallDetailRecord(stored);
+            cdrs.sync();
+            cdrs.addCallDetailRecord(cdr(Sid.generate(Sid.Type.CALL), account));
+            cdrs.addCallDetailRecord(cdr(Sid.generate(Sid.Type.CALL), account));
+            assertEquals(3, cdrs.getCallDetailRecords(account).size());
+            CallDetailRecordFilter filter = new CallDetailRecordFilter(account.toString(), null, null, null, null, null,
+                    null, 2, 0);
+            assertEquals(3, cdrs.getTotalCallDetailRecords(filter).intValue());
+            final List<CallDetailRecord> page = cdrs.getCallDetailRecords(filter);
+            assertEquals(2, page.size());
+            assertEquals(stored.getSid(), page.get(0).getSid());
+            filter = new CallDetailRecordFilter(account.toString(), null, null, null, null, null, null, 2, 2);
+            assertEquals(1, cdrs.getCallDetailRecords(filter).size());
+            filter = new CallDetailRecordFilter(account.toString(), null, null, null, null, null, null, 2, 2, page.get(1)
+                    .getSid().toString());
+            assertEquals(1, cdrs.getCallDetailRecords(filter).size());
+            filter = new CallDetailRecordFilter(account.toString(), null, null, "completed", null, null, null, 2, 0);
+            assertEquals(0, cdrs.getTotalCallDetailRecords(filter).intValue());
+            cdrs.removeCallDetailRecords(account);
+        } finally {
+            cdrs.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectedCallsAreMovedToTheDeadLetters() {
+        final WriteBehindCallDetailRecordsDao cdrs = new WriteBehindCallDetailRecordsDao(factory, journal, 60000, 1000);
+        try {
+            final Sid good = Sid.generate(Sid.Type.CALL);
+            final Sid bad = Sid.generate(Sid.Type.CALL);
+            cdrs.addCallDetailRecord(cdr(good));
+            // The status is mandatory.
+            cdrs.addCallDetailRecord(cdr(bad).setStatus(null));
+            cdrs.sync();
+            assertEquals(0, cdrs.getPendingCount());
+            assertNotNull(store.getCallDetailRecord(good));
+            assertNull(store.getCallDetailRecord(bad));
+            assertTrue(new File(journal, "cdr-dead-letters.log").length() > 0);
+            cdrs.removeCallDetailRecord(good);
+        } finally {
+            cdrs.shutdown();
+        }
+    }
+
+    @Test
+    public void testSyncAfterShutdown() {
+        final WriteBehindCallDetailRecordsDao cdrs = new WriteBehindCallDetailRecordsDao(factory, journal, 60000, 1000);
+        final Sid sid = Sid.generate(Sid.Type.CALL);
+        cdrs.addCallDetailRecord(cdr(sid));
+        cdrs.shutdown();
+        cdrs.sync();
+        assertNotNull(store.getCallDetailRecord(sid));
+        cdrs.removeCallDetailRecord(sid);
+    }
+}
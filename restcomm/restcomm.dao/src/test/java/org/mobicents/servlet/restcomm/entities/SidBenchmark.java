@@ -0,0 +1,106 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.entities;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.servlet.restcomm.dao.DaoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the generation and the hydration of sids with the former UUID and regular expression based code. Not run
+ * with the tests, start it with the main method from the test class path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SidBenchmark {
+    private String id;
+    private Map<Sid, Object> sids;
+    private Sid key;
+
+    @Setup
+    public void setup() {
+        id = Sid.generate(Sid.Type.CALL).toString();
+        sids = new HashMap<Sid, Object>();
+        for (int i = 0; i < 1000; i++) {
+            sids.put(Sid.generate(Sid.Type.CALL), Boolean.TRUE);
+        }
+        key = new Sid(sids.keySet().iterator().next().toString());
+    }
+
+    @Benchmark
+    public String generateWithUuid() {
+        final String sid = "CA" + UUID.randomUUID().toString().replace("-", "");
+        if (!Sid.pattern.matcher(sid).matches()) {
+            throw new IllegalArgumentException(sid);
+        }
+        return sid;
+    }
+
+    @Benchmark
+    public Sid generate() {
+        return Sid.generate(Sid.Type.CALL);
+    }
+
+    @Benchmark
+    public boolean hydrateWithPattern() {
+        return Sid.pattern.matcher(id).matches();
+    }
+
+    @Benchmark
+    public Sid hydrate() {
+        return new Sid(id);
+    }
+
+    @Benchmark
+    public Sid hydrateFromDao() {
+        return DaoUtils.readSid(id);
+    }
+
+    @Benchmark
+    public Object lookup() {
+        return sids.get(key);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SidBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SidTest {
+    public SidTest() {
+        super();
+    }
+
+    @Test
+    public void testGeneratedSidsAreValidAndUnique() {
+        final Set<Sid> sids = new HashSet<Sid>();
+        for (int i = 0; i < 10000; i++) {
+            final Sid sid = Sid.generate(Sid.Type.CALL);
+            assertTrue(sid.toString().startsWith("CA"));
+            assertTrue(Sid.pattern.matcher(sid.toString()).matches());
+            // Version 4 like a random UUID.
+            assertEquals('4', sid.toString().charAt(14));
+            assertTrue(sids.add(sid));
+        }
+    }
+
+    @Test
+    public void testParsedSidEqualsGeneratedSid() {
+        final Sid generated = Sid.generate(Sid.Type.ACCOUNT);
+        final Sid parsed = new Sid(generated.toString());
+        final Sid trusted = Sid.trusted(generated.toString());
+        assertEquals(generated, parsed);
+        assertEquals(generated, trusted);
+        assertEquals(generated.hashCode(), parsed.hashCode());
+        assertEquals(generated.hashCode(), trusted.hashCode());
+    }
+
+    @Test
+    public void testPrefixAndCaseAreCompared() {
+        final Sid account = new Sid("AC0123456789abcdef0123456789abcdef");
+        assertFalse(account.equals(new Sid("AP0123456789abcdef0123456789abcdef")));
+        assertFalse(account.equals(new Sid("AC0123456789ABCDEF0123456789abcdef")));
+        final Sid other = new Sid("ACzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzz");
+        assertEquals(other, Sid.trusted("ACzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzz"));
+        assertEquals(other.hashCode(), Sid.trusted("ACzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzz").hashCode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSidIsRejected() {
+        new Sid("AC0123456789abcdef0123456789abcde-");
+    }
+}
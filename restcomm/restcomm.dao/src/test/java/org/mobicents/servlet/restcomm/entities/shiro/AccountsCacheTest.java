@@ -0,0 +1,119 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.entities.shiro;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.mobicents.servlet.restcomm.dao.AccountsDao;
+import org.mobicents.servlet.restcomm.entities.Account;
+import org.mobicents.servlet.restcomm.entities.Sid;
+
+public class AccountsCacheTest {
+    public AccountsCacheTest() {
+        super();
+    }
+
+    @Test
+    public void testAccountIsReadOnceUntilInvalidated() {
+        final Account.Builder builder = Account.builder();
+        builder.setSid(Sid.generate(Sid.Type.ACCOUNT));
+        builder.setEmailAddress("administrator@company.com");
+        builder.setFriendlyName("Administrator");
+        builder.setStatus(Account.Status.ACTIVE);
+        builder.setAuthToken("77f8c12cc7b8f8423e5c38b035249166");
+        builder.setRole("Administrator");
+        final Account account = builder.build();
+        final CountingAccountsDao dao = new CountingAccountsDao(account);
+        final AccountsCache cache = new AccountsCache(60000, 100);
+        assertSame(account, cache.getAccount(dao, account.getSid()));
+        assertSame(account, cache.getAccount(dao, account.getSid().toString()));
+        assertSame(account, cache.getAccount(dao, "administrator@company.com"));
+        assertSame(account, cache.getAccount(dao, "administrator@company.com"));
+        assertEquals(2, dao.reads);
+        assertEquals(Long.valueOf(2), cache.getStatistics().get("Hits"));
+        // Both the sid and the email must be read again.
+        cache.invalidate(account.getSid());
+        cache.getAccount(dao, account.getSid());
+        cache.getAccount(dao, "administrator@company.com");
+        assertEquals(4, dao.reads);
+        // The accounts that do not exist are always read.
+        assertNull(cache.getAccount(dao, "nobody@company.com"));
+        assertNull(cache.getAccount(dao, "nobody@company.com"));
+        assertEquals(6, dao.reads);
+    }
+
+    @Test
+    public void testZeroTtlDisablesTheCache() {
+        final Account.Builder builder = Account.builder();
+        builder.setSid(Sid.generate(Sid.Type.ACCOUNT));
+        builder.setStatus(Account.Status.ACTIVE);
+        final Account account = builder.build();
+        final CountingAccountsDao dao = new CountingAccountsDao(account);
+        final AccountsCache cache = new AccountsCache(0, 100);
+        cache.getAccount(dao, account.getSid());
+        cache.getAccount(dao, account.getSid());
+        assertEquals(2, dao.reads);
+    }
+
+    private static final class CountingAccountsDao implements AccountsDao {
+        private final Account account;
+        private int reads;
+
+        private CountingAccountsDao(final Account account) {
+            super();
+            this.account = account;
+        }
+
+        @Override
+        public void addAccount(final Account account) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Account getAccount(final Sid sid) {
+            reads++;
+            return account.getSid().equals(sid) ? account : null;
+        }
+
+        @Override
+        public Account getAccount(final String name) {
+            reads++;
+            return name.equals(account.getEmailAddress()) ? account : null;
+        }
+
+        @Override
+        public List<Account> getAccounts(final Sid sid) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void removeAccount(final Sid sid) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void updateAccount(final Account account) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
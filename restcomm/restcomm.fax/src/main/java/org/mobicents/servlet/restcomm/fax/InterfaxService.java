@@ -45,12 +45,15 @@ import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
+import org.mobicents.servlet.restcomm.http.CustomHttpClientBuilder;
 
 /**
  * @author quintana.thomas@gmail.com (Thomas Quintana)
  */
 public final class InterfaxService extends UntypedActor {
     private static final String url = "https://rest.interfax.net/outbound/faxes?faxNumber=";
+    // Interfax trusts any certificate so it gets its own pool instead of the shared client.
+    private static volatile DefaultHttpClient client;
 
     private final TrustStrategy strategy;
     private final String user;
@@ -87,11 +90,8 @@ public final class InterfaxService extends UntypedActor {
         final String to = request.to();
         final File file = request.file();
         // Prepare the request.
-        final DefaultHttpClient client = new DefaultHttpClient();
+        final DefaultHttpClient client = client();
         final HttpContext context = new BasicHttpContext();
-        final SSLSocketFactory sockets = new SSLSocketFactory(strategy);
-        final Scheme scheme = new Scheme("https", 443, sockets);
-        client.getConnectionManager().getSchemeRegistry().register(scheme);
         final UsernamePasswordCredentials credentials = new UsernamePasswordCredentials(user, password);
         final HttpPost post = new HttpPost(url + to);
         final String mime = URLConnection.guessContentTypeFromName(file.getName());
@@ -109,9 +109,27 @@ public final class InterfaxService extends UntypedActor {
             final String resource = location.getValue();
             return URI.create(resource);
         } else {
+            EntityUtils.consume(response.getEntity());
             final StringBuilder buffer = new StringBuilder();
             buffer.append(code).append(" ").append(status.getReasonPhrase());
             throw new FaxServiceException(buffer.toString());
         }
     }
+
+    private DefaultHttpClient client() throws Exception {
+        DefaultHttpClient result = client;
+        if (result == null) {
+            synchronized (InterfaxService.class) {
+                result = client;
+                if (result == null) {
+                    result = CustomHttpClientBuilder.buildPooled();
+                    final SSLSocketFactory sockets = new SSLSocketFactory(strategy);
+                    final Scheme scheme = new Scheme("https", 443, sockets);
+                    result.getConnectionManager().getSchemeRegistry().register(scheme);
+                    client = result;
+                }
+            }
+        }
+        return result;
+    }
 }
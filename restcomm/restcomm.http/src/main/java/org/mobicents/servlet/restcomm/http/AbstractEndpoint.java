@@ -31,6 +31,7 @@ import org.mobicents.servlet.restcomm.annotations.concurrency.NotThreadSafe;
 import org.mobicents.servlet.restcomm.dao.AccountsDao;
 import org.mobicents.servlet.restcomm.entities.Account;
 import org.mobicents.servlet.restcomm.entities.Sid;
+import org.mobicents.servlet.restcomm.entities.shiro.AccountsCache;
 import org.mobicents.servlet.restcomm.util.StringUtils;
 
 import com.google.i18n.phonenumbers.NumberParseException;
@@ -110,6 +111,19 @@ public abstract class AbstractEndpoint {
         return hasVoiceCallerIdLookup;
     }
 
+    /**
+     * Looks an account up through the cache shared with the realm that authenticated the request.
+     *
+     * @param accountSid the sid, friendly name or email of the account.
+     */
+    protected Account getAccount(final AccountsDao accountsDao, final String accountSid) {
+        return AccountsCache.getInstance().getAccount(accountsDao, accountSid);
+    }
+
+    protected Account getAccount(final AccountsDao accountsDao, final Sid accountSid) {
+        return AccountsCache.getInstance().getAccount(accountsDao, accountSid);
+    }
+
     protected void secure(final Account account, final String permission) throws AuthorizationException {
         final Subject subject = SecurityUtils.getSubject();
         if (account != null && account.getSid() != null) {
@@ -129,7 +143,7 @@ public abstract class AbstractEndpoint {
     protected void secureLevelControl(AccountsDao accountsDao, String accountSid, String referenceAccountSid) {
         String sidPrincipal = String.valueOf(SecurityUtils.getSubject().getPrincipal());
         if (!sidPrincipal.equals(accountSid)) {
-            Account account = accountsDao.getAccount(new Sid(accountSid));
+            Account account = getAccount(accountsDao, new Sid(accountSid));
             if (!sidPrincipal.equals(String.valueOf(account.getAccountSid()))) {
                 throw new AuthorizationException();
             } else if (referenceAccountSid != null && !accountSid.equals(referenceAccountSid)) {
@@ -20,7 +20,6 @@
 package org.mobicents.servlet.restcomm.http;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 
 import java.net.URI;
@@ -48,13 +47,12 @@ import org.apache.shiro.subject.Subject;
 import org.joda.time.DateTime;
 import org.mobicents.servlet.restcomm.dao.AccountsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
+import org.mobicents.servlet.restcomm.dao.NumberRoutingTable;
 import org.mobicents.servlet.restcomm.entities.Account;
 import org.mobicents.servlet.restcomm.entities.AccountList;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
-import org.mobicents.servlet.restcomm.http.converter.AccountConverter;
-import org.mobicents.servlet.restcomm.http.converter.AccountListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
+import org.mobicents.servlet.restcomm.entities.shiro.AccountsCache;
 import org.mobicents.servlet.restcomm.util.StringUtils;
 
 /**
@@ -67,6 +65,7 @@ public abstract class AccountsEndpoint extends AbstractEndpoint {
     protected AccountsDao dao;
     protected Gson gson;
     protected XStream xstream;
+    private NumberRoutingTable routes;
 
     public AccountsEndpoint() {
         super();
@@ -79,16 +78,10 @@ public abstract class AccountsEndpoint extends AbstractEndpoint {
         configuration = configuration.subset("runtime-settings");
         super.init(configuration);
         dao = storage.getAccountsDao();
-        final AccountConverter converter = new AccountConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(Account.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new AccountListConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        routes = (NumberRoutingTable) context.getAttribute(NumberRoutingTable.class.getName());
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.gson();
+        xstream = serializers.xstream();
     }
 
     private Account createFrom(final Sid accountSid, final MultivaluedMap<String, String> data) {
@@ -186,6 +179,8 @@ public abstract class AccountsEndpoint extends AbstractEndpoint {
             return status(NOT_FOUND).build();
 
         dao.removeAccount(sidToBeRemoved);
+        AccountsCache.getInstance().invalidate(sidToBeRemoved);
+        invalidateRoutes(sidToBeRemoved);
         return ok().build();
     }
 
@@ -193,7 +188,7 @@ public abstract class AccountsEndpoint extends AbstractEndpoint {
         final Subject subject = SecurityUtils.getSubject();
         final Sid sid = new Sid((String) subject.getPrincipal());
         try {
-            Account account = dao.getAccount(sid);
+            Account account = getAccount(dao, sid);
             secure(account, "RestComm:Read:Accounts");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -285,6 +280,8 @@ public abstract class AccountsEndpoint extends AbstractEndpoint {
                 if ((subject.hasRole("Administrator") && secureLevelControlAccounts(account))
                         || (subject.getPrincipal().equals(accountSid) && subject.isPermitted("RestComm:Modify:Accounts"))) {
                     dao.updateAccount(account);
+                    AccountsCache.getInstance().invalidate(sid);
+                    invalidateRoutes(sid);
                 } else {
                     return status(UNAUTHORIZED).build();
                 }
@@ -302,6 +299,13 @@ public abstract class AccountsEndpoint extends AbstractEndpoint {
         }
     }
 
+    // The routes of the incoming phone numbers carry their account.
+    private void invalidateRoutes(final Sid sid) {
+        if (routes != null) {
+            routes.invalidate(sid);
+        }
+    }
+
     private void validate(final MultivaluedMap<String, String> data) throws NullPointerException {
         if (!data.containsKey("EmailAddress")) {
             throw new NullPointerException("Email address can not be null.");
@@ -311,7 +315,7 @@ public abstract class AccountsEndpoint extends AbstractEndpoint {
     }
 
     private boolean secureLevelControlAccounts(Account reference) {
-        Account subjectAccount = dao.getAccount(String.valueOf(SecurityUtils.getSubject().getPrincipal()));
+        Account subjectAccount = getAccount(dao, String.valueOf(SecurityUtils.getSubject().getPrincipal()));
         Account referenceAccount = reference;
         if (!String.valueOf(subjectAccount.getSid()).equals(String.valueOf(referenceAccount.getSid()))) {
             if (!String.valueOf(subjectAccount.getSid()).equals(String.valueOf(referenceAccount.getAccountSid()))) {
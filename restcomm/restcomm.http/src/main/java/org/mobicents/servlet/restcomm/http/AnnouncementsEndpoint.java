@@ -28,12 +28,10 @@ import org.mobicents.servlet.restcomm.cache.DiskCache;
 import org.mobicents.servlet.restcomm.cache.DiskCacheRequest;
 import org.mobicents.servlet.restcomm.dao.AccountsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
 import org.mobicents.servlet.restcomm.entities.Announcement;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
-import org.mobicents.servlet.restcomm.http.converter.AnnouncementConverter;
-import org.mobicents.servlet.restcomm.http.converter.AnnouncementListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 import org.mobicents.servlet.restcomm.tts.api.SpeechSynthesizerRequest;
 import org.mobicents.servlet.restcomm.tts.api.SpeechSynthesizerResponse;
 
@@ -49,7 +47,6 @@ import akka.actor.UntypedActorFactory;
 import akka.util.Timeout;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 
 /**
@@ -85,22 +82,15 @@ public abstract class AnnouncementsEndpoint extends AbstractEndpoint {
         runtime = configuration.subset("runtime-settings");
         synthesizer = tts(ttsConfiguration);
         super.init(runtime);
-        final AnnouncementConverter converter = new AnnouncementConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(Announcement.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new AnnouncementListConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.gson();
+        xstream = serializers.xstream();
     }
 
     public Response putAnnouncement(final String accountSid, final MultivaluedMap<String, String> data,
             final MediaType responseType) throws Exception {
         try {
-            secure(dao.getAccount(accountSid), "RestComm:Create:Announcements");
+            secure(getAccount(dao, accountSid), "RestComm:Create:Announcements");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -187,7 +177,7 @@ public abstract class AnnouncementsEndpoint extends AbstractEndpoint {
             public Actor create() throws Exception {
                 return new DiskCache(path, uri, true);
             }
-        }));
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO));
     }
 
     @PreDestroy
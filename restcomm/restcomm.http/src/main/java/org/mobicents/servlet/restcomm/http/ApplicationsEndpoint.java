@@ -51,18 +51,15 @@ import org.mobicents.servlet.restcomm.annotations.concurrency.NotThreadSafe;
 import org.mobicents.servlet.restcomm.dao.AccountsDao;
 import org.mobicents.servlet.restcomm.dao.ApplicationsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
+import org.mobicents.servlet.restcomm.dao.NumberRoutingTable;
 import org.mobicents.servlet.restcomm.entities.Account;
 import org.mobicents.servlet.restcomm.entities.Application;
 import org.mobicents.servlet.restcomm.entities.ApplicationList;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
-import org.mobicents.servlet.restcomm.http.converter.ApplicationConverter;
-import org.mobicents.servlet.restcomm.http.converter.ApplicationListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 import org.mobicents.servlet.restcomm.util.StringUtils;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 
 /**
@@ -77,6 +74,7 @@ public class ApplicationsEndpoint extends AbstractEndpoint {
     protected Gson gson;
     protected XStream xstream;
     protected AccountsDao accountsDao;
+    private NumberRoutingTable routes;
 
     public ApplicationsEndpoint() {
         super();
@@ -87,19 +85,13 @@ public class ApplicationsEndpoint extends AbstractEndpoint {
         final DaoManager storage = (DaoManager) context.getAttribute(DaoManager.class.getName());
         dao = storage.getApplicationsDao();
         accountsDao = storage.getAccountsDao();
+        routes = (NumberRoutingTable) context.getAttribute(NumberRoutingTable.class.getName());
         configuration = (Configuration) context.getAttribute(Configuration.class.getName());
         configuration = configuration.subset("runtime-settings");
         super.init(configuration);
-        final ApplicationConverter converter = new ApplicationConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(Application.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new ApplicationListConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.gson();
+        xstream = serializers.xstream();
     }
 
     private Application createFrom(final Sid accountSid, final MultivaluedMap<String, String> data) {
@@ -126,7 +118,7 @@ public class ApplicationsEndpoint extends AbstractEndpoint {
     protected Response getApplication(final String accountSid, final String sid, final MediaType responseType) {
         Account account;
         try {
-            secure(account = accountsDao.getAccount(accountSid), "RestComm:Read:Applications");
+            secure(account = getAccount(accountsDao, accountSid), "RestComm:Read:Applications");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -164,7 +156,7 @@ public class ApplicationsEndpoint extends AbstractEndpoint {
     protected Response getApplications(final String accountSid, final MediaType responseType) {
         Account account;
         try {
-            secure(account = accountsDao.getAccount(accountSid), "RestComm:Read:Applications");
+            secure(account = getAccount(accountsDao, accountSid), "RestComm:Read:Applications");
             secureLevelControlApplications(account.getSid().toString(), null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -184,7 +176,7 @@ public class ApplicationsEndpoint extends AbstractEndpoint {
             final MediaType responseType) {
         Account account;
         try {
-            secure(account = accountsDao.getAccount(accountSid), "RestComm:Create:Applications");
+            secure(account = getAccount(accountsDao, accountSid), "RestComm:Create:Applications");
             secureLevelControlApplications(account.getSid().toString(), null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -225,7 +217,7 @@ public class ApplicationsEndpoint extends AbstractEndpoint {
             final MediaType responseType) {
         Account account;
         try {
-            secure(account = accountsDao.getAccount(accountSid), "RestComm:Modify:Applications");
+            secure(account = getAccount(accountsDao, accountSid), "RestComm:Modify:Applications");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -240,6 +232,10 @@ public class ApplicationsEndpoint extends AbstractEndpoint {
             }
             final Application applicationUpdate = update(application, data);
             dao.updateApplication(applicationUpdate);
+            if (routes != null) {
+                // The numbers attached to the application are routed to its RCML URL.
+                routes.reload();
+            }
             if (APPLICATION_XML_TYPE == responseType) {
                 final RestCommResponse response = new RestCommResponse(applicationUpdate);
                 return ok(xstream.toXML(response), APPLICATION_XML).build();
@@ -53,7 +53,7 @@ public class ApplicationsXmlEndpoint extends ApplicationsEndpoint {
 
     private Response deleteApplication(final String accountSid, final String sid) {
         try {
-            secure(accountsDao.getAccount(new Sid(accountSid)), "RestComm:Modify:Applications");
+            secure(getAccount(accountsDao, new Sid(accountSid)), "RestComm:Modify:Applications");
             Application application = dao.getApplication(new Sid(sid));
             if (application != null) {
                 secureLevelControlApplications(accountSid, application);
@@ -43,9 +43,6 @@ import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.entities.AvailablePhoneNumber;
 import org.mobicents.servlet.restcomm.entities.AvailablePhoneNumberList;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
-import org.mobicents.servlet.restcomm.http.converter.AvailablePhoneNumberConverter;
-import org.mobicents.servlet.restcomm.http.converter.AvailablePhoneNumberListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 import org.mobicents.servlet.restcomm.loader.ObjectFactory;
 import org.mobicents.servlet.restcomm.loader.ObjectInstantiationException;
 import org.mobicents.servlet.restcomm.provisioning.number.api.ContainerConfiguration;
@@ -54,7 +51,6 @@ import org.mobicents.servlet.restcomm.provisioning.number.api.PhoneNumber;
 import org.mobicents.servlet.restcomm.provisioning.number.api.PhoneNumberProvisioningManager;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 
 /**
@@ -93,20 +89,14 @@ public abstract class AvailablePhoneNumbersEndpoint extends AbstractEndpoint {
             context.setAttribute("phoneNumberProvisioningManager", phoneNumberProvisioningManager);
         }
 
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(new AvailablePhoneNumberConverter(configuration));
-        xstream.registerConverter(new AvailablePhoneNumberListConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
-        final GsonBuilder builder = new GsonBuilder();
-        builder.setPrettyPrinting();
-//        builder.serializeNulls();
-        gson = builder.create();
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.reflectiveGson();
+        xstream = serializers.xstream();
     }
 
     protected Response getAvailablePhoneNumbers(final String accountSid, final String isoCountryCode, PhoneNumberSearchFilters listFilters, String filterPattern, final MediaType responseType) {
         try {
-            secure(daos.getAccountsDao().getAccount(accountSid), "RestComm:Read:AvailablePhoneNumbers");
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Read:AvailablePhoneNumbers");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
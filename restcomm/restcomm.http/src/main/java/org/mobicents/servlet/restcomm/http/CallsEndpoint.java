@@ -33,6 +33,9 @@ import java.net.URL;
 import java.text.ParseException;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.ServletContext;
@@ -57,15 +60,11 @@ import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.entities.Recording;
 import org.mobicents.servlet.restcomm.entities.RecordingList;
-import org.mobicents.servlet.restcomm.http.converter.CallDetailRecordConverter;
-import org.mobicents.servlet.restcomm.http.converter.CallDetailRecordListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RecordingListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
-import org.mobicents.servlet.restcomm.http.converter.RecordingConverter;
 import org.mobicents.servlet.restcomm.telephony.CallInfo;
 import org.mobicents.servlet.restcomm.telephony.CallManagerResponse;
 import org.mobicents.servlet.restcomm.telephony.CallResponse;
 import org.mobicents.servlet.restcomm.telephony.CreateCall;
+import org.mobicents.servlet.restcomm.telephony.DestroyCall;
 import org.mobicents.servlet.restcomm.telephony.ExecuteCallScript;
 import org.mobicents.servlet.restcomm.telephony.GetCall;
 import org.mobicents.servlet.restcomm.telephony.GetCallInfo;
@@ -73,13 +72,16 @@ import org.mobicents.servlet.restcomm.telephony.Hangup;
 import org.mobicents.servlet.restcomm.telephony.UpdateCallScript;
 
 import scala.concurrent.Await;
+import scala.concurrent.ExecutionContext;
 import scala.concurrent.Future;
 import scala.concurrent.duration.Duration;
 import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.Futures;
+import akka.dispatch.Mapper;
 import akka.util.Timeout;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.i18n.phonenumbers.NumberParseException;
 import com.google.i18n.phonenumbers.PhoneNumberUtil;
 import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
@@ -91,15 +93,21 @@ import com.thoughtworks.xstream.XStream;
  */
 @NotThreadSafe
 public abstract class CallsEndpoint extends AbstractEndpoint {
+    // The outcomes of a call created through the API.
+    private static final int PENDING = 0;
+    private static final int PLACED = 1;
+    private static final int DROPPED = 2;
+
     @Context
     protected ServletContext context;
     protected Configuration configuration;
     private ActorRef callManager;
+    private ActorSystem system;
+    private CreationLimiter limiter;
+    private ListingTotals totals;
     private DaoManager daos;
     private Gson gson;
-    private GsonBuilder builder;
     private XStream xstream;
-    private CallDetailRecordListConverter listConverter;
     private AccountsDao accountsDao;
     private RecordingsDao recordingsDao;
 
@@ -114,33 +122,23 @@ public abstract class CallsEndpoint extends AbstractEndpoint {
         configuration = (Configuration) context.getAttribute(Configuration.class.getName());
         configuration = configuration.subset("runtime-settings");
         callManager = (ActorRef) context.getAttribute("org.mobicents.servlet.restcomm.telephony.CallManager");
+        system = (ActorSystem) context.getAttribute(ActorSystem.class.getName());
+        limiter = CreationLimiter.getInstance("calls");
+        totals = ListingTotals.getInstance("calls");
         daos = (DaoManager) context.getAttribute(DaoManager.class.getName());
         accountsDao = daos.getAccountsDao();
         recordingsDao = daos.getRecordingsDao();
         super.init(configuration);
-        CallDetailRecordConverter converter = new CallDetailRecordConverter(configuration);
-        listConverter = new CallDetailRecordListConverter(configuration);
-        final RecordingConverter recordingConverter = new RecordingConverter(configuration);
-        builder = new GsonBuilder();
-        builder.registerTypeAdapter(CallDetailRecord.class, converter);
-        builder.registerTypeAdapter(CallDetailRecordList.class, listConverter);
-        builder.registerTypeAdapter(Recording.class, recordingConverter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(recordingConverter);
-        xstream.registerConverter(new RecordingListConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
-        xstream.registerConverter(listConverter);
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.gson();
+        xstream = serializers.xstream();
 
         normalizePhoneNumbers = configuration.getBoolean("normalize-numbers-for-outbound-calls");
     }
 
     protected Response getCall(final String accountSid, final String sid, final MediaType responseType) {
         try {
-            secure(daos.getAccountsDao().getAccount(accountSid), "RestComm:Read:Calls");
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Read:Calls");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -170,7 +168,7 @@ public abstract class CallsEndpoint extends AbstractEndpoint {
     protected Response getCalls(final String accountSid, UriInfo info, MediaType responseType) {
 
         try {
-            secure(daos.getAccountsDao().getAccount(accountSid), "RestComm:Read:Calls");
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Read:Calls");
             secureLevelControl(daos.getAccountsDao(), accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -178,7 +176,7 @@ public abstract class CallsEndpoint extends AbstractEndpoint {
 
         String pageSize = info.getQueryParameters().getFirst("PageSize");
         String page = info.getQueryParameters().getFirst("Page");
-        // String afterSid = info.getQueryParameters().getFirst("AfterSid");
+        String afterSid = info.getQueryParameters().getFirst("AfterSid");
         String recipient = info.getQueryParameters().getFirst("To");
         String sender = info.getQueryParameters().getFirst("From");
         String status = info.getQueryParameters().getFirst("Status");
@@ -208,7 +206,13 @@ public abstract class CallsEndpoint extends AbstractEndpoint {
             return status(BAD_REQUEST).build();
         }
 
-        final int total = dao.getTotalCallDetailRecords(filterForTotal);
+        // The pages of the same listing reuse its total for a while instead of counting the records again.
+        final String totalKey = filterForTotal.getTotalKey();
+        Integer total = totals.get(totalKey);
+        if (total == null) {
+            total = dao.getTotalCallDetailRecords(filterForTotal);
+            totals.put(totalKey, total);
+        }
 
         if (Integer.parseInt(page) > (total / limit)) {
             return status(javax.ws.rs.core.Response.Status.BAD_REQUEST).build();
@@ -217,23 +221,21 @@ public abstract class CallsEndpoint extends AbstractEndpoint {
         CallDetailRecordFilter filter;
         try {
             filter = new CallDetailRecordFilter(accountSid, recipient, sender, status, startTime, endTime,
-                    parentCallSid, limit, offset);
+                    parentCallSid, limit, offset, afterSid);
         } catch (ParseException e) {
             return status(BAD_REQUEST).build();
         }
 
         final List<CallDetailRecord> cdrs = dao.getCallDetailRecords(filter);
 
-        listConverter.setCount(total);
-        listConverter.setPage(Integer.parseInt(page));
-        listConverter.setPageSize(Integer.parseInt(pageSize));
-        listConverter.setPathUri(info.getRequestUri().getPath());
+        final CallDetailRecordList list = new CallDetailRecordList(cdrs, Integer.parseInt(page),
+                Integer.parseInt(pageSize), total, info.getRequestUri().getPath());
 
         if (APPLICATION_XML_TYPE == responseType) {
-            final RestCommResponse response = new RestCommResponse(new CallDetailRecordList(cdrs));
+            final RestCommResponse response = new RestCommResponse(list);
             return ok(xstream.toXML(response), APPLICATION_XML).build();
         } else if (APPLICATION_JSON_TYPE == responseType) {
-            return ok(gson.toJson(new CallDetailRecordList(cdrs)), APPLICATION_JSON).build();
+            return ok(gson.toJson(list), APPLICATION_JSON).build();
         } else {
             return null;
         }
@@ -272,7 +274,7 @@ public abstract class CallsEndpoint extends AbstractEndpoint {
     protected Response putCall(final String accountSid, final MultivaluedMap<String, String> data, final MediaType responseType) {
         final Sid accountId = new Sid(accountSid);
         try {
-            secure(daos.getAccountsDao().getAccount(accountSid), "RestComm:Create:Calls");
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Create:Calls");
             secureLevelControl(daos.getAccountsDao(), accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -290,8 +292,15 @@ public abstract class CallsEndpoint extends AbstractEndpoint {
         final String password = data.getFirst("Password");
         final Integer timeout = getTimeout(data);
         final Timeout expires = new Timeout(Duration.create(60, TimeUnit.SECONDS));
-        CreateCall create = null;
+        if (!limiter.acquire()) {
+            return limiter.overloaded();
+        }
+        // Whether the call is placed or dropped is decided once, by the chain creating it or by this thread giving up.
+        final AtomicInteger outcome = new AtomicInteger(PENDING);
+        final AtomicReference<CallInfo> created = new AtomicReference<CallInfo>();
+        Future<Object> future = null;
         try {
+            CreateCall create = null;
             if (to.contains("@")) {
                 create = new CreateCall(from, to, username, password, true, timeout != null ? timeout : 30, CreateCall.Type.SIP,
                         accountId, null);
@@ -305,74 +314,103 @@ public abstract class CallsEndpoint extends AbstractEndpoint {
             create.setCreateCDR(false);
             if (callManager == null)
                 callManager = (ActorRef) context.getAttribute("org.mobicents.servlet.restcomm.telephony.CallManager");
-            Future<Object> future = (Future<Object>) ask(callManager, create, expires);
-            Object object = Await.result(future, Duration.create(10, TimeUnit.SECONDS));
-            Class<?> klass = object.getClass();
+            final ActorRef manager = callManager;
+            final String version = getApiVersion(data);
+            final URI url = getUrl("Url", data);
+            final String method = getMethod("Method", data);
+            final URI fallbackUrl = getUrl("FallbackUrl", data);
+            final String fallbackMethod = getMethod("FallbackMethod", data);
+            final URI callback = getUrl("StatusCallback", data);
+            final String callbackMethod = getMethod("StatusCallbackMethod", data);
+            final ExecutionContext dispatcher = system.dispatcher();
+            // Chain the creation of the call, the retrieval of its info and the execution of its script on the
+            // dispatcher so that this thread waits once, for the outcome, instead of once per step.
+            future = ask(manager, create, expires).flatMap(new Mapper<Object, Future<Object>>() {
+                @Override
+                public Future<Object> apply(final Object object) {
+                    if (CallManagerResponse.class.equals(object.getClass())) {
+                        final CallManagerResponse<ActorRef> managerResponse = (CallManagerResponse<ActorRef>) object;
+                        if (managerResponse.succeeded()) {
+                            final ActorRef call = managerResponse.get();
+                            return ask(call, new GetCallInfo(), expires).map(new Mapper<Object, Object>() {
+                                @Override
+                                public Object apply(final Object response) {
+                                    if (CallResponse.class.equals(response.getClass())
+                                            && ((CallResponse<CallInfo>) response).succeeded()) {
+                                        created.set(((CallResponse<CallInfo>) response).get());
+                                        if (outcome.compareAndSet(PENDING, PLACED)) {
+                                            // Execute the call script.
+                                            final ExecuteCallScript execute = new ExecuteCallScript(call, accountId,
+                                                    version, url, method, fallbackUrl, fallbackMethod, callback,
+                                                    callbackMethod);
+                                            manager.tell(execute, null);
+                                        } else {
+                                            // The request gave up, do not dial a call the client is told failed.
+                                            manager.tell(new DestroyCall(call), null);
+                                        }
+                                    }
+                                    return response;
+                                }
+                            }, dispatcher);
+                        }
+                    }
+                    return Futures.successful(object);
+                }
+            }, dispatcher);
+            // The permit is held until the chain is over, even if this thread stops waiting for it.
+            limiter.releaseOnComplete(future, dispatcher);
+            final Object object;
+            try {
+                object = Await.result(future, limiter.getTimeout());
+            } catch (final TimeoutException exception) {
+                if (outcome.compareAndSet(PENDING, DROPPED)) {
+                    // Nothing was dialed, the client may safely try again.
+                    return limiter.overloaded();
+                }
+                // The call is being placed, tell the client so it does not place it again.
+                return accepted(version, accountId, created.get(), responseType);
+            }
+            final Class<?> klass = object.getClass();
             if (CallManagerResponse.class.equals(klass)) {
                 final CallManagerResponse<ActorRef> managerResponse = (CallManagerResponse<ActorRef>) object;
-                if (managerResponse.succeeded()) {
-                    final ActorRef call = managerResponse.get();
-                    future = (Future<Object>) ask(call, new GetCallInfo(), expires);
-                    object = Await.result(future, Duration.create(10, TimeUnit.SECONDS));
-                    klass = object.getClass();
-                    if (CallResponse.class.equals(klass)) {
-                        final CallResponse<CallInfo> callResponse = (CallResponse<CallInfo>) object;
-                        if (callResponse.succeeded()) {
-                            final CallInfo callInfo = callResponse.get();
-                            // Execute the call script.
-                            final String version = getApiVersion(data);
-                            final URI url = getUrl("Url", data);
-                            final String method = getMethod("Method", data);
-                            final URI fallbackUrl = getUrl("FallbackUrl", data);
-                            final String fallbackMethod = getMethod("FallbackMethod", data);
-                            final URI callback = getUrl("StatusCallback", data);
-                            final String callbackMethod = getMethod("StatusCallbackMethod", data);
-                            final ExecuteCallScript execute = new ExecuteCallScript(call, accountId, version, url, method,
-                                    fallbackUrl, fallbackMethod, callback, callbackMethod);
-                            callManager.tell(execute, null);
-                            // Create a call detail record for the call.
-                            //                            final CallDetailRecord.Builder builder = CallDetailRecord.builder();
-                            //                            builder.setSid(callInfo.sid());
-                            //                            builder.setDateCreated(callInfo.dateCreated());
-                            //                            builder.setAccountSid(accountId);
-                            //                            builder.setTo(to);
-                            //                            builder.setCallerName(callInfo.fromName());
-                            //                            builder.setFrom(from);
-                            //                            builder.setForwardedFrom(callInfo.forwardedFrom());
-                            //                            builder.setStatus(callInfo.state().toString());
-                            //                            final DateTime now = DateTime.now();
-                            //                            builder.setStartTime(now);
-                            //                            builder.setDirection(callInfo.direction());
-                            //                            builder.setApiVersion(version);
-                            //                            final StringBuilder buffer = new StringBuilder();
-                            //                            buffer.append("/").append(version).append("/Accounts/");
-                            //                            buffer.append(accountId.toString()).append("/Calls/");
-                            //                            buffer.append(callInfo.sid().toString());
-                            //                            final URI uri = URI.create(buffer.toString());
-                            //                            builder.setUri(uri);
-
-                            CallDetailRecord cdr = daos.getCallDetailRecordsDao().getCallDetailRecord(callInfo.sid());
-                            //
-                            //                            builder.setCallPath(call.path().toString());
-                            //
-                            //                            final CallDetailRecord cdr = builder.build();
-                            //                            daos.getCallDetailRecordsDao().addCallDetailRecord(cdr);
-                            if (APPLICATION_JSON_TYPE == responseType) {
-                                return ok(gson.toJson(cdr), APPLICATION_JSON).build();
-                            } else if (APPLICATION_XML_TYPE == responseType) {
-                                return ok(xstream.toXML(new RestCommResponse(cdr)), APPLICATION_XML).build();
-                            } else {
-                                return null;
-                            }
-                        }
+                return status(INTERNAL_SERVER_ERROR).entity(managerResponse.cause() + " : " + managerResponse.error()).build();
+            } else if (CallResponse.class.equals(klass)) {
+                final CallResponse<CallInfo> callResponse = (CallResponse<CallInfo>) object;
+                if (callResponse.succeeded()) {
+                    final CallInfo callInfo = callResponse.get();
+                    final CallDetailRecord cdr = daos.getCallDetailRecordsDao().getCallDetailRecord(callInfo.sid());
+                    if (APPLICATION_JSON_TYPE == responseType) {
+                        return ok(gson.toJson(cdr), APPLICATION_JSON).build();
+                    } else if (APPLICATION_XML_TYPE == responseType) {
+                        return ok(xstream.toXML(new RestCommResponse(cdr)), APPLICATION_XML).build();
+                    } else {
+                        return null;
                     }
-                } else {
-                    return status(INTERNAL_SERVER_ERROR).entity(managerResponse.cause() + " : " + managerResponse.error()).build();
                 }
             }
             return status(INTERNAL_SERVER_ERROR).build();
         } catch (final Exception exception) {
             return status(INTERNAL_SERVER_ERROR).entity(exception.getMessage()).build();
+        } finally {
+            if (future == null) {
+                limiter.release();
+            }
+        }
+    }
+
+    private Response accepted(final String version, final Sid accountId, final CallInfo callInfo,
+            final MediaType responseType) {
+        final CallDetailRecord cdr = daos.getCallDetailRecordsDao().getCallDetailRecord(callInfo.sid());
+        final URI location = URI.create("/" + version + "/Accounts/" + accountId + "/Calls/" + callInfo.sid());
+        if (cdr == null) {
+            return status(ACCEPTED).location(location).entity(callInfo.sid().toString()).build();
+        } else if (APPLICATION_JSON_TYPE == responseType) {
+            return status(ACCEPTED).location(location).entity(gson.toJson(cdr)).type(APPLICATION_JSON).build();
+        } else if (APPLICATION_XML_TYPE == responseType) {
+            return status(ACCEPTED).location(location).entity(xstream.toXML(new RestCommResponse(cdr)))
+                    .type(APPLICATION_XML).build();
+        } else {
+            return null;
         }
     }
 
@@ -381,7 +419,7 @@ public abstract class CallsEndpoint extends AbstractEndpoint {
     protected Response updateCall(final String sid, final String callSid, final MultivaluedMap<String, String> data, final MediaType responseType) {
         final Sid accountSid = new Sid(sid);
         try {
-            secure(daos.getAccountsDao().getAccount(accountSid), "RestComm:Modify:Calls");
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Modify:Calls");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -509,7 +547,7 @@ public abstract class CallsEndpoint extends AbstractEndpoint {
 
     protected Response getRecordingsByCall(final String accountSid, final String callSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Recordings");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Recordings");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
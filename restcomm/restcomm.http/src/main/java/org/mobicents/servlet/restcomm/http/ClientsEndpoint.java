@@ -20,7 +20,6 @@
 package org.mobicents.servlet.restcomm.http;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 
 import java.net.URI;
@@ -48,9 +47,6 @@ import org.mobicents.servlet.restcomm.entities.Client;
 import org.mobicents.servlet.restcomm.entities.ClientList;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
-import org.mobicents.servlet.restcomm.http.converter.ClientConverter;
-import org.mobicents.servlet.restcomm.http.converter.ClientListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 import org.mobicents.servlet.restcomm.util.StringUtils;
 
 /**
@@ -78,16 +74,9 @@ public abstract class ClientsEndpoint extends AbstractEndpoint {
         configuration = (Configuration) context.getAttribute(Configuration.class.getName());
         configuration = configuration.subset("runtime-settings");
         super.init(configuration);
-        final ClientConverter converter = new ClientConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(Client.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new ClientListConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.gson();
+        xstream = serializers.xstream();
     }
 
     private Client createFrom(final Sid accountSid, final MultivaluedMap<String, String> data) {
@@ -120,7 +109,7 @@ public abstract class ClientsEndpoint extends AbstractEndpoint {
 
     protected Response getClient(final String accountSid, final String sid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Clients");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Clients");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -146,7 +135,7 @@ public abstract class ClientsEndpoint extends AbstractEndpoint {
 
     protected Response getClients(final String accountSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Clients");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Clients");
             secureLevelControl(accountsDao, accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -183,7 +172,7 @@ public abstract class ClientsEndpoint extends AbstractEndpoint {
 
     public Response putClient(final String accountSid, final MultivaluedMap<String, String> data, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Create:Clients");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Create:Clients");
             secureLevelControl(accountsDao, accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -218,7 +207,7 @@ public abstract class ClientsEndpoint extends AbstractEndpoint {
     protected Response updateClient(final String accountSid, final String sid, final MultivaluedMap<String, String> data,
             final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Modify:Clients");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Modify:Clients");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -51,7 +51,7 @@ public final class ClientsXmlEndpoint extends ClientsEndpoint {
 
     private Response deleteClient(final String accountSid, final String sid) {
         try {
-            secure(super.accountsDao.getAccount(accountSid), "RestComm:Delete:Clients");
+            secure(getAccount(super.accountsDao, accountSid), "RestComm:Delete:Clients");
             Client client = dao.getClient(new Sid(sid));
             if (client != null) {
                 secureLevelControl(accountsDao, accountSid, String.valueOf(client.getAccountSid()));
@@ -0,0 +1,125 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.http;
+
+import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.Response;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
+import org.mobicents.servlet.restcomm.configuration.sets.MainConfigurationSet;
+
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.Future;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+import akka.dispatch.OnComplete;
+
+/**
+ * Bounds the number of calls or SMS messages being created through the REST API at the same time.
+ *
+ * A creation holds a servlet thread until the call manager or the SMS service answers. Once the limit is reached the
+ * requests are refused right away with 503 Service Unavailable and a Retry-After header instead of piling up on the
+ * container's thread pool. A creation carried on by actors after its request has given up waiting keeps its permit
+ * until the actors are done, see {@link #releaseOnComplete}.
+ */
+@ThreadSafe
+public final class CreationLimiter {
+    private static final ConcurrentMap<String, CreationLimiter> limiters = new ConcurrentHashMap<String, CreationLimiter>();
+
+    private final Semaphore permits;
+    private final int retryAfter;
+    private final FiniteDuration timeout;
+
+    public CreationLimiter(final int max, final int retryAfter, final long timeout) {
+        super();
+        this.permits = new Semaphore(max);
+        this.retryAfter = retryAfter;
+        this.timeout = Duration.create(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param name the kind of resource being created, each kind has its own limit.
+     * @return the limiter shared by all the requests creating this kind of resource.
+     */
+    public static CreationLimiter getInstance(final String name) {
+        CreationLimiter limiter = limiters.get(name);
+        if (limiter == null) {
+            if (RestcommConfiguration.isInitialized()) {
+                final MainConfigurationSet config = RestcommConfiguration.getInstance().getMain();
+                limiter = new CreationLimiter(config.getApiMaxPendingCreations(), config.getApiRetryAfter(),
+                        config.getApiCreationTimeout());
+            } else {
+                limiter = new CreationLimiter(MainConfigurationSet.API_MAX_PENDING_CREATIONS_DEFAULT,
+                        MainConfigurationSet.API_RETRY_AFTER_DEFAULT, MainConfigurationSet.API_CREATION_TIMEOUT_DEFAULT);
+            }
+            final CreationLimiter existing = limiters.putIfAbsent(name, limiter);
+            if (existing != null) {
+                limiter = existing;
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * @return true if the creation may proceed, in which case {@link #release()} must be called once it is over.
+     */
+    public boolean acquire() {
+        return permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * Releases the permit of a creation once the future carrying it is completed, whether or not its request is still
+     * waiting for it.
+     */
+    public <T> void releaseOnComplete(final Future<T> future, final ExecutionContext executor) {
+        future.onComplete(new OnComplete<T>() {
+            @Override
+            public void onComplete(final Throwable failure, final T success) {
+                release();
+            }
+        }, executor);
+    }
+
+    /**
+     * @return how long a creation may wait for the call manager or the SMS service.
+     */
+    public FiniteDuration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return the response refusing a creation while the limit is reached.
+     */
+    public Response overloaded() {
+        return status(SERVICE_UNAVAILABLE).header("Retry-After", Integer.toString(retryAfter)).build();
+    }
+}
@@ -8,7 +8,6 @@ import akka.actor.UntypedActor;
 import akka.actor.UntypedActorContext;
 import akka.actor.UntypedActorFactory;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.ServletContext;
@@ -31,10 +30,9 @@ import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.api.EmailRequest;
 import org.mobicents.servlet.restcomm.api.EmailResponse;
 import org.mobicents.servlet.restcomm.api.Mail;
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
 import org.mobicents.servlet.restcomm.email.EmailService;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
-import org.mobicents.servlet.restcomm.http.converter.EmailMessageConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 import org.mobicents.servlet.restcomm.patterns.Observe;
 import org.mobicents.servlet.restcomm.patterns.Observing;
 import org.mobicents.servlet.restcomm.patterns.StopObserving;
@@ -71,15 +69,9 @@ public class EmailMessagesEndpoint extends AbstractEndpoint {
         accountsDao = storage.getAccountsDao();
         system = (ActorSystem) context.getAttribute(ActorSystem.class.getName());
         super.init(configuration);
-        final EmailMessageConverter converter = new EmailMessageConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(Mail.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.gson();
+        xstream = serializers.xstream();
     }
 
     private void normalize(final MultivaluedMap<String, String> data) throws IllegalArgumentException {
@@ -129,7 +121,7 @@ public class EmailMessagesEndpoint extends AbstractEndpoint {
     @SuppressWarnings("unchecked")
     protected Response putEmailMessage(final String accountSid, final MultivaluedMap<String, String> data, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Create:EmailMessages"); //need to fix for Emails.
+            secure(getAccount(accountsDao, accountSid), "RestComm:Create:EmailMessages"); //need to fix for Emails.
             secureLevelControl(accountsDao, accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -228,7 +220,7 @@ public class EmailMessagesEndpoint extends AbstractEndpoint {
             public Actor create() throws Exception {
                 return new EmailService(configuration);
             }
-        }));
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO));
     }
 
     private ActorRef observer() {
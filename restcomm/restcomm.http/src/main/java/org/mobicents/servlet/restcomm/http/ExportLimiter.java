@@ -0,0 +1,190 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.http;
+
+import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
+import org.mobicents.servlet.restcomm.configuration.sets.MainConfigurationSet;
+
+/**
+ * Bounds the number of bulk exports being streamed at the same time, in total and for every account. The listings that
+ * are not paginated are bounded the same way by a limiter of their own.
+ *
+ * An export holds a servlet thread and a database connection until its last record is written. Once a limit is reached
+ * the exports are refused right away with 503 Service Unavailable and a Retry-After header.
+ */
+@ThreadSafe
+public final class ExportLimiter {
+    private static volatile ExportLimiter instance;
+    private static volatile ExportLimiter listingInstance;
+
+    private final int max;
+    private final int maxPerAccount;
+    private final int retryAfter;
+    // Guarded by this.
+    private final Map<String, Integer> exports;
+    private int total;
+
+    public ExportLimiter(final int max, final int maxPerAccount, final int retryAfter) {
+        super();
+        this.max = max;
+        this.maxPerAccount = maxPerAccount;
+        this.retryAfter = retryAfter;
+        this.exports = new HashMap<String, Integer>();
+    }
+
+    /**
+     * @return the limiter shared by all the export requests.
+     */
+    public static ExportLimiter getInstance() {
+        ExportLimiter limiter = instance;
+        if (limiter == null) {
+            synchronized (ExportLimiter.class) {
+                limiter = instance;
+                if (limiter == null) {
+                    if (RestcommConfiguration.isInitialized()) {
+                        final MainConfigurationSet config = RestcommConfiguration.getInstance().getMain();
+                        limiter = new ExportLimiter(config.getApiMaxConcurrentExports(),
+                                config.getApiMaxConcurrentExportsPerAccount(), config.getApiRetryAfter());
+                    } else {
+                        limiter = new ExportLimiter(MainConfigurationSet.API_MAX_CONCURRENT_EXPORTS_DEFAULT,
+                                MainConfigurationSet.API_MAX_CONCURRENT_EXPORTS_PER_ACCOUNT_DEFAULT,
+                                MainConfigurationSet.API_RETRY_AFTER_DEFAULT);
+                    }
+                    instance = limiter;
+                }
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * @return the limiter shared by all the requests for a listing that is not paginated.
+     */
+    public static ExportLimiter getListingInstance() {
+        ExportLimiter limiter = listingInstance;
+        if (limiter == null) {
+            synchronized (ExportLimiter.class) {
+                limiter = listingInstance;
+                if (limiter == null) {
+                    if (RestcommConfiguration.isInitialized()) {
+                        final MainConfigurationSet config = RestcommConfiguration.getInstance().getMain();
+                        limiter = new ExportLimiter(config.getApiMaxConcurrentListings(),
+                                config.getApiMaxConcurrentListingsPerAccount(), config.getApiRetryAfter());
+                    } else {
+                        limiter = new ExportLimiter(MainConfigurationSet.API_MAX_CONCURRENT_LISTINGS_DEFAULT,
+                                MainConfigurationSet.API_MAX_CONCURRENT_LISTINGS_PER_ACCOUNT_DEFAULT,
+                                MainConfigurationSet.API_RETRY_AFTER_DEFAULT);
+                    }
+                    listingInstance = limiter;
+                }
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * @return the permit of the export, null if it may not proceed. The permit must be released once the export is over.
+     */
+    public synchronized Permit acquire(final String accountSid) {
+        final Integer exporting = exports.get(accountSid);
+        final int count = exporting == null ? 0 : exporting;
+        if (total >= max || count >= maxPerAccount) {
+            return null;
+        }
+        exports.put(accountSid, count + 1);
+        total++;
+        return new Permit(accountSid);
+    }
+
+    private synchronized void release(final String accountSid) {
+        final Integer exporting = exports.get(accountSid);
+        if (exporting == null) {
+            return;
+        }
+        if (exporting > 1) {
+            exports.put(accountSid, exporting - 1);
+        } else {
+            exports.remove(accountSid);
+        }
+        total--;
+    }
+
+    public synchronized int getExporting() {
+        return total;
+    }
+
+    /**
+     * @return the response refusing an export while a limit is reached.
+     */
+    public Response overloaded() {
+        return status(SERVICE_UNAVAILABLE).header("Retry-After", Integer.toString(retryAfter)).build();
+    }
+
+    /**
+     * The right to stream one export. Releasing it more than once has no effect, so that it can be released both when
+     * the last record is written and when the request completes, whichever comes first.
+     */
+    public final class Permit {
+        private final String accountSid;
+        private final AtomicBoolean released;
+
+        private Permit(final String accountSid) {
+            super();
+            this.accountSid = accountSid;
+            this.released = new AtomicBoolean();
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                ExportLimiter.this.release(accountSid);
+            }
+        }
+
+        /**
+         * @return the output writing the records, releasing the permit once the last record is written.
+         */
+        public StreamingOutput hold(final StreamingOutput records) {
+            return new StreamingOutput() {
+                @Override
+                public void write(final OutputStream output) throws IOException, WebApplicationException {
+                    try {
+                        records.write(output);
+                    } finally {
+                        release();
+                    }
+                }
+            };
+        }
+    }
+}
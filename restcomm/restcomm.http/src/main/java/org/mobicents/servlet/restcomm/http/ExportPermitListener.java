@@ -0,0 +1,52 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.http;
+
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.ServletRequestListener;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * Releases the export or listing permit left on a request once the request completes.
+ *
+ * The permit is normally released when the last record is written, but the entity of a response is not always
+ * written, for instance when the client goes away before the response is committed.
+ */
+@ThreadSafe
+public final class ExportPermitListener implements ServletRequestListener {
+    public static final String PERMIT = ExportPermitListener.class.getName() + ".permit";
+
+    public ExportPermitListener() {
+        super();
+    }
+
+    @Override
+    public void requestInitialized(final ServletRequestEvent event) {
+    }
+
+    @Override
+    public void requestDestroyed(final ServletRequestEvent event) {
+        final Object permit = event.getServletRequest().getAttribute(PERMIT);
+        if (permit instanceof ExportLimiter.Permit) {
+            ((ExportLimiter.Permit) permit).release();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.http;
+
+import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.UNAUTHORIZED;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.text.ParseException;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.GET;
+import javax.ws.rs.HEAD;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.shiro.authz.AuthorizationException;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.dao.AccountsDao;
+import org.mobicents.servlet.restcomm.dao.CallDetailRecordsDao;
+import org.mobicents.servlet.restcomm.dao.DaoManager;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
+import org.mobicents.servlet.restcomm.dao.SmsMessagesDao;
+import org.mobicents.servlet.restcomm.entities.CallDetailRecord;
+import org.mobicents.servlet.restcomm.entities.ExportFilter;
+import org.mobicents.servlet.restcomm.entities.Sid;
+import org.mobicents.servlet.restcomm.entities.SmsMessage;
+
+/**
+ * Streams all the calls or SMS messages of an account created between StartTime and EndTime, in the order they were
+ * created, as gzip compressed newline delimited JSON or CSV.
+ *
+ * The records are read through a forward only cursor and written as they come, so an export holds neither the
+ * records nor the response in memory. An interrupted export is resumed by passing the sid of the last record received
+ * as the ContinuationToken.
+ *
+ * The export permit is released when the last record is written or, should the entity never be written, when the
+ * request completes through {@link ExportPermitListener}. HEAD requests are answered without reading the records.
+ */
+@Path("/Accounts/{accountSid}/Exports")
+@ThreadSafe
+public final class ExportsEndpoint extends AbstractEndpoint {
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
+    private static final String[] CALL_COLUMNS = { "sid", "parent_call_sid", "date_created", "date_updated",
+            "account_sid", "to", "from", "phone_number_sid", "status", "start_time", "end_time", "duration",
+            "ring_duration", "price", "price_unit", "direction", "answered_by", "api_version", "forwarded_from",
+            "caller_name", "uri" };
+    private static final String[] SMS_MESSAGE_COLUMNS = { "sid", "date_created", "date_updated", "date_sent",
+            "account_sid", "from", "to", "body", "status", "direction", "price", "price_unit", "api_version", "uri" };
+
+    @Context
+    private ServletContext context;
+    private AccountsDao accountsDao;
+    private CallDetailRecordsDao callDetailRecordsDao;
+    private SmsMessagesDao smsMessagesDao;
+    private Serializers serializers;
+    private ExportLimiter limiter;
+
+    public ExportsEndpoint() {
+        super();
+    }
+
+    @PostConstruct
+    public void init() {
+        final DaoManager storage = (DaoManager) context.getAttribute(DaoManager.class.getName());
+        final Configuration configuration = (Configuration) context.getAttribute(Configuration.class.getName());
+        accountsDao = storage.getAccountsDao();
+        callDetailRecordsDao = storage.getCallDetailRecordsDao();
+        smsMessagesDao = storage.getSmsMessagesDao();
+        super.init(configuration.subset("runtime-settings"));
+        serializers = Serializers.getInstance(context);
+        limiter = ExportLimiter.getInstance();
+    }
+
+    @Path("/Calls.{format: ndjson|csv}")
+    @GET
+    public Response exportCalls(@PathParam("accountSid") final String accountSid,
+            @PathParam("format") final String format, @Context final UriInfo info,
+            @Context final HttpServletRequest request) {
+        try {
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Calls");
+            secureLevelControl(accountsDao, accountSid, null);
+        } catch (final AuthorizationException exception) {
+            return status(UNAUTHORIZED).build();
+        }
+        final ExportFilter filter = filter(accountSid, info.getQueryParameters());
+        if (filter == null || !callExists(accountSid, filter.getAfterSid())) {
+            return status(BAD_REQUEST).build();
+        }
+        final Listing<CallDetailRecord> calls = new Listing<CallDetailRecord>() {
+            @Override
+            public void read(final RecordHandler<CallDetailRecord> handler) {
+                callDetailRecordsDao.exportCallDetailRecords(filter, handler);
+            }
+        };
+        return export(accountSid, format, CallDetailRecord.class, CALL_COLUMNS, calls, request);
+    }
+
+    @Path("/Calls.{format: ndjson|csv}")
+    @HEAD
+    public Response exportCallsHeaders(@PathParam("accountSid") final String accountSid,
+            @PathParam("format") final String format, @Context final UriInfo info) {
+        try {
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Calls");
+            secureLevelControl(accountsDao, accountSid, null);
+        } catch (final AuthorizationException exception) {
+            return status(UNAUTHORIZED).build();
+        }
+        final ExportFilter filter = filter(accountSid, info.getQueryParameters());
+        if (filter == null || !callExists(accountSid, filter.getAfterSid())) {
+            return status(BAD_REQUEST).build();
+        }
+        return headers(format);
+    }
+
+    @Path("/SMS/Messages.{format: ndjson|csv}")
+    @GET
+    public Response exportSmsMessages(@PathParam("accountSid") final String accountSid,
+            @PathParam("format") final String format, @Context final UriInfo info,
+            @Context final HttpServletRequest request) {
+        try {
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:SmsMessages");
+            secureLevelControl(accountsDao, accountSid, null);
+        } catch (final AuthorizationException exception) {
+            return status(UNAUTHORIZED).build();
+        }
+        final ExportFilter filter = filter(accountSid, info.getQueryParameters());
+        if (filter == null || !smsMessageExists(accountSid, filter.getAfterSid())) {
+            return status(BAD_REQUEST).build();
+        }
+        final Listing<SmsMessage> smsMessages = new Listing<SmsMessage>() {
+            @Override
+            public void read(final RecordHandler<SmsMessage> handler) {
+                smsMessagesDao.exportSmsMessages(filter, handler);
+            }
+        };
+        return export(accountSid, format, SmsMessage.class, SMS_MESSAGE_COLUMNS, smsMessages, request);
+    }
+
+    @Path("/SMS/Messages.{format: ndjson|csv}")
+    @HEAD
+    public Response exportSmsMessagesHeaders(@PathParam("accountSid") final String accountSid,
+            @PathParam("format") final String format, @Context final UriInfo info) {
+        try {
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:SmsMessages");
+            secureLevelControl(accountsDao, accountSid, null);
+        } catch (final AuthorizationException exception) {
+            return status(UNAUTHORIZED).build();
+        }
+        final ExportFilter filter = filter(accountSid, info.getQueryParameters());
+        if (filter == null || !smsMessageExists(accountSid, filter.getAfterSid())) {
+            return status(BAD_REQUEST).build();
+        }
+        return headers(format);
+    }
+
+    // A ContinuationToken naming no record of the account would silently export nothing.
+    private boolean callExists(final String accountSid, final String continuationToken) {
+        if (continuationToken == null) {
+            return true;
+        }
+        final CallDetailRecord cdr = callDetailRecordsDao.getCallDetailRecord(new Sid(continuationToken));
+        return cdr != null && accountSid.equals(cdr.getAccountSid().toString());
+    }
+
+    private boolean smsMessageExists(final String accountSid, final String continuationToken) {
+        if (continuationToken == null) {
+            return true;
+        }
+        final SmsMessage smsMessage = smsMessagesDao.getSmsMessage(new Sid(continuationToken));
+        return smsMessage != null && accountSid.equals(smsMessage.getAccountSid().toString());
+    }
+
+    // Null when StartTime or EndTime is missing or invalid or the ContinuationToken is not a sid.
+    private ExportFilter filter(final String accountSid, final MultivaluedMap<String, String> parameters) {
+        final String startTime = parameters.getFirst("StartTime");
+        final String endTime = parameters.getFirst("EndTime");
+        final String continuationToken = parameters.getFirst("ContinuationToken");
+        if (startTime == null || endTime == null) {
+            return null;
+        }
+        if (continuationToken != null && !Sid.pattern.matcher(continuationToken).matches()) {
+            return null;
+        }
+        try {
+            return new ExportFilter(accountSid, startTime, endTime, continuationToken);
+        } catch (final ParseException exception) {
+            return null;
+        }
+    }
+
+    private Response headers(final String format) {
+        return ok().type("csv".equals(format) ? CSV : NDJSON).header("Content-Encoding", "gzip").build();
+    }
+
+    private <T> Response export(final String accountSid, final String format, final Type type, final String[] columns,
+            final Listing<T> listing, final HttpServletRequest request) {
+        final ExportLimiter.Permit permit = limiter.acquire(accountSid);
+        if (permit == null) {
+            return limiter.overloaded();
+        }
+        request.setAttribute(ExportPermitListener.PERMIT, permit);
+        final boolean csv = "csv".equals(format);
+        final StreamingOutput records = csv ? serializers.toCsv(type, columns, listing) : serializers.toJsonLines(type,
+                listing);
+        // The permit is held until the last record is written, once the response is committed.
+        final StreamingOutput export = new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                try {
+                    final GZIPOutputStream gzip = new GZIPOutputStream(output, 8192);
+                    records.write(gzip);
+                    gzip.finish();
+                } finally {
+                    permit.release();
+                }
+            }
+        };
+        try {
+            return ok(export, csv ? CSV : NDJSON).header("Content-Encoding", "gzip").build();
+        } catch (final RuntimeException exception) {
+            permit.release();
+            throw exception;
+        }
+    }
+}
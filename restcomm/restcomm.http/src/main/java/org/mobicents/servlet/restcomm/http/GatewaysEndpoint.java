@@ -30,16 +30,12 @@ import org.mobicents.servlet.restcomm.entities.Gateway;
 import org.mobicents.servlet.restcomm.entities.GatewayList;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
-import org.mobicents.servlet.restcomm.http.converter.GatewayConverter;
-import org.mobicents.servlet.restcomm.http.converter.GatewayListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 import org.mobicents.servlet.restcomm.telephony.RegisterGateway;
 import org.mobicents.servlet.restcomm.util.StringUtils;
 
 import akka.actor.ActorRef;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 
 @ThreadSafe
@@ -65,16 +61,9 @@ public class GatewaysEndpoint extends AbstractEndpoint {
         super.init(configuration);
         dao = storage.getGatewaysDao();
         accountsDao = storage.getAccountsDao();
-        final GatewayConverter converter = new GatewayConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(Gateway.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new GatewayListConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.gson();
+        xstream = serializers.xstream();
         proxyManager = (ActorRef) context.getAttribute("org.mobicents.servlet.restcomm.telephony.proxy.ProxyManager");
     }
 
@@ -104,7 +93,7 @@ public class GatewaysEndpoint extends AbstractEndpoint {
 
     protected Response getGateway(final String accountSid, final String sid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Gateways");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Gateways");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -125,7 +114,7 @@ public class GatewaysEndpoint extends AbstractEndpoint {
 
     protected Response getGateways(final String accountSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Gateways");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Gateways");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -142,7 +131,7 @@ public class GatewaysEndpoint extends AbstractEndpoint {
 
     protected Response putGateway(final String accountSid, final MultivaluedMap<String, String> data, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Create:Gateways");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Create:Gateways");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -169,7 +158,7 @@ public class GatewaysEndpoint extends AbstractEndpoint {
 
     protected Response updateGateway(final String accountSid, final String sid, final MultivaluedMap<String, String> data, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Modify:Gateways");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Modify:Gateways");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
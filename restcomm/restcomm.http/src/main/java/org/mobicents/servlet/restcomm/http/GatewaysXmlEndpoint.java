@@ -48,7 +48,7 @@ public final class GatewaysXmlEndpoint extends GatewaysEndpoint {
 
     private Response deleteGateway(final String accountSid, final String sid) {
         try {
-            secure(super.accountsDao.getAccount(accountSid), "RestComm:Modify:Gateways");
+            secure(getAccount(super.accountsDao, accountSid), "RestComm:Modify:Gateways");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -50,16 +50,13 @@ import org.mobicents.servlet.restcomm.annotations.concurrency.NotThreadSafe;
 import org.mobicents.servlet.restcomm.dao.AccountsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.dao.IncomingPhoneNumbersDao;
+import org.mobicents.servlet.restcomm.dao.NumberRoutingTable;
 import org.mobicents.servlet.restcomm.entities.IncomingPhoneNumber;
 import org.mobicents.servlet.restcomm.entities.IncomingPhoneNumberFilter;
 import org.mobicents.servlet.restcomm.entities.IncomingPhoneNumberList;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
-import org.mobicents.servlet.restcomm.http.converter.AvailableCountriesConverter;
 import org.mobicents.servlet.restcomm.http.converter.AvailableCountriesList;
-import org.mobicents.servlet.restcomm.http.converter.IncomingPhoneNumberConverter;
-import org.mobicents.servlet.restcomm.http.converter.IncomingPhoneNumberListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 import org.mobicents.servlet.restcomm.loader.ObjectFactory;
 import org.mobicents.servlet.restcomm.loader.ObjectInstantiationException;
 import org.mobicents.servlet.restcomm.provisioning.number.api.ContainerConfiguration;
@@ -69,7 +66,6 @@ import org.mobicents.servlet.restcomm.provisioning.number.api.PhoneNumberType;
 import org.mobicents.servlet.restcomm.util.StringUtils;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.i18n.phonenumbers.NumberParseException;
 import com.google.i18n.phonenumbers.NumberParseException.ErrorType;
 import com.google.i18n.phonenumbers.PhoneNumberUtil;
@@ -89,6 +85,7 @@ public abstract class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
     protected PhoneNumberProvisioningManager phoneNumberProvisioningManager;
     PhoneNumberParameters phoneNumberParameters;
     private IncomingPhoneNumbersDao dao;
+    private NumberRoutingTable routes;
     protected AccountsDao accountsDao;
     private XStream xstream;
     protected Gson gson;
@@ -104,6 +101,7 @@ public abstract class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
         super.init(configuration.subset("runtime-settings"));
         dao = storage.getIncomingPhoneNumbersDao();
         accountsDao = storage.getAccountsDao();
+        routes = (NumberRoutingTable) context.getAttribute(NumberRoutingTable.class.getName());
 
         phoneNumberProvisioningManager = (PhoneNumberProvisioningManager) context.getAttribute("PhoneNumberProvisioningManager");
         if(phoneNumberProvisioningManager == null) {
@@ -128,18 +126,9 @@ public abstract class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
                 callbackUrlsConfiguration.getString("ussd[@url]"),
                 callbackUrlsConfiguration.getString("ussd[@method]"));
 
-        final IncomingPhoneNumberConverter converter = new IncomingPhoneNumberConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.serializeNulls();
-        builder.registerTypeAdapter(IncomingPhoneNumber.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new IncomingPhoneNumberListConverter(configuration));
-        xstream.registerConverter(new AvailableCountriesConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.gsonWithNulls();
+        xstream = serializers.xstream();
     }
 
     private IncomingPhoneNumber createFrom(final Sid accountSid, final MultivaluedMap<String, String> data) {
@@ -223,7 +212,7 @@ public abstract class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
 
     protected Response getIncomingPhoneNumber(final String accountSid, final String sid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:IncomingPhoneNumbers");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:IncomingPhoneNumbers");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -249,7 +238,7 @@ public abstract class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
 
     protected Response getAvailableCountries(final String accountSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:IncomingPhoneNumbers");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:IncomingPhoneNumbers");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -271,7 +260,7 @@ public abstract class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
     protected Response getIncomingPhoneNumbers(final String accountSid, final String phoneNumberFilter, final String friendlyNameFilter,
             PhoneNumberType phoneNumberType, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:IncomingPhoneNumbers");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:IncomingPhoneNumbers");
             secureLevelControl(accountsDao, accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -292,7 +281,7 @@ public abstract class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
     protected Response putIncomingPhoneNumber(final String accountSid, final MultivaluedMap<String, String> data,
             PhoneNumberType phoneNumberType, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Create:IncomingPhoneNumbers");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Create:IncomingPhoneNumbers");
             secureLevelControl(accountsDao, accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -330,6 +319,7 @@ public abstract class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
                     incomingPhoneNumber.setPhoneNumber(phoneNumber.getPhoneNumber());
                 }
                 dao.addIncomingPhoneNumber(incomingPhoneNumber);
+                invalidate(incomingPhoneNumber.getPhoneNumber());
                 if (APPLICATION_JSON_TYPE == responseType) {
                     return ok(gson.toJson(incomingPhoneNumber), APPLICATION_JSON).build();
                 } else if (APPLICATION_XML_TYPE == responseType) {
@@ -344,7 +334,7 @@ public abstract class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
     public Response updateIncomingPhoneNumber(final String accountSid, final String sid,
             final MultivaluedMap<String, String> data, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Modify:IncomingPhoneNumbers");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Modify:IncomingPhoneNumbers");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -360,6 +350,7 @@ public abstract class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
         }
         if(updated) {
             dao.updateIncomingPhoneNumber(update(incomingPhoneNumber, data));
+            invalidate(incomingPhoneNumber.getPhoneNumber());
             if (APPLICATION_JSON_TYPE == responseType) {
                 return ok(gson.toJson(incomingPhoneNumber), APPLICATION_JSON).build();
             } else if (APPLICATION_XML_TYPE == responseType) {
@@ -485,7 +476,7 @@ public abstract class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
 
     public Response deleteIncomingPhoneNumber(final String accountSid, final String sid) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Delete:IncomingPhoneNumbers");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Delete:IncomingPhoneNumbers");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -499,9 +490,16 @@ public abstract class IncomingPhoneNumbersEndpoint extends AbstractEndpoint {
             phoneNumberProvisioningManager.cancelNumber(convertIncomingPhoneNumbertoPhoneNumber(incomingPhoneNumber));
         }
         dao.removeIncomingPhoneNumber(new Sid(sid));
+        invalidate(incomingPhoneNumber.getPhoneNumber());
         return noContent().build();
     }
 
+    private void invalidate(final String phoneNumber) {
+        if (routes != null) {
+            routes.invalidate(phoneNumber);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private List<SipURI> getOutboundInterfaces() {
         final List<SipURI> uris = (List<SipURI>) context.getAttribute(SipServlet.OUTBOUND_INTERFACES);
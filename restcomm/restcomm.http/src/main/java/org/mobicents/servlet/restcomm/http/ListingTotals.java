@@ -0,0 +1,109 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.http;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
+import org.mobicents.servlet.restcomm.configuration.sets.MainConfigurationSet;
+
+/**
+ * Remembers for a while the total number of records matched by a listing so that its pages, the first one included,
+ * do not count them again. A total may thus lag behind the records written for up to its time to live.
+ */
+@ThreadSafe
+public final class ListingTotals {
+    private static final int MAX_ENTRIES = 10000;
+    private static final ConcurrentMap<String, ListingTotals> instances = new ConcurrentHashMap<String, ListingTotals>();
+
+    private final long ttl;
+    private final ConcurrentMap<String, Total> totals;
+
+    /**
+     * @param ttl in milliseconds, how long a total is remembered. Zero or less disables the cache.
+     */
+    public ListingTotals(final long ttl) {
+        super();
+        this.ttl = ttl;
+        this.totals = new ConcurrentHashMap<String, Total>();
+    }
+
+    /**
+     * @param name the kind of records listed, each kind has its own totals.
+     */
+    public static ListingTotals getInstance(final String name) {
+        ListingTotals instance = instances.get(name);
+        if (instance == null) {
+            long ttl = MainConfigurationSet.API_LISTING_TOTAL_TTL_DEFAULT;
+            if (RestcommConfiguration.isInitialized()) {
+                ttl = RestcommConfiguration.getInstance().getMain().getApiListingTotalTtl();
+            }
+            instance = new ListingTotals(ttl);
+            final ListingTotals existing = instances.putIfAbsent(name, instance);
+            if (existing != null) {
+                instance = existing;
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return the total remembered for the listing or null if it has to be counted.
+     */
+    public Integer get(final String key) {
+        if (ttl <= 0) {
+            return null;
+        }
+        final Total total = totals.get(key);
+        if (total == null) {
+            return null;
+        } else if (System.currentTimeMillis() - total.counted > ttl) {
+            totals.remove(key, total);
+            return null;
+        }
+        return total.value;
+    }
+
+    public void put(final String key, final int value) {
+        if (ttl <= 0) {
+            return;
+        }
+        // The listings are keyed by their filters, do not let them grow the cache without bounds.
+        if (totals.size() >= MAX_ENTRIES) {
+            totals.clear();
+        }
+        totals.put(key, new Total(value, System.currentTimeMillis()));
+    }
+
+    @Immutable
+    private static final class Total {
+        private final int value;
+        private final long counted;
+
+        private Total(final int value, final long counted) {
+            super();
+            this.value = value;
+            this.counted = counted;
+        }
+    }
+}
@@ -20,15 +20,14 @@
 package org.mobicents.servlet.restcomm.http;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 
-import java.util.List;
 
 import static javax.ws.rs.core.MediaType.*;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -42,13 +41,10 @@ import org.mobicents.servlet.restcomm.annotations.concurrency.NotThreadSafe;
 import org.mobicents.servlet.restcomm.dao.AccountsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.dao.NotificationsDao;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
 import org.mobicents.servlet.restcomm.entities.Notification;
-import org.mobicents.servlet.restcomm.entities.NotificationList;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
-import org.mobicents.servlet.restcomm.http.converter.NotificationConverter;
-import org.mobicents.servlet.restcomm.http.converter.NotificationListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 
 /**
  * @author quintana.thomas@gmail.com (Thomas Quintana)
@@ -57,10 +53,14 @@ import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 public abstract class NotificationsEndpoint extends AbstractEndpoint {
     @Context
     protected ServletContext context;
+    @Context
+    protected HttpServletRequest request;
     protected Configuration configuration;
     protected NotificationsDao dao;
     protected Gson gson;
     protected XStream xstream;
+    protected Serializers serializers;
+    protected ExportLimiter listings;
     protected AccountsDao accountsDao;
 
     public NotificationsEndpoint() {
@@ -75,21 +75,15 @@ public abstract class NotificationsEndpoint extends AbstractEndpoint {
         super.init(configuration);
         dao = storage.getNotificationsDao();
         accountsDao = storage.getAccountsDao();
-        final NotificationConverter converter = new NotificationConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(Notification.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new NotificationListConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        serializers = Serializers.getInstance(context);
+        listings = ExportLimiter.getListingInstance();
+        gson = serializers.gson();
+        xstream = serializers.xstream();
     }
 
     protected Response getNotification(final String accountSid, final String sid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Notifications");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Notifications");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -115,17 +109,28 @@ public abstract class NotificationsEndpoint extends AbstractEndpoint {
 
     protected Response getNotifications(final String accountSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Notifications");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Notifications");
             secureLevelControl(accountsDao, accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
-        final List<Notification> notifications = dao.getNotifications(new Sid(accountSid));
+        // The records are read while the response is written, holding a database connection until the last one.
+        final ExportLimiter.Permit permit = listings.acquire(accountSid);
+        if (permit == null) {
+            return listings.overloaded();
+        }
+        request.setAttribute(ExportPermitListener.PERMIT, permit);
+        final Sid account = new Sid(accountSid);
+        final Listing<Notification> notifications = new Listing<Notification>() {
+            @Override
+            public void read(final RecordHandler<Notification> handler) {
+                dao.getNotifications(account, handler);
+            }
+        };
         if (APPLICATION_JSON_TYPE == responseType) {
-            return ok(gson.toJson(notifications), APPLICATION_JSON).build();
+            return ok(permit.hold(serializers.toJson(Notification.class, notifications)), APPLICATION_JSON).build();
         } else if (APPLICATION_XML_TYPE == responseType) {
-            final RestCommResponse response = new RestCommResponse(new NotificationList(notifications));
-            return ok(xstream.toXML(response), APPLICATION_XML).build();
+            return ok(permit.hold(serializers.toXml("Notifications", notifications)), APPLICATION_XML).build();
         } else {
             return null;
         }
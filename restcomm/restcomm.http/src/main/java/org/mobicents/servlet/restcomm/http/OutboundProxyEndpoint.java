@@ -45,7 +45,6 @@ import org.mobicents.servlet.restcomm.dao.AccountsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 import org.mobicents.servlet.restcomm.telephony.GetActiveProxy;
 import org.mobicents.servlet.restcomm.telephony.GetProxies;
 import org.mobicents.servlet.restcomm.telephony.SwitchProxy;
@@ -57,7 +56,6 @@ import akka.actor.ActorRef;
 import akka.util.Timeout;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 
 /**
@@ -72,7 +70,6 @@ public class OutboundProxyEndpoint extends AbstractEndpoint {
     private ActorRef callManager;
     private DaoManager daos;
     private Gson gson;
-    private GsonBuilder builder;
     private XStream xstream;
     protected AccountsDao accountsDao;
 
@@ -88,17 +85,14 @@ public class OutboundProxyEndpoint extends AbstractEndpoint {
         daos = (DaoManager) context.getAttribute(DaoManager.class.getName());
         accountsDao = daos.getAccountsDao();
         super.init(configuration);
-        builder = new GsonBuilder();
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.reflectiveGson();
+        xstream = serializers.xstream();
     }
 
     protected Response getProxies(final String accountSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:OutboundProxies");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:OutboundProxies");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -125,7 +119,7 @@ public class OutboundProxyEndpoint extends AbstractEndpoint {
 
     protected Response switchProxy(final String accountSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:OutboundProxies");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:OutboundProxies");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -152,7 +146,7 @@ public class OutboundProxyEndpoint extends AbstractEndpoint {
 
     protected Response getActiveProxy(final String accountSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:OutboundProxies");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:OutboundProxies");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -20,7 +20,6 @@
 package org.mobicents.servlet.restcomm.http;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.i18n.phonenumbers.NumberParseException;
 import com.google.i18n.phonenumbers.PhoneNumberUtil;
 import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
@@ -54,9 +53,6 @@ import org.mobicents.servlet.restcomm.entities.OutgoingCallerId;
 import org.mobicents.servlet.restcomm.entities.OutgoingCallerIdList;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
-import org.mobicents.servlet.restcomm.http.converter.OutgoingCallerIdConverter;
-import org.mobicents.servlet.restcomm.http.converter.OutgoingCallerIdListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 import org.mobicents.servlet.restcomm.util.StringUtils;
 
 /**
@@ -84,16 +80,9 @@ public abstract class OutgoingCallerIdsEndpoint extends AbstractEndpoint {
         super.init(configuration);
         dao = storage.getOutgoingCallerIdsDao();
         accountsDao = storage.getAccountsDao();
-        final OutgoingCallerIdConverter converter = new OutgoingCallerIdConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(OutgoingCallerId.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new OutgoingCallerIdListConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.gson();
+        xstream = serializers.xstream();
     }
 
     private OutgoingCallerId createFrom(final Sid accountSid, final MultivaluedMap<String, String> data) {
@@ -121,7 +110,7 @@ public abstract class OutgoingCallerIdsEndpoint extends AbstractEndpoint {
 
     protected Response getCallerId(final String accountSid, final String sid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:OutgoingCallerIds");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:OutgoingCallerIds");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -147,7 +136,7 @@ public abstract class OutgoingCallerIdsEndpoint extends AbstractEndpoint {
 
     protected Response getCallerIds(final String accountSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:OutgoingCallerIds");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:OutgoingCallerIds");
             secureLevelControl(accountsDao, accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -166,7 +155,7 @@ public abstract class OutgoingCallerIdsEndpoint extends AbstractEndpoint {
     protected Response putOutgoingCallerId(final String accountSid, final MultivaluedMap<String, String> data,
             final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Create:OutgoingCallerIds");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Create:OutgoingCallerIds");
             secureLevelControl(accountsDao, accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -191,7 +180,7 @@ public abstract class OutgoingCallerIdsEndpoint extends AbstractEndpoint {
     protected Response updateOutgoingCallerId(final String accountSid, final String sid,
             final MultivaluedMap<String, String> data, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Modify:OutgoingCallerIds");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Modify:OutgoingCallerIds");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
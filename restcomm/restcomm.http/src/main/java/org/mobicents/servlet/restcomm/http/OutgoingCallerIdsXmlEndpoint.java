@@ -51,7 +51,7 @@ public final class OutgoingCallerIdsXmlEndpoint extends OutgoingCallerIdsEndpoin
 
     private Response deleteOutgoingCallerId(String accountSid, String sid) {
         try {
-            secure(super.accountsDao.getAccount(accountSid), "RestComm:Delete:OutgoingCallerIds");
+            secure(getAccount(super.accountsDao, accountSid), "RestComm:Delete:OutgoingCallerIds");
             OutgoingCallerId oci = dao.getOutgoingCallerId(new Sid(sid));
             if (oci != null) {
                 secureLevelControl(accountsDao, accountSid, String.valueOf(oci.getAccountSid()));
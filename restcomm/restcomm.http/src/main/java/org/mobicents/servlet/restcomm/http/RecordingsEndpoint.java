@@ -20,7 +20,6 @@
 package org.mobicents.servlet.restcomm.http;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 
 import java.util.List;
@@ -29,6 +28,7 @@ import static javax.ws.rs.core.MediaType.*;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -41,14 +41,12 @@ import org.apache.shiro.authz.AuthorizationException;
 import org.mobicents.servlet.restcomm.annotations.concurrency.NotThreadSafe;
 import org.mobicents.servlet.restcomm.dao.AccountsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
 import org.mobicents.servlet.restcomm.dao.RecordingsDao;
 import org.mobicents.servlet.restcomm.entities.Recording;
 import org.mobicents.servlet.restcomm.entities.RecordingList;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
-import org.mobicents.servlet.restcomm.http.converter.RecordingConverter;
-import org.mobicents.servlet.restcomm.http.converter.RecordingListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 
 /**
  * @author quintana.thomas@gmail.com (Thomas Quintana)
@@ -57,10 +55,14 @@ import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 public abstract class RecordingsEndpoint extends AbstractEndpoint {
     @Context
     protected ServletContext context;
+    @Context
+    protected HttpServletRequest request;
     protected Configuration configuration;
     protected RecordingsDao dao;
     protected Gson gson;
     protected XStream xstream;
+    protected Serializers serializers;
+    protected ExportLimiter listings;
     protected AccountsDao accountsDao;
 
     public RecordingsEndpoint() {
@@ -75,21 +77,15 @@ public abstract class RecordingsEndpoint extends AbstractEndpoint {
         super.init(configuration);
         dao = storage.getRecordingsDao();
         accountsDao = storage.getAccountsDao();
-        final RecordingConverter converter = new RecordingConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(Recording.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new RecordingListConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        serializers = Serializers.getInstance(context);
+        listings = ExportLimiter.getListingInstance();
+        gson = serializers.gson();
+        xstream = serializers.xstream();
     }
 
     protected Response getRecording(final String accountSid, final String sid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Recordings");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Recordings");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -115,17 +111,28 @@ public abstract class RecordingsEndpoint extends AbstractEndpoint {
 
     protected Response getRecordings(final String accountSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Recordings");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Recordings");
             secureLevelControl(accountsDao, accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
-        final List<Recording> recordings = dao.getRecordings(new Sid(accountSid));
+        // The records are read while the response is written, holding a database connection until the last one.
+        final ExportLimiter.Permit permit = listings.acquire(accountSid);
+        if (permit == null) {
+            return listings.overloaded();
+        }
+        request.setAttribute(ExportPermitListener.PERMIT, permit);
+        final Sid account = new Sid(accountSid);
+        final Listing<Recording> recordings = new Listing<Recording>() {
+            @Override
+            public void read(final RecordHandler<Recording> handler) {
+                dao.getRecordings(account, handler);
+            }
+        };
         if (APPLICATION_JSON_TYPE == responseType) {
-            return ok(gson.toJson(recordings), APPLICATION_JSON).build();
+            return ok(permit.hold(serializers.toJson(Recording.class, recordings)), APPLICATION_JSON).build();
         } else if (APPLICATION_XML_TYPE == responseType) {
-            final RestCommResponse response = new RestCommResponse(new RecordingList(recordings));
-            return ok(xstream.toXML(response), APPLICATION_XML).build();
+            return ok(permit.hold(serializers.toXml("Recordings", recordings)), APPLICATION_XML).build();
         } else {
             return null;
         }
@@ -133,7 +140,7 @@ public abstract class RecordingsEndpoint extends AbstractEndpoint {
 
     protected Response getRecordingsByCall(final String accountSid, final String callSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Recordings");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Recordings");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
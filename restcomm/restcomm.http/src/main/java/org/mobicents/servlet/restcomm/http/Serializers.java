@@ -0,0 +1,384 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.http;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+
+import javax.servlet.ServletContext;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.configuration.Configuration;
+import org.mobicents.servlet.restcomm.VersionEntity;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.api.Mail;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
+import org.mobicents.servlet.restcomm.entities.Account;
+import org.mobicents.servlet.restcomm.entities.Announcement;
+import org.mobicents.servlet.restcomm.entities.Application;
+import org.mobicents.servlet.restcomm.entities.CallDetailRecord;
+import org.mobicents.servlet.restcomm.entities.CallDetailRecordList;
+import org.mobicents.servlet.restcomm.entities.Client;
+import org.mobicents.servlet.restcomm.entities.Gateway;
+import org.mobicents.servlet.restcomm.entities.IncomingPhoneNumber;
+import org.mobicents.servlet.restcomm.entities.Notification;
+import org.mobicents.servlet.restcomm.entities.OutgoingCallerId;
+import org.mobicents.servlet.restcomm.entities.Recording;
+import org.mobicents.servlet.restcomm.entities.RestCommResponse;
+import org.mobicents.servlet.restcomm.entities.SmsMessage;
+import org.mobicents.servlet.restcomm.entities.Transcription;
+import org.mobicents.servlet.restcomm.entities.Usage;
+import org.mobicents.servlet.restcomm.http.converter.AccountConverter;
+import org.mobicents.servlet.restcomm.http.converter.AccountListConverter;
+import org.mobicents.servlet.restcomm.http.converter.AnnouncementConverter;
+import org.mobicents.servlet.restcomm.http.converter.AnnouncementListConverter;
+import org.mobicents.servlet.restcomm.http.converter.ApplicationConverter;
+import org.mobicents.servlet.restcomm.http.converter.ApplicationListConverter;
+import org.mobicents.servlet.restcomm.http.converter.AvailableCountriesConverter;
+import org.mobicents.servlet.restcomm.http.converter.AvailablePhoneNumberConverter;
+import org.mobicents.servlet.restcomm.http.converter.AvailablePhoneNumberListConverter;
+import org.mobicents.servlet.restcomm.http.converter.CallDetailRecordConverter;
+import org.mobicents.servlet.restcomm.http.converter.CallDetailRecordListConverter;
+import org.mobicents.servlet.restcomm.http.converter.CallinfoConverter;
+import org.mobicents.servlet.restcomm.http.converter.ClientConverter;
+import org.mobicents.servlet.restcomm.http.converter.ClientListConverter;
+import org.mobicents.servlet.restcomm.http.converter.EmailMessageConverter;
+import org.mobicents.servlet.restcomm.http.converter.GatewayConverter;
+import org.mobicents.servlet.restcomm.http.converter.GatewayListConverter;
+import org.mobicents.servlet.restcomm.http.converter.IncomingPhoneNumberConverter;
+import org.mobicents.servlet.restcomm.http.converter.IncomingPhoneNumberListConverter;
+import org.mobicents.servlet.restcomm.http.converter.MonitoringServiceConverter;
+import org.mobicents.servlet.restcomm.http.converter.NotificationConverter;
+import org.mobicents.servlet.restcomm.http.converter.NotificationListConverter;
+import org.mobicents.servlet.restcomm.http.converter.OutgoingCallerIdConverter;
+import org.mobicents.servlet.restcomm.http.converter.OutgoingCallerIdListConverter;
+import org.mobicents.servlet.restcomm.http.converter.RecordingConverter;
+import org.mobicents.servlet.restcomm.http.converter.RecordingListConverter;
+import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
+import org.mobicents.servlet.restcomm.http.converter.SmsMessageConverter;
+import org.mobicents.servlet.restcomm.http.converter.SmsMessageListConverter;
+import org.mobicents.servlet.restcomm.http.converter.TranscriptionConverter;
+import org.mobicents.servlet.restcomm.http.converter.TranscriptionListConverter;
+import org.mobicents.servlet.restcomm.http.converter.UsageConverter;
+import org.mobicents.servlet.restcomm.http.converter.UsageListConverter;
+import org.mobicents.servlet.restcomm.http.converter.VersionConverter;
+import org.mobicents.servlet.restcomm.telephony.CallInfo;
+import org.mobicents.servlet.restcomm.telephony.MonitoringServiceResponse;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.core.TreeMarshaller;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.xml.CompactWriter;
+import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
+
+/**
+ * The XStream and Gson instances shared by all the REST endpoints. They are built once, with the converters of every
+ * entity, the first time an endpoint asks for them and then only used to write responses, which both libraries allow
+ * from several threads at a time. The converters registered here must therefore keep no state between two calls.
+ *
+ * The listings that are not paginated are not built in memory but written to the response one record at a time, as
+ * they are read from the data store. They are written compact unless the api-pretty-print runtime setting is set.
+ */
+@ThreadSafe
+public final class Serializers {
+    private final XStream xstream;
+    private final Gson gson;
+    private final Gson gsonWithNulls;
+    private final Gson reflectiveGson;
+    private final boolean prettyPrint;
+
+    /**
+     * @param configuration the runtime settings, the converters read the API version and the root URI from them.
+     */
+    public Serializers(final Configuration configuration) {
+        super();
+        this.xstream = xstream(configuration);
+        this.gson = gson(configuration, false);
+        this.gsonWithNulls = gson(configuration, true);
+        this.reflectiveGson = new GsonBuilder().setPrettyPrinting().create();
+        this.prettyPrint = configuration.getBoolean("api-pretty-print", false);
+    }
+
+    /**
+     * @return the serializers of the application, built from its configuration on the first call.
+     */
+    public static Serializers getInstance(final ServletContext context) {
+        final String name = Serializers.class.getName();
+        Serializers instance = (Serializers) context.getAttribute(name);
+        if (instance == null) {
+            synchronized (Serializers.class) {
+                instance = (Serializers) context.getAttribute(name);
+                if (instance == null) {
+                    final Configuration configuration = (Configuration) context.getAttribute(Configuration.class.getName());
+                    instance = new Serializers(configuration.subset("runtime-settings"));
+                    context.setAttribute(name, instance);
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static XStream xstream(final Configuration configuration) {
+        final XStream xstream = new XStream();
+        xstream.alias("RestcommResponse", RestCommResponse.class);
+        xstream.registerConverter(new AccountConverter(configuration));
+        xstream.registerConverter(new AccountListConverter(configuration));
+        xstream.registerConverter(new AnnouncementConverter(configuration));
+        xstream.registerConverter(new AnnouncementListConverter(configuration));
+        xstream.registerConverter(new ApplicationConverter(configuration));
+        xstream.registerConverter(new ApplicationListConverter(configuration));
+        xstream.registerConverter(new AvailableCountriesConverter(configuration));
+        xstream.registerConverter(new AvailablePhoneNumberConverter(configuration));
+        xstream.registerConverter(new AvailablePhoneNumberListConverter(configuration));
+        xstream.registerConverter(new CallDetailRecordConverter(configuration));
+        xstream.registerConverter(new CallDetailRecordListConverter(configuration));
+        xstream.registerConverter(new CallinfoConverter(configuration));
+        xstream.registerConverter(new ClientConverter(configuration));
+        xstream.registerConverter(new ClientListConverter(configuration));
+        xstream.registerConverter(new EmailMessageConverter(configuration));
+        xstream.registerConverter(new GatewayConverter(configuration));
+        xstream.registerConverter(new GatewayListConverter(configuration));
+        xstream.registerConverter(new IncomingPhoneNumberConverter(configuration));
+        xstream.registerConverter(new IncomingPhoneNumberListConverter(configuration));
+        xstream.registerConverter(new MonitoringServiceConverter(configuration));
+        xstream.registerConverter(new NotificationConverter(configuration));
+        xstream.registerConverter(new NotificationListConverter(configuration));
+        xstream.registerConverter(new OutgoingCallerIdConverter(configuration));
+        xstream.registerConverter(new OutgoingCallerIdListConverter(configuration));
+        xstream.registerConverter(new RecordingConverter(configuration));
+        xstream.registerConverter(new RecordingListConverter(configuration));
+        xstream.registerConverter(new SmsMessageConverter(configuration));
+        xstream.registerConverter(new SmsMessageListConverter(configuration));
+        xstream.registerConverter(new TranscriptionConverter(configuration));
+        xstream.registerConverter(new TranscriptionListConverter(configuration));
+        xstream.registerConverter(new UsageConverter(configuration));
+        xstream.registerConverter(new UsageListConverter(configuration));
+        xstream.registerConverter(new VersionConverter(configuration));
+        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        return xstream;
+    }
+
+    private static Gson gson(final Configuration configuration, final boolean serializeNulls) {
+        final GsonBuilder builder = new GsonBuilder();
+        if (serializeNulls) {
+            builder.serializeNulls();
+        }
+        builder.registerTypeAdapter(Account.class, new AccountConverter(configuration));
+        builder.registerTypeAdapter(Announcement.class, new AnnouncementConverter(configuration));
+        builder.registerTypeAdapter(Application.class, new ApplicationConverter(configuration));
+        builder.registerTypeAdapter(CallDetailRecord.class, new CallDetailRecordConverter(configuration));
+        builder.registerTypeAdapter(CallDetailRecordList.class, new CallDetailRecordListConverter(configuration));
+        builder.registerTypeAdapter(CallInfo.class, new CallinfoConverter(configuration));
+        builder.registerTypeAdapter(Client.class, new ClientConverter(configuration));
+        builder.registerTypeAdapter(Mail.class, new EmailMessageConverter(configuration));
+        builder.registerTypeAdapter(Gateway.class, new GatewayConverter(configuration));
+        builder.registerTypeAdapter(IncomingPhoneNumber.class, new IncomingPhoneNumberConverter(configuration));
+        builder.registerTypeAdapter(MonitoringServiceResponse.class, new MonitoringServiceConverter(configuration));
+        builder.registerTypeAdapter(Notification.class, new NotificationConverter(configuration));
+        builder.registerTypeAdapter(OutgoingCallerId.class, new OutgoingCallerIdConverter(configuration));
+        builder.registerTypeAdapter(Recording.class, new RecordingConverter(configuration));
+        builder.registerTypeAdapter(SmsMessage.class, new SmsMessageConverter(configuration));
+        builder.registerTypeAdapter(Transcription.class, new TranscriptionConverter(configuration));
+        builder.registerTypeAdapter(Usage.class, new UsageConverter(configuration));
+        builder.registerTypeAdapter(VersionEntity.class, new VersionConverter(configuration));
+        builder.setPrettyPrinting();
+        return builder.create();
+    }
+
+    public XStream xstream() {
+        return xstream;
+    }
+
+    /**
+     * @return the pretty printing Gson that writes the entities with their converters.
+     */
+    public Gson gson() {
+        return gson;
+    }
+
+    /**
+     * @return the same as {@link #gson()} but also writing the null fields.
+     */
+    public Gson gsonWithNulls() {
+        return gsonWithNulls;
+    }
+
+    /**
+     * @return a pretty printing Gson without any converter, for the responses written field by field.
+     */
+    public Gson reflectiveGson() {
+        return reflectiveGson;
+    }
+
+    /**
+     * @return the records of the listing as a JSON array, written with the converter of their type.
+     */
+    public <T> StreamingOutput toJson(final Type type, final Listing<T> listing) {
+        return new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                final JsonWriter writer = new JsonWriter(writer(output));
+                if (prettyPrint) {
+                    writer.setIndent("  ");
+                }
+                writer.beginArray();
+                read(listing, new RecordHandler<T>() {
+                    @Override
+                    public void handle(final T record) {
+                        gson.toJson(record, type, writer);
+                    }
+                });
+                writer.endArray();
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * @param node the name of the element holding the records in the RestcommResponse element.
+     * @return the records of the listing as an XML document, written with the converter of their type.
+     */
+    public <T> StreamingOutput toXml(final String node, final Listing<T> listing) {
+        return new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                final Writer out = writer(output);
+                final HierarchicalStreamWriter writer = prettyPrint ? new PrettyPrintWriter(out) : new CompactWriter(out);
+                final TreeMarshaller marshaller = new TreeMarshaller(writer, xstream.getConverterLookup(),
+                        xstream.getMapper());
+                writer.startNode("RestcommResponse");
+                writer.startNode(node);
+                read(listing, new RecordHandler<T>() {
+                    @Override
+                    public void handle(final T record) {
+                        marshaller.convertAnother(record);
+                    }
+                });
+                writer.endNode();
+                writer.endNode();
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * @return the records of the listing as newline delimited JSON, one compact object per line.
+     */
+    public <T> StreamingOutput toJsonLines(final Type type, final Listing<T> listing) {
+        return new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                final Writer writer = writer(output);
+                read(listing, new RecordHandler<T>() {
+                    @Override
+                    public void handle(final T record) {
+                        try {
+                            gson.toJson(gson.toJsonTree(record, type), writer);
+                            writer.write('\n');
+                        } catch (final IOException exception) {
+                            throw new JsonIOException(exception);
+                        }
+                    }
+                });
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * @param columns the fields of the JSON representation of the records written, in order, under a header row.
+     * @return the records of the listing as comma separated values.
+     */
+    public <T> StreamingOutput toCsv(final Type type, final String[] columns, final Listing<T> listing) {
+        return new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                final Writer writer = writer(output);
+                final String[] row = new String[columns.length];
+                writeRow(columns, writer);
+                read(listing, new RecordHandler<T>() {
+                    @Override
+                    public void handle(final T record) {
+                        final JsonObject object = gson.toJsonTree(record, type).getAsJsonObject();
+                        for (int index = 0; index < columns.length; index++) {
+                            final JsonElement value = object.get(columns[index]);
+                            row[index] = value == null || !value.isJsonPrimitive() ? null : value.getAsString();
+                        }
+                        try {
+                            writeRow(row, writer);
+                        } catch (final IOException exception) {
+                            throw new JsonIOException(exception);
+                        }
+                    }
+                });
+                writer.flush();
+            }
+        };
+    }
+
+    private static void writeRow(final String[] row, final Writer writer) throws IOException {
+        for (int index = 0; index < row.length; index++) {
+            if (index > 0) {
+                writer.write(',');
+            }
+            final String value = row[index];
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static Writer writer(final OutputStream output) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(output, "UTF-8"));
+    }
+
+    // The failures to write the response come back wrapped by the writers and the data store.
+    private static <T> void read(final Listing<T> listing, final RecordHandler<T> handler) throws IOException {
+        try {
+            listing.read(handler);
+        } catch (final RuntimeException exception) {
+            for (Throwable cause = exception.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            throw exception;
+        }
+    }
+}
@@ -28,7 +28,6 @@ import akka.actor.UntypedActorFactory;
 import akka.util.Timeout;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.i18n.phonenumbers.NumberParseException;
 import com.google.i18n.phonenumbers.PhoneNumberUtil;
 import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
@@ -38,12 +37,12 @@ import java.math.BigDecimal;
 import java.net.URI;
 import java.util.Currency;
 import java.util.Iterator;
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.MediaType;
 
 import static akka.pattern.Patterns.ask;
@@ -62,15 +61,12 @@ import org.joda.time.DateTime;
 import org.mobicents.servlet.restcomm.annotations.concurrency.NotThreadSafe;
 import org.mobicents.servlet.restcomm.dao.AccountsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
 import org.mobicents.servlet.restcomm.dao.SmsMessagesDao;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.entities.SmsMessage;
-import org.mobicents.servlet.restcomm.entities.SmsMessageList;
 import org.mobicents.servlet.restcomm.entities.SmsMessage.Status;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
-import org.mobicents.servlet.restcomm.http.converter.SmsMessageConverter;
-import org.mobicents.servlet.restcomm.http.converter.SmsMessageListConverter;
 import org.mobicents.servlet.restcomm.patterns.Observe;
 import org.mobicents.servlet.restcomm.sms.CreateSmsSession;
 import org.mobicents.servlet.restcomm.sms.SmsServiceResponse;
@@ -91,13 +87,18 @@ import scala.concurrent.duration.Duration;
 public abstract class SmsMessagesEndpoint extends AbstractEndpoint {
     @Context
     protected ServletContext context;
+    @Context
+    protected HttpServletRequest request;
     protected ActorSystem system;
     protected Configuration configuration;
     protected ActorRef aggregator;
     protected SmsMessagesDao dao;
     protected Gson gson;
     protected XStream xstream;
+    protected Serializers serializers;
+    protected ExportLimiter listings;
     protected AccountsDao accountsDao;
+    protected CreationLimiter limiter;
 
     private boolean normalizePhoneNumbers;
 
@@ -114,24 +115,19 @@ public abstract class SmsMessagesEndpoint extends AbstractEndpoint {
         accountsDao = storage.getAccountsDao();
         aggregator = (ActorRef) context.getAttribute("org.mobicents.servlet.restcomm.sms.SmsService");
         system = (ActorSystem) context.getAttribute(ActorSystem.class.getName());
+        limiter = CreationLimiter.getInstance("sms-messages");
         super.init(configuration);
-        final SmsMessageConverter converter = new SmsMessageConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(SmsMessage.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new SmsMessageListConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        serializers = Serializers.getInstance(context);
+        listings = ExportLimiter.getListingInstance();
+        gson = serializers.gson();
+        xstream = serializers.xstream();
 
         normalizePhoneNumbers = configuration.getBoolean("normalize-numbers-for-outbound-calls");
     }
 
     protected Response getSmsMessage(final String accountSid, final String sid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:SmsMessages");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:SmsMessages");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -157,17 +153,28 @@ public abstract class SmsMessagesEndpoint extends AbstractEndpoint {
 
     protected Response getSmsMessages(final String accountSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:SmsMessages");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:SmsMessages");
             secureLevelControl(accountsDao, accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
-        final List<SmsMessage> smsMessages = dao.getSmsMessages(new Sid(accountSid));
+        // The records are read while the response is written, holding a database connection until the last one.
+        final ExportLimiter.Permit permit = listings.acquire(accountSid);
+        if (permit == null) {
+            return listings.overloaded();
+        }
+        request.setAttribute(ExportPermitListener.PERMIT, permit);
+        final Sid account = new Sid(accountSid);
+        final Listing<SmsMessage> smsMessages = new Listing<SmsMessage>() {
+            @Override
+            public void read(final RecordHandler<SmsMessage> handler) {
+                dao.getSmsMessages(account, handler);
+            }
+        };
         if (APPLICATION_JSON_TYPE == responseType) {
-            return ok(gson.toJson(smsMessages), APPLICATION_JSON).build();
+            return ok(permit.hold(serializers.toJson(SmsMessage.class, smsMessages)), APPLICATION_JSON).build();
         } else if (APPLICATION_XML_TYPE == responseType) {
-            final RestCommResponse response = new RestCommResponse(new SmsMessageList(smsMessages));
-            return ok(xstream.toXML(response), APPLICATION_XML).build();
+            return ok(permit.hold(serializers.toXml("SMSMessages", smsMessages)), APPLICATION_XML).build();
         } else {
             return null;
         }
@@ -200,7 +207,7 @@ public abstract class SmsMessagesEndpoint extends AbstractEndpoint {
     protected Response putSmsMessage(final String accountSid, final MultivaluedMap<String, String> data,
             final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Create:SmsMessages");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Create:SmsMessages");
             secureLevelControl(accountsDao, accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
@@ -224,9 +231,12 @@ public abstract class SmsMessagesEndpoint extends AbstractEndpoint {
             }
         }
         final Timeout expires = new Timeout(Duration.create(60, TimeUnit.SECONDS));
+        if (!limiter.acquire()) {
+            return limiter.overloaded();
+        }
         try {
             Future<Object> future = (Future<Object>) ask(aggregator, new CreateSmsSession(), expires);
-            Object object = Await.result(future, Duration.create(10, TimeUnit.SECONDS));
+            Object object = Await.result(future, limiter.getTimeout());
             Class<?> klass = object.getClass();
             if (SmsServiceResponse.class.equals(klass)) {
                 final SmsServiceResponse<ActorRef> smsServiceResponse = (SmsServiceResponse<ActorRef>) object;
@@ -255,6 +265,8 @@ public abstract class SmsMessagesEndpoint extends AbstractEndpoint {
             return status(INTERNAL_SERVER_ERROR).build();
         } catch (final Exception exception) {
             return status(INTERNAL_SERVER_ERROR).entity(exception.getMessage()).build();
+        } finally {
+            limiter.release();
         }
     }
 
@@ -28,9 +28,13 @@ import static javax.ws.rs.core.MediaType.APPLICATION_XML_TYPE;
 import static javax.ws.rs.core.Response.ok;
 import static javax.ws.rs.core.Response.status;
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static javax.ws.rs.core.Response.Status.UNAUTHORIZED;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.text.ParseException;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
@@ -46,15 +50,13 @@ import org.apache.shiro.authz.AuthorizationException;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.entities.CallDetailRecordFilter;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
-import org.mobicents.servlet.restcomm.http.converter.CallinfoConverter;
-import org.mobicents.servlet.restcomm.http.converter.MonitoringServiceConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
-import org.mobicents.servlet.restcomm.telephony.CallInfo;
+import org.mobicents.servlet.restcomm.entities.shiro.AccountsCache;
+import org.mobicents.servlet.restcomm.http.client.RcmlCache;
+import org.mobicents.servlet.restcomm.metrics.PrometheusFormat;
 import org.mobicents.servlet.restcomm.telephony.GetLiveCalls;
 import org.mobicents.servlet.restcomm.telephony.MonitoringServiceResponse;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.telestax.servlet.MonitoringService;
 import com.thoughtworks.xstream.XStream;
 
@@ -76,7 +78,6 @@ public class SupervisorEndpoint extends AbstractEndpoint{
     protected Configuration configuration;
     private DaoManager daos;
     private Gson gson;
-    private GsonBuilder builder;
     private XStream xstream;
     private ActorRef monitoringService;
 
@@ -91,23 +92,14 @@ public class SupervisorEndpoint extends AbstractEndpoint{
         configuration = configuration.subset("runtime-settings");
         daos = (DaoManager) context.getAttribute(DaoManager.class.getName());
         super.init(configuration);
-        CallinfoConverter converter = new CallinfoConverter(configuration);
-        MonitoringServiceConverter listConverter = new MonitoringServiceConverter(configuration);
-        builder = new GsonBuilder();
-        builder.registerTypeAdapter(CallInfo.class, converter);
-        builder.registerTypeAdapter(MonitoringServiceResponse.class, listConverter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(listConverter);
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.gson();
+        xstream = serializers.xstream();
     }
 
     protected Response pong(final String accountSid, final MediaType responseType) {
         try {
-            secure(daos.getAccountsDao().getAccount(accountSid), "RestComm:Read:Calls");
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Read:Calls");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -131,7 +123,7 @@ public class SupervisorEndpoint extends AbstractEndpoint{
 
     protected Response getMetrics(final String accountSid, MediaType responseType) {
         try {
-            secure(daos.getAccountsDao().getAccount(accountSid), "RestComm:Read:Calls");
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Read:Calls");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -164,7 +156,7 @@ public class SupervisorEndpoint extends AbstractEndpoint{
     //Register a remote location where Restcomm will send monitoring updates
     protected Response registerForUpdates(final String accountSid, final MultivaluedMap<String, String> data, MediaType responseType) {
         try {
-            secure(daos.getAccountsDao().getAccount(accountSid), "RestComm:Read:Calls");
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Read:Calls");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -196,7 +188,7 @@ public class SupervisorEndpoint extends AbstractEndpoint{
     //Register a remote location where Restcomm will send monitoring updates for a specific Call
     protected Response registerForCallUpdates(final String accountSid, final String callSid, final MultivaluedMap<String, String> data, MediaType responseType) {
         try {
-            secure(daos.getAccountsDao().getAccount(accountSid), "RestComm:Read:Calls");
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Read:Calls");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -228,4 +220,75 @@ public class SupervisorEndpoint extends AbstractEndpoint{
             return null;
         }
     }
+
+    //Get the RCML cache hit ratio of an account
+    protected Response getRcmlCacheStatistics(final String accountSid, final MediaType responseType) {
+        try {
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Read:Applications");
+        } catch (final AuthorizationException exception) {
+            return status(UNAUTHORIZED).build();
+        }
+        final RcmlCache cache = RcmlCache.getInstance();
+        if (cache == null) {
+            return status(NOT_FOUND).entity("The RCML cache is disabled").build();
+        }
+        final Map<String, Long> statistics = cache.getStatistics(accountSid);
+        if (APPLICATION_JSON_TYPE == responseType) {
+            return ok(gson.toJson(statistics), APPLICATION_JSON).build();
+        } else {
+            return null;
+        }
+    }
+
+    //Get the hit ratio of the accounts cached to authenticate and authorize the REST API requests
+    protected Response getAuthCacheStatistics(final String accountSid, final MediaType responseType) {
+        try {
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Read:Accounts");
+        } catch (final AuthorizationException exception) {
+            return status(UNAUTHORIZED).build();
+        }
+        final Map<String, Long> statistics = AccountsCache.getInstance().getStatistics();
+        if (APPLICATION_JSON_TYPE == responseType) {
+            return ok(gson.toJson(statistics), APPLICATION_JSON).build();
+        } else {
+            return null;
+        }
+    }
+
+    //Get the call setup latencies and the statistics of the components in the Prometheus text format,
+    //read without asking the monitoring service so scraping never waits behind its mailbox
+    protected Response getPrometheusMetrics(final String accountSid) {
+        try {
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Read:Calls");
+        } catch (final AuthorizationException exception) {
+            return status(UNAUTHORIZED).build();
+        }
+        final StringWriter writer = new StringWriter();
+        try {
+            PrometheusFormat.write(writer);
+        } catch (final IOException exception) {
+            // Not thrown by a StringWriter.
+            throw new IllegalStateException(exception);
+        }
+        return ok(writer.toString(), PrometheusFormat.CONTENT_TYPE).build();
+    }
+
+    //Purge the cached RCML documents of an account, optionally only the ones downloaded from Url
+    protected Response purgeRcmlCache(final String accountSid, final String url, final MediaType responseType) {
+        try {
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Modify:Applications");
+        } catch (final AuthorizationException exception) {
+            return status(UNAUTHORIZED).build();
+        }
+        final RcmlCache cache = RcmlCache.getInstance();
+        if (cache == null) {
+            return status(NOT_FOUND).entity("The RCML cache is disabled").build();
+        }
+        final int purged = cache.purge(accountSid, url);
+        if (APPLICATION_JSON_TYPE == responseType) {
+            return ok(gson.toJson("Purged: " + purged), APPLICATION_JSON).build();
+        } else {
+            return null;
+        }
+    }
 }
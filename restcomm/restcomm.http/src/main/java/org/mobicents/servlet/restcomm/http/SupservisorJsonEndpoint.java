@@ -22,10 +22,12 @@ package org.mobicents.servlet.restcomm.http;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
 
+import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 
@@ -56,6 +58,13 @@ public class SupservisorJsonEndpoint extends SupervisorEndpoint{
         return getMetrics(accountSid, APPLICATION_JSON_TYPE);
     }
 
+    //Get the call setup latencies and the statistics of the components for Prometheus
+    @Path("/prometheus")
+    @GET
+    public Response getPrometheusMetrics(@PathParam("accountSid") final String accountSid) {
+        return super.getPrometheusMetrics(accountSid);
+    }
+
     //Register a remote location where Restcomm will send monitoring updates
     @Path("/remote")
     @POST
@@ -69,4 +78,25 @@ public class SupservisorJsonEndpoint extends SupervisorEndpoint{
     public Response registerForCallMetricsUpdates(@PathParam("accountSid") final String accountSid, @PathParam("sid") final String sid, final MultivaluedMap<String, String> data) {
         return registerForCallUpdates(accountSid, sid, data, APPLICATION_JSON_TYPE);
     }
+
+    //Get the RCML cache hit ratio of the account
+    @Path("/rcmlcache")
+    @GET
+    public Response getRcmlCacheStatistics(@PathParam("accountSid") final String accountSid) {
+        return getRcmlCacheStatistics(accountSid, APPLICATION_JSON_TYPE);
+    }
+
+    //Get the hit ratio of the accounts cached to authenticate and authorize the REST API requests
+    @Path("/authcache")
+    @GET
+    public Response getAuthCacheStatistics(@PathParam("accountSid") final String accountSid) {
+        return getAuthCacheStatistics(accountSid, APPLICATION_JSON_TYPE);
+    }
+
+    //Purge the cached RCML documents of the account
+    @Path("/rcmlcache")
+    @DELETE
+    public Response purgeRcmlCache(@PathParam("accountSid") final String accountSid, @QueryParam("Url") final String url) {
+        return purgeRcmlCache(accountSid, url, APPLICATION_JSON_TYPE);
+    }
 }
@@ -20,15 +20,14 @@
 package org.mobicents.servlet.restcomm.http;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 
-import java.util.List;
 
 import static javax.ws.rs.core.MediaType.*;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -41,14 +40,11 @@ import org.apache.shiro.authz.AuthorizationException;
 import org.mobicents.servlet.restcomm.annotations.concurrency.NotThreadSafe;
 import org.mobicents.servlet.restcomm.dao.AccountsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
+import org.mobicents.servlet.restcomm.dao.RecordHandler;
 import org.mobicents.servlet.restcomm.dao.TranscriptionsDao;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.entities.Transcription;
-import org.mobicents.servlet.restcomm.entities.TranscriptionList;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
-import org.mobicents.servlet.restcomm.http.converter.TranscriptionConverter;
-import org.mobicents.servlet.restcomm.http.converter.TranscriptionListConverter;
 
 /**
  * @author quintana.thomas@gmail.com (Thomas Quintana)
@@ -57,10 +53,14 @@ import org.mobicents.servlet.restcomm.http.converter.TranscriptionListConverter;
 public abstract class TranscriptionsEndpoint extends AbstractEndpoint {
     @Context
     protected ServletContext context;
+    @Context
+    protected HttpServletRequest request;
     protected Configuration configuration;
     protected TranscriptionsDao dao;
     protected Gson gson;
     protected XStream xstream;
+    protected Serializers serializers;
+    protected ExportLimiter listings;
     protected AccountsDao accountsDao;
 
     public TranscriptionsEndpoint() {
@@ -75,21 +75,15 @@ public abstract class TranscriptionsEndpoint extends AbstractEndpoint {
         super.init(configuration);
         dao = storage.getTranscriptionsDao();
         accountsDao = storage.getAccountsDao();
-        final TranscriptionConverter converter = new TranscriptionConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(Transcription.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new TranscriptionListConverter(configuration));
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        serializers = Serializers.getInstance(context);
+        listings = ExportLimiter.getListingInstance();
+        gson = serializers.gson();
+        xstream = serializers.xstream();
     }
 
     protected Response getTranscription(final String accountSid, final String sid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Transcriptions");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Transcriptions");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -115,17 +109,28 @@ public abstract class TranscriptionsEndpoint extends AbstractEndpoint {
 
     protected Response getTranscriptions(final String accountSid, final MediaType responseType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Transcriptions");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Transcriptions");
             secureLevelControl(accountsDao, accountSid, null);
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
-        final List<Transcription> transcriptions = dao.getTranscriptions(new Sid(accountSid));
+        // The records are read while the response is written, holding a database connection until the last one.
+        final ExportLimiter.Permit permit = listings.acquire(accountSid);
+        if (permit == null) {
+            return listings.overloaded();
+        }
+        request.setAttribute(ExportPermitListener.PERMIT, permit);
+        final Sid account = new Sid(accountSid);
+        final Listing<Transcription> transcriptions = new Listing<Transcription>() {
+            @Override
+            public void read(final RecordHandler<Transcription> handler) {
+                dao.getTranscriptions(account, handler);
+            }
+        };
         if (APPLICATION_JSON_TYPE == responseType) {
-            return ok(gson.toJson(transcriptions), APPLICATION_JSON).build();
+            return ok(permit.hold(serializers.toJson(Transcription.class, transcriptions)), APPLICATION_JSON).build();
         } else if (APPLICATION_XML_TYPE == responseType) {
-            final RestCommResponse response = new RestCommResponse(new TranscriptionList(transcriptions));
-            return ok(xstream.toXML(response), APPLICATION_XML).build();
+            return ok(permit.hold(serializers.toXml("Transcriptions", transcriptions)), APPLICATION_XML).build();
         } else {
             return null;
         }
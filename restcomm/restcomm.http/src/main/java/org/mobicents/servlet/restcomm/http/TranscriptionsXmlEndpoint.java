@@ -45,7 +45,7 @@ public final class TranscriptionsXmlEndpoint extends TranscriptionsEndpoint {
     @DELETE
     public Response deleteTranscription(@PathParam("accountSid") String accountSid, @PathParam("sid") String sid) {
         try {
-            secure(super.accountsDao.getAccount(accountSid), "RestComm:Delete:Transcriptions");
+            secure(getAccount(super.accountsDao, accountSid), "RestComm:Delete:Transcriptions");
             Transcription transcription = dao.getTranscription(new Sid(sid));
             if (transcription != null) {
                 secureLevelControl(accountsDao, accountSid, String.valueOf(transcription.getAccountSid()));
@@ -49,12 +49,8 @@ import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.entities.Usage;
 import org.mobicents.servlet.restcomm.entities.UsageList;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
-import org.mobicents.servlet.restcomm.http.converter.UsageConverter;
-import org.mobicents.servlet.restcomm.http.converter.UsageListConverter;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 
 /**
@@ -85,21 +81,14 @@ public abstract class UsageEndpoint extends AbstractEndpoint {
     super.init(configuration);
     dao = storage.getUsageDao();
     accountsDao = storage.getAccountsDao();
-    final UsageConverter converter = new UsageConverter(configuration);
-    final GsonBuilder builder = new GsonBuilder();
-    builder.registerTypeAdapter(Usage.class, converter);
-    builder.setPrettyPrinting();
-    gson = builder.create();
-    xstream = new XStream();
-    xstream.alias("RestcommResponse", RestCommResponse.class);
-    xstream.registerConverter(converter);
-    xstream.registerConverter(new UsageListConverter(configuration));
-    xstream.registerConverter(new RestCommResponseConverter(configuration));
+    final Serializers serializers = Serializers.getInstance(context);
+    gson = serializers.gson();
+    xstream = serializers.xstream();
   }
 
   protected Response getUsage(final String accountSid, final String subresource, UriInfo info, final MediaType responseType) {
     try {
-      secure(accountsDao.getAccount(accountSid), "RestComm:Read:Usage");
+      secure(getAccount(accountsDao, accountSid), "RestComm:Read:Usage");
     } catch (final AuthorizationException exception) {
       return status(UNAUTHORIZED).build();
     }
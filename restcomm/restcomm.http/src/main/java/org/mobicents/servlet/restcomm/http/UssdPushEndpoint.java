@@ -44,12 +44,8 @@ import org.apache.commons.configuration.Configuration;
 import org.apache.shiro.authz.AuthorizationException;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.entities.CallDetailRecord;
-import org.mobicents.servlet.restcomm.entities.CallDetailRecordList;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
 import org.mobicents.servlet.restcomm.entities.Sid;
-import org.mobicents.servlet.restcomm.http.converter.CallDetailRecordConverter;
-import org.mobicents.servlet.restcomm.http.converter.CallDetailRecordListConverter;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
 import org.mobicents.servlet.restcomm.telephony.CallInfo;
 import org.mobicents.servlet.restcomm.telephony.CallManagerResponse;
 import org.mobicents.servlet.restcomm.telephony.CallResponse;
@@ -64,7 +60,6 @@ import akka.actor.ActorRef;
 import akka.util.Timeout;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 
 /**
@@ -79,9 +74,7 @@ public class UssdPushEndpoint extends AbstractEndpoint {
     private ActorRef ussdCallManager;
     private DaoManager daos;
     private Gson gson;
-    private GsonBuilder builder;
     private XStream xstream;
-    private CallDetailRecordListConverter listConverter;
 
     public UssdPushEndpoint() {
         super();
@@ -94,25 +87,16 @@ public class UssdPushEndpoint extends AbstractEndpoint {
         ussdCallManager = (ActorRef) context.getAttribute("org.mobicents.servlet.restcomm.ussd.telephony.UssdCallManager");
         daos = (DaoManager) context.getAttribute(DaoManager.class.getName());
         super.init(configuration);
-        CallDetailRecordConverter converter = new CallDetailRecordConverter(configuration);
-        listConverter = new CallDetailRecordListConverter(configuration);
-        builder = new GsonBuilder();
-        builder.registerTypeAdapter(CallDetailRecord.class, converter);
-        builder.registerTypeAdapter(CallDetailRecordList.class, listConverter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
-        xstream.registerConverter(listConverter);
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.gson();
+        xstream = serializers.xstream();
     }
 
     @SuppressWarnings("unchecked")
     protected Response putCall(final String accountSid, final MultivaluedMap<String, String> data, final MediaType responseType) {
         final Sid accountId = new Sid(accountSid);
         try {
-            secure(daos.getAccountsDao().getAccount(accountSid), "RestComm:Create:Calls");
+            secure(getAccount(daos.getAccountsDao(), accountSid), "RestComm:Create:Calls");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
@@ -21,7 +21,6 @@
 package org.mobicents.servlet.restcomm.http;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.xstream.XStream;
 import org.apache.commons.configuration.Configuration;
 import org.apache.log4j.Logger;
@@ -33,8 +32,6 @@ import org.mobicents.servlet.restcomm.dao.AccountsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.dao.UsageDao;
 import org.mobicents.servlet.restcomm.entities.RestCommResponse;
-import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
-import org.mobicents.servlet.restcomm.http.converter.VersionConverter;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.ServletContext;
@@ -71,20 +68,14 @@ public class VersionEndpoint extends AbstractEndpoint {
         super.init(configuration);
         dao = storage.getUsageDao();
         accountsDao = storage.getAccountsDao();
-        final VersionConverter converter = new VersionConverter(configuration);
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(VersionEntity.class, converter);
-        builder.setPrettyPrinting();
-        gson = builder.create();
-        xstream = new XStream();
-        xstream.alias("RestcommResponse", RestCommResponse.class);
-        xstream.registerConverter(converter);
-        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        final Serializers serializers = Serializers.getInstance(context);
+        gson = serializers.gson();
+        xstream = serializers.xstream();
     }
 
     protected Response getVersion(final String accountSid, final MediaType mediaType) {
         try {
-            secure(accountsDao.getAccount(accountSid), "RestComm:Read:Usage");
+            secure(getAccount(accountsDao, accountSid), "RestComm:Read:Usage");
         } catch (final AuthorizationException exception) {
             return status(UNAUTHORIZED).build();
         }
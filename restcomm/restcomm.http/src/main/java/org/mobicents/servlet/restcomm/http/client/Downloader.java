@@ -24,7 +24,14 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayDeque;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
@@ -38,21 +45,22 @@ import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.client.params.ClientPNames;
-import org.apache.http.client.params.CookiePolicy;
+import org.apache.http.client.protocol.ClientContext;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
+import org.mobicents.servlet.restcomm.configuration.sets.MainConfigurationSet;
 import org.mobicents.servlet.restcomm.http.CustomHttpClientBuilder;
+import org.mobicents.servlet.restcomm.metrics.LatencyHistogram;
+import org.mobicents.servlet.restcomm.metrics.Metrics;
 
 import akka.actor.ActorRef;
 import akka.actor.UntypedActor;
 import akka.event.Logging;
 import akka.event.LoggingAdapter;
-import org.xml.sax.InputSource;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.stream.XMLStreamException;
 
 /**
  * @author quintana.thomas@gmail.com (Thomas Quintana)
@@ -62,27 +70,76 @@ public final class Downloader extends UntypedActor {
     // Logger.
     private final LoggingAdapter logger = Logging.getLogger(getContext().system(), this);
 
+    private static final LatencyHistogram DOWNLOADS = Metrics.timer("rcml.download");
+
+    // Shared by all the downloaders when running in async mode.
+    private static volatile ExecutorService sharedExecutor;
+
+    private final ExecutorService executor;
+    private final Queue<PendingRequest> pending;
+    private boolean busy;
+
     public Downloader() {
         super();
+        final MainConfigurationSet config = RestcommConfiguration.isInitialized() ? RestcommConfiguration.getInstance()
+                .getMain() : null;
+        this.executor = (config != null && config.isAsync()) ? executor(config.getAsyncThreads()) : null;
+        this.pending = new ArrayDeque<PendingRequest>();
+        this.busy = false;
+    }
+
+    private static ExecutorService executor(final int threads) {
+        ExecutorService result = sharedExecutor;
+        if (result == null) {
+            synchronized (Downloader.class) {
+                result = sharedExecutor;
+                if (result == null) {
+                    final AtomicInteger count = new AtomicInteger();
+                    result = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable runnable) {
+                            final Thread thread = new Thread(runnable, "restcomm-downloader-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    sharedExecutor = result;
+                }
+            }
+        }
+        return result;
     }
 
     public HttpResponseDescriptor fetch(final HttpRequestDescriptor descriptor) throws IllegalArgumentException, IOException,
-            URISyntaxException, XMLStreamException {
+            URISyntaxException {
+        final RcmlCache cache = RcmlCache.accepts(descriptor) ? RcmlCache.getInstance() : null;
+        final RcmlCache.Entry cached = cache != null ? cache.get(descriptor) : null;
+        if (cached != null && cached.isFresh()) {
+            cache.hit(descriptor);
+            return cached.response();
+        }
         int code = -1;
         HttpRequest request = null;
         HttpResponse response = null;
         HttpRequestDescriptor temp = descriptor;
+        // The client is shared so keep cookies private to this fetch.
+        final HttpClient client = CustomHttpClientBuilder.buildDefault();
+        final HttpContext context = new BasicHttpContext();
+        context.setAttribute(ClientContext.COOKIE_STORE, new BasicCookieStore());
         do {
-            final HttpClient client = CustomHttpClientBuilder.build(RestcommConfiguration.getInstance().getMain());
-            client.getParams().setParameter(ClientPNames.COOKIE_POLICY, CookiePolicy.BROWSER_COMPATIBILITY);
 //            client.getParams().setParameter("http.protocol.content-charset", "UTF-8");
             request = request(temp);
+            if (cached != null && cached.hasValidator()) {
+                cached.validate((HttpUriRequest) request);
+            }
 //            request.setHeader(CoreProtocolPNames.HTTP_CONTENT_CHARSET, Consts.UTF_8.name());
-            response = client.execute((HttpUriRequest) request);
+            response = client.execute((HttpUriRequest) request, context);
             code = response.getStatusLine().getStatusCode();
             if (isRedirect(code)) {
                 final Header header = response.getFirstHeader(HttpHeaders.LOCATION);
                 if (header != null) {
+                    // Release the connection back to the pool before following the redirect.
+                    EntityUtils.consume(response.getEntity());
                     final String location = header.getValue();
                     final URI uri = URI.create(location);
                     temp = new HttpRequestDescriptor(uri, temp.getMethod(), temp.getParameters());
@@ -92,6 +149,11 @@ public final class Downloader extends UntypedActor {
                 }
             }
         } while (isRedirect(code));
+        if (cached != null && HttpStatus.SC_NOT_MODIFIED == code) {
+            EntityUtils.consume(response.getEntity());
+            cache.revalidated(descriptor, cached, response);
+            return cached.response();
+        }
         if (isHttpError(code)) {
             String requestUrl = request.getRequestLine().getUri();
             String errorReason = response.getStatusLine().getReasonPhrase();
@@ -100,7 +162,23 @@ public final class Downloader extends UntypedActor {
                     code, errorReason);
             logger.warning(httpErrorMessage);
         }
-        return  validateXML(response(request, response));
+        final HttpEntity entity = response.getEntity();
+        // Buffer the content so the pooled connection is released right away.
+        final byte[] content = entity != null ? EntityUtils.toByteArray(entity) : null;
+        // The RCML is validated by the interpreter's parser, in the same pass that builds the document.
+        final HttpResponseDescriptor result = response(request, response, content);
+        if (cache != null) {
+            cache.miss(descriptor);
+            if (HttpStatus.SC_OK == code) {
+                final RcmlCache.Entry entry = cache.put(descriptor, result, response, content);
+                if (entry != null) {
+                    return entry.response();
+                }
+            } else {
+                cache.remove(descriptor);
+            }
+        }
+        return result;
     }
 
     private boolean isRedirect(final int code) {
@@ -112,21 +190,6 @@ public final class Downloader extends UntypedActor {
         return (code >= 400);
     }
 
-    private HttpResponseDescriptor validateXML (final HttpResponseDescriptor descriptor) throws XMLStreamException {
-        if (descriptor.getContentLength() > 0) {
-            try {
-                // parse an XML document into a DOM tree
-                String xml = descriptor.getContentAsString().trim().replaceAll("&([^;]+(?!(?:\\w|;)))", "&amp;$1");
-                DocumentBuilder parser = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-                parser.parse(new InputSource(new ByteArrayInputStream(xml.getBytes("utf-8"))));
-                return descriptor;
-            } catch (final Exception e) {
-                throw new XMLStreamException("Error parsing the RCML:" + e);
-            }
-        }
-        return descriptor;
-    }
-
     @Override
     public void onReceive(final Object message) throws Exception {
         final Class<?> klass = message.getClass();
@@ -135,15 +198,80 @@ public final class Downloader extends UntypedActor {
         if (HttpRequestDescriptor.class.equals(klass)) {
             final HttpRequestDescriptor request = (HttpRequestDescriptor) message;
             logger.debug("New HttpRequestDescriptor, method: "+request.getMethod()+" URI: "+request.getUri()+" parameters: "+request.getParametersAsString());
-            DownloaderResponse response = null;
-            try {
-                response = new DownloaderResponse(fetch(request));
-            } catch (final Exception exception) {
-                logger.info("Exception while trying to download RCML, exception: "+exception);
-                response = new DownloaderResponse(exception, "Exception while trying to download RCML");
+            if (executor == null) {
+                final DownloaderResponse response = download(request);
+                if (sender != null) {
+                    sender.tell(response, self);
+                }
+            } else {
+                pending.add(new PendingRequest(request, sender));
+                if (!busy) {
+                    next(self);
+                }
             }
-            if (sender != null) {
-                sender.tell(response, self);
+        } else if (DownloadCompleted.class.equals(klass)) {
+            busy = false;
+            next(self);
+        }
+    }
+
+    private DownloaderResponse download(final HttpRequestDescriptor request) {
+        final long start = System.nanoTime();
+        DownloaderResponse response = null;
+        try {
+            response = new DownloaderResponse(fetch(request));
+        } catch (final Exception exception) {
+            logger.info("Exception while trying to download RCML, exception: "+exception);
+            response = new DownloaderResponse(exception, "Exception while trying to download RCML");
+        }
+        DOWNLOADS.recordSince(start);
+        return response;
+    }
+
+    // Requests are fetched one at a time, in the order they were received, to preserve the ordering
+    // the interpreters rely on (i.e. status callbacks).
+    private void next(final ActorRef self) {
+        final PendingRequest next = pending.poll();
+        if (next == null) {
+            return;
+        }
+        busy = true;
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final DownloaderResponse response = download(next.request);
+                    if (next.sender != null) {
+                        next.sender.tell(response, self);
+                    }
+                    self.tell(DownloadCompleted.INSTANCE, self);
+                }
+            });
+        } catch (final RejectedExecutionException exception) {
+            // The executor is shut down, nothing queued behind this request would ever run either.
+            busy = false;
+            fail(next, exception, self);
+            PendingRequest queued = null;
+            while ((queued = pending.poll()) != null) {
+                fail(queued, exception, self);
+            }
+        }
+    }
+
+    private void fail(final PendingRequest request, final Exception exception, final ActorRef self) {
+        if (request.sender != null) {
+            request.sender.tell(new DownloaderResponse(exception, "Exception while trying to download RCML"), self);
+        }
+    }
+
+    /**
+     * Stops the threads shared by the downloaders running in async mode, to be called once the actors are stopped.
+     */
+    public static void shutdown() {
+        synchronized (Downloader.class) {
+            if (sharedExecutor != null) {
+                sharedExecutor.shutdownNow();
+                sharedExecutor = null;
             }
         }
     }
@@ -177,7 +305,8 @@ public final class Downloader extends UntypedActor {
         }
     }
 
-    private HttpResponseDescriptor response(final HttpRequest request, final HttpResponse response) throws IOException {
+    private HttpResponseDescriptor response(final HttpRequest request, final HttpResponse response, final byte[] content)
+            throws IOException {
         final HttpResponseDescriptor.Builder builder = HttpResponseDescriptor.builder();
         final URI uri = URI.create(request.getRequestLine().getUri());
         builder.setURI(uri);
@@ -194,7 +323,7 @@ public final class Downloader extends UntypedActor {
             if (contentType != null) {
                 builder.setContentType(contentType.getValue());
             }
-            builder.setContent(entity.getContent());
+            builder.setContent(new ByteArrayInputStream(content));
             builder.setContentLength(entity.getContentLength());
             builder.setIsChunked(entity.isChunked());
         }
@@ -206,4 +335,19 @@ public final class Downloader extends UntypedActor {
         logger.debug("Downloader at post stop");
         super.postStop();
     }
+
+    private static final class PendingRequest {
+        private final HttpRequestDescriptor request;
+        private final ActorRef sender;
+
+        private PendingRequest(final HttpRequestDescriptor request, final ActorRef sender) {
+            super();
+            this.request = request;
+            this.sender = sender;
+        }
+    }
+
+    private static final class DownloadCompleted {
+        private static final DownloadCompleted INSTANCE = new DownloadCompleted();
+    }
 }
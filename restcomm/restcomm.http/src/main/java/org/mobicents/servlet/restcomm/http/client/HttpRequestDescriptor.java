@@ -38,11 +38,19 @@ public final class HttpRequestDescriptor {
     private final URI uri;
     private final String method;
     private final List<NameValuePair> parameters;
+    // Whether the request fetches the RCML of an application, as opposed to a callback or an action.
+    private final boolean application;
 
     public HttpRequestDescriptor(final URI uri, final String method, final List<NameValuePair> parameters) {
+        this(uri, method, parameters, false);
+    }
+
+    public HttpRequestDescriptor(final URI uri, final String method, final List<NameValuePair> parameters,
+            final boolean application) {
         super();
         this.uri = base(uri);
         this.method = method;
+        this.application = application;
         if (parameters != null) {
             this.parameters = parameters;
         } else {
@@ -92,4 +100,8 @@ public final class HttpRequestDescriptor {
     public URI getUri() {
         return uri;
     }
+
+    public boolean isApplication() {
+        return application;
+    }
 }
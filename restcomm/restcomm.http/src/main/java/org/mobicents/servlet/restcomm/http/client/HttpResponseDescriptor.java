@@ -43,12 +43,13 @@ public final class HttpResponseDescriptor {
     private final String contentType;
     private final boolean isChunked;
     private final Header[] headers;
+    private final RcmlCache.Entry cacheEntry;
 
     private volatile String buffer;
 
     private HttpResponseDescriptor(final URI uri, final int statusCode, final String statusDescription,
             final InputStream content, final long contentLength, final String contentEncoding, final String contentType,
-            final boolean isChunked, final Header[] headers) {
+            final boolean isChunked, final Header[] headers, final RcmlCache.Entry cacheEntry) {
         super();
         this.uri = uri;
         this.statusCode = statusCode;
@@ -59,6 +60,7 @@ public final class HttpResponseDescriptor {
         this.contentType = contentType;
         this.isChunked = isChunked;
         this.headers = headers;
+        this.cacheEntry = cacheEntry;
     }
 
     public int getStatusCode() {
@@ -114,6 +116,13 @@ public final class HttpResponseDescriptor {
         return uri;
     }
 
+    /**
+     * @return the RCML cache entry holding this response or null if the response was not cached.
+     */
+    public RcmlCache.Entry getCacheEntry() {
+        return cacheEntry;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -128,6 +137,7 @@ public final class HttpResponseDescriptor {
         private String contentType;
         private boolean isChunked;
         private Header[] headers;
+        private RcmlCache.Entry cacheEntry;
 
         private Builder() {
             super();
@@ -135,7 +145,7 @@ public final class HttpResponseDescriptor {
 
         public HttpResponseDescriptor build() {
             return new HttpResponseDescriptor(uri, statusCode, statusDescription, content, contentLength, contentEncoding,
-                    contentType, isChunked, headers);
+                    contentType, isChunked, headers, cacheEntry);
         }
 
         public void setStatusCode(final int statusCode) {
@@ -173,5 +183,9 @@ public final class HttpResponseDescriptor {
         public void setURI(final URI uri) {
             this.uri = uri;
         }
+
+        public void setCacheEntry(final RcmlCache.Entry cacheEntry) {
+            this.cacheEntry = cacheEntry;
+        }
     }
 }
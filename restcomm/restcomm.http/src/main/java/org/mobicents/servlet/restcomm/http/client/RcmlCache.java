@@ -0,0 +1,424 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package org.mobicents.servlet.restcomm.http.client;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.impl.cookie.DateParseException;
+import org.apache.http.impl.cookie.DateUtils;
+import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
+import org.mobicents.servlet.restcomm.configuration.sets.MainConfigurationSet;
+
+/**
+ * A size bounded cache of RCML documents keyed by URL, method and request parameters.
+ *
+ * Entries are only stored when the application server allows it through the Cache-Control, Expires, ETag or
+ * Last-Modified response headers. Stale entries carrying a validator are revalidated with a conditional request
+ * instead of being downloaded again. Each entry may also hold the parsed form of the document so that the
+ * interpreters do not parse the same RCML on every call.
+ */
+@ThreadSafe
+public final class RcmlCache {
+    private static final Logger logger = Logger.getLogger(RcmlCache.class);
+    private static final String UNKNOWN_ACCOUNT = "unknown";
+
+    private static volatile RcmlCache instance;
+    private static volatile boolean initialized;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Set<String> ignoredParameters;
+    // Access ordered so that iteration starts from the least recently used entry.
+    private final LinkedHashMap<String, Entry> entries;
+    private long bytes;
+    private final ConcurrentMap<String, Statistics> statistics;
+
+    public RcmlCache(final int maxEntries, final long maxBytes, final String[] ignoredParameters) {
+        super();
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ignoredParameters = new HashSet<String>(Arrays.asList(ignoredParameters));
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        this.bytes = 0;
+        this.statistics = new ConcurrentHashMap<String, Statistics>();
+    }
+
+    /**
+     * @return the cache shared by all the downloaders or null if caching is disabled in restcomm.xml.
+     */
+    public static RcmlCache getInstance() {
+        if (!initialized) {
+            synchronized (RcmlCache.class) {
+                if (!initialized) {
+                    if (!RestcommConfiguration.isInitialized()) {
+                        return null;
+                    }
+                    final MainConfigurationSet config = RestcommConfiguration.getInstance().getMain();
+                    if (config.isRcmlCacheEnabled()) {
+                        instance = new RcmlCache(config.getRcmlCacheMaxEntries(), config.getRcmlCacheMaxBytes(),
+                                config.getRcmlCacheIgnoredParameters());
+                        logger.info("RCML cache enabled, max entries: " + config.getRcmlCacheMaxEntries() + " max bytes: "
+                                + config.getRcmlCacheMaxBytes());
+                    }
+                    initialized = true;
+                }
+            }
+        }
+        return instance;
+    }
+
+    public String key(final HttpRequestDescriptor request) {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append(request.getMethod().toUpperCase()).append(" ").append(request.getUri());
+        final List<NameValuePair> parameters = request.getParameters();
+        boolean first = true;
+        for (final NameValuePair parameter : parameters) {
+            if (ignoredParameters.contains(parameter.getName())) {
+                continue;
+            }
+            buffer.append(first ? "?" : "&");
+            buffer.append(URLEncodedUtils.format(Arrays.asList(parameter), "UTF-8"));
+            first = false;
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Only the GET requests fetching the RCML of an application are cached, the callbacks and the actions must always
+     * reach the application server.
+     */
+    public static boolean accepts(final HttpRequestDescriptor request) {
+        return request.isApplication() && "GET".equalsIgnoreCase(request.getMethod());
+    }
+
+    public Entry get(final HttpRequestDescriptor request) {
+        final String key = key(request);
+        synchronized (this) {
+            return entries.get(key);
+        }
+    }
+
+    public void hit(final HttpRequestDescriptor request) {
+        statistics(account(request)).hits.incrementAndGet();
+    }
+
+    public void revalidated(final HttpRequestDescriptor request, final Entry entry, final HttpResponse response) {
+        statistics(account(request)).revalidations.incrementAndGet();
+        entry.refresh(response);
+    }
+
+    public void miss(final HttpRequestDescriptor request) {
+        statistics(account(request)).misses.incrementAndGet();
+    }
+
+    /**
+     * Stores a downloaded document if the response headers allow it, otherwise forgets any previous document of the
+     * request so a stale copy is not revalidated or served again.
+     *
+     * @return the new entry or null if the response is not cacheable.
+     */
+    public Entry put(final HttpRequestDescriptor request, final HttpResponseDescriptor descriptor, final HttpResponse response,
+            final byte[] content) {
+        if (content == null || content.length > maxBytes || !Entry.isCacheable(response)) {
+            remove(request);
+            return null;
+        }
+        final Entry entry = new Entry(key(request), account(request), request.getUri().toString(), descriptor, content);
+        entry.refresh(response);
+        synchronized (this) {
+            final Entry previous = entries.put(entry.key, entry);
+            if (previous != null) {
+                bytes -= previous.content.length;
+            }
+            bytes += content.length;
+            evict();
+        }
+        return entry;
+    }
+
+    public synchronized void remove(final HttpRequestDescriptor request) {
+        final Entry previous = entries.remove(key(request));
+        if (previous != null) {
+            bytes -= previous.content.length;
+        }
+    }
+
+    // Must be called while holding the lock.
+    private void evict() {
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext() && (entries.size() > maxEntries || bytes > maxBytes)) {
+            final Entry eldest = iterator.next();
+            bytes -= eldest.content.length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Removes the cached documents of an account.
+     *
+     * @param accountSid the account owning the documents.
+     * @param url if not null only the documents downloaded from this url are removed.
+     * @return the number of entries removed.
+     */
+    public synchronized int purge(final String accountSid, final String url) {
+        int count = 0;
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            if (entry.account.equals(accountSid) && (url == null || url.equals(entry.uri))) {
+                bytes -= entry.content.length;
+                iterator.remove();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the hits, revalidations, misses and hit ratio (percentage) of an account.
+     */
+    public Map<String, Long> getStatistics(final String accountSid) {
+        final Statistics counters = statistics(accountSid);
+        final long hits = counters.hits.get();
+        final long revalidations = counters.revalidations.get();
+        final long misses = counters.misses.get();
+        final long total = hits + revalidations + misses;
+        final Map<String, Long> result = new HashMap<String, Long>();
+        result.put("Hits", hits);
+        result.put("Revalidations", revalidations);
+        result.put("Misses", misses);
+        result.put("HitRatio", total == 0 ? 0 : ((hits + revalidations) * 100) / total);
+        return result;
+    }
+
+    public Map<String, Long> getTotals() {
+        long hits = 0;
+        long revalidations = 0;
+        long misses = 0;
+        for (final Statistics counters : statistics.values()) {
+            hits += counters.hits.get();
+            revalidations += counters.revalidations.get();
+            misses += counters.misses.get();
+        }
+        final Map<String, Long> result = new HashMap<String, Long>();
+        result.put("Hits", hits);
+        result.put("Revalidations", revalidations);
+        result.put("Misses", misses);
+        result.put("Entries", (long) size());
+        result.put("Bytes", bytes());
+        return result;
+    }
+
+    private String account(final HttpRequestDescriptor request) {
+        for (final NameValuePair parameter : request.getParameters()) {
+            if ("AccountSid".equals(parameter.getName())) {
+                return parameter.getValue();
+            }
+        }
+        return UNKNOWN_ACCOUNT;
+    }
+
+    private Statistics statistics(final String accountSid) {
+        Statistics counters = statistics.get(accountSid);
+        if (counters == null) {
+            final Statistics created = new Statistics();
+            counters = statistics.putIfAbsent(accountSid, created);
+            if (counters == null) {
+                counters = created;
+            }
+        }
+        return counters;
+    }
+
+    private static final class Statistics {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong revalidations = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+    }
+
+    @ThreadSafe
+    public static final class Entry {
+        private final String key;
+        private final String account;
+        private final String uri;
+        private final HttpResponseDescriptor template;
+        private final byte[] content;
+        private final String etag;
+        private final String lastModified;
+        private volatile long expires;
+        private volatile Object document;
+
+        private Entry(final String key, final String account, final String uri, final HttpResponseDescriptor template,
+                final byte[] content) {
+            super();
+            this.key = key;
+            this.account = account;
+            this.uri = uri;
+            this.template = template;
+            this.content = content;
+            this.etag = header(template.getHeaders(), HttpHeaders.ETAG);
+            this.lastModified = header(template.getHeaders(), HttpHeaders.LAST_MODIFIED);
+        }
+
+        private static String header(final Header[] headers, final String name) {
+            if (headers != null) {
+                for (final Header header : headers) {
+                    if (name.equalsIgnoreCase(header.getName())) {
+                        return header.getValue();
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static boolean isCacheable(final HttpResponse response) {
+            final Header cacheControl = response.getFirstHeader(HttpHeaders.CACHE_CONTROL);
+            if (cacheControl != null) {
+                for (final HeaderElement element : cacheControl.getElements()) {
+                    if ("no-store".equalsIgnoreCase(element.getName())) {
+                        return false;
+                    }
+                }
+            }
+            return cacheControl != null || response.containsHeader(HttpHeaders.EXPIRES)
+                    || response.containsHeader(HttpHeaders.ETAG) || response.containsHeader(HttpHeaders.LAST_MODIFIED);
+        }
+
+        // Computes the freshness lifetime from a 200 or 304 response.
+        private void refresh(final HttpResponse response) {
+            final long now = System.currentTimeMillis();
+            long lifetime = 0;
+            final Header cacheControl = response.getFirstHeader(HttpHeaders.CACHE_CONTROL);
+            boolean explicit = false;
+            if (cacheControl != null) {
+                for (final HeaderElement element : cacheControl.getElements()) {
+                    final String name = element.getName();
+                    if ("no-cache".equalsIgnoreCase(name)) {
+                        lifetime = 0;
+                        explicit = true;
+                        break;
+                    } else if ("max-age".equalsIgnoreCase(name) && element.getValue() != null) {
+                        try {
+                            lifetime = TimeUnit.SECONDS.toMillis(Long.parseLong(element.getValue().trim()));
+                            explicit = true;
+                        } catch (final NumberFormatException ignored) {
+                            // Treat a malformed max-age as already stale.
+                        }
+                    }
+                }
+            }
+            if (!explicit) {
+                final Header expiresHeader = response.getFirstHeader(HttpHeaders.EXPIRES);
+                if (expiresHeader != null) {
+                    try {
+                        lifetime = DateUtils.parseDate(expiresHeader.getValue()).getTime() - now;
+                    } catch (final DateParseException ignored) {
+                        // An invalid date means the response is already expired.
+                    }
+                }
+            }
+            expires = now + Math.max(0, lifetime);
+        }
+
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expires;
+        }
+
+        public boolean hasValidator() {
+            return etag != null || lastModified != null;
+        }
+
+        /**
+         * Turns a request for this entry in to a conditional request.
+         */
+        public void validate(final HttpUriRequest request) {
+            if (etag != null) {
+                request.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+        }
+
+        /**
+         * @return a new response descriptor with the cached content.
+         */
+        public HttpResponseDescriptor response() {
+            final HttpResponseDescriptor.Builder builder = HttpResponseDescriptor.builder();
+            builder.setURI(template.getURI());
+            builder.setStatusCode(template.getStatusCode());
+            builder.setStatusDescription(template.getStatusDescription());
+            builder.setHeaders(template.getHeaders());
+            builder.setContentEncoding(template.getContentEncoding());
+            builder.setContentType(template.getContentType());
+            builder.setContent(new ByteArrayInputStream(content));
+            builder.setContentLength(template.getContentLength());
+            builder.setIsChunked(template.isChunked());
+            builder.setCacheEntry(this);
+            return builder.build();
+        }
+
+        /**
+         * @return the parsed form of the document, if any.
+         */
+        public Object getDocument() {
+            return document;
+        }
+
+        public void setDocument(final Object document) {
+            this.document = document;
+        }
+    }
+}
@@ -170,7 +170,11 @@ public abstract class AbstractConverter implements Converter {
     }
 
     protected void writePrice(final BigDecimal price, final JsonObject object) {
-        object.addProperty("price", price.toString());
+        if (price != null) {
+            object.addProperty("price", price.toString());
+        } else {
+            object.add("price", JsonNull.INSTANCE);
+        }
     }
 
     protected void writePriceUnit(final Currency priceUnit, final HierarchicalStreamWriter writer) {
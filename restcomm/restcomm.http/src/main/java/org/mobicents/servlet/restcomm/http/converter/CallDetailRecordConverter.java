@@ -109,6 +109,7 @@ public final class CallDetailRecordConverter extends AbstractConverter implement
         writeStartTime(cdr.getStartTime(), object);
         writeEndTime(cdr.getEndTime(), object);
         writeDuration(cdr.getDuration(), object);
+        writePrice(cdr.getPrice(), object);
         writePriceUnit(cdr.getPriceUnit(), object);
         writeDirection(cdr.getDirection(), object);
         writeAnsweredBy(cdr.getAnsweredBy(), object);
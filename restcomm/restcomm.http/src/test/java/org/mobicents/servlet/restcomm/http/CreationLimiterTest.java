@@ -0,0 +1,88 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Executor;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.Test;
+
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.Promise;
+import akka.dispatch.ExecutionContexts;
+import akka.dispatch.Futures;
+
+public final class CreationLimiterTest {
+    // Runs the callbacks on the thread completing the future.
+    private static final ExecutionContext SAME_THREAD = ExecutionContexts.fromExecutor(new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    });
+
+    public CreationLimiterTest() {
+        super();
+    }
+
+    @Test
+    public void testCreationsAreRefusedOnceTheLimitIsReached() {
+        final CreationLimiter limiter = new CreationLimiter(2, 5, 1000);
+        assertTrue(limiter.acquire());
+        assertTrue(limiter.acquire());
+        assertFalse(limiter.acquire());
+        limiter.release();
+        assertTrue(limiter.acquire());
+    }
+
+    @Test
+    public void testOverloadedResponse() {
+        final Response response = new CreationLimiter(1, 5, 1000).overloaded();
+        assertEquals(503, response.getStatus());
+        assertEquals("5", response.getMetadata().getFirst("Retry-After").toString());
+    }
+
+    @Test
+    public void testPermitIsHeldUntilTheChainIsOver() {
+        final CreationLimiter limiter = new CreationLimiter(1, 5, 1000);
+        assertTrue(limiter.acquire());
+        final Promise<Object> chain = Futures.promise();
+        limiter.releaseOnComplete(chain.future(), SAME_THREAD);
+        // The request gave up waiting but the call is still being created.
+        assertFalse(limiter.acquire());
+        chain.success("created");
+        assertTrue(limiter.acquire());
+    }
+
+    @Test
+    public void testPermitIsReleasedWhenTheChainFails() {
+        final CreationLimiter limiter = new CreationLimiter(1, 5, 1000);
+        assertTrue(limiter.acquire());
+        final Promise<Object> chain = Futures.promise();
+        limiter.releaseOnComplete(chain.future(), SAME_THREAD);
+        chain.failure(new IllegalStateException("The call manager did not answer"));
+        assertTrue(limiter.acquire());
+    }
+}
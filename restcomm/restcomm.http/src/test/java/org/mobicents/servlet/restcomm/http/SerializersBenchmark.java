@@ -0,0 +1,133 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.http;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.joda.time.DateTime;
+import org.mobicents.servlet.restcomm.entities.CallDetailRecord;
+import org.mobicents.servlet.restcomm.entities.CallDetailRecordList;
+import org.mobicents.servlet.restcomm.entities.Recording;
+import org.mobicents.servlet.restcomm.entities.RestCommResponse;
+import org.mobicents.servlet.restcomm.entities.Sid;
+import org.mobicents.servlet.restcomm.http.converter.CallDetailRecordConverter;
+import org.mobicents.servlet.restcomm.http.converter.CallDetailRecordListConverter;
+import org.mobicents.servlet.restcomm.http.converter.RecordingConverter;
+import org.mobicents.servlet.restcomm.http.converter.RecordingListConverter;
+import org.mobicents.servlet.restcomm.http.converter.RestCommResponseConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Writes the page of a GET /Calls.json request in a loop, in requests per second, first setting up XStream and Gson
+ * for every request as the endpoints used to do and then with the shared {@link Serializers}. Not run with the tests,
+ * start it with the main method from the test class path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SerializersBenchmark {
+    private Configuration configuration;
+    private Serializers serializers;
+    private CallDetailRecordList page;
+
+    @Setup
+    public void setup() throws Exception {
+        configuration = new BaseConfiguration();
+        configuration.setProperty("api-version", "2012-04-24");
+        configuration.setProperty("root-uri", "/restcomm");
+        serializers = new Serializers(configuration);
+        final Sid accountSid = Sid.generate(Sid.Type.ACCOUNT);
+        final List<CallDetailRecord> cdrs = new ArrayList<CallDetailRecord>();
+        for (int i = 0; i < 50; i++) {
+            final CallDetailRecord.Builder builder = CallDetailRecord.builder();
+            final Sid sid = Sid.generate(Sid.Type.CALL);
+            builder.setSid(sid);
+            builder.setAccountSid(accountSid);
+            builder.setDateCreated(DateTime.now());
+            builder.setStartTime(DateTime.now());
+            builder.setTo("+1999" + i);
+            builder.setFrom("alice");
+            builder.setStatus("completed");
+            builder.setDirection("inbound");
+            builder.setDuration(i);
+            builder.setApiVersion("2012-04-24");
+            builder.setUri(URI.create("/2012-04-24/Accounts/" + accountSid + "/Calls/" + sid));
+            cdrs.add(builder.build());
+        }
+        page = new CallDetailRecordList(cdrs, 0, 50, 1000, "/restcomm/2012-04-24/Accounts/" + accountSid + "/Calls");
+    }
+
+    @Benchmark
+    public String perRequestSetup() {
+        // The former CallsEndpoint.init(), run for every request.
+        final CallDetailRecordConverter converter = new CallDetailRecordConverter(configuration);
+        final CallDetailRecordListConverter listConverter = new CallDetailRecordListConverter(configuration);
+        final RecordingConverter recordingConverter = new RecordingConverter(configuration);
+        final GsonBuilder builder = new GsonBuilder();
+        builder.registerTypeAdapter(CallDetailRecord.class, converter);
+        builder.registerTypeAdapter(CallDetailRecordList.class, listConverter);
+        builder.registerTypeAdapter(Recording.class, recordingConverter);
+        builder.setPrettyPrinting();
+        final Gson gson = builder.create();
+        final XStream xstream = new XStream();
+        xstream.alias("RestcommResponse", RestCommResponse.class);
+        xstream.registerConverter(converter);
+        xstream.registerConverter(recordingConverter);
+        xstream.registerConverter(new RecordingListConverter(configuration));
+        xstream.registerConverter(new RestCommResponseConverter(configuration));
+        xstream.registerConverter(listConverter);
+        return gson.toJson(page);
+    }
+
+    @Benchmark
+    public String sharedSerializers() {
+        return serializers.gson().toJson(page);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SerializersBenchmark.class.getSimpleName()).build()).run();
+    }
+}
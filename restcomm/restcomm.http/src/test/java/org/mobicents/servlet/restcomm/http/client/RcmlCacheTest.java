@@ -0,0 +1,159 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+
+package org.mobicents.servlet.restcomm.http.client;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.NameValuePair;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicNameValuePair;
+import org.junit.Test;
+
+public final class RcmlCacheTest {
+    private static final String RCML = "<Response><Play>hello-play.wav</Play></Response>";
+
+    public RcmlCacheTest() {
+        super();
+    }
+
+    private HttpRequestDescriptor request(final String url, final String accountSid, final String callSid) {
+        final List<NameValuePair> parameters = new ArrayList<NameValuePair>();
+        parameters.add(new BasicNameValuePair("CallSid", callSid));
+        parameters.add(new BasicNameValuePair("AccountSid", accountSid));
+        return new HttpRequestDescriptor(URI.create(url), "POST", parameters);
+    }
+
+    private HttpResponse response(final String cacheControl) {
+        final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        if (cacheControl != null) {
+            response.setHeader("Cache-Control", cacheControl);
+        }
+        response.setHeader("Content-Type", "text/xml");
+        return response;
+    }
+
+    private HttpResponseDescriptor descriptor(final HttpResponse response) {
+        final HttpResponseDescriptor.Builder builder = HttpResponseDescriptor.builder();
+        builder.setStatusCode(200);
+        builder.setContentType("text/xml");
+        builder.setContentLength(RCML.length());
+        builder.setHeaders(response.getAllHeaders());
+        return builder.build();
+    }
+
+    private RcmlCache.Entry put(final RcmlCache cache, final HttpRequestDescriptor request, final String cacheControl) {
+        final HttpResponse response = response(cacheControl);
+        return cache.put(request, descriptor(response), response, RCML.getBytes());
+    }
+
+    @Test
+    public void testKeyIgnoresPerCallParameters() {
+        final RcmlCache cache = new RcmlCache(10, 1024, new String[] { "CallSid" });
+        final HttpRequestDescriptor first = request("http://127.0.0.1:8080/hello-play.xml", "AC1", "CA1");
+        final HttpRequestDescriptor second = request("http://127.0.0.1:8080/hello-play.xml", "AC1", "CA2");
+        final HttpRequestDescriptor other = request("http://127.0.0.1:8080/hello-play.xml", "AC2", "CA3");
+        assertEquals(cache.key(first), cache.key(second));
+        assertFalse(cache.key(first).equals(cache.key(other)));
+    }
+
+    @Test
+    public void testFreshEntryIsReturned() throws IOException {
+        final RcmlCache cache = new RcmlCache(10, 1024, new String[] { "CallSid" });
+        assertNotNull(put(cache, request("http://127.0.0.1:8080/hello-play.xml", "AC1", "CA1"), "max-age=60"));
+        final RcmlCache.Entry entry = cache.get(request("http://127.0.0.1:8080/hello-play.xml", "AC1", "CA2"));
+        assertNotNull(entry);
+        assertTrue(entry.isFresh());
+        final HttpResponseDescriptor response = entry.response();
+        assertEquals(RCML, response.getContentAsString());
+        assertTrue(response.getCacheEntry() == entry);
+    }
+
+    @Test
+    public void testUncacheableResponsesAreNotStored() {
+        final RcmlCache cache = new RcmlCache(10, 1024, new String[] { "CallSid" });
+        assertNull(put(cache, request("http://127.0.0.1:8080/hello-play.xml", "AC1", "CA1"), null));
+        assertNull(put(cache, request("http://127.0.0.1:8080/hello-play.xml", "AC1", "CA1"), "no-store"));
+        final RcmlCache.Entry entry = put(cache, request("http://127.0.0.1:8080/hello-play.xml", "AC1", "CA1"), "no-cache");
+        assertNotNull(entry);
+        assertFalse(entry.isFresh());
+    }
+
+    @Test
+    public void testUncacheableResponseRemovesThePreviousEntry() {
+        final RcmlCache cache = new RcmlCache(10, 1024, new String[] { "CallSid" });
+        assertNotNull(put(cache, request("http://127.0.0.1:8080/hello-play.xml", "AC1", "CA1"), "max-age=60"));
+        assertNull(put(cache, request("http://127.0.0.1:8080/hello-play.xml", "AC1", "CA2"), "no-store"));
+        assertNull(cache.get(request("http://127.0.0.1:8080/hello-play.xml", "AC1", "CA3")));
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    public void testOnlyApplicationGetRequestsAreCached() {
+        final URI uri = URI.create("http://127.0.0.1:8080/hello-play.xml");
+        assertTrue(RcmlCache.accepts(new HttpRequestDescriptor(uri, "GET", new ArrayList<NameValuePair>(), true)));
+        assertFalse(RcmlCache.accepts(new HttpRequestDescriptor(uri, "POST", new ArrayList<NameValuePair>(), true)));
+        // Status callbacks and actions.
+        assertFalse(RcmlCache.accepts(new HttpRequestDescriptor(uri, "GET", new ArrayList<NameValuePair>())));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        final RcmlCache cache = new RcmlCache(2, 1024, new String[] { "CallSid" });
+        put(cache, request("http://127.0.0.1:8080/one.xml", "AC1", "CA1"), "max-age=60");
+        put(cache, request("http://127.0.0.1:8080/two.xml", "AC1", "CA1"), "max-age=60");
+        assertNotNull(cache.get(request("http://127.0.0.1:8080/one.xml", "AC1", "CA1")));
+        put(cache, request("http://127.0.0.1:8080/three.xml", "AC1", "CA1"), "max-age=60");
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(request("http://127.0.0.1:8080/one.xml", "AC1", "CA1")));
+        assertNull(cache.get(request("http://127.0.0.1:8080/two.xml", "AC1", "CA1")));
+    }
+
+    @Test
+    public void testPurgeOnlyRemovesTheAccountEntries() {
+        final RcmlCache cache = new RcmlCache(10, 1024, new String[] { "CallSid" });
+        put(cache, request("http://127.0.0.1:8080/one.xml", "AC1", "CA1"), "max-age=60");
+        put(cache, request("http://127.0.0.1:8080/two.xml", "AC1", "CA1"), "max-age=60");
+        put(cache, request("http://127.0.0.1:8080/one.xml", "AC2", "CA1"), "max-age=60");
+        assertEquals(1, cache.purge("AC1", "http://127.0.0.1:8080/one.xml"));
+        assertEquals(1, cache.purge("AC1", null));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(request("http://127.0.0.1:8080/one.xml", "AC2", "CA1")));
+    }
+
+    @Test
+    public void testHitRatio() {
+        final RcmlCache cache = new RcmlCache(10, 1024, new String[] { "CallSid" });
+        final HttpRequestDescriptor request = request("http://127.0.0.1:8080/hello-play.xml", "AC1", "CA1");
+        cache.miss(request);
+        cache.hit(request);
+        cache.hit(request);
+        cache.hit(request);
+        assertEquals(Long.valueOf(75), cache.getStatistics("AC1").get("HitRatio"));
+        assertEquals(Long.valueOf(0), cache.getStatistics("AC2").get("HitRatio"));
+    }
+}
@@ -38,6 +38,8 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.apache.commons.configuration.Configuration;
 import org.apache.http.NameValuePair;
 import org.apache.http.message.BasicNameValuePair;
@@ -46,8 +48,6 @@ import org.mobicents.servlet.restcomm.asr.AsrInfo;
 import org.mobicents.servlet.restcomm.asr.AsrRequest;
 import org.mobicents.servlet.restcomm.asr.AsrResponse;
 import org.mobicents.servlet.restcomm.asr.GetAsrInfo;
-import org.mobicents.servlet.restcomm.asr.ISpeechAsr;
-import org.mobicents.servlet.restcomm.cache.DiskCache;
 import org.mobicents.servlet.restcomm.cache.DiskCacheRequest;
 import org.mobicents.servlet.restcomm.cache.DiskCacheResponse;
 import org.mobicents.servlet.restcomm.cache.HashGenerator;
@@ -60,6 +60,7 @@ import org.mobicents.servlet.restcomm.dao.TranscriptionsDao;
 import org.mobicents.servlet.restcomm.api.EmailRequest;
 import org.mobicents.servlet.restcomm.api.EmailResponse;
 import org.mobicents.servlet.restcomm.api.Mail;
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
 import org.mobicents.servlet.restcomm.email.EmailService;
 import org.mobicents.servlet.restcomm.entities.CallDetailRecord;
 import org.mobicents.servlet.restcomm.entities.Notification;
@@ -70,7 +71,6 @@ import org.mobicents.servlet.restcomm.entities.SmsMessage.Direction;
 import org.mobicents.servlet.restcomm.entities.SmsMessage.Status;
 import org.mobicents.servlet.restcomm.entities.Transcription;
 import org.mobicents.servlet.restcomm.fax.FaxRequest;
-import org.mobicents.servlet.restcomm.fax.InterfaxService;
 import org.mobicents.servlet.restcomm.fsm.Action;
 import org.mobicents.servlet.restcomm.fsm.FiniteStateMachine;
 import org.mobicents.servlet.restcomm.fsm.State;
@@ -79,6 +79,7 @@ import org.mobicents.servlet.restcomm.http.client.Downloader;
 import org.mobicents.servlet.restcomm.http.client.DownloaderResponse;
 import org.mobicents.servlet.restcomm.http.client.HttpRequestDescriptor;
 import org.mobicents.servlet.restcomm.http.client.HttpResponseDescriptor;
+import org.mobicents.servlet.restcomm.http.client.RcmlCache;
 import org.mobicents.servlet.restcomm.interpreter.rcml.Attribute;
 import org.mobicents.servlet.restcomm.interpreter.rcml.GetNextVerb;
 import org.mobicents.servlet.restcomm.interpreter.rcml.Parser;
@@ -387,15 +388,7 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
     abstract List<NameValuePair> parameters();
 
     ActorRef asr(final Configuration configuration) {
-        final UntypedActorContext context = getContext();
-        return context.actorOf(new Props(new UntypedActorFactory() {
-            private static final long serialVersionUID = 1L;
-
-            @Override
-            public Actor create() throws Exception {
-                return new ISpeechAsr(configuration);
-            }
-        }));
+        return SharedServices.asr(getContext().system(), configuration);
     }
 
     @SuppressWarnings("unchecked")
@@ -428,15 +421,7 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
     }
 
     ActorRef fax(final Configuration configuration) {
-        final UntypedActorContext context = getContext();
-        return context.actorOf(new Props(new UntypedActorFactory() {
-            private static final long serialVersionUID = 1L;
-
-            @Override
-            public Actor create() throws Exception {
-                return new InterfaxService(configuration);
-            }
-        }));
+        return SharedServices.fax(getContext().system(), configuration);
     }
 
     //Callback using the Akka ask pattern (http://doc.akka.io/docs/akka/2.2.5/java/untyped-actors.html#Ask__Send-And-Receive-Future) will force VoiceInterpter to wait until
@@ -471,15 +456,7 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
     }
 
     ActorRef cache(final String path, final String uri) {
-        final UntypedActorContext context = getContext();
-        return context.actorOf(new Props(new UntypedActorFactory() {
-            private static final long serialVersionUID = 1L;
-
-            @Override
-            public UntypedActor create() throws Exception {
-                return new DiskCache(path, uri, true);
-            }
-        }));
+        return SharedServices.cache(getContext().system(), path, uri);
     }
 
     ActorRef downloader() {
@@ -491,7 +468,7 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
             public UntypedActor create() throws Exception {
                 return new Downloader();
             }
-        }));
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO));
     }
 
     String e164(final String number) {
@@ -524,7 +501,7 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
             public Actor create() throws Exception {
                 return new EmailService(configuration);
             }
-        }));
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO));
     }
 
     private Notification notification(final int log, final int error, final String message) {
@@ -592,6 +569,38 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
             }));
     }
 
+    /**
+     * Creates a parser for a downloaded RCML document, reusing the parsed document when the response came from
+     * the RCML cache.
+     */
+    ActorRef parser(final HttpResponseDescriptor response) throws IOException {
+        final String xml = response.getContentAsString();
+        final RcmlCache.Entry entry = response.getCacheEntry();
+        if (entry == null) {
+            return parser(xml);
+        }
+        Tag document = (Tag) entry.getDocument();
+        if (document == null) {
+            try {
+                document = Parser.parse(xml);
+            } catch (final XMLStreamException exception) {
+                // Let the parser report the failure to the interpreter.
+                return parser(xml);
+            }
+            entry.setDocument(document);
+        }
+        final Tag parsed = document;
+        final UntypedActorContext context = getContext();
+        return context.actorOf(new Props(new UntypedActorFactory() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public UntypedActor create() {
+                return new Parser(parsed, xml, self());
+            }
+        }));
+    }
+
     void postCleanup() {
         if (smsSessions.isEmpty() && outstandingAsrRequests == 0) {
             final UntypedActorContext context = getContext();
@@ -737,17 +746,7 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
     }
 
     ActorRef tts(final Configuration configuration) {
-        final String classpath = configuration.getString("[@class]");
-
-        final UntypedActorContext context = getContext();
-        return context.actorOf(new Props(new UntypedActorFactory() {
-            private static final long serialVersionUID = 1L;
-
-            @Override
-            public Actor create() throws Exception {
-                return (UntypedActor) Class.forName(classpath).getConstructor(Configuration.class).newInstance(configuration);
-            }
-        }));
+        return SharedServices.synthesizer(getContext().system(), configuration);
     }
 
     abstract class AbstractAction implements Action {
@@ -985,7 +984,7 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
             // return;
             // }
             String hash = hash(verb);
-            DiskCacheRequest request = new DiskCacheRequest(hash);
+            DiskCacheRequest request = new DiskCacheRequest(accountId.toString(), hash);
             if (logger.isErrorEnabled()) {
                 logger.info("Checking cache for hash: " + hash);
             }
@@ -1004,7 +1003,7 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
             final Class<?> klass = message.getClass();
             if (SpeechSynthesizerResponse.class.equals(klass)) {
                 final SpeechSynthesizerResponse<URI> response = (SpeechSynthesizerResponse<URI>) message;
-                final DiskCacheRequest request = new DiskCacheRequest(response.get());
+                final DiskCacheRequest request = new DiskCacheRequest(accountId.toString(), response.get());
                 cache.tell(request, source);
             } else if (Tag.class.equals(klass)) {
                 if (Tag.class.equals(klass)) {
@@ -1028,7 +1027,7 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
                     }
                     final URI base = request.getUri();
                     final URI uri = UriUtils.resolve(base, target);
-                    final DiskCacheRequest request = new DiskCacheRequest(uri);
+                    final DiskCacheRequest request = new DiskCacheRequest(accountId.toString(), uri);
                     cache.tell(request, source);
                 } else {
                     // Ask the parser for the next action to take.
@@ -1286,7 +1285,7 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
             final NotificationsDao notifications = storage.getNotificationsDao();
             if (SpeechSynthesizerResponse.class.equals(klass)) {
                 final SpeechSynthesizerResponse<URI> response = (SpeechSynthesizerResponse<URI>) message;
-                final DiskCacheRequest request = new DiskCacheRequest(response.get());
+                final DiskCacheRequest request = new DiskCacheRequest(accountId.toString(), response.get());
                 cache.tell(request, source);
             } else {
                 if (Tag.class.equals(klass)) {
@@ -1347,7 +1346,7 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
                             final URI base = request.getUri();
                             final URI uri = UriUtils.resolve(base, target);
                             // Cache the prompt.
-                            final DiskCacheRequest request = new DiskCacheRequest(uri);
+                            final DiskCacheRequest request = new DiskCacheRequest(accountId.toString(), uri);
                             cache.tell(request, source);
                             break;
                         }
@@ -1387,7 +1386,7 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
                             // synthesizer.tell(synthesize, source);
                             // break;
                             String hash = hash(child);
-                            DiskCacheRequest request = new DiskCacheRequest(hash);
+                            DiskCacheRequest request = new DiskCacheRequest(accountId.toString(), hash);
                             cache.tell(request, source);
                             break;
                         }
@@ -1813,22 +1812,17 @@ public abstract class BaseVoiceInterpreter extends UntypedActor {
                         }
                     }
                     final List<NameValuePair> parameters = parameters();
-                    boolean amazonS3Enabled = configuration.subset("amazon-s3").getBoolean("enabled");
-                    if (amazonS3Enabled) {
-                        //If Amazon S3 is enabled the Recordings DAO uploaded the wav file to S3 and changed the URI
-                        parameters.add(new BasicNameValuePair("RecordingUrl", recording.getFileUri().toURL().toString()));
-                        parameters.add(new BasicNameValuePair("PublicRecordingUrl", recording.getFileUri().toURL().toString()));
-                    } else {
-                        // Redirect to the action url.
-                        String httpRecordingUri = configuration.subset("runtime-settings").getString("recordings-uri");
-                        if (!httpRecordingUri.endsWith("/")) {
-                            httpRecordingUri += "/";
-                        }
-                        httpRecordingUri += recordingSid.toString() + ".wav";
-                        URI publicRecordingUri = UriUtils.resolve(new URI(httpRecordingUri));
-                        parameters.add(new BasicNameValuePair("RecordingUrl", recordingUri.toString()));
-                        parameters.add(new BasicNameValuePair("PublicRecordingUrl", publicRecordingUri.toString()));
+                    // Redirect to the action url. If Amazon S3 is enabled the Recordings DAO uploads the wav file in
+                    // the background and keeps the local file for remove-original-file-delay once the recording has
+                    // been given its S3 URL, so the local URLs keep working.
+                    String httpRecordingUri = configuration.subset("runtime-settings").getString("recordings-uri");
+                    if (!httpRecordingUri.endsWith("/")) {
+                        httpRecordingUri += "/";
                     }
+                    httpRecordingUri += recordingSid.toString() + ".wav";
+                    URI publicRecordingUri = UriUtils.resolve(new URI(httpRecordingUri));
+                    parameters.add(new BasicNameValuePair("RecordingUrl", recordingUri.toString()));
+                    parameters.add(new BasicNameValuePair("PublicRecordingUrl", publicRecordingUri.toString()));
                     parameters.add(new BasicNameValuePair("RecordingDuration", Double.toString(duration)));
                     if (MediaGroupResponse.class.equals(klass)) {
                         final MediaGroupResponse<String> response = (MediaGroupResponse<String>) message;
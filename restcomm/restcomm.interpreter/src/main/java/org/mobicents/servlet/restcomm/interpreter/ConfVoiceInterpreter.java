@@ -5,6 +5,7 @@ import static org.mobicents.servlet.restcomm.interpreter.rcml.Verbs.say;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -17,10 +18,10 @@ import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.message.BasicNameValuePair;
 import org.joda.time.DateTime;
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
 import org.mobicents.servlet.restcomm.email.EmailService;
 import org.mobicents.servlet.restcomm.api.EmailRequest;
 import org.mobicents.servlet.restcomm.api.Mail;
-import org.mobicents.servlet.restcomm.cache.DiskCache;
 import org.mobicents.servlet.restcomm.cache.DiskCacheRequest;
 import org.mobicents.servlet.restcomm.cache.DiskCacheResponse;
 import org.mobicents.servlet.restcomm.cache.HashGenerator;
@@ -58,6 +59,7 @@ import org.mobicents.servlet.restcomm.tts.api.GetSpeechSynthesizerInfo;
 import org.mobicents.servlet.restcomm.tts.api.SpeechSynthesizerInfo;
 import org.mobicents.servlet.restcomm.tts.api.SpeechSynthesizerRequest;
 import org.mobicents.servlet.restcomm.tts.api.SpeechSynthesizerResponse;
+import org.mobicents.servlet.restcomm.util.UriUtils;
 
 import akka.actor.Actor;
 import akka.actor.ActorRef;
@@ -245,13 +247,17 @@ public class ConfVoiceInterpreter extends UntypedActor {
         if (!path.endsWith("/")) {
             path = path + "/";
         }
-        path = path + accountId.toString();
-        cachePath = path;
+        cachePath = path + accountId.toString();
         String uri = runtime.getString("cache-uri");
         if (!uri.endsWith("/")) {
             uri = uri + "/";
         }
-        uri = uri + accountId.toString();
+        try {
+            uri = UriUtils.resolve(new URI(uri)).toString();
+        } catch (URISyntaxException e) {
+            logger.error("URISyntaxException while trying to resolve Cache URI: " + e);
+        }
+        // The cache is shared by all the accounts, the files of an account are kept in its own directory.
         this.cache = cache(path, uri);
         this.downloader = downloader();
 
@@ -260,15 +266,7 @@ public class ConfVoiceInterpreter extends UntypedActor {
     }
 
     private ActorRef cache(final String path, final String uri) {
-        final UntypedActorContext context = getContext();
-        return context.actorOf(new Props(new UntypedActorFactory() {
-            private static final long serialVersionUID = 1L;
-
-            @Override
-            public UntypedActor create() throws Exception {
-                return new DiskCache(path, uri, true);
-            }
-        }));
+        return SharedServices.cache(getContext().system(), path, uri);
     }
 
     private ActorRef downloader() {
@@ -280,7 +278,7 @@ public class ConfVoiceInterpreter extends UntypedActor {
             public UntypedActor create() throws Exception {
                 return new Downloader();
             }
-        }));
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO));
     }
 
     private String e164(final String number) {
@@ -309,7 +307,7 @@ public class ConfVoiceInterpreter extends UntypedActor {
             public Actor create() throws Exception {
                 return new EmailService(configuration);
             }
-        }));
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO));
     }
 
     private Notification notification(final int log, final int error, final String message) {
@@ -569,17 +567,7 @@ public class ConfVoiceInterpreter extends UntypedActor {
     }
 
     private ActorRef tts(final Configuration configuration) {
-        final String classpath = configuration.getString("[@class]");
-
-        final UntypedActorContext context = getContext();
-        return context.actorOf(new Props(new UntypedActorFactory() {
-            private static final long serialVersionUID = 1L;
-
-            @Override
-            public Actor create() throws Exception {
-                return (UntypedActor) Class.forName(classpath).getConstructor(Configuration.class).newInstance(configuration);
-            }
-        }));
+        return SharedServices.synthesizer(getContext().system(), configuration);
     }
 
     private abstract class AbstractAction implements Action {
@@ -649,7 +637,7 @@ public class ConfVoiceInterpreter extends UntypedActor {
                 // Ask the downloader to get us the application that will be
                 // executed.
                 final List<NameValuePair> parameters = parameters();
-                request = new HttpRequestDescriptor(url, method, parameters);
+                request = new HttpRequestDescriptor(url, method, parameters, true);
                 downloader.tell(request, source);
             }
         }
@@ -717,7 +705,7 @@ public class ConfVoiceInterpreter extends UntypedActor {
             }
 
             String hash = hash(verb);
-            DiskCacheRequest request = new DiskCacheRequest(hash);
+            DiskCacheRequest request = new DiskCacheRequest(accountId.toString(), hash);
             if (logger.isErrorEnabled()) {
                 logger.info("Checking cache for hash: " + hash);
             }
@@ -736,7 +724,7 @@ public class ConfVoiceInterpreter extends UntypedActor {
             final Class<?> klass = message.getClass();
             if (SpeechSynthesizerResponse.class.equals(klass)) {
                 final SpeechSynthesizerResponse<URI> response = (SpeechSynthesizerResponse<URI>) message;
-                final DiskCacheRequest request = new DiskCacheRequest(response.get());
+                final DiskCacheRequest request = new DiskCacheRequest(accountId.toString(), response.get());
                 cache.tell(request, source);
             } else if (Tag.class.equals(klass) || MediaGroupStateChanged.class.equals(klass)) {
                 if (Tag.class.equals(klass)) {
@@ -760,7 +748,7 @@ public class ConfVoiceInterpreter extends UntypedActor {
                     }
                     final URI base = request.getUri();
                     final URI uri = resolve(base, target);
-                    final DiskCacheRequest request = new DiskCacheRequest(uri);
+                    final DiskCacheRequest request = new DiskCacheRequest(accountId.toString(), uri);
                     cache.tell(request, source);
                 } else {
                     // Ask the parser for the next action to take.
@@ -985,8 +973,6 @@ public class ConfVoiceInterpreter extends UntypedActor {
             if (mailerNotify != null)
                 context.stop(mailerNotify);
             context.stop(downloader);
-            context.stop(cache);
-            context.stop(synthesizer);
             // Stop the interpreter.
             postCleanup();
         }
@@ -0,0 +1,132 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.interpreter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.commons.configuration.Configuration;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+import org.mobicents.servlet.restcomm.asr.ISpeechAsr;
+import org.mobicents.servlet.restcomm.cache.DiskCache;
+import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
+import org.mobicents.servlet.restcomm.configuration.sets.MainConfigurationSet;
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
+import org.mobicents.servlet.restcomm.fax.InterfaxService;
+import org.mobicents.servlet.restcomm.tts.api.SpeechSynthesizerPool;
+
+import akka.actor.Actor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.UntypedActor;
+import akka.actor.UntypedActorFactory;
+import akka.routing.RoundRobinRouter;
+
+/**
+ * Creates the cache, speech synthesizer, speech recognizer and fax actors once per actor system so that they are
+ * shared by all the interpreters instead of being created and stopped on every call.
+ *
+ * The actors returned are shared and must never be stopped by the interpreters.
+ */
+@ThreadSafe
+public final class SharedServices {
+    private static final Map<ActorSystem, Map<String, ActorRef>> services = new WeakHashMap<ActorSystem, Map<String, ActorRef>>();
+
+    private SharedServices() {
+        super();
+    }
+
+    private static synchronized ActorRef service(final ActorSystem system, final String key, final Props props) {
+        Map<String, ActorRef> actors = services.get(system);
+        if (actors == null) {
+            actors = new HashMap<String, ActorRef>();
+            services.put(system, actors);
+        }
+        ActorRef actor = actors.get(key);
+        if (actor == null || actor.isTerminated()) {
+            actor = system.actorOf(props);
+            actors.put(key, actor);
+        }
+        return actor;
+    }
+
+    private static MainConfigurationSet main() {
+        return RestcommConfiguration.isInitialized() ? RestcommConfiguration.getInstance().getMain() : null;
+    }
+
+    public static ActorRef cache(final ActorSystem system, final String path, final String uri) {
+        final MainConfigurationSet main = main();
+        final int workers = main != null ? main.getCacheWorkers() : MainConfigurationSet.CACHE_WORKERS_DEFAULT;
+        // One pool per cache root, the requests name the directory of the account.
+        return service(system, "cache:" + path, new Props(new UntypedActorFactory() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public UntypedActor create() throws Exception {
+                return new DiskCache(path, uri, true);
+            }
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO).withRouter(new RoundRobinRouter(workers)));
+    }
+
+    public static ActorRef synthesizer(final ActorSystem system, final Configuration configuration) {
+        final MainConfigurationSet main = main();
+        final int workers = main != null ? main.getSpeechSynthesizerWorkers()
+                : MainConfigurationSet.SPEECH_SYNTHESIZER_WORKERS_DEFAULT;
+        final long timeout = main != null ? main.getSpeechSynthesizerTimeout()
+                : MainConfigurationSet.SPEECH_SYNTHESIZER_TIMEOUT_DEFAULT;
+        return service(system, "speech-synthesizer:" + configuration.getString("[@class]"), new Props(
+                new UntypedActorFactory() {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    public UntypedActor create() throws Exception {
+                        return new SpeechSynthesizerPool(configuration, workers, timeout);
+                    }
+                }).withDispatcher(ActorDispatchers.BLOCKING_IO));
+    }
+
+    public static ActorRef asr(final ActorSystem system, final Configuration configuration) {
+        final MainConfigurationSet main = main();
+        final int workers = main != null ? main.getServiceWorkers() : MainConfigurationSet.SERVICE_WORKERS_DEFAULT;
+        return service(system, "speech-recognizer", new Props(new UntypedActorFactory() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Actor create() throws Exception {
+                return new ISpeechAsr(configuration);
+            }
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO).withRouter(new RoundRobinRouter(workers)));
+    }
+
+    public static ActorRef fax(final ActorSystem system, final Configuration configuration) {
+        final MainConfigurationSet main = main();
+        final int workers = main != null ? main.getServiceWorkers() : MainConfigurationSet.SERVICE_WORKERS_DEFAULT;
+        return service(system, "fax-service", new Props(new UntypedActorFactory() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Actor create() throws Exception {
+                return new InterfaxService(configuration);
+            }
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO).withRouter(new RoundRobinRouter(workers)));
+    }
+}
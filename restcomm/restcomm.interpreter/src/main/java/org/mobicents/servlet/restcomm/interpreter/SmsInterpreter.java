@@ -48,6 +48,7 @@ import org.joda.time.DateTime;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.dao.NotificationsDao;
 import org.mobicents.servlet.restcomm.dao.SmsMessagesDao;
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
 import org.mobicents.servlet.restcomm.email.EmailService;
 import org.mobicents.servlet.restcomm.api.EmailRequest;
 import org.mobicents.servlet.restcomm.api.EmailResponse;
@@ -234,7 +235,7 @@ public final class SmsInterpreter extends UntypedActor {
             public UntypedActor create() throws Exception {
                 return new Downloader();
             }
-        }));
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO));
     }
 
     ActorRef mailer(final Configuration configuration) {
@@ -246,7 +247,7 @@ public final class SmsInterpreter extends UntypedActor {
             public Actor create() throws Exception {
                 return new EmailService(configuration);
             }
-        }));
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO));
     }
 
     protected String format(final String number) {
@@ -551,7 +552,7 @@ public final class SmsInterpreter extends UntypedActor {
             initialSession = null;
             // Ask the downloader to get us the application that will be executed.
             final List<NameValuePair> parameters = parameters();
-            request = new HttpRequestDescriptor(url, method, parameters);
+            request = new HttpRequestDescriptor(url, method, parameters, true);
             downloader.tell(request, source);
         }
     }
@@ -583,7 +584,7 @@ public final class SmsInterpreter extends UntypedActor {
             }
             // Try to use the fall back url and method.
             final List<NameValuePair> parameters = parameters();
-            request = new HttpRequestDescriptor(fallbackUrl, fallbackMethod, parameters);
+            request = new HttpRequestDescriptor(fallbackUrl, fallbackMethod, parameters, true);
             downloader.tell(request, source);
         }
     }
@@ -196,8 +196,7 @@ public final class SubVoiceInterpreter extends BaseVoiceInterpreter {
         if (!path.endsWith("/")) {
             path = path + "/";
         }
-        path = path + accountId.toString();
-        cachePath = path;
+        cachePath = path + accountId.toString();
         String uri = runtime.getString("cache-uri");
         if (!uri.endsWith("/")) {
             uri = uri + "/";
@@ -207,7 +206,7 @@ public final class SubVoiceInterpreter extends BaseVoiceInterpreter {
         } catch (URISyntaxException e) {
             logger.error("URISyntaxException while trying to resolve Cache URI: "+e);
         }
-        uri = uri + accountId.toString();
+        // The cache is shared by all the accounts, the files of an account are kept in its own directory.
         this.cache = cache(path, uri);
         this.downloader = downloader();
         this.hangupOnEnd = hangupOnEnd;
@@ -494,7 +493,7 @@ public final class SubVoiceInterpreter extends BaseVoiceInterpreter {
                 callState = callInfo.state();
                 // Ask the downloader to get us the application that will be executed.
                 final List<NameValuePair> parameters = parameters();
-                request = new HttpRequestDescriptor(url, method, parameters);
+                request = new HttpRequestDescriptor(url, method, parameters, true);
                 downloader.tell(request, source);
             }
         }
@@ -512,7 +511,7 @@ public final class SubVoiceInterpreter extends BaseVoiceInterpreter {
 
                 final String type = response.getContentType();
                 if (type.contains("text/xml") || type.contains("application/xml") || type.contains("text/html")) {
-                    parser = parser(response.getContentAsString());
+                    parser = parser(response);
                 } else if (type.contains("audio/wav") || type.contains("audio/wave") || type.contains("audio/x-wav")) {
                     parser = parser("<Play>" + request.getUri() + "</Play>");
                 } else if (type.contains("text/plain")) {
@@ -624,10 +623,7 @@ public final class SubVoiceInterpreter extends BaseVoiceInterpreter {
             if (mailerNotify != null)
                 context.stop(mailerNotify);
             context.stop(downloader);
-            context.stop(asrService);
-            context.stop(faxService);
-            context.stop(cache);
-            context.stop(synthesizer);
+            // The asr, fax, cache and synthesizer services are shared and outlive the call.
 
             // Stop the interpreter.
             postCleanup();
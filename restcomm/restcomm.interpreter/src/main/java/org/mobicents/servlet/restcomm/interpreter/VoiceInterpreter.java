@@ -80,6 +80,8 @@ import org.mobicents.servlet.restcomm.interpreter.rcml.GetNextVerb;
 import org.mobicents.servlet.restcomm.interpreter.rcml.Nouns;
 import org.mobicents.servlet.restcomm.interpreter.rcml.Tag;
 import org.mobicents.servlet.restcomm.interpreter.rcml.ParserFailed;
+import org.mobicents.servlet.restcomm.metrics.LatencyHistogram;
+import org.mobicents.servlet.restcomm.metrics.Metrics;
 import org.mobicents.servlet.restcomm.mscontrol.messages.MediaGroupResponse;
 import org.mobicents.servlet.restcomm.mscontrol.messages.Mute;
 import org.mobicents.servlet.restcomm.mscontrol.messages.Play;
@@ -121,6 +123,7 @@ import org.mobicents.servlet.restcomm.telephony.StartBridge;
 import org.mobicents.servlet.restcomm.telephony.StopBridge;
 import org.mobicents.servlet.restcomm.telephony.StopConference;
 import org.mobicents.servlet.restcomm.telephony.CallFail;
+import org.mobicents.servlet.restcomm.telephony.util.CallControlHelper;
 import org.mobicents.servlet.restcomm.tts.api.SpeechSynthesizerResponse;
 import org.mobicents.servlet.restcomm.util.UriUtils;
 import scala.concurrent.Await;
@@ -141,6 +144,8 @@ import akka.util.Timeout;
  * @author pavel.slegr@telestax.com
  */
 public final class VoiceInterpreter extends BaseVoiceInterpreter {
+    // The time from receiving the invite of an inbound call to requesting its application.
+    private static final LatencyHistogram FIRST_RCML_REQUEST = Metrics.timer("call.invite-to-rcml-request");
     // Logger.
     private final LoggingAdapter logger = Logging.getLogger(getContext().system(), this);
     // States for the FSM.
@@ -395,8 +400,7 @@ public final class VoiceInterpreter extends BaseVoiceInterpreter {
         if (!path.endsWith("/")) {
             path = path + "/";
         }
-        path = path + accountId.toString();
-        cachePath = path;
+        cachePath = path + accountId.toString();
         String uri = runtime.getString("cache-uri");
         if (!uri.endsWith("/")) {
             uri = uri + "/";
@@ -406,7 +410,7 @@ public final class VoiceInterpreter extends BaseVoiceInterpreter {
         } catch (URISyntaxException e) {
             logger.error("URISyntaxException while trying to resolve Cache URI: " + e);
         }
-        uri = uri + accountId.toString();
+        // The cache is shared by all the accounts, the files of an account are kept in its own directory.
         this.cache = cache(path, uri);
         this.downloader = downloader();
         this.monitoring = monitoring;
@@ -1057,6 +1061,13 @@ public final class VoiceInterpreter extends BaseVoiceInterpreter {
             }
             return null;
         }
+
+        // The conferences of an account are kept apart from the ones of the other accounts.
+        protected String conferenceName(final Tag conference) {
+            final StringBuilder buffer = new StringBuilder();
+            buffer.append(accountId.toString()).append(":").append(conference.text());
+            return buffer.toString();
+        }
     }
 
     private final class InitializingCall extends AbstractAction {
@@ -1097,8 +1108,9 @@ public final class VoiceInterpreter extends BaseVoiceInterpreter {
                 // Update the interpreter state.
                 verb = (Tag) message;
 
-                // Answer the call.
-                call.tell(new Answer(), source);
+                // Answer the call, on the media server of the conference when it is dialed first.
+                final Tag child = dial.equals(verb.name()) ? conference(verb) : null;
+                call.tell(new Answer(child == null ? null : conferenceName(child)), source);
             }
         }
     }
@@ -1169,9 +1181,17 @@ public final class VoiceInterpreter extends BaseVoiceInterpreter {
                     callback();
                 }
             }
+            if (callInfo != null && callInfo.invite() != null) {
+                // Removed so only the first request for the application is timed.
+                final Object received = callInfo.invite().getAttribute(CallControlHelper.INVITE_RECEIVED);
+                if (received != null) {
+                    callInfo.invite().removeAttribute(CallControlHelper.INVITE_RECEIVED);
+                    FIRST_RCML_REQUEST.recordSince((Long) received);
+                }
+            }
             // Ask the downloader to get us the application that will be executed.
             final List<NameValuePair> parameters = parameters();
-            request = new HttpRequestDescriptor(url, method, parameters);
+            request = new HttpRequestDescriptor(url, method, parameters, true);
             downloader.tell(request, source);
         }
     }
@@ -1204,7 +1224,7 @@ public final class VoiceInterpreter extends BaseVoiceInterpreter {
             }
             // Try to use the fall back url and method.
             final List<NameValuePair> parameters = parameters();
-            request = new HttpRequestDescriptor(fallbackUrl, fallbackMethod, parameters);
+            request = new HttpRequestDescriptor(fallbackUrl, fallbackMethod, parameters, true);
             downloader.tell(request, source);
         }
     }
@@ -1248,7 +1268,7 @@ public final class VoiceInterpreter extends BaseVoiceInterpreter {
                 final String type = response.getContentType();
                 if (type != null) {
                         if (type.contains("text/xml") || type.contains("application/xml") || type.contains("text/html")) {
-                            parser = parser(response.getContentAsString());
+                            parser = parser(response);
                         } else if (type.contains("audio/wav") || type.contains("audio/wave") || type.contains("audio/x-wav")) {
                             parser = parser("<Play>" + request.getUri() + "</Play>");
                         } else if (type.contains("text/plain")) {
@@ -1452,10 +1472,7 @@ public final class VoiceInterpreter extends BaseVoiceInterpreter {
                 // Handle conferencing.
                 final Tag child = conference(verb);
                 if (child != null) {
-                    final String name = child.text();
-                    final StringBuilder buffer = new StringBuilder();
-                    buffer.append(accountId.toString()).append(":").append(name);
-                    final CreateConference create = new CreateConference(buffer.toString());
+                    final CreateConference create = new CreateConference(conferenceName(child), callInfo.sid());
                     conferenceManager.tell(create, source);
                 } else {
                     // Handle forking.
@@ -2373,10 +2390,7 @@ public final class VoiceInterpreter extends BaseVoiceInterpreter {
                 context.stop(mailerNotify);
             if (mailerService != null)
                 context.stop(mailerService);
-            context.stop(asrService);
-            context.stop(faxService);
-            context.stop(cache);
-            context.stop(synthesizer);
+            // The asr, fax, cache and synthesizer services are shared and outlive the call.
 
             // Stop the interpreter.
             postCleanup();
@@ -2416,7 +2430,7 @@ public final class VoiceInterpreter extends BaseVoiceInterpreter {
 
         @Override
         public void execute(Object message) throws Exception {
-            final CreateBridge create = new CreateBridge();
+            final CreateBridge create = new CreateBridge(callInfo.sid());
             bridgeManager.tell(create, super.source);
         }
 
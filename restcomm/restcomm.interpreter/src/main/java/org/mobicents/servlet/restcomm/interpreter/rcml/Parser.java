@@ -22,6 +22,8 @@ package org.mobicents.servlet.restcomm.interpreter.rcml;
 import akka.actor.ActorRef;
 import akka.actor.UntypedActor;
 import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.metrics.LatencyHistogram;
+import org.mobicents.servlet.restcomm.metrics.Metrics;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,6 +33,7 @@ import java.io.StringReader;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Stack;
+import java.util.regex.Pattern;
 
 import javax.xml.stream.XMLInputFactory;
 import static javax.xml.stream.XMLStreamConstants.*;
@@ -44,6 +47,13 @@ import static org.mobicents.servlet.restcomm.interpreter.rcml.Verbs.*;
  */
 public final class Parser extends UntypedActor {
     private static Logger logger = Logger.getLogger(Parser.class);
+    private static final Pattern UNESCAPED_AMPERSAND = Pattern.compile("&([^;]+(?!(?:\\w|;)))");
+    private static final LatencyHistogram PARSING = Metrics.timer("rcml.parse");
+    // The factory is thread safe once configured so it is shared by all the parsers.
+    private static final XMLInputFactory INPUTS = XMLInputFactory.newInstance();
+    static {
+        INPUTS.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
     private Tag document;
     private Iterator<Tag> iterator;
     private String xml;
@@ -60,19 +70,50 @@ public final class Parser extends UntypedActor {
         logger.debug("About to create new Parser for xml: "+xml);
         this.xml = xml;
         this.sender = sender;
-        final XMLInputFactory inputs = XMLInputFactory.newInstance();
-        inputs.setProperty("javax.xml.stream.isCoalescing", true);
+        // The downloader does not validate the RCML, a document that cannot be parsed is reported here.
+        try {
+            document = parse(reader);
+            iterator = document.iterator();
+        } catch (final XMLStreamException | IOException exception) {
+            logger.info("There was an error parsing the RCML for xml: "+xml+" excpetion: ", exception);
+            sender.tell(new ParserFailed(exception,xml), null);
+        }
+    }
+
+    public Parser(final String xml, final ActorRef sender) throws IOException {
+        this(new StringReader(sanitize(xml)), xml, sender);
+    }
+
+    /**
+     * Creates a parser for an already parsed RCML document, i.e. one that was cached.
+     */
+    public Parser(final Tag document, final String xml, final ActorRef sender) {
+        super();
+        this.xml = xml;
+        this.sender = sender;
+        this.document = document;
+        this.iterator = document.iterator();
+    }
+
+    /**
+     * Parses and validates an RCML document in a single streaming pass.
+     *
+     * @throws XMLStreamException if the document is not well formed.
+     */
+    public static Tag parse(final String xml) throws IOException, XMLStreamException {
+        return parse(new StringReader(sanitize(xml)));
+    }
+
+    private static Tag parse(final Reader reader) throws IOException, XMLStreamException {
+        final long start = System.nanoTime();
         XMLStreamReader stream = null;
         try {
-            stream = inputs.createXMLStreamReader(reader);
-            document = parse(stream);
+            stream = INPUTS.createXMLStreamReader(reader);
+            final Tag document = parse(stream);
             if (document == null) {
                 throw new IOException("There was an error parsing the RCML.");
             }
-            iterator = document.iterator();
-        } catch (final XMLStreamException exception) {
-            logger.info("There was an error parsing the RCML for xml: "+xml+" excpetion: ", exception);
-            sender.tell(new ParserFailed(exception,xml), null);
+            return document;
         } finally {
             if (stream != null) {
                 try {
@@ -81,14 +122,15 @@ public final class Parser extends UntypedActor {
                     throw new IOException(nested);
                 }
             }
+            PARSING.recordSince(start);
         }
     }
 
-    public Parser(final String xml, final ActorRef sender) throws IOException {
-        this(new StringReader(xml.trim().replaceAll("&([^;]+(?!(?:\\w|;)))", "&amp;$1")), xml, sender);
+    private static String sanitize(final String xml) {
+        return UNESCAPED_AMPERSAND.matcher(xml.trim()).replaceAll("&amp;$1");
     }
 
-    private void end(final Stack<Tag.Builder> builders, final XMLStreamReader stream) {
+    private static void end(final Stack<Tag.Builder> builders, final XMLStreamReader stream) {
         if (builders.size() > 1) {
             final Tag.Builder builder = builders.pop();
             final Tag tag = builder.build();
@@ -96,7 +138,7 @@ public final class Parser extends UntypedActor {
         }
     }
 
-    private void start(final Stack<Tag.Builder> builders, final XMLStreamReader stream) {
+    private static void start(final Stack<Tag.Builder> builders, final XMLStreamReader stream) {
         final Tag.Builder builder = Tag.builder();
         // Read the next tag.
         builder.setName(stream.getLocalName());
@@ -132,7 +174,7 @@ public final class Parser extends UntypedActor {
         return null;
     }
 
-    private Tag parse(final XMLStreamReader stream) throws IOException, XMLStreamException {
+    private static Tag parse(final XMLStreamReader stream) throws IOException, XMLStreamException {
         final Stack<Tag.Builder> builders = new Stack<Tag.Builder>();
         while (stream.hasNext()) {
             switch (stream.next()) {
@@ -176,7 +218,7 @@ public final class Parser extends UntypedActor {
         }
     }
 
-    private void text(final Stack<Tag.Builder> builders, final XMLStreamReader stream) {
+    private static void text(final Stack<Tag.Builder> builders, final XMLStreamReader stream) {
         if (!stream.isWhiteSpace()) {
             // Read the text.
             final Tag.Builder builder = builders.peek();
@@ -22,9 +22,11 @@ package org.mobicents.servlet.restcomm.mgcp;
 import akka.actor.Actor;
 import akka.actor.ActorRef;
 import akka.actor.Props;
+import akka.actor.Status;
 import akka.actor.UntypedActor;
 import akka.actor.UntypedActorContext;
 import akka.actor.UntypedActorFactory;
+import akka.event.EventStream;
 import akka.event.Logging;
 import akka.event.LoggingAdapter;
 
@@ -36,23 +38,62 @@ import jain.protocol.ip.mgcp.JainMgcpListener;
 import jain.protocol.ip.mgcp.JainMgcpProvider;
 import jain.protocol.ip.mgcp.JainMgcpResponseEvent;
 import jain.protocol.ip.mgcp.JainMgcpStack;
+import jain.protocol.ip.mgcp.message.AuditConnectionResponse;
+import jain.protocol.ip.mgcp.message.AuditEndpointResponse;
 import jain.protocol.ip.mgcp.message.Constants;
+import jain.protocol.ip.mgcp.message.CreateConnectionResponse;
+import jain.protocol.ip.mgcp.message.DeleteConnectionResponse;
+import jain.protocol.ip.mgcp.message.EndpointConfigurationResponse;
+import jain.protocol.ip.mgcp.message.ModifyConnectionResponse;
 import jain.protocol.ip.mgcp.message.NotificationRequest;
+import jain.protocol.ip.mgcp.message.NotificationRequestResponse;
 import jain.protocol.ip.mgcp.message.Notify;
+import jain.protocol.ip.mgcp.message.NotifyResponse;
+import jain.protocol.ip.mgcp.message.RestartInProgressResponse;
+import jain.protocol.ip.mgcp.message.parms.ConnectionIdentifier;
 import jain.protocol.ip.mgcp.message.parms.NotifiedEntity;
+import jain.protocol.ip.mgcp.message.parms.ReturnCode;
 
 import java.net.InetAddress;
-import java.util.Map;
 import java.util.TooManyListenersException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.mobicents.protocols.mgcp.stack.JainMgcpStackImpl;
+import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
+import org.mobicents.servlet.restcomm.metrics.LatencyHistogram;
+import org.mobicents.servlet.restcomm.metrics.Metrics;
+import org.mobicents.servlet.restcomm.util.HashedTimerWheel;
 import org.mobicents.servlet.restcomm.util.RevolvingCounter;
 
 /**
+ * Sends the MGCP commands of the endpoints and connections to the media server and hands them the responses and
+ * notifications.
+ *
+ * Every command is tracked as a transaction until its final response arrives. The retransmissions are left to the
+ * MGCP stack, which sends a command again with the same transaction id so that the media server answers it only
+ * once. The actor waiting for the response is given a transient error response once the transaction
+ * timeout has elapsed, or the response timeout if that is longer. The listeners of the notifications requested by a RQNT are forgotten once the notification timeout has
+ * elapsed, so the lost messages do not leak. A gateway whose transactions keep timing out is reported unhealthy on
+ * the event stream of the actor system until its media server responds again.
+ *
  * @author quintana.thomas@gmail.com (Thomas Quintana)
  */
 public final class MediaGateway extends UntypedActor implements JainMgcpListener {
+    // The time a provisional response gives the media server to send the final one (LONGTRAN-TIMER of RFC 3435).
+    private static final long PROVISIONAL_TIMEOUT = 5000;
+    // The number of transactions in a row that must time out for the gateway to be unhealthy.
+    private static final int MAX_CONSECUTIVE_TIMEOUTS = 3;
+    // The time from sending each kind of command to its final response.
+    private static final LatencyHistogram CRCX = Metrics.timer("mgcp.CRCX");
+    private static final LatencyHistogram MDCX = Metrics.timer("mgcp.MDCX");
+    private static final LatencyHistogram DLCX = Metrics.timer("mgcp.DLCX");
+    private static final LatencyHistogram RQNT = Metrics.timer("mgcp.RQNT");
+
     private final LoggingAdapter logger = Logging.getLogger(getContext().system(), this);
     // MediaGateway connection information.
     private String name;
@@ -65,6 +106,11 @@ public final class MediaGateway extends UntypedActor implements JainMgcpListener
     private InetAddress externalIp;
     // Used to detect dead media gateways.
     private long timeout;
+    // The time from sending a command to giving up on its response.
+    private long transactionTimeout;
+    // Used to recover from lost MGCP messages.
+    private long notificationTimeout;
+    private HashedTimerWheel timer;
     // JAIN MGCP stuff.
     private JainMgcpProvider provider;
     private JainMgcpStack stack;
@@ -72,18 +118,26 @@ public final class MediaGateway extends UntypedActor implements JainMgcpListener
     private NotifiedEntity agent;
     // Media gateway domain name.
     private String domain;
-    // Message responseListeners.
-    private Map<String, ActorRef> notificationListeners;
-    private Map<Integer, ActorRef> responseListeners;
+    // The actors waiting for a notification keyed by request identifier.
+    private ConcurrentMap<String, NotificationListener> notificationListeners;
+    // The commands waiting for a response keyed by transaction handle.
+    private ConcurrentMap<Integer, Transaction> transactions;
     // Runtime stuff.
     private RevolvingCounter requestIdPool;
     private RevolvingCounter sessionIdPool;
     private RevolvingCounter transactionIdPool;
+    // Health.
+    private final EventStream events;
+    private final AtomicInteger consecutiveTimeouts;
+    private final AtomicBoolean unhealthy;
 
     public MediaGateway() {
         super();
-        notificationListeners = new ConcurrentHashMap<String, ActorRef>();
-        responseListeners = new ConcurrentHashMap<Integer, ActorRef>();
+        events = getContext().system().eventStream();
+        consecutiveTimeouts = new AtomicInteger();
+        unhealthy = new AtomicBoolean();
+        notificationListeners = new ConcurrentHashMap<String, NotificationListener>();
+        transactions = new ConcurrentHashMap<Integer, Transaction>();
     }
 
     private ActorRef getConnection(final Object message) {
@@ -199,8 +253,11 @@ public final class MediaGateway extends UntypedActor implements JainMgcpListener
         stack = null;
         agent = null;
         domain = null;
-        responseListeners.clear();
-        responseListeners = null;
+        clear();
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
         requestIdPool = null;
         sessionIdPool = null;
         transactionIdPool = null;
@@ -216,6 +273,11 @@ public final class MediaGateway extends UntypedActor implements JainMgcpListener
         useNat = request.useNat();
         externalIp = request.getExternalIp();
         timeout = request.getTimeout();
+        notificationTimeout = request.getNotificationTimeout();
+        transactionTimeout = Math.max(timeout, request.getTransactionTimeout());
+        if (timer == null) {
+            timer = new HashedTimerWheel("restcomm-mgcp-timer", 10, TimeUnit.MILLISECONDS, 512);
+        }
         stack = new JainMgcpStackImpl(localIp, localPort);
         try {
             provider = stack.createProvider();
@@ -226,8 +288,7 @@ public final class MediaGateway extends UntypedActor implements JainMgcpListener
         }
         agent = new NotifiedEntity("restcomm", localIp.getHostAddress(), localPort);
         domain = new StringBuilder().append(remoteIp.getHostAddress()).append(":").append(remotePort).toString();
-        notificationListeners.clear();
-        responseListeners.clear();
+        clear();
         requestIdPool = new RevolvingCounter(1, Integer.MAX_VALUE);
         sessionIdPool = new RevolvingCounter(1, Integer.MAX_VALUE);
         transactionIdPool = new RevolvingCounter(1, Integer.MAX_VALUE);
@@ -240,9 +301,11 @@ public final class MediaGateway extends UntypedActor implements JainMgcpListener
             case Constants.CMD_NOTIFY: {
                 final Notify notify = (Notify) event;
                 final String id = notify.getRequestIdentifier().toString();
-                final ActorRef listener = notificationListeners.remove(id);
+                final NotificationListener listener = notificationListeners.remove(id);
                 if (listener != null) {
-                    listener.tell(notify, self());
+                    listener.purge.cancel();
+                    MgcpStatistics.notified();
+                    listener.actor.tell(notify, self());
                 }
             }
         }
@@ -251,9 +314,31 @@ public final class MediaGateway extends UntypedActor implements JainMgcpListener
     @Override
     public void processMgcpResponseEvent(final JainMgcpResponseEvent event) {
         final int id = event.getTransactionHandle();
-        final ActorRef listener = responseListeners.remove(id);
-        if (listener != null) {
-            listener.tell(event, self());
+        final Transaction transaction;
+        if (event.getReturnCode().getValue() < 200) {
+            // Provisional, the final response is still expected.
+            transaction = transactions.get(id);
+            if (transaction != null) {
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PROVISIONAL_TIMEOUT);
+                if (deadline - transaction.deadline > 0) {
+                    transaction.deadline = deadline;
+                }
+            }
+        } else {
+            transaction = transactions.remove(id);
+            if (transaction != null) {
+                transaction.timeout.cancel();
+                MgcpStatistics.completed();
+                record(transaction);
+            }
+            consecutiveTimeouts.set(0);
+            if (unhealthy.compareAndSet(true, false)) {
+                logger.info("The media server of the gateway " + name + " is responding again");
+                events.publish(new MediaGatewayHealth(self(), true));
+            }
+        }
+        if (transaction != null) {
+            transaction.sender.tell(event, self());
         }
     }
 
@@ -298,6 +383,10 @@ public final class MediaGateway extends UntypedActor implements JainMgcpListener
             final DestroyEndpoint request = (DestroyEndpoint) message;
             logger.info("Gateway: "+self().path()+" about to stop endpoint path: "+request.endpoint().path()+" isTerminated: "+request.endpoint().isTerminated()+" sender: "+sender().path());
             context.stop(request.endpoint());
+        } else if (Expire.class.equals(klass)) {
+            expire(((Expire) message).transaction);
+        } else if (Purge.class.equals(klass)) {
+            purge((Purge) message);
         } else if (message instanceof JainMgcpCommandEvent) {
             send(message, sender);
         } else if (message instanceof JainMgcpResponseEvent) {
@@ -309,18 +398,222 @@ public final class MediaGateway extends UntypedActor implements JainMgcpListener
         final JainMgcpCommandEvent command = (JainMgcpCommandEvent) message;
         final int transactionId = (int) transactionIdPool.get();
         command.setTransactionHandle(transactionId);
-        responseListeners.put(transactionId, sender);
+        String requestId = null;
         if (NotificationRequest.class.equals(command.getClass())) {
             final NotificationRequest request = (NotificationRequest) command;
-            final String id = Long.toString(requestIdPool.get());
-            request.getRequestIdentifier().setRequestIdentifier(id);
-            notificationListeners.put(id, sender);
+            requestId = Long.toString(requestIdPool.get());
+            request.getRequestIdentifier().setRequestIdentifier(requestId);
+            final ActorRef self = self();
+            final String id = requestId;
+            final NotificationListener listener = new NotificationListener(sender);
+            listener.purge = timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    self.tell(new Purge(id, listener), null);
+                }
+            }, notificationTimeout, TimeUnit.MILLISECONDS);
+            notificationListeners.put(id, listener);
+            MgcpStatistics.listening();
         }
+        final Transaction transaction = new Transaction(transactionId, command, sender, requestId);
+        transaction.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(transactionTimeout);
+        schedule(transaction);
+        transactions.put(transactionId, transaction);
+        MgcpStatistics.started();
         provider.sendMgcpEvents(new JainMgcpEvent[] { command });
     }
 
+    // Wakes up the transaction once its deadline has passed.
+    private void schedule(final Transaction transaction) {
+        final long remaining = TimeUnit.NANOSECONDS.toMillis(transaction.deadline - System.nanoTime());
+        final ActorRef self = self();
+        transaction.timeout = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                self.tell(new Expire(transaction), null);
+            }
+        }, remaining, TimeUnit.MILLISECONDS);
+    }
+
+    private void expire(final Transaction transaction) {
+        if (transactions.get(transaction.id) != transaction) {
+            // Answered in the meantime.
+            return;
+        }
+        if (transaction.deadline - System.nanoTime() <= 0) {
+            if (transactions.remove(transaction.id, transaction)) {
+                MgcpStatistics.timedOut();
+                fail(transaction);
+            }
+        } else {
+            // A provisional response pushed the deadline back.
+            schedule(transaction);
+        }
+    }
+
+    private void record(final Transaction transaction) {
+        switch (transaction.command.getObjectIdentifier()) {
+            case Constants.CMD_CREATE_CONNECTION:
+                CRCX.recordSince(transaction.started);
+                break;
+            case Constants.CMD_MODIFY_CONNECTION:
+                MDCX.recordSince(transaction.started);
+                break;
+            case Constants.CMD_DELETE_CONNECTION:
+                DLCX.recordSince(transaction.started);
+                break;
+            case Constants.CMD_NOTIFICATION_REQUEST:
+                RQNT.recordSince(transaction.started);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Lets the actor waiting for the response of the command know the transaction timed out.
+    private void fail(final Transaction transaction) {
+        logger.warning("MGCP transaction " + transaction.id + " timed out waiting for a response from the media server");
+        if (consecutiveTimeouts.incrementAndGet() >= MAX_CONSECUTIVE_TIMEOUTS && unhealthy.compareAndSet(false, true)) {
+            logger.error("The media server of the gateway " + name + " is not responding");
+            events.publish(new MediaGatewayHealth(self(), false));
+        }
+        if (transaction.requestId != null) {
+            final NotificationListener listener = notificationListeners.remove(transaction.requestId);
+            if (listener != null) {
+                listener.purge.cancel();
+                MgcpStatistics.notified();
+            }
+        }
+        final ActorRef self = self();
+        final ReturnCode code = ReturnCode.Transient_Error;
+        final JainMgcpResponseEvent response;
+        switch (transaction.command.getObjectIdentifier()) {
+            case Constants.CMD_CREATE_CONNECTION:
+                response = new CreateConnectionResponse(self, code, new ConnectionIdentifier("0"));
+                break;
+            case Constants.CMD_MODIFY_CONNECTION:
+                response = new ModifyConnectionResponse(self, code);
+                break;
+            case Constants.CMD_DELETE_CONNECTION:
+                response = new DeleteConnectionResponse(self, code);
+                break;
+            case Constants.CMD_NOTIFICATION_REQUEST:
+                response = new NotificationRequestResponse(self, code);
+                break;
+            case Constants.CMD_NOTIFY:
+                response = new NotifyResponse(self, code);
+                break;
+            case Constants.CMD_AUDIT_CONNECTION:
+                response = new AuditConnectionResponse(self, code);
+                break;
+            case Constants.CMD_AUDIT_ENDPOINT:
+                response = new AuditEndpointResponse(self, code);
+                break;
+            case Constants.CMD_ENDPOINT_CONFIGURATION:
+                response = new EndpointConfigurationResponse(self, code);
+                break;
+            case Constants.CMD_RESTART_IN_PROGRESS:
+                response = new RestartInProgressResponse(self, code);
+                break;
+            default:
+                transaction.sender.tell(new Status.Failure(new TimeoutException("MGCP transaction " + transaction.id
+                        + " timed out")), self);
+                return;
+        }
+        response.setTransactionHandle(transaction.id);
+        transaction.sender.tell(response, self);
+    }
+
+    private void purge(final Purge message) {
+        if (notificationListeners.remove(message.requestId, message.listener)) {
+            MgcpStatistics.purged();
+            logger.info("No notification received for the MGCP request " + message.requestId + ", forgetting its listener");
+        }
+    }
+
+    private void clear() {
+        for (final Integer id : transactions.keySet()) {
+            final Transaction transaction = transactions.remove(id);
+            if (transaction != null) {
+                MgcpStatistics.completed();
+            }
+        }
+        for (final String id : notificationListeners.keySet()) {
+            final NotificationListener listener = notificationListeners.remove(id);
+            if (listener != null) {
+                listener.purge.cancel();
+                MgcpStatistics.notified();
+            }
+        }
+    }
+
+    @Override
+    public void postStop() {
+        if (transactionIdPool != null) {
+            clear();
+        }
+        if (timer != null) {
+            timer.stop();
+        }
+        super.postStop();
+    }
+
     private void send(final Object message) {
         final JainMgcpResponseEvent response = (JainMgcpResponseEvent) message;
         provider.sendMgcpEvents(new JainMgcpEvent[] { response });
     }
+
+    private static final class Transaction {
+        private final int id;
+        private final JainMgcpCommandEvent command;
+        private final ActorRef sender;
+        // The request identifier of a RQNT, null otherwise.
+        private final String requestId;
+        // In nanoseconds, when the command was first sent.
+        private final long started;
+        // In nanoseconds, when the transaction times out.
+        private volatile long deadline;
+        private volatile HashedTimerWheel.Timeout timeout;
+
+        private Transaction(final int id, final JainMgcpCommandEvent command, final ActorRef sender, final String requestId) {
+            super();
+            this.id = id;
+            this.command = command;
+            this.sender = sender;
+            this.requestId = requestId;
+            this.started = System.nanoTime();
+        }
+    }
+
+    private static final class NotificationListener {
+        private final ActorRef actor;
+        private volatile HashedTimerWheel.Timeout purge;
+
+        private NotificationListener(final ActorRef actor) {
+            super();
+            this.actor = actor;
+        }
+    }
+
+    @Immutable
+    private static final class Expire {
+        private final Transaction transaction;
+
+        private Expire(final Transaction transaction) {
+            super();
+            this.transaction = transaction;
+        }
+    }
+
+    @Immutable
+    private static final class Purge {
+        private final String requestId;
+        private final NotificationListener listener;
+
+        private Purge(final String requestId, final NotificationListener listener) {
+            super();
+            this.requestId = requestId;
+            this.listener = listener;
+        }
+    }
 }
@@ -0,0 +1,48 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.mgcp;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
+
+import akka.actor.ActorRef;
+
+/**
+ * Published on the event stream of the actor system when a media gateway stops or starts again getting responses
+ * from its media server.
+ */
+@Immutable
+public final class MediaGatewayHealth {
+    private final ActorRef gateway;
+    private final boolean healthy;
+
+    public MediaGatewayHealth(final ActorRef gateway, final boolean healthy) {
+        super();
+        this.gateway = gateway;
+        this.healthy = healthy;
+    }
+
+    public ActorRef gateway() {
+        return gateway;
+    }
+
+    public boolean healthy() {
+        return healthy;
+    }
+}
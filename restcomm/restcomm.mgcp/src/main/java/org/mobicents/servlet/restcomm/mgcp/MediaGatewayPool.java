@@ -0,0 +1,431 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.mgcp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.Terminated;
+import akka.actor.UntypedActor;
+import akka.actor.UntypedActorFactory;
+
+/**
+ * Spreads the media of the calls, bridges and conferences over the media gateways of several media servers.
+ *
+ * A gateway is acquired for every media server controller and released once the controller stops. The controllers of
+ * a call tree, the calls dialed by a call and the bridges and conferences started for it, are all given the gateway of
+ * the first call of the tree while any of them is running, so the legs that must be joined on a single media server
+ * stay together. The calls that start a new tree are given the gateway chosen by the policy of the pool among the
+ * healthy ones. A gateway reported unhealthy is taken out of rotation and only given one new tree every retry interval
+ * until its media server responds again, the trees already placed on it are not moved.
+ *
+ * A conference is placed by its name rather than by the tree of its first caller, since its callers normally come from
+ * unrelated trees. A call answered to join a conference is moved to the gateway of the conference before it opens its
+ * media, as long as no other leg of its tree shares its gateway.
+ */
+@ThreadSafe
+public final class MediaGatewayPool {
+    private static final Logger logger = Logger.getLogger(MediaGatewayPool.class);
+
+    private static final List<MediaGatewayPool> pools = new CopyOnWriteArrayList<MediaGatewayPool>();
+
+    public enum Policy {
+        // The gateway with the fewest active controllers.
+        LEAST_ACTIVE("least-active"),
+        // The gateway with the fewest active controllers for its weight.
+        WEIGHTED("weighted"),
+        // The first healthy gateway in the order they were added.
+        FAILOVER("failover");
+
+        private final String text;
+
+        private Policy(final String text) {
+            this.text = text;
+        }
+
+        public static Policy getValueOf(final String value) {
+            for (final Policy policy : values()) {
+                if (policy.text.equalsIgnoreCase(value)) {
+                    return policy;
+                }
+            }
+            throw new IllegalArgumentException(value + " is not a valid media gateway pool policy.");
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private final ActorSystem system;
+    private final Policy policy;
+    private final long retryInterval;
+    private final ActorRef watcher;
+    // Guarded by this.
+    private final List<Member> members;
+    private final Map<String, Placement> placements;
+    private final Map<ActorRef, Allocation> allocations;
+
+    /**
+     * @param retryInterval in milliseconds, the time between two acquisitions of an unhealthy gateway.
+     */
+    public MediaGatewayPool(final ActorSystem system, final Policy policy, final long retryInterval) {
+        super();
+        this.system = system;
+        this.policy = policy;
+        this.retryInterval = retryInterval;
+        this.members = new ArrayList<Member>();
+        this.placements = new HashMap<String, Placement>();
+        this.allocations = new HashMap<ActorRef, Allocation>();
+        final MediaGatewayPool pool = this;
+        this.watcher = system.actorOf(new Props(new UntypedActorFactory() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public UntypedActor create() throws Exception {
+                return new Watcher(pool);
+            }
+        }));
+        system.eventStream().subscribe(watcher, MediaGatewayHealth.class);
+        pools.add(this);
+    }
+
+    /**
+     * @param name the name of the media server, used to report its load.
+     * @param weight the share of the controllers given to the gateway by the weighted policy.
+     */
+    public synchronized void add(final String name, final ActorRef gateway, final int weight) {
+        members.add(new Member(name, gateway, Math.max(weight, 1)));
+    }
+
+    public synchronized int size() {
+        return members.size();
+    }
+
+    /**
+     * Acquires a gateway for a new media server controller. Must be followed by {@link #watch} once the controller
+     * has been created, so the gateway is released when the controller stops.
+     *
+     * @param key the key the controller can be joined by, such as the sid of its call, may be null.
+     * @param joined the key of the controller whose gateway must be shared, such as the sid of the parent call, may be
+     *        null.
+     */
+    public synchronized ActorRef acquire(final String key, final String joined) {
+        if (members.isEmpty()) {
+            throw new IllegalStateException("There is no media gateway in the pool.");
+        }
+        Member member = placed(joined);
+        if (member == null) {
+            member = placed(key);
+        }
+        if (member == null) {
+            final long now = System.currentTimeMillis();
+            member = select(now);
+            if (!member.healthy) {
+                // Probing an unhealthy gateway, hold back the next acquisition.
+                member.retryAt = now + retryInterval;
+            }
+        }
+        place(joined, member);
+        if (key != null && !key.equals(joined)) {
+            place(key, member);
+        }
+        member.active++;
+        member.allocations++;
+        return member.gateway;
+    }
+
+    /**
+     * Releases the gateway acquired for a controller once the controller stops.
+     *
+     * @param key the key given to {@link #acquire} for the controller.
+     * @param joined the joined key given to {@link #acquire} for the controller.
+     */
+    public void watch(final ActorRef controller, final ActorRef gateway, final String key, final String joined) {
+        final List<String> keys = new ArrayList<String>(2);
+        if (joined != null) {
+            keys.add(joined);
+        }
+        if (key != null && !key.equals(joined)) {
+            keys.add(key);
+        }
+        synchronized (this) {
+            allocations.put(controller, new Allocation(find(gateway), keys));
+        }
+        watcher.tell(new Watch(controller), null);
+    }
+
+    /**
+     * Joins a controller that has not opened its media yet to the controllers placed by a key, such as the name of a
+     * conference, and places the key on the gateway of the controller when it is not placed yet. The controller is
+     * moved to the gateway of the key unless another leg of its tree shares its gateway, moving it would split a
+     * bridge.
+     *
+     * @param joined the key to join, such as the name of a conference.
+     * @return the gateway the controller must open its media on.
+     */
+    public synchronized ActorRef join(final ActorRef controller, final String joined) {
+        final Allocation allocation = allocations.get(controller);
+        if (allocation == null) {
+            throw new IllegalArgumentException(controller.path() + " is not a controller of the pool.");
+        }
+        if (joined == null || allocation.keys.contains(joined)) {
+            return allocation.member.gateway;
+        }
+        Member member = placed(joined);
+        if (member == null || !movable(allocation)) {
+            member = allocation.member;
+        }
+        if (member != allocation.member) {
+            for (final String key : allocation.keys) {
+                placements.put(key, new Placement(member));
+            }
+            allocation.member.active--;
+            member.active++;
+            member.allocations++;
+        }
+        place(joined, member);
+        final List<String> keys = new ArrayList<String>(allocation.keys);
+        keys.add(joined);
+        allocations.put(controller, new Allocation(member, keys));
+        return member.gateway;
+    }
+
+    // Whether none of the keys of a controller is shared with another controller.
+    private boolean movable(final Allocation allocation) {
+        for (final String key : allocation.keys) {
+            final Placement placement = placements.get(key);
+            if (placement != null && placement.count > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The legs of a tree stay on its gateway even when it is unhealthy, moving one would split a bridge.
+    private Member placed(final String key) {
+        if (key == null) {
+            return null;
+        }
+        final Placement placement = placements.get(key);
+        return placement == null ? null : placement.member;
+    }
+
+    private void place(final String key, final Member member) {
+        if (key == null) {
+            return;
+        }
+        final Placement placement = placements.get(key);
+        if (placement == null) {
+            placements.put(key, new Placement(member));
+        } else {
+            placement.count++;
+        }
+    }
+
+    private void unplace(final String key) {
+        if (key == null) {
+            return;
+        }
+        final Placement placement = placements.get(key);
+        if (placement != null && --placement.count <= 0) {
+            placements.remove(key);
+        }
+    }
+
+    private Member select(final long now) {
+        Member selected = null;
+        for (final Member member : members) {
+            if (member.isAvailable(now) && (selected == null || better(member, selected))) {
+                selected = member;
+            }
+        }
+        if (selected == null) {
+            // None of the gateways is healthy, keep trying the first one.
+            selected = members.get(0);
+        }
+        return selected;
+    }
+
+    private boolean better(final Member member, final Member than) {
+        switch (policy) {
+            case LEAST_ACTIVE:
+                return member.active < than.active;
+            case WEIGHTED:
+                return (long) (member.active + 1) * than.weight < (long) (than.active + 1) * member.weight;
+            default:
+                return false;
+        }
+    }
+
+    private Member find(final ActorRef gateway) {
+        for (final Member member : members) {
+            if (member.gateway.equals(gateway)) {
+                return member;
+            }
+        }
+        throw new IllegalArgumentException(gateway.path() + " is not a media gateway of the pool.");
+    }
+
+    private synchronized void release(final ActorRef controller) {
+        final Allocation allocation = allocations.remove(controller);
+        if (allocation == null) {
+            return;
+        }
+        allocation.member.active--;
+        for (final String key : allocation.keys) {
+            unplace(key);
+        }
+    }
+
+    private synchronized void health(final ActorRef gateway, final boolean healthy) {
+        for (final Member member : members) {
+            if (member.gateway.equals(gateway)) {
+                if (healthy) {
+                    logger.info("The media server " + member.name + " is back in rotation");
+                } else {
+                    logger.warn("The media server " + member.name + " is taken out of rotation");
+                    member.retryAt = System.currentTimeMillis() + retryInterval;
+                }
+                member.healthy = healthy;
+            }
+        }
+    }
+
+    /**
+     * @return the active controllers, the acquisitions and the health of every gateway of the pool.
+     */
+    public synchronized Map<String, Long> getStatistics() {
+        final Map<String, Long> statistics = new HashMap<String, Long>();
+        for (final Member member : members) {
+            statistics.put(member.name + ".Active", (long) member.active);
+            statistics.put(member.name + ".Allocations", member.allocations);
+            statistics.put(member.name + ".Healthy", member.healthy ? 1L : 0L);
+        }
+        return statistics;
+    }
+
+    /**
+     * @return the statistics of all the pools.
+     */
+    public static Map<String, Long> getTotals() {
+        final Map<String, Long> totals = new HashMap<String, Long>();
+        for (final MediaGatewayPool pool : pools) {
+            totals.putAll(pool.getStatistics());
+        }
+        return totals;
+    }
+
+    public void shutdown() {
+        pools.remove(this);
+        system.eventStream().unsubscribe(watcher);
+        system.stop(watcher);
+    }
+
+    private static final class Member {
+        private final String name;
+        private final ActorRef gateway;
+        private final int weight;
+        private int active;
+        private long allocations;
+        private boolean healthy;
+        // When an unhealthy gateway may be acquired again.
+        private long retryAt;
+
+        private Member(final String name, final ActorRef gateway, final int weight) {
+            super();
+            this.name = name;
+            this.gateway = gateway;
+            this.weight = weight;
+            this.healthy = true;
+        }
+
+        private boolean isAvailable(final long now) {
+            return healthy || now >= retryAt;
+        }
+    }
+
+    private static final class Placement {
+        private final Member member;
+        private int count;
+
+        private Placement(final Member member) {
+            super();
+            this.member = member;
+            this.count = 1;
+        }
+    }
+
+    @Immutable
+    private static final class Allocation {
+        private final Member member;
+        // The keys placed for the controller.
+        private final List<String> keys;
+
+        private Allocation(final Member member, final List<String> keys) {
+            super();
+            this.member = member;
+            this.keys = keys;
+        }
+    }
+
+    @Immutable
+    private static final class Watch {
+        private final ActorRef controller;
+
+        private Watch(final ActorRef controller) {
+            super();
+            this.controller = controller;
+        }
+    }
+
+    // Releases the gateways of the stopped controllers and follows the health of the gateways.
+    private static final class Watcher extends UntypedActor {
+        private final MediaGatewayPool pool;
+
+        private Watcher(final MediaGatewayPool pool) {
+            super();
+            this.pool = pool;
+        }
+
+        @Override
+        public void onReceive(final Object message) throws Exception {
+            if (message instanceof Watch) {
+                getContext().watch(((Watch) message).controller);
+            } else if (message instanceof Terminated) {
+                pool.release(((Terminated) message).actor());
+            } else if (message instanceof MediaGatewayHealth) {
+                final MediaGatewayHealth health = (MediaGatewayHealth) message;
+                pool.health(health.gateway(), health.healthy());
+            }
+        }
+    }
+}
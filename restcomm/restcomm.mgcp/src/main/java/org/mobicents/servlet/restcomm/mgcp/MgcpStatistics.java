@@ -0,0 +1,83 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.mgcp;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * Counts the MGCP transactions of all the media gateways.
+ */
+@ThreadSafe
+public final class MgcpStatistics {
+    private static final AtomicLong transactions = new AtomicLong();
+    private static final AtomicLong inFlight = new AtomicLong();
+    private static final AtomicLong timeouts = new AtomicLong();
+    private static final AtomicLong notificationListeners = new AtomicLong();
+    private static final AtomicLong purgedNotificationListeners = new AtomicLong();
+
+    private MgcpStatistics() {
+        super();
+    }
+
+    static void started() {
+        transactions.incrementAndGet();
+        inFlight.incrementAndGet();
+    }
+
+    static void completed() {
+        inFlight.decrementAndGet();
+    }
+
+    static void timedOut() {
+        timeouts.incrementAndGet();
+        inFlight.decrementAndGet();
+    }
+
+    static void listening() {
+        notificationListeners.incrementAndGet();
+    }
+
+    static void notified() {
+        notificationListeners.decrementAndGet();
+    }
+
+    static void purged() {
+        purgedNotificationListeners.incrementAndGet();
+        notificationListeners.decrementAndGet();
+    }
+
+    /**
+     * @return the number of transactions started, waiting for a response and timed out and the number
+     *         of notification listeners waiting and purged.
+     */
+    public static Map<String, Long> getStatistics() {
+        final Map<String, Long> statistics = new HashMap<String, Long>();
+        statistics.put("Transactions", transactions.get());
+        statistics.put("InFlight", inFlight.get());
+        statistics.put("Timeouts", timeouts.get());
+        statistics.put("NotificationListeners", notificationListeners.get());
+        statistics.put("PurgedNotificationListeners", purgedNotificationListeners.get());
+        return statistics;
+    }
+}
@@ -28,6 +28,9 @@ import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
  */
 @Immutable
 public final class PowerOnMediaGateway {
+    public static final long TRANSACTION_TIMEOUT_DEFAULT = 20000;
+    public static final long NOTIFICATION_TIMEOUT_DEFAULT = 3600000;
+
     // MediaGateway connection information.
     private final String name;
     private final InetAddress localIp;
@@ -39,9 +42,24 @@ public final class PowerOnMediaGateway {
     private final InetAddress externalIp;
     // Used to detect dead media gateways.
     private final long timeout;
+    // Used to recover from lost MGCP messages.
+    private final long transactionTimeout;
+    private final long notificationTimeout;
 
     public PowerOnMediaGateway(final String name, final InetAddress localIp, final int localPort, final InetAddress remoteIp,
             final int remotePort, final boolean useNat, final InetAddress externalIp, final long timeout) {
+        this(name, localIp, localPort, remoteIp, remotePort, useNat, externalIp, timeout, TRANSACTION_TIMEOUT_DEFAULT,
+                NOTIFICATION_TIMEOUT_DEFAULT);
+    }
+
+    /**
+     * @param transactionTimeout in milliseconds, the time to wait for the response to a command, the retransmissions
+     *        made by the MGCP stack included, before giving up on it.
+     * @param notificationTimeout in milliseconds, the time to wait for the notification requested by a RQNT.
+     */
+    public PowerOnMediaGateway(final String name, final InetAddress localIp, final int localPort, final InetAddress remoteIp,
+            final int remotePort, final boolean useNat, final InetAddress externalIp, final long timeout,
+            final long transactionTimeout, final long notificationTimeout) {
         super();
         this.name = name;
         this.localIp = localIp;
@@ -51,6 +69,8 @@ public final class PowerOnMediaGateway {
         this.useNat = useNat;
         this.externalIp = externalIp;
         this.timeout = timeout;
+        this.transactionTimeout = transactionTimeout;
+        this.notificationTimeout = notificationTimeout;
     }
 
     public static Builder builder() {
@@ -89,6 +109,14 @@ public final class PowerOnMediaGateway {
         return timeout;
     }
 
+    public long getTransactionTimeout() {
+        return transactionTimeout;
+    }
+
+    public long getNotificationTimeout() {
+        return notificationTimeout;
+    }
+
     public static final class Builder {
         private String name;
         private InetAddress localIp;
@@ -98,13 +126,16 @@ public final class PowerOnMediaGateway {
         private boolean useNat;
         private InetAddress externalIp;
         private long timeout;
+        private long transactionTimeout = TRANSACTION_TIMEOUT_DEFAULT;
+        private long notificationTimeout = NOTIFICATION_TIMEOUT_DEFAULT;
 
         private Builder() {
             super();
         }
 
         public PowerOnMediaGateway build() {
-            return new PowerOnMediaGateway(name, localIp, localPort, remoteIp, remotePort, useNat, externalIp, timeout);
+            return new PowerOnMediaGateway(name, localIp, localPort, remoteIp, remotePort, useNat, externalIp, timeout,
+                    transactionTimeout, notificationTimeout);
         }
 
         public void setName(final String name) {
@@ -138,5 +169,13 @@ public final class PowerOnMediaGateway {
         public void setTimeout(final long timeout) {
             this.timeout = timeout;
         }
+
+        public void setTransactionTimeout(final long transactionTimeout) {
+            this.transactionTimeout = transactionTimeout;
+        }
+
+        public void setNotificationTimeout(final long notificationTimeout) {
+            this.notificationTimeout = notificationTimeout;
+        }
     }
 }
@@ -0,0 +1,178 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.mgcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+
+public final class MediaGatewayPoolTest {
+    private static ActorSystem system;
+
+    private ActorRef first;
+    private ActorRef second;
+    private MediaGatewayPool pool;
+
+    public MediaGatewayPoolTest() {
+        super();
+    }
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        system = ActorSystem.create();
+    }
+
+    @AfterClass
+    public static void afterClass() throws Exception {
+        system.shutdown();
+    }
+
+    @Before
+    public void before() {
+        first = system.actorOf(new Props(MockMediaGateway.class));
+        second = system.actorOf(new Props(MockMediaGateway.class));
+        pool = new MediaGatewayPool(system, MediaGatewayPool.Policy.LEAST_ACTIVE, 60000);
+        pool.add("first", first, 1);
+        pool.add("second", second, 1);
+    }
+
+    @After
+    public void after() {
+        pool.shutdown();
+        system.stop(first);
+        system.stop(second);
+    }
+
+    @Test
+    public void testLeastActiveGatewayIsAcquired() {
+        final ActorRef one = pool.acquire(null, null);
+        final ActorRef two = pool.acquire(null, null);
+        assertNotSame(one, two);
+        assertEquals(1, (long) pool.getStatistics().get("first.Active"));
+        assertEquals(1, (long) pool.getStatistics().get("second.Active"));
+    }
+
+    @Test
+    public void testCallTreeStaysOnTheSameGateway() {
+        final ActorRef one = pool.acquire("CA1", null);
+        // The dialed call, its own child and the bridge of the tree join the first call.
+        assertSame(one, pool.acquire("CA2", "CA1"));
+        assertSame(one, pool.acquire("CA3", "CA2"));
+        assertSame(one, pool.acquire(null, "CA1"));
+        // Another call tree goes to the least active gateway.
+        assertNotSame(one, pool.acquire("CA4", null));
+    }
+
+    @Test
+    public void testCallsOfOneAccountAreSpread() {
+        // A single tenant places many concurrent calls, each one its own call tree.
+        for (int i = 0; i < 100; i++) {
+            final String call = "CA" + i;
+            final ActorRef gateway = pool.acquire(call, null);
+            // The bridge of every call joins the gateway of that call.
+            assertSame(gateway, pool.acquire(null, call));
+        }
+        assertEquals(100, (long) pool.getStatistics().get("first.Active"));
+        assertEquals(100, (long) pool.getStatistics().get("second.Active"));
+    }
+
+    @Test
+    public void testGatewayIsReleasedWhenTheControllerStops() throws Exception {
+        final ActorRef gateway = pool.acquire("CA1", null);
+        final ActorRef controller = system.actorOf(new Props(MockMediaGateway.class));
+        pool.watch(controller, gateway, "CA1", null);
+        final String name = gateway.equals(first) ? "first" : "second";
+        assertEquals(1, (long) pool.getStatistics().get(name + ".Active"));
+        system.stop(controller);
+        assertEquals(0, await(name + ".Active", 0));
+        // Once the tree is gone its key is placed by the policy again.
+        pool.acquire(null, null);
+        assertNotSame(gateway, pool.acquire("CA2", "CA1"));
+    }
+
+    @Test
+    public void testTwoTreesJoinOneConference() throws Exception {
+        // Two unrelated callers start their own trees on different gateways.
+        final ActorRef one = pool.acquire("CA1", null);
+        final ActorRef caller = system.actorOf(new Props(MockMediaGateway.class));
+        pool.watch(caller, one, "CA1", null);
+        final ActorRef two = pool.acquire("CA2", null);
+        final ActorRef other = system.actorOf(new Props(MockMediaGateway.class));
+        pool.watch(other, two, "CA2", null);
+        assertNotSame(one, two);
+        // The first caller is answered to join the conference and places it with its tree.
+        assertSame(one, pool.join(caller, "AC1:room"));
+        final ActorRef conference = pool.acquire("CA1", "AC1:room");
+        assertSame(one, conference);
+        pool.watch(system.actorOf(new Props(MockMediaGateway.class)), conference, "CA1", "AC1:room");
+        // The second caller is moved to the gateway of the conference before it opens its media.
+        assertSame(one, pool.join(other, "AC1:room"));
+        final String name = one.equals(first) ? "first" : "second";
+        final String moved = one.equals(first) ? "second" : "first";
+        assertEquals(3, (long) pool.getStatistics().get(name + ".Active"));
+        assertEquals(0, (long) pool.getStatistics().get(moved + ".Active"));
+        // The calls later dialed by the second caller follow it.
+        assertSame(one, pool.acquire("CA3", "CA2"));
+        // The conference outlives its first caller.
+        system.stop(caller);
+        assertEquals(3, await(name + ".Active", 3));
+        assertSame(one, pool.acquire(null, "AC1:room"));
+    }
+
+    @Test
+    public void testUnhealthyGatewayIsSkipped() throws Exception {
+        final ActorRef gateway = pool.acquire("CA1", null);
+        final String name = gateway.equals(first) ? "first" : "second";
+        system.eventStream().publish(new MediaGatewayHealth(gateway, false));
+        assertEquals(0, await(name + ".Healthy", 0));
+        // The legs of the tree already placed stay together on the unhealthy gateway.
+        assertSame(gateway, pool.acquire("CA2", "CA1"));
+        assertSame(gateway, pool.acquire(null, "CA1"));
+        // The new trees move to the healthy gateway.
+        final ActorRef other = pool.acquire("CA3", null);
+        assertNotSame(gateway, other);
+        assertSame(other, pool.acquire(null, null));
+        assertSame(other, pool.acquire(null, null));
+        assertSame(other, pool.acquire(null, null));
+        system.eventStream().publish(new MediaGatewayHealth(gateway, true));
+        assertEquals(1, await(name + ".Healthy", 1));
+        assertSame(gateway, pool.acquire(null, null));
+    }
+
+    private long await(final String statistic, final long expected) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        long value = pool.getStatistics().get(statistic);
+        while (value != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            value = pool.getStatistics().get(statistic);
+        }
+        return value;
+    }
+}
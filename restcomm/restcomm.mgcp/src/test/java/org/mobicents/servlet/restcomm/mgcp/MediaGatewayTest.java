@@ -0,0 +1,83 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.mgcp;
+
+import static org.junit.Assert.assertEquals;
+import jain.protocol.ip.mgcp.message.DeleteConnection;
+import jain.protocol.ip.mgcp.message.DeleteConnectionResponse;
+import jain.protocol.ip.mgcp.message.parms.CallIdentifier;
+import jain.protocol.ip.mgcp.message.parms.ConnectionIdentifier;
+import jain.protocol.ip.mgcp.message.parms.EndpointIdentifier;
+import jain.protocol.ip.mgcp.message.parms.ReturnCode;
+
+import java.net.InetAddress;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import scala.concurrent.duration.Duration;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.testkit.JavaTestKit;
+
+public final class MediaGatewayTest {
+    private static ActorSystem system;
+
+    public MediaGatewayTest() {
+        super();
+    }
+
+    @BeforeClass
+    public static void before() throws Exception {
+        system = ActorSystem.create();
+    }
+
+    @AfterClass
+    public static void after() throws Exception {
+        system.shutdown();
+    }
+
+    @Test
+    public void testUnansweredCommandFails() throws Exception {
+        new JavaTestKit(system) {
+            {
+                final ActorRef observer = getRef();
+                // No media server is listening on the remote port.
+                final ActorRef gateway = system.actorOf(new Props(MediaGateway.class));
+                final InetAddress localhost = InetAddress.getByName("127.0.0.1");
+                gateway.tell(new PowerOnMediaGateway("test", localhost, 22727, localhost, 22427, false, null, 1000, 2000,
+                        60000), null);
+                final long timeouts = MgcpStatistics.getStatistics().get("Timeouts");
+                final DeleteConnection dlcx = new DeleteConnection(this, new CallIdentifier("1"), new EndpointIdentifier(
+                        "mobicents/relay/1", "127.0.0.1:22427"), new ConnectionIdentifier("1"));
+                gateway.tell(dlcx, observer);
+                final DeleteConnectionResponse response = expectMsgClass(Duration.create(5, "seconds"),
+                        DeleteConnectionResponse.class);
+                assertEquals(ReturnCode.Transient_Error.getValue(), response.getReturnCode().getValue());
+                assertEquals(dlcx.getTransactionHandle(), response.getTransactionHandle());
+                // Given up after the transaction timeout.
+                assertEquals(1, MgcpStatistics.getStatistics().get("Timeouts") - timeouts);
+                gateway.tell(new PowerOffMediaGateway(), null);
+            }
+        };
+    }
+}
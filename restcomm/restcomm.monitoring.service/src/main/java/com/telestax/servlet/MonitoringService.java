@@ -27,10 +27,19 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.mobicents.servlet.restcomm.cache.DiskCacheIndex;
+import org.mobicents.servlet.restcomm.dispatch.DispatcherStatistics;
+import org.mobicents.servlet.restcomm.dns.DnsCache;
 import org.mobicents.servlet.restcomm.entities.InstanceId;
+import org.mobicents.servlet.restcomm.http.CustomHttpClientBuilder;
+import org.mobicents.servlet.restcomm.http.PooledConnectionManager;
+import org.mobicents.servlet.restcomm.metrics.Metrics;
+import org.mobicents.servlet.restcomm.mgcp.MediaGatewayPool;
+import org.mobicents.servlet.restcomm.mgcp.MgcpStatistics;
 import org.mobicents.servlet.restcomm.patterns.Observing;
 import org.mobicents.servlet.restcomm.patterns.StopObserving;
 import org.mobicents.servlet.restcomm.telephony.CallInfo;
+import org.mobicents.servlet.restcomm.telephony.KeepAliveStatistics;
 import org.mobicents.servlet.restcomm.telephony.MonitoringServiceResponse;
 import org.mobicents.servlet.restcomm.telephony.TextMessage;
 import org.mobicents.servlet.restcomm.telephony.UserRegistration;
@@ -90,9 +99,80 @@ public class MonitoringService extends UntypedActor{
         textInboundToProxyOut = new AtomicInteger();
         textOutbound = new AtomicInteger();
         textNotFound = new AtomicInteger();
+        register();
         logger.info("Monitoring Service started");
     }
 
+    // Lets the metrics endpoint read the counters directly instead of asking the actor.
+    private void register() {
+        Metrics.register("Calls", new Metrics.Source() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                final Map<String, Long> statistics = new HashMap<String, Long>();
+                statistics.put("TotalCallsSinceUptime", (long) callsUpToNow.get());
+                statistics.put("IncomingCallsSinceUptime", (long) incomingCallsUpToNow.get());
+                statistics.put("OutgoingCallsSinceUptime", (long) outgoingCallsUpToNow.get());
+                statistics.put("RegisteredUsers", (long) registeredUsers.size());
+                statistics.put("LiveCalls", (long) callDetailsMap.size());
+                statistics.put("CompletedCalls", (long) completedCalls.get());
+                statistics.put("NoAnswerCalls", (long) noAnswerCalls.get());
+                statistics.put("BusyCalls", (long) busyCalls.get());
+                statistics.put("FailedCalls", (long) failedCalls.get());
+                statistics.put("NotFoundCalls", (long) notFoundCalls.get());
+                statistics.put("CanceledCalls", (long) canceledCalls.get());
+                statistics.put("TextMessageInboundToApp", (long) textInboundToApp.get());
+                statistics.put("TextMessageInboundToClient", (long) textInboundToClient.get());
+                statistics.put("TextMessageInboundToProxyOut", (long) textInboundToProxyOut.get());
+                statistics.put("TextMessageNotFound", (long) textNotFound.get());
+                statistics.put("TextMessageOutbound", (long) textOutbound.get());
+                return statistics;
+            }
+        });
+        Metrics.register("HttpClient", new Metrics.Source() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                final PooledConnectionManager httpPool = CustomHttpClientBuilder.getDefaultConnectionManager();
+                return httpPool != null ? httpPool.getStatistics() : new HashMap<String, Long>();
+            }
+        });
+        Metrics.register("DiskCache", new Metrics.Source() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                return DiskCacheIndex.getTotals();
+            }
+        });
+        Metrics.register("KeepAlive", new Metrics.Source() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                return KeepAliveStatistics.getStatistics();
+            }
+        });
+        Metrics.register("Mgcp", new Metrics.Source() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                return MgcpStatistics.getStatistics();
+            }
+        });
+        Metrics.register("MediaServer", new Metrics.Source() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                return MediaGatewayPool.getTotals();
+            }
+        });
+        Metrics.register("Dispatcher", new Metrics.Source() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                return DispatcherStatistics.getStatistics();
+            }
+        });
+        Metrics.register("Dns", new Metrics.Source() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                return DnsCache.getInstance().getStatistics();
+            }
+        });
+    }
+
     @Override
     public void onReceive(Object message) throws Exception {
         final Class<?> klass = message.getClass();
@@ -273,6 +353,31 @@ public class MonitoringService extends UntypedActor{
         countersMap.put("TextMessageNotFound", textNotFound.get());
         countersMap.put("TextMessageOutbound", textOutbound.get());
 
+        final PooledConnectionManager httpPool = CustomHttpClientBuilder.getDefaultConnectionManager();
+        if (httpPool != null) {
+            for (Map.Entry<String, Long> entry : httpPool.getStatistics().entrySet()) {
+                countersMap.put("HttpClient" + entry.getKey(), entry.getValue().intValue());
+            }
+        }
+        for (Map.Entry<String, Long> entry : DiskCacheIndex.getTotals().entrySet()) {
+            countersMap.put("DiskCache" + entry.getKey(), entry.getValue().intValue());
+        }
+        for (Map.Entry<String, Long> entry : KeepAliveStatistics.getStatistics().entrySet()) {
+            countersMap.put("KeepAlive" + entry.getKey(), entry.getValue().intValue());
+        }
+        for (Map.Entry<String, Long> entry : MgcpStatistics.getStatistics().entrySet()) {
+            countersMap.put("Mgcp" + entry.getKey(), entry.getValue().intValue());
+        }
+        for (Map.Entry<String, Long> entry : MediaGatewayPool.getTotals().entrySet()) {
+            countersMap.put("MediaServer" + entry.getKey(), entry.getValue().intValue());
+        }
+        for (Map.Entry<String, Long> entry : DispatcherStatistics.getStatistics().entrySet()) {
+            countersMap.put("Dispatcher" + entry.getKey(), entry.getValue().intValue());
+        }
+        for (Map.Entry<String, Long> entry : DnsCache.getInstance().getStatistics().entrySet()) {
+            countersMap.put("Dns" + entry.getKey(), entry.getValue().intValue());
+        }
+
         MonitoringServiceResponse callInfoList = new MonitoringServiceResponse(instanceId, callDetailsList, countersMap);
         sender.tell(callInfoList, self);
     }
@@ -280,6 +385,7 @@ public class MonitoringService extends UntypedActor{
     @Override
     public void postStop() {
         logger.info("Monitoring Service at postStop()");
+        Metrics.unregister("Calls");
         super.postStop();
     }
 }
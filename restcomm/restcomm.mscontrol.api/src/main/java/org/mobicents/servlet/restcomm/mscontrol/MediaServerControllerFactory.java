@@ -21,6 +21,8 @@
 
 package org.mobicents.servlet.restcomm.mscontrol;
 
+import org.mobicents.servlet.restcomm.entities.Sid;
+
 import akka.actor.ActorRef;
 
 /**
@@ -36,6 +38,15 @@ public interface MediaServerControllerFactory {
      */
     ActorRef provideCallController();
 
+    /**
+     * Provides a new Media Server Controller for a Call of a call tree.
+     *
+     * @param callSid The sid of the call
+     * @param parentCallSid The sid of the call that dialed the call, null if the call starts a new call tree
+     * @return The media server controller
+     */
+    ActorRef provideCallController(Sid callSid, Sid parentCallSid);
+
     /**
      * Provides a new Media Server Controller for a Conference.
      *
@@ -43,6 +54,15 @@ public interface MediaServerControllerFactory {
      */
     ActorRef provideConferenceController();
 
+    /**
+     * Provides a new Media Server Controller for a Conference started for a call.
+     *
+     * @param name The name of the conference, shared by the calls joining it
+     * @param callSid The sid of the first call joining the conference
+     * @return The media server controller
+     */
+    ActorRef provideConferenceController(String name, Sid callSid);
+
     /**
      * Provides a new Media Server Controller for a Bridge.
      *
@@ -50,4 +70,12 @@ public interface MediaServerControllerFactory {
      */
     ActorRef provideBridgeController();
 
+    /**
+     * Provides a new Media Server Controller for a Bridge started for a call.
+     *
+     * @param callSid The sid of the first call joining the bridge
+     * @return The media server controller
+     */
+    ActorRef provideBridgeController(Sid callSid);
+
 }
@@ -33,13 +33,23 @@ public final class CreateMediaSession {
     private final String connectionMode;
     private final String sessionDescription;
     private final boolean webrtc;
+    private final String conference;
 
     public CreateMediaSession(String connectionMode, String sessionDescription, boolean outbound, boolean webrtc) {
+        this(connectionMode, sessionDescription, outbound, webrtc, null);
+    }
+
+    /**
+     * @param conference the name of the conference the call is answered to join, null if none.
+     */
+    public CreateMediaSession(String connectionMode, String sessionDescription, boolean outbound, boolean webrtc,
+            String conference) {
         super();
         this.connectionMode = connectionMode;
         this.sessionDescription = sessionDescription;
         this.outbound = outbound;
         this.webrtc = webrtc;
+        this.conference = conference;
     }
 
     public CreateMediaSession(String connectionMode) {
@@ -66,4 +76,8 @@ public final class CreateMediaSession {
         return webrtc;
     }
 
+    public String getConference() {
+        return conference;
+    }
+
 }
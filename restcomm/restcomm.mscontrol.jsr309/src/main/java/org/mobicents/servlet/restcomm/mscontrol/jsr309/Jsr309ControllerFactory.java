@@ -23,6 +23,7 @@ package org.mobicents.servlet.restcomm.mscontrol.jsr309;
 
 import javax.media.mscontrol.MsControlFactory;
 
+import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.mscontrol.MediaServerControllerFactory;
 import org.mobicents.servlet.restcomm.mscontrol.MediaServerInfo;
 
@@ -81,6 +82,23 @@ public class Jsr309ControllerFactory implements MediaServerControllerFactory {
         return system.actorOf(new Props(this.bridgeControllerFactory));
     }
 
+    // A single media server is controlled through JSR-309, the call tree makes no difference.
+
+    @Override
+    public ActorRef provideCallController(Sid callSid, Sid parentCallSid) {
+        return provideCallController();
+    }
+
+    @Override
+    public ActorRef provideConferenceController(String name, Sid callSid) {
+        return provideConferenceController();
+    }
+
+    @Override
+    public ActorRef provideBridgeController(Sid callSid) {
+        return provideBridgeController();
+    }
+
     private final class CallControllerFactory implements UntypedActorFactory {
 
         private static final long serialVersionUID = 8689899689896436910L;
@@ -58,6 +58,7 @@ import org.mobicents.servlet.restcomm.mgcp.InitializeConnection;
 import org.mobicents.servlet.restcomm.mgcp.InitializeLink;
 import org.mobicents.servlet.restcomm.mgcp.LinkStateChanged;
 import org.mobicents.servlet.restcomm.mgcp.MediaGatewayInfo;
+import org.mobicents.servlet.restcomm.mgcp.MediaGatewayPool;
 import org.mobicents.servlet.restcomm.mgcp.MediaGatewayResponse;
 import org.mobicents.servlet.restcomm.mgcp.MediaSession;
 import org.mobicents.servlet.restcomm.mgcp.OpenConnection;
@@ -147,7 +148,8 @@ public class MmsCallController extends MediaServerController {
     private ActorRef outboundCallBridgeEndpoint;
 
     // MGCP runtime stuff
-    private final ActorRef mediaGateway;
+    private final MediaGatewayPool mediaGateways;
+    private ActorRef mediaGateway;
     private MediaGatewayInfo gatewayInfo;
     private MediaSession session;
     private ActorRef bridgeEndpoint;
@@ -171,6 +173,13 @@ public class MmsCallController extends MediaServerController {
     private final List<ActorRef> observers;
 
     public MmsCallController(final ActorRef mediaGateway) {
+        this(null, mediaGateway);
+    }
+
+    /**
+     * @param mediaGateways the pool the media gateway was acquired from, null if it was not acquired from a pool.
+     */
+    public MmsCallController(final MediaGatewayPool mediaGateways, final ActorRef mediaGateway) {
         super();
         final ActorRef source = self();
 
@@ -253,6 +262,7 @@ public class MmsCallController extends MediaServerController {
         this.fsm = new FiniteStateMachine(uninitialized, transitions);
 
         // MGCP runtime stuff
+        this.mediaGateways = mediaGateways;
         this.mediaGateway = mediaGateway;
 
         // Call runtime stuff
@@ -443,6 +453,11 @@ public class MmsCallController extends MediaServerController {
         this.remoteSdp = message.getSessionDescription();
         this.webrtc = message.isWebrtc();
 
+        // Open the media of a call joining a conference on the media server of the conference.
+        if (this.mediaGateways != null && message.getConference() != null) {
+            this.mediaGateway = this.mediaGateways.join(self, message.getConference());
+        }
+
         fsm.transition(message, acquiringMediaGatewayInfo);
     }
 
@@ -21,6 +21,9 @@
 
 package org.mobicents.servlet.restcomm.mscontrol.mgcp;
 
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
+import org.mobicents.servlet.restcomm.entities.Sid;
+import org.mobicents.servlet.restcomm.mgcp.MediaGatewayPool;
 import org.mobicents.servlet.restcomm.mscontrol.MediaServerControllerFactory;
 
 import akka.actor.Actor;
@@ -31,6 +34,12 @@ import akka.actor.UntypedActorFactory;
 
 /**
  * Provides controllers for Mobicents Media Server.
+ * <p>
+ * The media gateway of every controller is acquired from a pool of media servers. A call dialed by another call, and a
+ * bridge started for a call, share the media server of that call, so the calls bridged together have their media on a
+ * single media server. A conference is placed by its name, and the calls answered to join it open their media on its
+ * media server. The calls starting a new tree are spread over the media servers by the policy of the pool.
+ * </p>
  *
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  *
@@ -38,50 +47,96 @@ import akka.actor.UntypedActorFactory;
 public class MmsControllerFactory implements MediaServerControllerFactory {
 
     private final ActorSystem system;
-    private final ActorRef mediaGateway;
-    private final CallControllerFactory callControllerFactory;
-    private final ConferenceControllerFactory conferenceControllerFactory;
-    private final BridgeControllerFactory bridgeControllerFactory;
+    private final MediaGatewayPool mediaGateways;
 
     public MmsControllerFactory(ActorSystem system, ActorRef mediaGateway) {
+        this(system, new MediaGatewayPool(system, MediaGatewayPool.Policy.FAILOVER, 0));
+        this.mediaGateways.add("default", mediaGateway, 1);
+    }
+
+    public MmsControllerFactory(ActorSystem system, MediaGatewayPool mediaGateways) {
         super();
         this.system = system;
-        this.mediaGateway = mediaGateway;
-        this.callControllerFactory = new CallControllerFactory();
-        this.conferenceControllerFactory = new ConferenceControllerFactory();
-        this.bridgeControllerFactory = new BridgeControllerFactory();
+        this.mediaGateways = mediaGateways;
     }
 
     @Override
     public ActorRef provideCallController() {
-        return system.actorOf(new Props(this.callControllerFactory));
+        return provideCallController(null, null);
     }
 
     @Override
     public ActorRef provideConferenceController() {
-        return system.actorOf(new Props(this.conferenceControllerFactory));
+        return provideConferenceController(null, null);
     }
 
     @Override
     public ActorRef provideBridgeController() {
-        return system.actorOf(new Props(this.bridgeControllerFactory));
+        return provideBridgeController(null);
+    }
+
+    @Override
+    public ActorRef provideCallController(Sid callSid, Sid parentCallSid) {
+        final String key = key(callSid);
+        final String joined = key(parentCallSid);
+        final ActorRef mediaGateway = mediaGateways.acquire(key, joined);
+        return controller(new CallControllerFactory(mediaGateways, mediaGateway), mediaGateway, key, joined);
+    }
+
+    @Override
+    public ActorRef provideConferenceController(String name, Sid callSid) {
+        // The callers of a conference come from unrelated trees, they join it by its name.
+        final String key = key(callSid);
+        final ActorRef mediaGateway = mediaGateways.acquire(key, name);
+        return controller(new ConferenceControllerFactory(mediaGateway), mediaGateway, key, name);
+    }
+
+    @Override
+    public ActorRef provideBridgeController(Sid callSid) {
+        final String joined = key(callSid);
+        final ActorRef mediaGateway = mediaGateways.acquire(null, joined);
+        return controller(new BridgeControllerFactory(mediaGateway), mediaGateway, null, joined);
+    }
+
+    private String key(Sid callSid) {
+        return callSid == null ? null : callSid.toString();
+    }
+
+    private ActorRef controller(UntypedActorFactory factory, ActorRef mediaGateway, String key, String joined) {
+        final ActorRef controller = system.actorOf(new Props(factory).withDispatcher(ActorDispatchers.SIGNALING));
+        mediaGateways.watch(controller, mediaGateway, key, joined);
+        return controller;
     }
 
-    private final class CallControllerFactory implements UntypedActorFactory {
+    private static final class CallControllerFactory implements UntypedActorFactory {
 
         private static final long serialVersionUID = -4649683839304615853L;
 
+        private final MediaGatewayPool mediaGateways;
+        private final ActorRef mediaGateway;
+
+        public CallControllerFactory(MediaGatewayPool mediaGateways, ActorRef mediaGateway) {
+            this.mediaGateways = mediaGateways;
+            this.mediaGateway = mediaGateway;
+        }
+
         @Override
         public Actor create() throws Exception {
-            return new MmsCallController(mediaGateway);
+            return new MmsCallController(mediaGateways, mediaGateway);
         }
 
     }
 
-    private final class ConferenceControllerFactory implements UntypedActorFactory {
+    private static final class ConferenceControllerFactory implements UntypedActorFactory {
 
         private static final long serialVersionUID = -919317656354678281L;
 
+        private final ActorRef mediaGateway;
+
+        public ConferenceControllerFactory(ActorRef mediaGateway) {
+            this.mediaGateway = mediaGateway;
+        }
+
         @Override
         public Actor create() throws Exception {
             return new MmsConferenceController(mediaGateway);
@@ -89,10 +144,16 @@ public class MmsControllerFactory implements MediaServerControllerFactory {
 
     }
 
-    private final class BridgeControllerFactory implements UntypedActorFactory {
+    private static final class BridgeControllerFactory implements UntypedActorFactory {
 
         private static final long serialVersionUID = 8999152285760508857L;
 
+        private final ActorRef mediaGateway;
+
+        public BridgeControllerFactory(ActorRef mediaGateway) {
+            this.mediaGateway = mediaGateway;
+        }
+
         @Override
         public Actor create() throws Exception {
             return new MmsBridgeController(mediaGateway);
@@ -46,6 +46,7 @@ import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.http.CustomHttpClientBuilder;
 import org.mobicents.servlet.restcomm.provisioning.number.api.ContainerConfiguration;
 import org.mobicents.servlet.restcomm.provisioning.number.api.PhoneNumber;
 import org.mobicents.servlet.restcomm.provisioning.number.api.PhoneNumberParameters;
@@ -103,7 +104,8 @@ public class BandwidthNumberProvisioningManager implements PhoneNumberProvisioni
             siteId = bandwidthConfiguration.getString("siteId");
             activeConfiguration = bandwidthConfiguration;
         }
-        httpClient = new DefaultHttpClient();
+        // Holds the Bandwidth credentials so it must not be the shared client.
+        httpClient = CustomHttpClientBuilder.buildPooled();
         Credentials credentials = new UsernamePasswordCredentials(username, password);
         httpClient.getCredentialsProvider().setCredentials(AuthScope.ANY, credentials);
     }
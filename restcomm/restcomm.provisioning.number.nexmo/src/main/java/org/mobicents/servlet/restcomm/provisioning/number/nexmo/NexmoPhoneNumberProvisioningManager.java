@@ -28,15 +28,17 @@ import java.util.regex.Pattern;
 import org.apache.commons.configuration.Configuration;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.http.CustomHttpClientBuilder;
 import org.mobicents.servlet.restcomm.provisioning.number.api.ContainerConfiguration;
 import org.mobicents.servlet.restcomm.provisioning.number.api.PhoneNumber;
 import org.mobicents.servlet.restcomm.provisioning.number.api.PhoneNumberParameters;
 import org.mobicents.servlet.restcomm.provisioning.number.api.PhoneNumberProvisioningManager;
 import org.mobicents.servlet.restcomm.provisioning.number.api.PhoneNumberSearchFilters;
+import org.mobicents.servlet.restcomm.util.HttpUtils;
 import org.mobicents.servlet.restcomm.util.StringUtils;
 
 import com.google.gson.JsonArray;
@@ -197,7 +199,7 @@ public class NexmoPhoneNumberProvisioningManager implements PhoneNumberProvision
         final HttpGet get = new HttpGet(queryUri);
         try {
 
-            final DefaultHttpClient client = new DefaultHttpClient();
+            final HttpClient client = CustomHttpClientBuilder.buildDefault();
 //                if (telestaxProxyEnabled) {
 //                    // This will work as a flag for LB that this request will need to be modified and proxied to VI
 //                    get.addHeader("TelestaxProxy", String.valueOf(telestaxProxyEnabled));
@@ -211,7 +213,7 @@ public class NexmoPhoneNumberProvisioningManager implements PhoneNumberProvision
             if(logger.isDebugEnabled()) {
                 logger.debug("Nexmo query " + queryUri);
             }
-            final HttpResponse response = client.execute(get);
+            final HttpResponse response = HttpUtils.buffer(client.execute(get));
             if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
                 final String content = StringUtils.toString(response.getEntity().getContent());
                 JsonParser parser = new JsonParser();
@@ -273,7 +275,7 @@ public class NexmoPhoneNumberProvisioningManager implements PhoneNumberProvision
         final HttpPost post = new HttpPost(queryUri);
         try {
 
-            final DefaultHttpClient client = new DefaultHttpClient();
+            final HttpClient client = CustomHttpClientBuilder.buildDefault();
 //                if (telestaxProxyEnabled) {
 //                    // This will work as a flag for LB that this request will need to be modified and proxied to VI
 //                    get.addHeader("TelestaxProxy", String.valueOf(telestaxProxyEnabled));
@@ -284,7 +286,7 @@ public class NexmoPhoneNumberProvisioningManager implements PhoneNumberProvision
 //                        get.addHeader("OutboundIntf", uri.getHost()+":"+uri.getPort()+":"+uri.getTransportParam());
 //                    }
 //                }
-            final HttpResponse response = client.execute(post);
+            final HttpResponse response = HttpUtils.buffer(client.execute(post));
             if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
                 updateNumber(phoneNumberObject, phoneNumberParameters);
                 // we always return true as the phone number was bought
@@ -341,9 +343,9 @@ public class NexmoPhoneNumberProvisioningManager implements PhoneNumberProvision
                 }
             }
             final HttpPost updatePost = new HttpPost(updateUri);
-            final DefaultHttpClient client = new DefaultHttpClient();
+            final HttpClient client = CustomHttpClientBuilder.buildDefault();
 
-            final HttpResponse updateResponse = client.execute(updatePost);
+            final HttpResponse updateResponse = HttpUtils.buffer(client.execute(updatePost));
             if (updateResponse.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
                 return true;
             } else {
@@ -387,7 +389,7 @@ public class NexmoPhoneNumberProvisioningManager implements PhoneNumberProvision
         final HttpPost post = new HttpPost(queryUri);
         try {
 
-            final DefaultHttpClient client = new DefaultHttpClient();
+            final HttpClient client = CustomHttpClientBuilder.buildDefault();
 //                if (telestaxProxyEnabled) {
 //                    // This will work as a flag for LB that this request will need to be modified and proxied to VI
 //                    get.addHeader("TelestaxProxy", String.valueOf(telestaxProxyEnabled));
@@ -398,7 +400,7 @@ public class NexmoPhoneNumberProvisioningManager implements PhoneNumberProvision
 //                        get.addHeader("OutboundIntf", uri.getHost()+":"+uri.getPort()+":"+uri.getTransportParam());
 //                    }
 //                }
-            final HttpResponse response = client.execute(post);
+            final HttpResponse response = HttpUtils.buffer(client.execute(post));
             if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
                 return true;
             } else {
@@ -29,12 +29,13 @@ import javax.servlet.sip.SipURI;
 import org.apache.commons.configuration.Configuration;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.http.CustomHttpClientBuilder;
 import org.mobicents.servlet.restcomm.provisioning.number.api.ContainerConfiguration;
 import org.mobicents.servlet.restcomm.provisioning.number.api.PhoneNumberParameters;
 import org.mobicents.servlet.restcomm.provisioning.number.api.PhoneNumberSearchFilters;
@@ -51,6 +52,7 @@ import org.mobicents.servlet.restcomm.provisioning.number.vi.converter.TNConvert
 import org.mobicents.servlet.restcomm.provisioning.number.vi.converter.VoipInnovationsBodyConverter;
 import org.mobicents.servlet.restcomm.provisioning.number.vi.converter.VoipInnovationsHeaderConverter;
 import org.mobicents.servlet.restcomm.provisioning.number.vi.converter.VoipInnovationsResponseConverter;
+import org.mobicents.servlet.restcomm.util.HttpUtils;
 import org.mobicents.servlet.restcomm.util.StringUtils;
 
 import com.google.i18n.phonenumbers.PhoneNumberUtil;
@@ -216,11 +218,11 @@ public class VoIPInnovationsNumberProvisioningManager implements PhoneNumberProv
             try {
                 post.setEntity(new UrlEncodedFormEntity(parameters));
 
-                final DefaultHttpClient client = new DefaultHttpClient();
+                final HttpClient client = CustomHttpClientBuilder.buildDefault();
                 if (telestaxProxyEnabled) {
                     addTelestaxProxyHeaders(post, ProvisionProvider.REQUEST_TYPE.GETDIDS.name());
                 }
-                final HttpResponse response = client.execute(post);
+                final HttpResponse response = HttpUtils.buffer(client.execute(post));
                 if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
                     final String content = StringUtils.toString(response.getEntity().getContent());
                     final VoipInnovationsResponse result = (VoipInnovationsResponse) xstream.fromXML(content);
@@ -271,11 +273,11 @@ public class VoIPInnovationsNumberProvisioningManager implements PhoneNumberProv
                     List<NameValuePair> parameters = new ArrayList<NameValuePair>();
                     parameters.add(new BasicNameValuePair("apidata", body));
                     post.setEntity(new UrlEncodedFormEntity(parameters));
-                    final DefaultHttpClient client = new DefaultHttpClient();
+                    final HttpClient client = CustomHttpClientBuilder.buildDefault();
                     if(telestaxProxyEnabled) {
                         addTelestaxProxyHeaders(post, ProvisionProvider.REQUEST_TYPE.ASSIGNDID.name());
                     }
-                    final HttpResponse response = client.execute(post);
+                    final HttpResponse response = HttpUtils.buffer(client.execute(post));
                     if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
                         final String content = StringUtils.toString(response.getEntity().getContent());
                         if (content.contains("<statuscode>100</statuscode>")) {
@@ -308,11 +310,11 @@ public class VoIPInnovationsNumberProvisioningManager implements PhoneNumberProv
                 List<NameValuePair> parameters = new ArrayList<NameValuePair>();
                 parameters.add(new BasicNameValuePair("apidata", body));
                 post.setEntity(new UrlEncodedFormEntity(parameters));
-                final DefaultHttpClient client = new DefaultHttpClient();
+                final HttpClient client = CustomHttpClientBuilder.buildDefault();
                 if(telestaxProxyEnabled) {
                     addTelestaxProxyHeaders(post, ProvisionProvider.REQUEST_TYPE.QUERYDID.name());
                 }
-                final HttpResponse response = client.execute(post);
+                final HttpResponse response = HttpUtils.buffer(client.execute(post));
                 if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
                     final String content = StringUtils.toString(response.getEntity().getContent());
                     if (content.contains("<statusCode>100</statusCode>")) {
@@ -367,11 +369,11 @@ public class VoIPInnovationsNumberProvisioningManager implements PhoneNumberProv
                 List<NameValuePair> parameters = new ArrayList<NameValuePair>();
                 parameters.add(new BasicNameValuePair("apidata", body));
                 post.setEntity(new UrlEncodedFormEntity(parameters));
-                final DefaultHttpClient client = new DefaultHttpClient();
+                final HttpClient client = CustomHttpClientBuilder.buildDefault();
                 if(telestaxProxyEnabled) {
                     addTelestaxProxyHeaders(post, ProvisionProvider.REQUEST_TYPE.RELEASEDID.name());
                 }
-                final HttpResponse response = client.execute(post);
+                final HttpResponse response = HttpUtils.buffer(client.execute(post));
                 if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
                     final String content = StringUtils.toString(response.getEntity().getContent());
                     if (content.contains("<statuscode>100</statuscode>")) {
@@ -45,6 +45,7 @@ import org.mobicents.servlet.restcomm.dao.ClientsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.dao.IncomingPhoneNumbersDao;
 import org.mobicents.servlet.restcomm.dao.NotificationsDao;
+import org.mobicents.servlet.restcomm.dao.NumberRoutingTable;
 import org.mobicents.servlet.restcomm.dao.SmsMessagesDao;
 import org.mobicents.servlet.restcomm.entities.Application;
 import org.mobicents.servlet.restcomm.entities.Client;
@@ -88,6 +89,7 @@ public final class SmsService extends UntypedActor {
     private final SipFactory sipFactory;
     private final DaoManager storage;
     private final ServletContext servletContext;
+    private final NumberRoutingTable routes;
     static final int ERROR_NOTIFICATION = 0;
     static final int WARNING_NOTIFICATION = 1;
 
@@ -111,6 +113,8 @@ public final class SmsService extends UntypedActor {
         this.sipFactory = factory;
         this.storage = storage;
         this.servletContext = servletContext;
+        this.routes = servletContext != null ? (NumberRoutingTable) servletContext
+                .getAttribute(NumberRoutingTable.class.getName()) : null;
         monitoringService = (ActorRef) servletContext.getAttribute(MonitoringService.class.getName());
         // final Configuration runtime = configuration.subset("runtime-settings");
         // TODO this.useTo = runtime.getBoolean("use-to");
@@ -238,17 +242,28 @@ public final class SmsService extends UntypedActor {
         // Handle the SMS message.
         final SipURI uri = (SipURI) request.getRequestURI();
         final String to = uri.getUser();
-        // Format the destination to an E.164 phone number.
-        final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
         String phone = to;
-        try {
-            phone = phoneNumberUtil.format(phoneNumberUtil.parse(to, "US"), PhoneNumberFormat.E164);
-        } catch (Exception e) {}
-        // Try to find an application defined for the phone number.
-        final IncomingPhoneNumbersDao numbers = storage.getIncomingPhoneNumbersDao();
-        IncomingPhoneNumber number = numbers.getIncomingPhoneNumber(phone);
-        if (number == null) {
-            number = numbers.getIncomingPhoneNumber(to);
+        IncomingPhoneNumber number = null;
+        URI url = null;
+        if (routes != null) {
+            // The routing table resolves the number without going to the data store.
+            final NumberRoutingTable.Route route = routes.getSmsRoute(to);
+            if (route != null) {
+                number = route.getNumber();
+                url = route.getSmsUrl();
+            }
+        } else {
+            // Format the destination to an E.164 phone number.
+            final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+            try {
+                phone = phoneNumberUtil.format(phoneNumberUtil.parse(to, "US"), PhoneNumberFormat.E164);
+            } catch (Exception e) {}
+            // Try to find an application defined for the phone number.
+            final IncomingPhoneNumbersDao numbers = storage.getIncomingPhoneNumbersDao();
+            number = numbers.getIncomingPhoneNumber(phone);
+            if (number == null) {
+                number = numbers.getIncomingPhoneNumber(to);
+            }
         }
         try {
             if (number != null) {
@@ -261,13 +276,16 @@ public final class SmsService extends UntypedActor {
                     builder.setStorage(storage);
                     builder.setAccount(number.getAccountSid());
                     builder.setVersion(number.getApiVersion());
-                    final Sid sid = number.getSmsApplicationSid();
-                    if (sid != null) {
-                        final Application application = applications.getApplication(sid);
-                        builder.setUrl(UriUtils.resolve(application.getRcmlUrl()));
-                    } else {
-                        builder.setUrl(UriUtils.resolve(appUri));
+                    if (url == null) {
+                        final Sid sid = number.getSmsApplicationSid();
+                        if (sid != null) {
+                            final Application application = applications.getApplication(sid);
+                            url = application.getRcmlUrl();
+                        } else {
+                            url = appUri;
+                        }
                     }
+                    builder.setUrl(UriUtils.resolve(url));
                     builder.setMethod(number.getSmsMethod());
                     URI appFallbackUrl = number.getSmsFallbackUrl();
                     if (appFallbackUrl != null) {
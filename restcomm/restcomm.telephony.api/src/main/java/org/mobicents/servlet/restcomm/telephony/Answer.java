@@ -26,7 +26,21 @@ import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
  */
 @Immutable
 public final class Answer {
+    private final String conference;
+
     public Answer() {
+        this(null);
+    }
+
+    /**
+     * @param conference the name of the conference the call is answered to join, null if none.
+     */
+    public Answer(final String conference) {
         super();
+        this.conference = conference;
+    }
+
+    public String conference() {
+        return conference;
     }
 }
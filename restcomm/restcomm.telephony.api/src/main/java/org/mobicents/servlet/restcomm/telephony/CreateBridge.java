@@ -22,6 +22,7 @@
 package org.mobicents.servlet.restcomm.telephony;
 
 import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
+import org.mobicents.servlet.restcomm.entities.Sid;
 
 /**
  * @author Henrique Rosa (henrique.rosa@telestax.com)
@@ -30,8 +31,19 @@ import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
 @Immutable
 public final class CreateBridge {
 
+    private final Sid callSid;
+
     public CreateBridge() {
+        this(null);
+    }
+
+    public CreateBridge(final Sid callSid) {
         super();
+        this.callSid = callSid;
+    }
+
+    public Sid callSid() {
+        return callSid;
     }
 
 }
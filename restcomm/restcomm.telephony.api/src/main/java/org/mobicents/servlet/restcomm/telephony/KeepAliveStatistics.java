@@ -0,0 +1,104 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.telephony;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * Counts the keep alive messages (OPTIONS) sent to the registered clients and measures their round trip time.
+ */
+@ThreadSafe
+public final class KeepAliveStatistics {
+    private static final AtomicLong sent = new AtomicLong();
+    private static final AtomicLong answered = new AtomicLong();
+    private static final AtomicLong failed = new AtomicLong();
+    private static final AtomicLong timedOut = new AtomicLong();
+    private static final AtomicLong skipped = new AtomicLong();
+    private static final AtomicLong outstanding = new AtomicLong();
+    private static final AtomicLong roundTripTotal = new AtomicLong();
+    private static final AtomicLong roundTripMax = new AtomicLong();
+
+    private KeepAliveStatistics() {
+        super();
+    }
+
+    public static void sent() {
+        sent.incrementAndGet();
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * @param roundTrip in milliseconds, the time between sending the keep alive and receiving its response.
+     */
+    public static void answered(final long roundTrip) {
+        answered.incrementAndGet();
+        outstanding.decrementAndGet();
+        roundTripTotal.addAndGet(roundTrip);
+        long max = roundTripMax.get();
+        while (roundTrip > max && !roundTripMax.compareAndSet(max, roundTrip)) {
+            max = roundTripMax.get();
+        }
+    }
+
+    /**
+     * Counts a keep alive answered with an error response or that could not be sent.
+     *
+     * @param wasSent whether the keep alive had been sent and counted as outstanding.
+     */
+    public static void failed(final boolean wasSent) {
+        failed.incrementAndGet();
+        if (wasSent) {
+            outstanding.decrementAndGet();
+        }
+    }
+
+    public static void timedOut() {
+        timedOut.incrementAndGet();
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * Counts a keep alive not sent because the limit of keep alives per second was reached.
+     */
+    public static void skipped() {
+        skipped.incrementAndGet();
+    }
+
+    /**
+     * @return the counters of the keep alives and their average and maximum round trip time in milliseconds.
+     */
+    public static Map<String, Long> getStatistics() {
+        final long answers = answered.get();
+        final Map<String, Long> statistics = new HashMap<String, Long>();
+        statistics.put("Sent", sent.get());
+        statistics.put("Answered", answers);
+        statistics.put("Failed", failed.get());
+        statistics.put("TimedOut", timedOut.get());
+        statistics.put("Skipped", skipped.get());
+        statistics.put("Outstanding", outstanding.get());
+        statistics.put("RoundTripAverage", answers > 0 ? roundTripTotal.get() / answers : 0);
+        statistics.put("RoundTripMax", roundTripMax.get());
+        return statistics;
+    }
+}
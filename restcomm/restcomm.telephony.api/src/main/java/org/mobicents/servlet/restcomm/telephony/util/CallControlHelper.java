@@ -46,6 +46,11 @@ import org.mobicents.servlet.restcomm.util.DigestAuthentication;
  */
 public class CallControlHelper {
 
+    /**
+     * The attribute of an initial invite holding when it was received, from {@link System#nanoTime()}.
+     */
+    public static final String INVITE_RECEIVED = "InviteReceived";
+
     static boolean permitted(final String authorization, final String method, DaoManager daoManager) {
         final Map<String, String> map = authHeaderToMap(authorization);
         final String user = map.get("username");
@@ -58,6 +58,7 @@ import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
 import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
 import org.mobicents.servlet.restcomm.dao.CallDetailRecordsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
+import org.mobicents.servlet.restcomm.dns.DnsCache;
 import org.mobicents.servlet.restcomm.entities.CallDetailRecord;
 import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.fsm.Action;
@@ -67,6 +68,8 @@ import org.mobicents.servlet.restcomm.fsm.Transition;
 import org.mobicents.servlet.restcomm.fsm.TransitionFailedException;
 import org.mobicents.servlet.restcomm.fsm.TransitionNotFoundException;
 import org.mobicents.servlet.restcomm.fsm.TransitionRollbackException;
+import org.mobicents.servlet.restcomm.metrics.LatencyHistogram;
+import org.mobicents.servlet.restcomm.metrics.Metrics;
 import org.mobicents.servlet.restcomm.mscontrol.messages.CloseMediaSession;
 import org.mobicents.servlet.restcomm.mscontrol.messages.Collect;
 import org.mobicents.servlet.restcomm.mscontrol.messages.CreateMediaSession;
@@ -119,6 +122,9 @@ public final class Call extends UntypedActor {
     private static final String OUTBOUND_API = "outbound-api";
     private static final String OUTBOUND_DIAL = "outbound-dial";
 
+    // The time from sending an invite to its first response other than 100 Trying.
+    private static final LatencyHistogram POST_DIAL_DELAY = Metrics.timer("call.post-dial-delay");
+
     // Finite State Machine
     private final FiniteStateMachine fsm;
     private final State uninitialized;
@@ -144,6 +150,7 @@ public final class Call extends UntypedActor {
 
     // SIP runtime stuff
     private final SipFactory factory;
+    private final DnsCache dns;
     private String apiVersion;
     private Sid accountId;
     private String name;
@@ -156,6 +163,8 @@ public final class Call extends UntypedActor {
     private CreateCall.Type type;
     private long timeout;
     private SipServletRequest invite;
+    // In nanoseconds, when the invite of an outbound call was sent, 0 once it got a response.
+    private long dialed;
     private SipServletResponse lastResponse;
 
     // Call runtime stuff.
@@ -193,6 +202,10 @@ public final class Call extends UntypedActor {
     private Configuration runtimeSettings;
 
     public Call(final SipFactory factory, final ActorRef mediaSessionController) {
+        this(factory, mediaSessionController, Sid.generate(Sid.Type.CALL));
+    }
+
+    public Call(final SipFactory factory, final ActorRef mediaSessionController, final Sid id) {
         super();
         final ActorRef source = self();
 
@@ -270,6 +283,7 @@ public final class Call extends UntypedActor {
 
         // SIP runtime stuff.
         this.factory = factory;
+        this.dns = DnsCache.getInstance();
 
         // Conferencing
         this.conferencing = false;
@@ -279,7 +293,7 @@ public final class Call extends UntypedActor {
         this.fail = false;
 
         // Initialize the runtime stuff.
-        this.id = Sid.generate(Sid.Type.CALL);
+        this.id = id;
         this.created = DateTime.now();
         this.observers = Collections.synchronizedList(new ArrayList<ActorRef>());
         this.receivedBye = false;
@@ -329,8 +343,8 @@ public final class Call extends UntypedActor {
         final ListIterator<String> recordRouteHeaders = message.getHeaders("Record-Route");
         final Address contactAddr = factory.createAddress(message.getHeader("Contact"));
 
-        InetAddress contactInetAddress = InetAddress.getByName(((SipURI) contactAddr.getURI()).getHost());
-        InetAddress inetAddress = InetAddress.getByName(realIP);
+        InetAddress contactInetAddress = dns.resolve(((SipURI) contactAddr.getURI()).getHost());
+        InetAddress inetAddress = dns.resolve(realIP);
 
         int remotePort = message.getRemotePort();
         int contactPort = ((SipURI) contactAddr.getURI()).getPort();
@@ -628,6 +642,7 @@ public final class Call extends UntypedActor {
             invite.setContent(offer, "application/sdp");
             // Send the invite.
             invite.send();
+            dialed = System.nanoTime();
             // Set the timeout period.
             final UntypedActorContext context = getContext();
             context.setReceiveTimeout(Duration.create(timeout, TimeUnit.SECONDS));
@@ -921,11 +936,13 @@ public final class Call extends UntypedActor {
             if (isOutbound()) {
                 command = new CreateMediaSession("sendrecv", "", true, webrtc);
             } else {
+                // A call answered to join a conference opens its media on the media server of the conference.
+                final String conference = message instanceof Answer ? ((Answer) message).conference() : null;
                 if (!liveCallModification) {
-                    command = generateRequest(invite);
+                    command = generateRequest(invite, conference);
                 } else {
                     if (lastResponse != null && lastResponse.getStatus() == 200) {
-                        command = generateRequest(lastResponse);
+                        command = generateRequest(lastResponse, conference);
                     }
                     // TODO no else may lead to NullPointerException
                 }
@@ -933,11 +950,12 @@ public final class Call extends UntypedActor {
             msController.tell(command, source);
         }
 
-        private CreateMediaSession generateRequest(SipServletMessage sipMessage) throws IOException, SdpException {
+        private CreateMediaSession generateRequest(SipServletMessage sipMessage, String conference) throws IOException,
+                SdpException {
             final String externalIp = sipMessage.getInitialRemoteAddr();
             final byte[] sdp = sipMessage.getRawContent();
             final String offer = SdpUtils.patch(sipMessage.getContentType(), sdp, externalIp);
-            return new CreateMediaSession("sendrecv", offer, false, webrtc);
+            return new CreateMediaSession("sendrecv", offer, false, webrtc, conference);
         }
     }
 
@@ -967,7 +985,7 @@ public final class Call extends UntypedActor {
 //                  session.setAttribute("realInetUri", factory.createSipURI(null, realInetUri.getHost()+":"+realInetUri.getPort()));
                         session.setAttribute("realInetUri", realInetUri);
                     }
-                    final InetAddress ackRURI = InetAddress.getByName(((SipURI) ack.getRequestURI()).getHost());
+                    final InetAddress ackRURI = dns.resolve(((SipURI) ack.getRequestURI()).getHost());
 
                     if (realInetUri != null
                             && (ackRURI.isSiteLocalAddress() || ackRURI.isAnyLocalAddress() || ackRURI.isLoopbackAddress())) {
@@ -1310,6 +1328,10 @@ public final class Call extends UntypedActor {
         this.lastResponse = message;
 
         final int code = message.getStatus();
+        if (dialed != 0 && code > SipServletResponse.SC_TRYING) {
+            POST_DIAL_DELAY.recordSince(dialed);
+            dialed = 0;
+        }
         switch (code) {
             case SipServletResponse.SC_CALL_BEING_FORWARDED: {
                 forwarding(message);
@@ -1434,7 +1456,7 @@ public final class Call extends UntypedActor {
                 bye.addHeader("Reason",hangup.getMessage());
             }
             SipURI realInetUri = (SipURI) session.getAttribute("realInetUri");
-            InetAddress byeRURI = InetAddress.getByName(((SipURI) bye.getRequestURI()).getHost());
+            InetAddress byeRURI = dns.resolve(((SipURI) bye.getRequestURI()).getHost());
 
             // INVITE sip:+12055305520@107.21.247.251 SIP/2.0
             // Record-Route: <sip:10.154.28.245:5065;transport=udp;lr;node_host=10.13.169.214;node_port=5080;version=0>
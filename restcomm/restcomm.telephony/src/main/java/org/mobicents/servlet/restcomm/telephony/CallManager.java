@@ -34,8 +34,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import javax.servlet.ServletContext;
@@ -58,7 +56,10 @@ import org.mobicents.servlet.restcomm.dao.ClientsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.dao.IncomingPhoneNumbersDao;
 import org.mobicents.servlet.restcomm.dao.NotificationsDao;
+import org.mobicents.servlet.restcomm.dao.NumberRoutingTable;
 import org.mobicents.servlet.restcomm.dao.RegistrationsDao;
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
+import org.mobicents.servlet.restcomm.dns.DnsCache;
 import org.mobicents.servlet.restcomm.entities.Account;
 import org.mobicents.servlet.restcomm.entities.Application;
 import org.mobicents.servlet.restcomm.entities.Client;
@@ -113,6 +114,7 @@ public final class CallManager extends UntypedActor {
     private final Configuration configuration;
     private final ServletContext context;
     private final MediaServerControllerFactory msControllerFactory;
+    private final NumberRoutingTable routes;
     private final ActorRef conferences;
     private final ActorRef bridges;
     private final ActorRef sms;
@@ -125,18 +127,10 @@ public final class CallManager extends UntypedActor {
     private boolean useTo;
     private boolean authenticateUsers;
 
-    private AtomicInteger numberOfFailedCalls;
-    private AtomicBoolean useFallbackProxy;
-    private boolean allowFallback;
-    private boolean allowFallbackToPrimary;
-    private int maxNumberOfFailedCalls;
-
-    private String primaryProxyUri;
-    private String primaryProxyUsername, primaryProxyPassword;
-    private String fallBackProxyUri;
-    private String fallBackProxyUsername, fallBackProxyPassword;
-    private String activeProxy;
-    private String activeProxyUsername, activeProxyPassword;
+    // Shared by all the call managers of the node.
+    private final OutboundProxies proxies;
+    private final DnsCache dns;
+
     private String mediaExternalIp;
     private String myHostIp;
     private String proxyIp;
@@ -146,19 +140,25 @@ public final class CallManager extends UntypedActor {
 
     // used for sending warning and error logs to notification engine and to the console
     private void sendNotification(String errMessage, int errCode, String errType, boolean createNotification) {
+        sendNotification(errMessage, errCode, errType, createNotification, null);
+    }
+
+    // the account is passed by the message being handled since the call manager serves many accounts
+    private void sendNotification(String errMessage, int errCode, String errType, boolean createNotification,
+            final Sid accountId) {
         NotificationsDao notifications = storage.getNotificationsDao();
         Notification notification;
 
         if (errType == "warning") {
             logger.warning(errMessage); // send message to console
             if (createNotification) {
-                notification = notification(ERROR_NOTIFICATION, errCode, errMessage);
+                notification = notification(ERROR_NOTIFICATION, errCode, errMessage, accountId);
                 notifications.addNotification(notification);
             }
         } else if (errType == "error") {
             logger.error(errMessage); // send message to console
             if (createNotification) {
-                notification = notification(ERROR_NOTIFICATION, errCode, errMessage);
+                notification = notification(ERROR_NOTIFICATION, errCode, errMessage, accountId);
                 notifications.addNotification(notification);
             }
         } else if (errType == "info") {
@@ -168,12 +168,17 @@ public final class CallManager extends UntypedActor {
     }
 
     private final LoggingAdapter logger = Logging.getLogger(getContext().system(), this);
-    private CreateCall createCallRequest;
-    private SwitchProxy switchProxyRequest;
 
     public CallManager(final Configuration configuration, final ServletContext context, final ActorSystem system,
             final MediaServerControllerFactory msControllerFactory, final ActorRef conferences, final ActorRef bridges,
             final ActorRef sms, final SipFactory factory, final DaoManager storage) {
+        this(configuration, context, system, msControllerFactory, conferences, bridges, sms, factory, storage,
+                new OutboundProxies(configuration.subset("runtime-settings").subset("outbound-proxy")));
+    }
+
+    public CallManager(final Configuration configuration, final ServletContext context, final ActorSystem system,
+            final MediaServerControllerFactory msControllerFactory, final ActorRef conferences, final ActorRef bridges,
+            final ActorRef sms, final SipFactory factory, final DaoManager storage, final OutboundProxies proxies) {
         super();
         this.system = system;
         this.configuration = configuration;
@@ -184,8 +189,10 @@ public final class CallManager extends UntypedActor {
         this.sms = sms;
         this.sipFactory = factory;
         this.storage = storage;
+        this.proxies = proxies;
+        this.dns = DnsCache.getInstance();
+        this.routes = context != null ? (NumberRoutingTable) context.getAttribute(NumberRoutingTable.class.getName()) : null;
         final Configuration runtime = configuration.subset("runtime-settings");
-        final Configuration outboundProxyConfig = runtime.subset("outbound-proxy");
         SipURI outboundIntf = outboundInterface("udp");
         if (outboundIntf != null) {
             myHostIp = ((SipURI) outboundIntf).getHost().toString();
@@ -210,44 +217,22 @@ public final class CallManager extends UntypedActor {
         this.useTo = runtime.getBoolean("use-to");
         this.authenticateUsers = runtime.getBoolean("authenticate");
 
-        this.primaryProxyUri = outboundProxyConfig.getString("outbound-proxy-uri");
-        this.primaryProxyUsername = outboundProxyConfig.getString("outbound-proxy-user");
-        this.primaryProxyPassword = outboundProxyConfig.getString("outbound-proxy-password");
-
-        this.fallBackProxyUri = outboundProxyConfig.getString("fallback-outbound-proxy-uri");
-        this.fallBackProxyUsername = outboundProxyConfig.getString("fallback-outbound-proxy-user");
-        this.fallBackProxyPassword = outboundProxyConfig.getString("fallback-outbound-proxy-password");
-
-        this.activeProxy = primaryProxyUri;
-        this.activeProxyUsername = primaryProxyUsername;
-        this.activeProxyPassword = primaryProxyPassword;
-
-        numberOfFailedCalls = new AtomicInteger();
-        numberOfFailedCalls.set(0);
-        useFallbackProxy = new AtomicBoolean();
-        useFallbackProxy.set(false);
-
-        allowFallback = outboundProxyConfig.getBoolean("allow-fallback", false);
-
-        maxNumberOfFailedCalls = outboundProxyConfig.getInt("max-failed-calls", 20);
-
-        allowFallbackToPrimary = outboundProxyConfig.getBoolean("allow-fallback-to-primary", false);
-
         patchForNatB2BUASessions = runtime.getBoolean("patch-for-nat-b2bua-sessions", true);
 
         //Monitoring Service
         this.monitoring = (ActorRef) context.getAttribute(MonitoringService.class.getName());
     }
 
-    private ActorRef call() {
+    private ActorRef call(final Sid parentCallSid) {
+        final Sid id = Sid.generate(Sid.Type.CALL);
         return system.actorOf(new Props(new UntypedActorFactory() {
             private static final long serialVersionUID = 1L;
 
             @Override
             public UntypedActor create() throws Exception {
-                return new Call(sipFactory, msControllerFactory.provideCallController());
+                return new Call(sipFactory, msControllerFactory.provideCallController(id, parentCallSid), id);
             }
-        }));
+        }).withDispatcher(ActorDispatchers.SIGNALING));
     }
 
     private void check(final Object message) throws IOException {
@@ -279,6 +264,7 @@ public final class CallManager extends UntypedActor {
             okay.send();
             return;
         }
+        request.setAttribute(CallControlHelper.INVITE_RECEIVED, System.nanoTime());
         //Run proInboundAction Extensions here
         // If it's a new invite lets try to handle it.
         final AccountsDao accounts = storage.getAccountsDao();
@@ -308,7 +294,7 @@ public final class CallManager extends UntypedActor {
         final String toUser = CallControlHelper.getUserSipId(request, useTo);
         final String ruri = ((SipURI) request.getRequestURI()).getHost();
         final String toHost = ((SipURI) request.getTo().getURI()).getHost();
-        final String toHostIpAddress = InetAddress.getByName(toHost).getHostAddress();
+        final String toHostIpAddress = dns.resolve(toHost).getHostAddress();
         final String toPort = String.valueOf(((SipURI) request.getTo().getURI()).getPort()).equalsIgnoreCase("-1") ? "5060"
                 : String.valueOf(((SipURI) request.getTo().getURI()).getHost());
         final String transport = ((SipURI) request.getTo().getURI()).getTransportParam() == null ? "udp" : ((SipURI) request
@@ -351,9 +337,10 @@ public final class CallManager extends UntypedActor {
                 sendNotification(errMsg, 11002, "warning", true);
 
                 // https://telestax.atlassian.net/browse/RESTCOMM-335
-                final String proxyURI = activeProxy;
-                final String proxyUsername = activeProxyUsername;
-                final String proxyPassword = activeProxyPassword;
+                final OutboundProxies.Proxy activeProxy = proxies.getActive();
+                final String proxyURI = activeProxy.getUri();
+                final String proxyUsername = activeProxy.getUsername();
+                final String proxyPassword = activeProxy.getPassword();
                 SipURI from = null;
                 SipURI to = null;
                 boolean callToSipUri = false;
@@ -442,7 +429,7 @@ public final class CallManager extends UntypedActor {
             SipURI fromInetUri = (SipURI) request.getSession().getAttribute("fromInetUri");
             InetAddress infoRURI = null;
             try {
-                infoRURI = InetAddress.getByName(((SipURI) clonedInfo.getRequestURI()).getHost());
+                infoRURI = dns.resolve(((SipURI) clonedInfo.getRequestURI()).getHost());
             } catch (UnknownHostException e) {
             }
             if (patchForNatB2BUASessions) {
@@ -482,24 +469,46 @@ public final class CallManager extends UntypedActor {
     private boolean redirectToHostedVoiceApp(final ActorRef self, final SipServletRequest request, final AccountsDao accounts,
             final ApplicationsDao applications, String phone) {
         boolean isFoundHostedApp = false;
-        // Format the destination to an E.164 phone number.
-        final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
-        String formatedPhone = null;
-        try {
-            formatedPhone = phoneNumberUtil.format(phoneNumberUtil.parse(phone, "US"), PhoneNumberFormat.E164);
-        } catch (Exception e) {
-        }
         IncomingPhoneNumber number = null;
         try {
-            // Try to find an application defined for the phone number.
-            final IncomingPhoneNumbersDao numbers = storage.getIncomingPhoneNumbersDao();
-            number = numbers.getIncomingPhoneNumber(formatedPhone);
-            if (number == null) {
-                number = numbers.getIncomingPhoneNumber(phone);
-            }
-            if (number == null) {
-                // https://github.com/Mobicents/RestComm/issues/84 using wildcard as default application
-                number = numbers.getIncomingPhoneNumber("*");
+            Account account = null;
+            URI url = null;
+            if (routes != null) {
+                // The routing table resolves the number without going to the data store.
+                final NumberRoutingTable.Route route = routes.getVoiceRoute(phone);
+                if (route != null) {
+                    number = route.getNumber();
+                    account = route.getAccount();
+                    url = route.getVoiceUrl();
+                }
+            } else {
+                // Format the destination to an E.164 phone number.
+                final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+                String formatedPhone = null;
+                try {
+                    formatedPhone = phoneNumberUtil.format(phoneNumberUtil.parse(phone, "US"), PhoneNumberFormat.E164);
+                } catch (Exception e) {
+                }
+                // Try to find an application defined for the phone number.
+                final IncomingPhoneNumbersDao numbers = storage.getIncomingPhoneNumbersDao();
+                number = numbers.getIncomingPhoneNumber(formatedPhone);
+                if (number == null) {
+                    number = numbers.getIncomingPhoneNumber(phone);
+                }
+                if (number == null) {
+                    // https://github.com/Mobicents/RestComm/issues/84 using wildcard as default application
+                    number = numbers.getIncomingPhoneNumber("*");
+                }
+                if (number != null) {
+                    account = accounts.getAccount(number.getAccountSid());
+                    final Sid sid = number.getVoiceApplicationSid();
+                    if (sid != null) {
+                        final Application application = applications.getApplication(sid);
+                        url = application.getRcmlUrl();
+                    } else {
+                        url = number.getVoiceUrl();
+                    }
+                }
             }
             if (number != null) {
                 final VoiceInterpreterBuilder builder = new VoiceInterpreterBuilder(system);
@@ -511,15 +520,8 @@ public final class CallManager extends UntypedActor {
                 builder.setSmsService(sms);
                 builder.setAccount(number.getAccountSid());
                 builder.setVersion(number.getApiVersion());
-                final Account account = accounts.getAccount(number.getAccountSid());
                 builder.setEmailAddress(account.getEmailAddress());
-                final Sid sid = number.getVoiceApplicationSid();
-                if (sid != null) {
-                    final Application application = applications.getApplication(sid);
-                    builder.setUrl(UriUtils.resolve(application.getRcmlUrl()));
-                } else {
-                    builder.setUrl(UriUtils.resolve(number.getVoiceUrl()));
-                }
+                builder.setUrl(UriUtils.resolve(url));
                 builder.setMethod(number.getVoiceMethod());
                 URI uri = number.getVoiceFallbackUrl();
                 if (uri != null)
@@ -531,7 +533,7 @@ public final class CallManager extends UntypedActor {
                 builder.setStatusCallbackMethod(number.getStatusCallbackMethod());
                 builder.setMonitoring(monitoring);
                 final ActorRef interpreter = builder.build();
-                final ActorRef call = call();
+                final ActorRef call = call(null);
                 final SipApplicationSession application = request.getApplicationSession();
                 application.setAttribute(Call.class.getName(), call);
                 call.tell(request, self);
@@ -594,7 +596,7 @@ public final class CallManager extends UntypedActor {
             builder.setFallbackMethod(client.getVoiceFallbackMethod());
             builder.setMonitoring(monitoring);
             final ActorRef interpreter = builder.build();
-            final ActorRef call = call();
+            final ActorRef call = call(null);
             final SipApplicationSession application = request.getApplicationSession();
             application.setAttribute(Call.class.getName(), call);
             call.tell(request, self);
@@ -635,7 +637,6 @@ public final class CallManager extends UntypedActor {
             }
         } else if (CreateCall.class.equals(klass)) {
             try {
-                this.createCallRequest = (CreateCall) message;
                 sender.tell(new CallManagerResponse<ActorRef>(outbound(message)), self);
             } catch (final Exception exception) {
                 sender.tell(new CallManagerResponse<ActorRef>(exception), self);
@@ -660,8 +661,7 @@ public final class CallManager extends UntypedActor {
         } else if (GetActiveProxy.class.equals(klass)) {
             sender.tell(getActiveProxy(), self);
         } else if (SwitchProxy.class.equals(klass)) {
-            this.switchProxyRequest = (SwitchProxy) message;
-            sender.tell(switchProxy(), self);
+            sender.tell(switchProxy(((SwitchProxy) message).getSid()), self);
         } else if (GetProxies.class.equals(klass)) {
             sender.tell(getProxies(message), self);
         }
@@ -675,7 +675,7 @@ public final class CallManager extends UntypedActor {
             if (!ack.getHeaders("Route").hasNext() && patchForNatB2BUASessions) {
                 InetAddress ackRURI = null;
                 try {
-                    ackRURI = InetAddress.getByName(((SipURI) ack.getRequestURI()).getHost());
+                    ackRURI = dns.resolve(((SipURI) ack.getRequestURI()).getHost());
                 } catch (UnknownHostException e) {
                 }
                 // Issue #307: https://telestax.atlassian.net/browse/RESTCOMM-307
@@ -831,9 +831,10 @@ public final class CallManager extends UntypedActor {
         final Configuration runtime = configuration.subset("runtime-settings");
         final boolean useLocalAddressAtFromHeader = runtime.getBoolean("use-local-address", false);
         // final String uri = runtime.getString("outbound-proxy-uri");
-        final String uri = activeProxy;
-        final String proxyUsername = (request.username() != null) ? request.username() : activeProxyUsername;
-        final String proxyPassword = (request.password() != null) ? request.password() : activeProxyPassword;
+        final OutboundProxies.Proxy activeProxy = proxies.getActive();
+        final String uri = activeProxy.getUri();
+        final String proxyUsername = (request.username() != null) ? request.username() : activeProxy.getUsername();
+        final String proxyPassword = (request.password() != null) ? request.password() : activeProxy.getPassword();
         SipURI from = null;
         SipURI to = null;
         boolean webRTC = false;
@@ -864,7 +865,7 @@ public final class CallManager extends UntypedActor {
                     webRTC = registration.isWebRTC();
                 } else {
                     String errMsg = "The SIP Client is not registered or does not exist";
-                    sendNotification(errMsg, 11008, "error", true);
+                    sendNotification(errMsg, 11008, "error", true, request.accountId());
                     throw new NullPointerException(request.to() + " is not currently registered.");
                 }
                 break;
@@ -901,7 +902,7 @@ public final class CallManager extends UntypedActor {
                     break;
                 } else {
                     String errMsg = "The Active Outbound Proxy is null. Please check configuration";
-                    sendNotification(errMsg, 11008, "error", true);
+                    sendNotification(errMsg, 11008, "error", true, request.accountId());
                     throw new NullPointerException(errMsg);
                 }
             }
@@ -927,7 +928,7 @@ public final class CallManager extends UntypedActor {
             //In case From or To are null we have to cancel outbound call and hnagup initial call if needed
             throw new ServletParseException("From and/or To are null, we cannot proceed to the outbound call");
         }
-        final ActorRef call = call();
+        final ActorRef call = call(request.parentCallSid());
         final ActorRef self = self();
         final boolean userAtDisplayedName = runtime.subset("outbound-proxy").getBoolean("user-at-displayed-name");
         InitializeOutbound init;
@@ -1007,7 +1008,7 @@ public final class CallManager extends UntypedActor {
                 SipURI fromInetUri = (SipURI) request.getSession().getAttribute("fromInetUri");
                 InetAddress byeRURI = null;
                 try {
-                    byeRURI = InetAddress.getByName(((SipURI) clonedBye.getRequestURI()).getHost());
+                    byeRURI = dns.resolve(((SipURI) clonedBye.getRequestURI()).getHost());
                 } catch (UnknownHostException e) {
                 }
                 if (toInetUri != null && byeRURI == null) {
@@ -1045,7 +1046,7 @@ public final class CallManager extends UntypedActor {
         final SipServletResponse response = (SipServletResponse) message;
 
         // If Allow-Falback is true, check for error reponses and switch proxy if needed
-        if (allowFallback)
+        if (proxies.isFallbackAllowed())
             checkErrorResponse(response);
 
         final SipApplicationSession application = response.getApplicationSession();
@@ -1062,7 +1063,8 @@ public final class CallManager extends UntypedActor {
                 }
                 String tempRealm = authHeader.substring(authHeader.indexOf("realm=\"") + "realm=\"".length());
                 String realm = tempRealm.substring(0, tempRealm.indexOf("\""));
-                authInfo.addAuthInfo(response.getStatus(), realm, activeProxyUsername, activeProxyPassword);
+                final OutboundProxies.Proxy activeProxy = proxies.getActive();
+                authInfo.addAuthInfo(response.getStatus(), realm, activeProxy.getUsername(), activeProxy.getPassword());
                 SipServletRequest challengeRequest = response.getSession().createRequest(response.getRequest().getMethod());
                 response.getSession().setAttribute(B2BUAHelper.B2BUA_LAST_FINAL_RESPONSE, response);
                 challengeRequest.addAuthHeader(response, authInfo);
@@ -1111,15 +1113,15 @@ public final class CallManager extends UntypedActor {
             if (status != SipServletResponse.SC_UNAUTHORIZED && status != SipServletResponse.SC_PROXY_AUTHENTICATION_REQUIRED
                     && status != SipServletResponse.SC_NOT_FOUND && status > 400) {
 
-                int failures = numberOfFailedCalls.incrementAndGet();
+                int failures = proxies.failed();
                 logger.info("A total number of " + failures + " failures have now been counted.");
 
-                if (failures >= maxNumberOfFailedCalls) {
+                // Only the call manager that resets the count switches the proxy.
+                if (proxies.exceeded(failures)) {
                     logger.info("Max number of failed calls has been reached trying to switch over proxy.");
                     logger.info("Current proxy: " + getActiveProxy().get("ActiveProxy"));
-                    switchProxy();
+                    switchProxy(null);
                     logger.info("Switched to proxy: " + getActiveProxy().get("ActiveProxy"));
-                    numberOfFailedCalls.set(0);
                 }
             }
         }
@@ -1127,24 +1129,14 @@ public final class CallManager extends UntypedActor {
 
     public Map<String, String> getActiveProxy() {
         Map<String, String> activeProxyMap = new ConcurrentHashMap<String, String>();
-        activeProxyMap.put("ActiveProxy", this.activeProxy);
+        activeProxyMap.put("ActiveProxy", proxies.getActive().getUri());
         return activeProxyMap;
     }
 
-    public Map<String, String> switchProxy() {
-        if (activeProxy.equalsIgnoreCase(primaryProxyUri)) {
-            activeProxy = fallBackProxyUri;
-            activeProxyUsername = fallBackProxyUsername;
-            activeProxyPassword = fallBackProxyPassword;
-            useFallbackProxy.set(true);
-        } else if (allowFallbackToPrimary) {
-            activeProxy = primaryProxyUri;
-            activeProxyUsername = primaryProxyUsername;
-            activeProxyPassword = primaryProxyPassword;
-            useFallbackProxy.set(false);
-        }
+    public Map<String, String> switchProxy(final Sid accountId) {
+        proxies.switchProxy();
         final Notification notification = notification(WARNING_NOTIFICATION, 14110,
-                "Max number of failed calls has been reached! Outbound proxy switched");
+                "Max number of failed calls has been reached! Outbound proxy switched", accountId);
         final NotificationsDao notifications = storage.getNotificationsDao();
         notifications.addNotification(notification);
         return getActiveProxy();
@@ -1153,24 +1145,19 @@ public final class CallManager extends UntypedActor {
     public Map<String, String> getProxies(final Object message) {
         Map<String, String> proxies = new ConcurrentHashMap<String, String>();
 
-        proxies.put("ActiveProxy", activeProxy);
-        proxies.put("UsingFallBackProxy", useFallbackProxy.toString());
-        proxies.put("AllowFallbackToPrimary", String.valueOf(allowFallbackToPrimary));
-        proxies.put("PrimaryProxy", primaryProxyUri);
-        proxies.put("FallbackProxy", fallBackProxyUri);
+        proxies.put("ActiveProxy", this.proxies.getActive().getUri());
+        proxies.put("UsingFallBackProxy", String.valueOf(this.proxies.isUsingFallback()));
+        proxies.put("AllowFallbackToPrimary", String.valueOf(this.proxies.isFallbackToPrimaryAllowed()));
+        proxies.put("PrimaryProxy", this.proxies.getPrimary().getUri());
+        proxies.put("FallbackProxy", this.proxies.getFallback().getUri());
 
         return proxies;
     }
 
-    private Notification notification(final int log, final int error, final String message) {
+    private Notification notification(final int log, final int error, final String message, Sid accountId) {
         String version = configuration.subset("runtime-settings").getString("api-version");
-        Sid accountId = null;
         // Sid callSid = new Sid("CA00000000000000000000000000000000");
-        if (createCallRequest != null) {
-            accountId = createCallRequest.accountId();
-        } else if (switchProxyRequest != null) {
-            accountId = switchProxyRequest.getSid();
-        } else {
+        if (accountId == null) {
             accountId = new Sid("ACae6e420f425248d6a26948c17a9e2acf");
         }
 
@@ -24,6 +24,7 @@ import java.io.IOException;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
+import javax.servlet.sip.SipApplicationSessionEvent;
 import javax.servlet.sip.SipFactory;
 import javax.servlet.sip.SipServlet;
 import javax.servlet.sip.SipServletContextEvent;
@@ -34,7 +35,9 @@ import javax.servlet.sip.SipServletResponse;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.log4j.Logger;
+import org.mobicents.servlet.restcomm.configuration.RestcommConfiguration;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
 import org.mobicents.servlet.restcomm.mscontrol.MediaServerControllerFactory;
 import org.mobicents.servlet.restcomm.ussd.telephony.UssdCallManager;
 
@@ -43,6 +46,8 @@ import akka.actor.ActorSystem;
 import akka.actor.Props;
 import akka.actor.UntypedActor;
 import akka.actor.UntypedActorFactory;
+import akka.routing.ConsistentHashingRouter;
+import akka.routing.ConsistentHashingRouter.ConsistentHashMapper;
 
 /**
  * @author quintana.thomas@gmail.com (Thomas Quintana)
@@ -98,14 +103,39 @@ public final class CallManagerProxy extends SipServlet implements SipServletList
     private ActorRef manager(final Configuration configuration, final ServletContext context,
             final MediaServerControllerFactory msControllerfactory, final ActorRef conferences, final ActorRef bridges,
             final ActorRef sms, final SipFactory factory, final DaoManager storage) {
+        // The outbound proxy in use and the failed calls are shared by all the call managers.
+        final OutboundProxies proxies = new OutboundProxies(configuration.subset("runtime-settings").subset("outbound-proxy"));
+        final int workers = RestcommConfiguration.isInitialized() ? RestcommConfiguration.getInstance().getMain()
+                .getCallManagerWorkers() : Runtime.getRuntime().availableProcessors();
+        logger.info("Creating " + workers + " call managers");
         return system.actorOf(new Props(new UntypedActorFactory() {
             private static final long serialVersionUID = 1L;
 
             @Override
             public UntypedActor create() throws Exception {
-                return new CallManager(configuration, context, system, msControllerfactory, conferences, bridges, sms, factory, storage);
+                return new CallManager(configuration, context, system, msControllerfactory, conferences, bridges, sms,
+                        factory, storage, proxies);
             }
-        }));
+        }).withDispatcher(ActorDispatchers.SIGNALING).withRouter(
+                new ConsistentHashingRouter(workers).withHashMapper(new SipApplicationSessionHashMapper())));
+    }
+
+    /**
+     * Sends all the messages of a SIP application session, that is both legs of a B2BUA call, to the same call manager
+     * so that they are handled in order. The other messages do not depend on each other and are spread over the call
+     * managers.
+     */
+    private static final class SipApplicationSessionHashMapper implements ConsistentHashMapper {
+        @Override
+        public Object hashKey(final Object message) {
+            if (message instanceof SipServletMessage) {
+                return ((SipServletMessage) message).getApplicationSession().getId();
+            } else if (message instanceof SipApplicationSessionEvent) {
+                return ((SipApplicationSessionEvent) message).getApplicationSession().getId();
+            }
+            // A string key is hashed as is instead of being serialized.
+            return Integer.toString(System.identityHashCode(message));
+        }
     }
 
     private ActorRef ussdManager(final Configuration configuration, final ServletContext context, final ActorRef conferences,
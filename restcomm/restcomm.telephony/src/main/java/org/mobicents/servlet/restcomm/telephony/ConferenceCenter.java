@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.mobicents.servlet.restcomm.entities.Sid;
 import org.mobicents.servlet.restcomm.mscontrol.MediaServerControllerFactory;
 import org.mobicents.servlet.restcomm.patterns.Observe;
 
@@ -54,13 +55,13 @@ public final class ConferenceCenter extends UntypedActor {
         this.initializing = new HashMap<String, List<ActorRef>>();
     }
 
-    private ActorRef getConference(final String name) {
+    private ActorRef getConference(final String name, final Sid callSid) {
         return getContext().actorOf(new Props(new UntypedActorFactory() {
             private static final long serialVersionUID = 1L;
 
             @Override
             public UntypedActor create() throws Exception {
-                return new Conference(name, factory.provideConferenceController());
+                return new Conference(name, factory.provideConferenceController(name, callSid));
             }
         }));
     }
@@ -164,7 +165,7 @@ public final class ConferenceCenter extends UntypedActor {
         } else {
             observers = new ArrayList<ActorRef>();
             observers.add(sender);
-            conference = getConference(name);
+            conference = getConference(name, request.callSid());
             conference.tell(new Observe(self), self);
             conference.tell(new StartConference(), self);
             initializing.put(name, observers);
@@ -0,0 +1,148 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.telephony;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.configuration.Configuration;
+import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
+import org.mobicents.servlet.restcomm.annotations.concurrency.ThreadSafe;
+
+/**
+ * The primary and fallback outbound proxies together with the proxy in use and the count of failed calls, shared by
+ * all the call managers of the node.
+ */
+@ThreadSafe
+public final class OutboundProxies {
+    private final Proxy primary;
+    private final Proxy fallback;
+    private final boolean allowFallback;
+    private final boolean allowFallbackToPrimary;
+    private final int maxNumberOfFailedCalls;
+
+    private volatile Proxy active;
+    private volatile boolean usingFallback;
+    private final AtomicInteger numberOfFailedCalls;
+
+    /**
+     * @param configuration the runtime-settings/outbound-proxy configuration.
+     */
+    public OutboundProxies(final Configuration configuration) {
+        super();
+        this.primary = new Proxy(configuration.getString("outbound-proxy-uri"),
+                configuration.getString("outbound-proxy-user"), configuration.getString("outbound-proxy-password"));
+        this.fallback = new Proxy(configuration.getString("fallback-outbound-proxy-uri"),
+                configuration.getString("fallback-outbound-proxy-user"),
+                configuration.getString("fallback-outbound-proxy-password"));
+        this.allowFallback = configuration.getBoolean("allow-fallback", false);
+        this.allowFallbackToPrimary = configuration.getBoolean("allow-fallback-to-primary", false);
+        this.maxNumberOfFailedCalls = configuration.getInt("max-failed-calls", 20);
+        this.active = primary;
+        this.usingFallback = false;
+        this.numberOfFailedCalls = new AtomicInteger();
+    }
+
+    public Proxy getActive() {
+        return active;
+    }
+
+    public Proxy getPrimary() {
+        return primary;
+    }
+
+    public Proxy getFallback() {
+        return fallback;
+    }
+
+    public boolean isUsingFallback() {
+        return usingFallback;
+    }
+
+    public boolean isFallbackAllowed() {
+        return allowFallback;
+    }
+
+    public boolean isFallbackToPrimaryAllowed() {
+        return allowFallbackToPrimary;
+    }
+
+    /**
+     * Switches from the primary to the fallback proxy or, if allowed, back to the primary proxy.
+     *
+     * @return the proxy in use after the switch.
+     */
+    public synchronized Proxy switchProxy() {
+        final String uri = active.getUri();
+        if (uri != null && uri.equalsIgnoreCase(primary.getUri())) {
+            active = fallback;
+            usingFallback = true;
+        } else if (allowFallbackToPrimary) {
+            active = primary;
+            usingFallback = false;
+        }
+        return active;
+    }
+
+    /**
+     * Counts a failed call.
+     *
+     * @return the number of failed calls counted since the last switch.
+     */
+    public int failed() {
+        return numberOfFailedCalls.incrementAndGet();
+    }
+
+    /**
+     * Starts counting the failed calls again once their number has reached the maximum. When several call managers
+     * reach the maximum at the same time only one of them succeeds and must switch the proxy.
+     *
+     * @param failures the number of failed calls returned by {@link #failed()}.
+     * @return true if the caller must switch the proxy.
+     */
+    public boolean exceeded(final int failures) {
+        return failures >= maxNumberOfFailedCalls && numberOfFailedCalls.compareAndSet(failures, 0);
+    }
+
+    @Immutable
+    public static final class Proxy {
+        private final String uri;
+        private final String username;
+        private final String password;
+
+        private Proxy(final String uri, final String username, final String password) {
+            super();
+            this.uri = uri;
+            this.username = username;
+            this.password = password;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+    }
+}
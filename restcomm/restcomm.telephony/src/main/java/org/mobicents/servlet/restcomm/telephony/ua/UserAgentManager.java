@@ -26,13 +26,13 @@ import static javax.servlet.sip.SipServletResponse.SC_PROXY_AUTHENTICATION_REQUI
 import static org.mobicents.servlet.restcomm.util.HexadecimalUtils.toHex;
 
 import java.io.IOException;
-import java.net.InetAddress;
-import java.net.UnknownHostException;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -49,19 +49,24 @@ import javax.servlet.sip.SipURI;
 
 import org.apache.commons.configuration.Configuration;
 import org.joda.time.DateTime;
+import org.mobicents.servlet.restcomm.annotations.concurrency.Immutable;
 import org.mobicents.servlet.restcomm.dao.ClientsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.dao.RegistrationsDao;
+import org.mobicents.servlet.restcomm.dao.mybatis.InMemoryRegistrationsDao;
 import org.mobicents.servlet.restcomm.entities.Client;
 import org.mobicents.servlet.restcomm.entities.Registration;
 import org.mobicents.servlet.restcomm.entities.Sid;
+import org.mobicents.servlet.restcomm.telephony.KeepAliveStatistics;
 import org.mobicents.servlet.restcomm.telephony.UserRegistration;
 import org.mobicents.servlet.restcomm.util.DigestAuthentication;
+import org.mobicents.servlet.restcomm.util.HashedTimerWheel;
+import org.mobicents.servlet.restcomm.util.RateLimiter;
 
 import com.telestax.servlet.MonitoringService;
 
 import akka.actor.ActorRef;
-import akka.actor.ReceiveTimeout;
+import akka.actor.Cancellable;
 import akka.actor.UntypedActor;
 import akka.event.Logging;
 import akka.event.LoggingAdapter;
@@ -78,6 +83,20 @@ public final class UserAgentManager extends UntypedActor {
     private final DaoManager storage;
     private final ServletContext servletContext;
     private ActorRef monitoringService;
+    // In milliseconds, the time between two keep alives of a registration.
+    private final long pingInterval;
+    // In milliseconds, the time to wait for the response to a keep alive.
+    private final long pingTimeout;
+    private final RateLimiter pingLimiter;
+    // The registrations kept in memory, null if they are only kept in the data store.
+    private final InMemoryRegistrationsDao locations;
+    private final HashedTimerWheel timer;
+    // The next keep alive of each registered location.
+    private final Map<String, HashedTimerWheel.Timeout> keepAlives;
+    // The keep alives waiting for a response keyed by Call-ID.
+    private final Map<String, Ping> pings;
+    // Removes the expired registrations from the data store, null if the registrations are kept in memory.
+    private final Cancellable sweep;
 
     public UserAgentManager(final Configuration configuration, final SipFactory factory, final DaoManager storage,
             final ServletContext servletContext) {
@@ -89,19 +108,114 @@ public final class UserAgentManager extends UntypedActor {
         this.authenticateUsers = runtime.getBoolean("authenticate");
         this.factory = factory;
         this.storage = storage;
-        int pingInterval = runtime.getInt("ping-interval", 60);
-        getContext().setReceiveTimeout(Duration.create(pingInterval, TimeUnit.SECONDS));
+        this.pingInterval = TimeUnit.SECONDS.toMillis(runtime.getInt("ping-interval", 60));
+        this.pingTimeout = TimeUnit.SECONDS.toMillis(runtime.getInt("ping-timeout", 40));
+        this.pingLimiter = new RateLimiter(runtime.getInt("ping-max-rate", 100));
+        this.keepAlives = new HashMap<String, HashedTimerWheel.Timeout>();
+        this.pings = new HashMap<String, Ping>();
+        final ActorRef self = self();
+        final RegistrationsDao registrations = storage.getRegistrationsDao();
+        if (registrations instanceof InMemoryRegistrationsDao) {
+            // The registrations expire on the timer wheel instead of being scanned.
+            this.locations = (InMemoryRegistrationsDao) registrations;
+            this.timer = locations.getTimer();
+            this.sweep = null;
+            locations.setListener(new InMemoryRegistrationsDao.Listener() {
+                @Override
+                public void expired(final Registration registration) {
+                    self.tell(new Expired(registration), null);
+                }
+            });
+            for (final Registration registration : locations.getRegistrations()) {
+                scheduleKeepAlive(registration, phase(registration.getLocation()));
+            }
+        } else {
+            this.locations = null;
+            this.timer = new HashedTimerWheel("restcomm-keep-alive-timer", 100, TimeUnit.MILLISECONDS, 1024);
+            final Duration interval = Duration.create(pingInterval, TimeUnit.MILLISECONDS);
+            this.sweep = getContext().system().scheduler()
+                    .schedule(interval, interval, self, new Sweep(), getContext().dispatcher());
+        }
+    }
+
+    // The time until the next keep alive of a location. Every location is given a fixed position within the interval,
+    // so that the keep alives are spread over the whole interval and stay spread after a restart.
+    private long phase(final String location) {
+        final long position = (location.hashCode() & Integer.MAX_VALUE) % pingInterval;
+        final long delay = position - System.currentTimeMillis() % pingInterval;
+        return delay < 0 ? delay + pingInterval : delay;
+    }
+
+    private void scheduleKeepAlive(final Registration registration, final long delay) {
+        final ActorRef self = self();
+        final HashedTimerWheel.Timeout previous = keepAlives.put(registration.getLocation(),
+                timer.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        self.tell(new KeepAlive(registration), null);
+                    }
+                }, delay, TimeUnit.MILLISECONDS));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private void cancelKeepAlive(final String location) {
+        final HashedTimerWheel.Timeout timeout = keepAlives.remove(location);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    // The keep alives of the registrations removed locally are cancelled on removal and the ones of the registrations
+    // removed by other nodes by the sweep, so the registration is not read again from the data store.
+    private void keepAlive(final Registration registration) throws Exception {
+        final String location = registration.getLocation();
+        scheduleKeepAlive(registration, pingInterval);
+        // Keep alives that cannot be sent before the next one of the same location are skipped.
+        final long wait = pingLimiter.reserve(pingInterval, TimeUnit.MILLISECONDS);
+        if (wait < 0) {
+            KeepAliveStatistics.skipped();
+            logger.debug("Too many keep alives, skipping the one to " + location);
+        } else if (wait == 0) {
+            ping(location);
+        } else {
+            final ActorRef self = self();
+            timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    self.tell(new SendPing(location), null);
+                }
+            }, wait, TimeUnit.MILLISECONDS);
+        }
     }
 
-    private void clean() {
+    // A single scan of the data store removes the expired registrations, keeps alive the ones added by other nodes or
+    // by a previous run and stops keeping alive the ones removed by other nodes.
+    private void sweep() {
         final RegistrationsDao registrations = storage.getRegistrationsDao();
-        final List<Registration> results = registrations.getRegistrations();
-        for (final Registration result : results) {
-            final DateTime expires = result.getDateExpires();
+        final Set<String> live = new HashSet<String>();
+        for (final Registration registration : registrations.getRegistrations()) {
+            final String location = registration.getLocation();
+            final DateTime expires = registration.getDateExpires();
             if (expires.isBeforeNow() || expires.isEqualNow()) {
-                logger.info("Registration: "+result.getAddressOfRecord()+" expired and will remove it now");
-                registrations.removeRegistration(result);
-                monitoringService.tell(new UserRegistration(result.getUserName(), result.getLocation(), false), self());
+                logger.info("Registration: "+registration.getAddressOfRecord()+" expired and will remove it now");
+                registrations.removeRegistration(registration);
+                cancelKeepAlive(location);
+                monitoringService.tell(new UserRegistration(registration.getUserName(), location, false), self());
+            } else {
+                live.add(location);
+                if (!keepAlives.containsKey(location)) {
+                    scheduleKeepAlive(registration, phase(location));
+                }
+            }
+        }
+        final Iterator<String> locations = keepAlives.keySet().iterator();
+        while (locations.hasNext()) {
+            final String location = locations.next();
+            if (!live.contains(location)) {
+                keepAlives.get(location).cancel();
+                locations.remove();
             }
         }
     }
@@ -125,15 +239,6 @@ public final class UserAgentManager extends UntypedActor {
         response.send();
     }
 
-    private void keepAlive() throws Exception {
-        final RegistrationsDao registrations = storage.getRegistrationsDao();
-        final List<Registration> results = registrations.getRegistrations();
-        for (final Registration result : results) {
-            final String to = result.getLocation();
-            ping(to);
-        }
-    }
-
     private String nonce() {
         final byte[] uuid = UUID.randomUUID().toString().getBytes();
         final char[] hex = toHex(uuid);
@@ -142,9 +247,18 @@ public final class UserAgentManager extends UntypedActor {
 
     @Override
     public void onReceive(final Object message) throws Exception {
-        if (message instanceof ReceiveTimeout) {
-            clean();
-            keepAlive();
+        if (message instanceof Sweep) {
+            sweep();
+        } else if (message instanceof KeepAlive) {
+            keepAlive(((KeepAlive) message).registration);
+        } else if (message instanceof SendPing) {
+            ping(((SendPing) message).location);
+        } else if (message instanceof PingTimeout) {
+            timeout(((PingTimeout) message).callId);
+        } else if (message instanceof Expired) {
+            final Registration registration = ((Expired) message).registration;
+            cancelKeepAlive(registration.getLocation());
+            monitoringService.tell(new UserRegistration(registration.getUserName(), registration.getLocation(), false), self());
         } else if (message instanceof SipServletRequest) {
             final SipServletRequest request = (SipServletRequest) message;
             final String method = request.getMethod();
@@ -162,6 +276,9 @@ public final class UserAgentManager extends UntypedActor {
             }
         } else if (message instanceof SipServletResponse) {
             SipServletResponse response = (SipServletResponse) message;
+            if (response.getMethod().equalsIgnoreCase("OPTIONS")) {
+                answered(response);
+            }
             if (response.getStatus()>400 && response.getMethod().equalsIgnoreCase("OPTIONS")) {
                 removeRegistration(response);
             } else {
@@ -186,6 +303,7 @@ public final class UserAgentManager extends UntypedActor {
                 if (reg.getAddressOfRecord().equalsIgnoreCase(locationToRemove)) {
                     logger.info("Registration: " + reg.getLocation() + " failed to response to OPTIONS and will be removed");
                     regDao.removeRegistration(reg);
+                    cancelKeepAlive(reg.getLocation());
                     monitoringService.tell(new UserRegistration(reg.getUserName(), reg.getLocation(), false), self());
                 }
 
@@ -193,9 +311,7 @@ public final class UserAgentManager extends UntypedActor {
         }
     }
 
-    private void patch(final SipURI uri, final String address, final int port) throws UnknownHostException {
-        final InetAddress host = InetAddress.getByName(uri.getHost());
-        final String ip = host.getHostAddress();
+    private void patch(final SipURI uri, final String address, final int port) {
         uri.setHost(address);
         uri.setPort(port);
     }
@@ -248,10 +364,59 @@ public final class UserAgentManager extends UntypedActor {
             ping.send();
         } catch (IOException e) {
             logger.warning("There was an exception trying to ping client: "+to+" , will remove registration. Exception: "+e);
+            KeepAliveStatistics.failed(false);
             removeRegistration(ping);
+            return;
+        }
+        final String callId = ping.getCallId();
+        final ActorRef self = self();
+        final HashedTimerWheel.Timeout timeout = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                self.tell(new PingTimeout(callId), null);
+            }
+        }, pingTimeout, TimeUnit.MILLISECONDS);
+        pings.put(callId, new Ping(to, System.nanoTime(), timeout));
+        KeepAliveStatistics.sent();
+    }
+
+    private void answered(final SipServletResponse response) {
+        if (response.getStatus() < SC_OK) {
+            return;
+        }
+        final Ping ping = pings.remove(response.getCallId());
+        if (ping == null) {
+            return;
+        }
+        ping.timeout.cancel();
+        if (response.getStatus() > 400) {
+            KeepAliveStatistics.failed(true);
+        } else {
+            KeepAliveStatistics.answered(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ping.sent));
         }
     }
 
+    private void timeout(final String callId) throws ServletException {
+        final Ping ping = pings.remove(callId);
+        if (ping == null) {
+            return;
+        }
+        KeepAliveStatistics.timedOut();
+        logger.info("Registration: " + ping.location + " did not respond to OPTIONS and will be removed");
+        final String user = ((SipURI) factory.createURI(ping.location)).getUser();
+        final RegistrationsDao registrations = storage.getRegistrationsDao();
+        final List<Registration> results = registrations.getRegistrations(user);
+        if (results != null) {
+            for (final Registration registration : results) {
+                if (ping.location.equals(registration.getLocation())) {
+                    registrations.removeRegistration(registration);
+                    monitoringService.tell(new UserRegistration(user, ping.location, false), self());
+                }
+            }
+        }
+        cancelKeepAlive(ping.location);
+    }
+
     private void pong(final Object message) {
         final SipServletResponse response = (SipServletResponse) message;
             if (response.getApplicationSession().isValid()) {
@@ -340,6 +505,7 @@ public final class UserAgentManager extends UntypedActor {
         if (ttl == 0) {
             // Remove Registration if ttl=0
             registrations.removeRegistration(registration);
+            cancelKeepAlive(address);
             response.setHeader("Expires", "0");
             monitoringService.tell(new UserRegistration(user, address, false), self());
             logger.info("The user agent manager unregistered " + user + " at address "+address);
@@ -354,6 +520,10 @@ public final class UserAgentManager extends UntypedActor {
                 registrations.addRegistration(registration);
                 logger.info("The user agent manager registered " + user + " at address " + address);
             }
+            if (!keepAlives.containsKey(address)) {
+                // The client has just been heard from, its first keep alive is sent after at least an interval.
+                scheduleKeepAlive(registration, pingInterval + phase(address));
+            }
             response.setHeader("Contact", contact(uri, ttl));
         }
         // Success
@@ -405,4 +575,82 @@ public final class UserAgentManager extends UntypedActor {
         }
         return map;
     }
+
+    @Override
+    public void postStop() {
+        if (sweep != null) {
+            sweep.cancel();
+        }
+        for (final HashedTimerWheel.Timeout timeout : keepAlives.values()) {
+            timeout.cancel();
+        }
+        for (final Ping ping : pings.values()) {
+            ping.timeout.cancel();
+        }
+        if (locations == null) {
+            timer.stop();
+        }
+        super.postStop();
+    }
+
+    @Immutable
+    private static final class Sweep {
+        private Sweep() {
+            super();
+        }
+    }
+
+    @Immutable
+    private static final class KeepAlive {
+        private final Registration registration;
+
+        private KeepAlive(final Registration registration) {
+            super();
+            this.registration = registration;
+        }
+    }
+
+    @Immutable
+    private static final class Expired {
+        private final Registration registration;
+
+        private Expired(final Registration registration) {
+            super();
+            this.registration = registration;
+        }
+    }
+
+    @Immutable
+    private static final class SendPing {
+        private final String location;
+
+        private SendPing(final String location) {
+            super();
+            this.location = location;
+        }
+    }
+
+    @Immutable
+    private static final class PingTimeout {
+        private final String callId;
+
+        private PingTimeout(final String callId) {
+            super();
+            this.callId = callId;
+        }
+    }
+
+    @Immutable
+    private static final class Ping {
+        private final String location;
+        private final long sent;
+        private final HashedTimerWheel.Timeout timeout;
+
+        private Ping(final String location, final long sent, final HashedTimerWheel.Timeout timeout) {
+            super();
+            this.location = location;
+            this.sent = sent;
+            this.timeout = timeout;
+        }
+    }
 }
@@ -34,9 +34,10 @@ import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
 import org.mobicents.servlet.restcomm.cache.HashGenerator;
+import org.mobicents.servlet.restcomm.http.CustomHttpClientBuilder;
 import org.mobicents.servlet.restcomm.tts.api.GetSpeechSynthesizerInfo;
 import org.mobicents.servlet.restcomm.tts.api.SpeechSynthesizerException;
 import org.mobicents.servlet.restcomm.tts.api.SpeechSynthesizerInfo;
@@ -225,7 +226,7 @@ public final class AcapelaSpeechSynthesizer extends UntypedActor {
         final HttpPost post = new HttpPost(service);
         final UrlEncodedFormEntity entity = new UrlEncodedFormEntity(query, "UTF-8");
         post.setEntity(entity);
-        final HttpClient client = new DefaultHttpClient();
+        final HttpClient client = CustomHttpClientBuilder.buildDefault();
         final HttpResponse response = client.execute(post);
         final StatusLine line = response.getStatusLine();
         final int status = line.getStatusCode();
@@ -245,6 +246,7 @@ public final class AcapelaSpeechSynthesizer extends UntypedActor {
         } else {
             logger.info("AcapelaSpeechSynthesizer error, status code: " + line.getStatusCode() + (" reason phrase: ")
                     + line.getReasonPhrase());
+            EntityUtils.consume(response.getEntity());
             final StringBuilder buffer = new StringBuilder();
             buffer.append(line.getStatusCode()).append(" ").append(line.getReasonPhrase());
             throw new SpeechSynthesizerException(buffer.toString());
@@ -0,0 +1,224 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2014, Telestax Inc and individual contributors
+ * by the @authors tag.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *
+ */
+package org.mobicents.servlet.restcomm.tts.api;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.configuration.Configuration;
+import org.mobicents.servlet.restcomm.cache.HashGenerator;
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
+import org.mobicents.servlet.restcomm.metrics.LatencyHistogram;
+import org.mobicents.servlet.restcomm.metrics.Metrics;
+
+import akka.actor.Actor;
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.actor.UntypedActor;
+import akka.actor.UntypedActorContext;
+import akka.actor.UntypedActorFactory;
+import akka.event.Logging;
+import akka.event.LoggingAdapter;
+import scala.concurrent.duration.Duration;
+
+/**
+ * Shares a fixed number of speech synthesizers between all the interpreters.
+ *
+ * Each worker synthesizes one request at a time. Requests for the same gender, language and text that arrive
+ * while a synthesis is in progress do not reach the workers, they are answered with the response of the
+ * synthesis in progress.
+ *
+ * A synthesis that is not over within the timeout, waiting for a worker included, is answered with a failure. Its
+ * worker is stopped and replaced, a late response from it is ignored.
+ */
+public final class SpeechSynthesizerPool extends UntypedActor {
+    private static final LatencyHistogram SYNTHESIS = Metrics.timer("tts.synthesis");
+
+    private final LoggingAdapter logger = Logging.getLogger(getContext().system(), this);
+
+    private final Configuration configuration;
+    private final long timeout;
+    private final List<ActorRef> workers;
+    private final Queue<ActorRef> idle;
+    // The request each busy worker is synthesizing.
+    private final Map<ActorRef, String> busy;
+    private final Queue<String> pending;
+    private final Map<String, SpeechSynthesizerRequest> requests;
+    private final Map<String, List<ActorRef>> waiters;
+    // When each request was received, the synthesis is timed from there including the wait for a worker.
+    private final Map<String, Long> started;
+    private int next;
+
+    /**
+     * @param timeout in milliseconds, how long a synthesis may take.
+     */
+    public SpeechSynthesizerPool(final Configuration configuration, final int size, final long timeout) {
+        super();
+        this.configuration = configuration;
+        this.timeout = timeout;
+        this.workers = new ArrayList<ActorRef>(size);
+        this.idle = new ArrayDeque<ActorRef>(size);
+        for (int index = 0; index < size; index++) {
+            final ActorRef worker = worker(configuration);
+            workers.add(worker);
+            idle.add(worker);
+        }
+        this.busy = new HashMap<ActorRef, String>();
+        this.pending = new ArrayDeque<String>();
+        this.requests = new HashMap<String, SpeechSynthesizerRequest>();
+        this.waiters = new HashMap<String, List<ActorRef>>();
+        this.started = new HashMap<String, Long>();
+        this.next = 0;
+    }
+
+    private ActorRef worker(final Configuration configuration) {
+        final String classpath = configuration.getString("[@class]");
+
+        final UntypedActorContext context = getContext();
+        return context.actorOf(new Props(new UntypedActorFactory() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Actor create() throws Exception {
+                return (UntypedActor) Class.forName(classpath).getConstructor(Configuration.class).newInstance(configuration);
+            }
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO));
+    }
+
+    @Override
+    public void onReceive(final Object message) throws Exception {
+        final Class<?> klass = message.getClass();
+        final ActorRef self = self();
+        final ActorRef sender = sender();
+        if (SpeechSynthesizerRequest.class.equals(klass)) {
+            final SpeechSynthesizerRequest request = (SpeechSynthesizerRequest) message;
+            final String key = HashGenerator.hashMessage(request.gender(), request.language(), request.text());
+            List<ActorRef> list = waiters.get(key);
+            if (list != null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Coalescing speech synthesizer request " + key);
+                }
+                list.add(sender);
+                return;
+            }
+            list = new ArrayList<ActorRef>();
+            list.add(sender);
+            waiters.put(key, list);
+            requests.put(key, request);
+            final long start = System.nanoTime();
+            started.put(key, start);
+            pending.add(key);
+            getContext().system().scheduler().scheduleOnce(Duration.create(timeout, TimeUnit.MILLISECONDS), self,
+                    new Expired(key, start), getContext().dispatcher());
+            dispatch(self);
+        } else if (SpeechSynthesizerResponse.class.equals(klass)) {
+            final String key = busy.remove(sender);
+            if (key == null) {
+                return;
+            }
+            final Long start = started.remove(key);
+            if (start != null) {
+                SYNTHESIS.recordSince(start);
+            }
+            final List<ActorRef> list = waiters.remove(key);
+            if (list != null) {
+                for (final ActorRef waiter : list) {
+                    if (waiter != null && !waiter.isTerminated()) {
+                        waiter.tell(message, self);
+                    }
+                }
+            }
+            idle.add(sender);
+            dispatch(self);
+        } else if (Expired.class.equals(klass)) {
+            expired((Expired) message, self);
+        } else if (GetSpeechSynthesizerInfo.class.equals(klass)) {
+            // The info does not depend on the worker and is sent straight back to the sender.
+            final ActorRef worker = workers.get(next);
+            next = (next + 1) % workers.size();
+            worker.forward(message, getContext());
+        }
+    }
+
+    private void expired(final Expired expired, final ActorRef self) {
+        final Long start = started.get(expired.key);
+        // The synthesis is over or this is the timeout of an earlier synthesis of the same text.
+        if (start == null || start != expired.start) {
+            return;
+        }
+        logger.warning("Speech synthesis " + expired.key + " did not complete within " + timeout + " ms");
+        started.remove(expired.key);
+        if (pending.remove(expired.key)) {
+            requests.remove(expired.key);
+        } else {
+            ActorRef worker = null;
+            for (final Map.Entry<ActorRef, String> entry : busy.entrySet()) {
+                if (expired.key.equals(entry.getValue())) {
+                    worker = entry.getKey();
+                    break;
+                }
+            }
+            if (worker != null) {
+                busy.remove(worker);
+                getContext().stop(worker);
+                final ActorRef replacement = worker(configuration);
+                workers.set(workers.indexOf(worker), replacement);
+                idle.add(replacement);
+            }
+        }
+        final List<ActorRef> list = waiters.remove(expired.key);
+        if (list != null) {
+            final SpeechSynthesizerResponse<Object> failure = new SpeechSynthesizerResponse<Object>(new TimeoutException(
+                    "The speech synthesis did not complete within " + timeout + " ms"));
+            for (final ActorRef waiter : list) {
+                if (waiter != null && !waiter.isTerminated()) {
+                    waiter.tell(failure, self);
+                }
+            }
+        }
+        dispatch(self);
+    }
+
+    private void dispatch(final ActorRef self) {
+        while (!idle.isEmpty() && !pending.isEmpty()) {
+            final String key = pending.poll();
+            final ActorRef worker = idle.poll();
+            busy.put(worker, key);
+            worker.tell(requests.remove(key), self);
+        }
+    }
+
+    private static final class Expired {
+        private final String key;
+        private final long start;
+
+        private Expired(final String key, final long start) {
+            super();
+            this.key = key;
+            this.start = start;
+        }
+    }
+}
@@ -39,10 +39,10 @@ import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.EntityUtils;
 import org.mobicents.servlet.restcomm.cache.HashGenerator;
+import org.mobicents.servlet.restcomm.http.CustomHttpClientBuilder;
 import org.mobicents.servlet.restcomm.tts.api.GetSpeechSynthesizerInfo;
 import org.mobicents.servlet.restcomm.tts.api.SpeechSynthesizerException;
 import org.mobicents.servlet.restcomm.tts.api.SpeechSynthesizerInfo;
@@ -170,7 +170,7 @@ public final class VoiceRSSSpeechSynthesizer extends UntypedActor {
         final HttpPost post = new HttpPost(service);
         final UrlEncodedFormEntity entity = new UrlEncodedFormEntity(query, "UTF-8");
         post.setEntity(entity);
-        final HttpClient client = new DefaultHttpClient();
+        final HttpClient client = CustomHttpClientBuilder.buildDefault();
         final HttpResponse response = client.execute(post);
         final StatusLine line = response.getStatusLine();
         final int status = line.getStatusCode();
@@ -206,6 +206,7 @@ public final class VoiceRSSSpeechSynthesizer extends UntypedActor {
         } else {
             logger.info("VoiceRSSSpeechSynthesizer error, status code: " + line.getStatusCode() + (" reason phrase: ")
                     + line.getReasonPhrase());
+            EntityUtils.consume(response.getEntity());
             final StringBuilder buffer = new StringBuilder();
             buffer.append(line.getStatusCode()).append(" ").append(line.getReasonPhrase());
             throw new SpeechSynthesizerException(buffer.toString());
@@ -50,6 +50,7 @@ import org.joda.time.DateTime;
 import org.mobicents.servlet.restcomm.dao.CallDetailRecordsDao;
 import org.mobicents.servlet.restcomm.dao.DaoManager;
 import org.mobicents.servlet.restcomm.dao.NotificationsDao;
+import org.mobicents.servlet.restcomm.dispatch.ActorDispatchers;
 import org.mobicents.servlet.restcomm.email.EmailService;
 import org.mobicents.servlet.restcomm.api.EmailRequest;
 import org.mobicents.servlet.restcomm.api.Mail;
@@ -295,7 +296,7 @@ public class UssdInterpreter extends UntypedActor {
             public Actor create() throws Exception {
                 return new EmailService(configuration);
             }
-        }));
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO));
     }
 
     ActorRef downloader() {
@@ -307,7 +308,7 @@ public class UssdInterpreter extends UntypedActor {
             public UntypedActor create() throws Exception {
                 return new Downloader();
             }
-        }));
+        }).withDispatcher(ActorDispatchers.BLOCKING_IO));
     }
 
     ActorRef parser(final String xml) {
@@ -638,7 +639,7 @@ public class UssdInterpreter extends UntypedActor {
             }
             // Ask the downloader to get us the application that will be executed.
             final List<NameValuePair> parameters = parameters();
-            request = new HttpRequestDescriptor(url, method, parameters);
+            request = new HttpRequestDescriptor(url, method, parameters, true);
             downloader.tell(request, source);
         }
     }
@@ -672,7 +673,7 @@ public class UssdInterpreter extends UntypedActor {
             }
             // Try to use the fall back url and method.
             final List<NameValuePair> parameters = parameters();
-            request = new HttpRequestDescriptor(fallbackUrl, fallbackMethod, parameters);
+            request = new HttpRequestDescriptor(fallbackUrl, fallbackMethod, parameters, true);
             downloader.tell(request, source);
         }
     }